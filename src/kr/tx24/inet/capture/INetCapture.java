@@ -0,0 +1,231 @@
+package kr.tx24.inet.capture;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import kr.tx24.lib.inter.INet;
+import kr.tx24.lib.logback.MaskConverter;
+import kr.tx24.lib.map.SharedMap;
+
+/**
+ * INet 트래픽 캡처
+ *
+ * <p>{@link kr.tx24.inet.codec.INetDecoder} / {@link kr.tx24.inet.codec.INetEncoder} 가 수신·송신한
+ * 프레임을 {@link #record} 로 전달하면, 별도 writer 스레드가 head/data 의 값을 {@link MaskConverter}
+ * 규칙으로 마스킹한 뒤 {@link INetCaptureFile} 에 기록한다. 캡처 파일은 {@link INetReplay} 로 재현한다.</p>
+ *
+ * <p>비활성 상태에서는 codec 이 {@link #isEnabled()} (volatile 읽기) 만 수행한다.
+ * 활성 상태에서도 I/O 스레드는 큐에 넣기만 하며, 큐가 가득 차면 기록하지 않고 버린다.</p>
+ */
+public final class INetCapture {
+
+	private static final Logger logger = LoggerFactory.getLogger(INetCapture.class);
+
+	public static final byte INBOUND	= 1;
+	public static final byte OUTBOUND	= 2;
+
+	private static final int DEFAULT_QUEUE_SIZE		= 10_000;
+	private static final long DEFAULT_MAX_SIZE_MB	= 1024L;
+	private static final String DEFAULT_FILE		= "./capture/inet.cap";
+
+	private static volatile boolean enabled			= false;
+	private static volatile boolean outbound		= false;
+	private static volatile BlockingQueue<Entry> queue;
+	private static volatile Thread writer;
+
+	private static final AtomicLong capturedCount	= new AtomicLong();
+	private static final AtomicLong droppedCount	= new AtomicLong();
+
+	private static long startNanos;
+
+	private record Entry(long nanos, byte direction, byte[] frame) {}
+
+	private INetCapture() {
+	}
+
+	/**
+	 * 캡처를 시작한다.
+	 * 설정 형식은 {@link kr.tx24.inet.conf.INetConfigLoader#getCaptureConfig()} 참고.
+	 */
+	public static synchronized void start(SharedMap<String, Object> config) {
+		if (enabled) {
+			return;
+		}
+
+		Path path		= Paths.get(config.getString("file", DEFAULT_FILE));
+		long maxSize	= config.getLong("maxSize", DEFAULT_MAX_SIZE_MB) * 1024L * 1024L;
+		int queueSize	= config.getInt("queueSize", DEFAULT_QUEUE_SIZE);
+
+		INetCaptureFile file;
+		try {
+			file = new INetCaptureFile(path, maxSize);
+		} catch (Exception e) {
+			logger.warn("INet capture disabled, failed to open {}", path, e);
+			return;
+		}
+
+		queue		= new ArrayBlockingQueue<>(queueSize);
+		outbound	= config.getBoolean("outbound");
+		startNanos	= System.nanoTime();
+		capturedCount.set(0);
+		droppedCount.set(0);
+
+		writer = new Thread(() -> drain(file), "inet-capture");
+		writer.setDaemon(true);
+		writer.start();
+		enabled = true;
+
+		logger.info("INet capture started: file={}, maxSize={}MB, queueSize={}, outbound={}",
+				path.toAbsolutePath(), maxSize / (1024 * 1024), queueSize, outbound);
+	}
+
+	/**
+	 * 캡처를 중지하고 대기 중인 프레임을 모두 기록한 뒤 파일을 닫는다.
+	 */
+	public static synchronized void stop() {
+		if (!enabled) {
+			return;
+		}
+		enabled = false;
+
+		Thread t = writer;
+		writer = null;
+		if (t != null) {
+			t.interrupt();
+			try {
+				t.join(TimeUnit.SECONDS.toMillis(5));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		logger.info("INet capture stopped: captured={}, dropped={}", capturedCount.get(), droppedCount.get());
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * codec 에서 호출한다. frame 은 호출 이후 변경되지 않아야 한다.
+	 * @param frame 길이 필드를 제외한 직렬화 데이터
+	 */
+	public static void record(byte direction, byte[] frame) {
+		if (!enabled || (direction == OUTBOUND && !outbound)) {
+			return;
+		}
+		BlockingQueue<Entry> q = queue;
+		if (q == null || !q.offer(new Entry(System.nanoTime(), direction, frame))) {
+			droppedCount.incrementAndGet();
+		}
+	}
+
+	public static long getCapturedCount() {
+		return capturedCount.get();
+	}
+
+	public static long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+
+	private static void drain(INetCaptureFile file) {
+		BlockingQueue<Entry> q = queue;
+		try (file) {
+			while (true) {
+				Entry entry;
+				try {
+					entry = q.take();
+				} catch (InterruptedException e) {
+					// stop() : 남은 프레임을 기록하고 종료
+					while ((entry = q.poll()) != null) {
+						write(file, entry);
+					}
+					break;
+				}
+				write(file, entry);
+			}
+		} catch (Exception e) {
+			logger.warn("INet capture file close failed", e);
+		}
+	}
+
+	private static void write(INetCaptureFile file, Entry entry) {
+		try {
+			if (file.append(entry.nanos() - startNanos, entry.direction(), mask(entry.frame()))) {
+				capturedCount.incrementAndGet();
+			} else {
+				droppedCount.incrementAndGet();
+			}
+		} catch (Exception e) {
+			droppedCount.incrementAndGet();
+			logger.debug("INet capture write failed", e);
+		}
+	}
+
+	/**
+	 * head/data 의 값을 마스킹하여 원래 형식(legacy / head-first)으로 다시 직렬화한다.
+	 */
+	static byte[] mask(byte[] frame) throws Exception {
+		INet inet = new INet(frame);
+		maskMap(inet.head());
+		maskMap(inet.data());
+		return inet.serialize(inet.isHeadFirst());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void maskMap(Map<?, Object> map) {
+		for (Map.Entry<?, Object> e : map.entrySet()) {
+			String key		= String.valueOf(e.getKey());
+			Object value	= e.getValue();
+			if (value instanceof Map) {
+				maskMap((Map<?, Object>) value);
+			} else if (value instanceof List) {
+				maskList(key, (List<Object>) value);
+			} else if (value != null) {
+				Object masked = maskValue(key, value);
+				if (masked != value) {
+					e.setValue(masked);
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void maskList(String key, List<Object> list) {
+		for (int i = 0; i < list.size(); i++) {
+			Object value = list.get(i);
+			if (value instanceof Map) {
+				maskMap((Map<?, Object>) value);
+			} else if (value instanceof List) {
+				maskList(key, (List<Object>) value);
+			} else if (value != null) {
+				Object masked = maskValue(key, value);
+				if (masked != value) {
+					list.set(i, masked);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 마스킹 대상이 아니면 원래 객체(타입)를 그대로 반환한다.
+	 */
+	private static Object maskValue(String key, Object value) {
+		if (!(value instanceof CharSequence) && !(value instanceof Number)) {
+			return value;
+		}
+		String text		= value.toString();
+		String masked	= MaskConverter.mask(key, text);
+		// MaskConverter 는 trim 한 값을 반환하므로 trim 기준으로 변경 여부를 판단한다.
+		return masked.equals(text.trim()) ? value : masked;
+	}
+}
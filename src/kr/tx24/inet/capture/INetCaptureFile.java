@@ -0,0 +1,173 @@
+package kr.tx24.inet.capture;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * INet 캡처 파일 (append-only, memory-mapped)
+ *
+ * <pre>
+ * [header]  magic(4) "INCP" + version(4)
+ * [record]  length(4) + elapsedNanos(8) + direction(1) + frame(length)
+ * </pre>
+ *
+ * <p>파일은 {@link #SEGMENT_SIZE} 단위로 매핑하며 기록 위치가 세그먼트 끝에 닿으면 다음 구간을 새로 매핑한다.
+ * 매핑된 영역의 미사용 부분은 0 으로 채워져 있으므로 length 가 0 인 레코드를 파일의 끝으로 판단한다.
+ * 기록은 단일 스레드({@link INetCapture} writer)에서만 수행한다.</p>
+ */
+public class INetCaptureFile implements AutoCloseable {
+
+	public static final int MAGIC				= 0x494E4350;		// "INCP"
+	public static final int VERSION				= 1;
+
+	private static final int HEADER_SIZE		= 8;
+	private static final int RECORD_HEADER_SIZE	= 4 + 8 + 1;
+	private static final long SEGMENT_SIZE		= 64L * 1024 * 1024;
+
+	private final FileChannel channel;
+	private final long maxSize;
+	private MappedByteBuffer segment;
+	private long segmentBase;
+	private long position;
+	private long records;
+
+	/**
+	 * @param path    캡처 파일, 이미 존재하면 새로 생성한다.
+	 * @param maxSize 최대 파일 크기(byte), 초과하는 레코드는 기록하지 않는다.
+	 */
+	public INetCaptureFile(Path path, long maxSize) throws IOException {
+		Path parent = path.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		this.channel = FileChannel.open(path,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.maxSize = maxSize;
+		map(0L, HEADER_SIZE);
+		segment.putInt(MAGIC).putInt(VERSION);
+		this.position = HEADER_SIZE;
+	}
+
+	/**
+	 * 레코드를 추가한다.
+	 * @return maxSize 를 초과하여 기록하지 못하면 false
+	 */
+	public boolean append(long elapsedNanos, byte direction, byte[] frame) throws IOException {
+		long required = RECORD_HEADER_SIZE + frame.length;
+		if (position + required > maxSize) {
+			return false;
+		}
+
+		long offset = position - segmentBase;
+		if (offset + required > segment.capacity()) {
+			map(position, required);
+			offset = 0;
+		}
+
+		// length 를 마지막에 기록하여 중단된 레코드가 끝 표시(0)로 남도록 한다.
+		int index = (int) offset;
+		segment.putLong(index + 4, elapsedNanos);
+		segment.put(index + 12, direction);
+		segment.put(index + RECORD_HEADER_SIZE, frame);
+		segment.putInt(index, frame.length);
+
+		position += required;
+		records++;
+		return true;
+	}
+
+	private void map(long base, long required) throws IOException {
+		long size = Math.min(Math.max(SEGMENT_SIZE, required), maxSize - base);
+		segment = channel.map(FileChannel.MapMode.READ_WRITE, base, size);
+		segmentBase = base;
+	}
+
+	public long getPosition() {
+		return position;
+	}
+
+	public long getRecords() {
+		return records;
+	}
+
+	public void force() {
+		if (segment != null) {
+			segment.force();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		force();
+		segment = null;
+		try {
+			channel.truncate(position);
+		} catch (IOException e) {
+			// 매핑이 해제되지 않아 truncate 할 수 없는 OS 에서는 0 으로 채워진 꼬리가 남는다.
+		}
+		channel.close();
+	}
+
+
+	/**
+	 * 캡처 레코드
+	 */
+	public record Record(long elapsedNanos, byte direction, byte[] frame) {
+
+		public boolean isInbound() {
+			return direction == INetCapture.INBOUND;
+		}
+	}
+
+	/**
+	 * 캡처 파일의 레코드를 순서대로 읽는다.
+	 * @param inboundOnly true 이면 요청 프레임만 반환
+	 */
+	public static List<Record> read(Path path, boolean inboundOnly) throws IOException {
+		List<Record> list = new ArrayList<>();
+		try (InputStream is = Files.newInputStream(path);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(is, 256 * 1024))) {
+
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not an INet capture file: " + path);
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported capture version: " + version);
+			}
+
+			while (true) {
+				int length;
+				try {
+					length = in.readInt();
+				} catch (EOFException e) {
+					break;
+				}
+				if (length <= 0) {
+					break;
+				}
+				long elapsedNanos	= in.readLong();
+				byte direction		= in.readByte();
+				byte[] frame		= new byte[length];
+				in.readFully(frame);
+				if (!inboundOnly || direction == INetCapture.INBOUND) {
+					list.add(new Record(elapsedNanos, direction, frame));
+				}
+			}
+		}
+		return list;
+	}
+}
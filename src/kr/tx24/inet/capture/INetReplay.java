@@ -0,0 +1,295 @@
+package kr.tx24.inet.capture;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * INet 캡처 파일 재현 도구
+ *
+ * <p>{@link INetCapture} 로 기록한 요청 프레임을 기록 순서대로 대상 서버(INetServerV2)에 전송하고
+ * 처리량과 응답 시간 분포(p50/p90/p99/p99.9/max)를 출력한다.
+ * 요청마다 연결을 새로 맺어 전송하고 응답 프레임 하나를 수신하면 연결을 종료한다.</p>
+ *
+ * <p>응답 시간은 실제 전송 시각이 아니라 <b>예정된 전송 시각</b>부터 측정한다.
+ * 동시 연결 수가 부족해 전송이 밀리면 그 대기 시간도 응답 시간에 포함된다.</p>
+ *
+ * <pre>
+ * java kr.tx24.inet.capture.INetReplay capture.cap 127.0.0.1 10000 [options]
+ *   --arrival=recorded|uniform|poisson   도착 간격 (기본 recorded : 캡처 시점 간격)
+ *   --speed=1.0                          recorded 간격 배속
+ *   --rate=100                           uniform/poisson 초당 요청 수
+ *   --concurrency=16                     동시 연결 수
+ *   --limit=0                            최대 요청 수 (0 : 전체)
+ *   --seed=0                             poisson 난수 seed (같은 seed 는 같은 간격)
+ *   --timeout=30000                      연결·응답 대기 시간(ms)
+ * </pre>
+ */
+public class INetReplay {
+
+	public enum Arrival { RECORDED, UNIFORM, POISSON }
+
+	private final List<INetCaptureFile.Record> records;
+	private final InetSocketAddress address;
+	private Arrival arrival	= Arrival.RECORDED;
+	private double speed	= 1.0;
+	private double rate		= 100.0;
+	private int concurrency	= 16;
+	private long seed		= 0L;
+	private int timeout		= 30_000;
+
+	public INetReplay(List<INetCaptureFile.Record> records, String host, int port) {
+		this.records = records;
+		this.address = new InetSocketAddress(host, port);
+	}
+
+	public INetReplay arrival(Arrival arrival) {
+		this.arrival = arrival;
+		return this;
+	}
+
+	public INetReplay speed(double speed) {
+		if (speed <= 0) {
+			throw new IllegalArgumentException("speed must be positive");
+		}
+		this.speed = speed;
+		return this;
+	}
+
+	public INetReplay rate(double rate) {
+		if (rate <= 0) {
+			throw new IllegalArgumentException("rate must be positive");
+		}
+		this.rate = rate;
+		return this;
+	}
+
+	public INetReplay concurrency(int concurrency) {
+		this.concurrency = Math.max(1, concurrency);
+		return this;
+	}
+
+	public INetReplay seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	public INetReplay timeout(int timeoutMillis) {
+		this.timeout = timeoutMillis;
+		return this;
+	}
+
+
+	/**
+	 * 요청별 예정 전송 시각 (시작 시점 기준, nanos)
+	 */
+	long[] schedule() {
+		long[] offsets = new long[records.size()];
+		if (offsets.length == 0) {
+			return offsets;
+		}
+		switch (arrival) {
+		case UNIFORM: {
+			double interval = 1_000_000_000d / rate;
+			for (int i = 0; i < offsets.length; i++) {
+				offsets[i] = (long) (i * interval);
+			}
+			break;
+		}
+		case POISSON: {
+			Random random = new Random(seed);
+			double at = 0;
+			for (int i = 0; i < offsets.length; i++) {
+				offsets[i] = (long) at;
+				at += -Math.log(1.0 - random.nextDouble()) * 1_000_000_000d / rate;
+			}
+			break;
+		}
+		default: {
+			long base = records.get(0).elapsedNanos();
+			for (int i = 0; i < offsets.length; i++) {
+				offsets[i] = (long) ((records.get(i).elapsedNanos() - base) / speed);
+			}
+			break;
+		}
+		}
+		return offsets;
+	}
+
+	/**
+	 * 재현을 수행하고 결과를 반환한다.
+	 */
+	public Report run() throws InterruptedException {
+		long[] offsets		= schedule();
+		long[] latencies	= new long[records.size()];
+		AtomicLong failed	= new AtomicLong();
+
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency, r -> {
+			Thread t = new Thread(r, "inet-replay");
+			t.setDaemon(true);
+			return t;
+		});
+
+		long start = System.nanoTime();
+		for (int i = 0; i < offsets.length; i++) {
+			long due = start + offsets[i];
+			long wait = due - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			final int index = i;
+			executor.execute(() -> {
+				if (send(records.get(index).frame())) {
+					latencies[index] = System.nanoTime() - due;
+				} else {
+					latencies[index] = -1;
+					failed.incrementAndGet();
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		long elapsed = System.nanoTime() - start;
+
+		return new Report(latencies, failed.get(), elapsed);
+	}
+
+	private boolean send(byte[] frame) {
+		try (Socket socket = new Socket()) {
+			socket.setTcpNoDelay(true);
+			socket.setSoTimeout(timeout);
+			socket.connect(address, timeout);
+
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), frame.length + 4));
+			out.writeInt(frame.length);
+			out.write(frame);
+			out.flush();
+
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			int length = in.readInt();
+			if (length <= 0) {
+				return false;
+			}
+			in.readFully(new byte[length]);
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+
+	/**
+	 * 재현 결과
+	 */
+	public static class Report {
+		private final long[] sorted;		// 성공 요청의 응답 시간(nanos), 오름차순
+		private final long total;
+		private final long failed;
+		private final long elapsedNanos;
+
+		Report(long[] latencies, long failed, long elapsedNanos) {
+			this.sorted			= Arrays.stream(latencies).filter(l -> l >= 0).sorted().toArray();
+			this.total			= latencies.length;
+			this.failed			= failed;
+			this.elapsedNanos	= elapsedNanos;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+
+		public long getFailed() {
+			return failed;
+		}
+
+		/** 초당 처리 건수 (성공 기준) */
+		public double getThroughput() {
+			return elapsedNanos == 0 ? 0 : sorted.length * 1_000_000_000d / elapsedNanos;
+		}
+
+		/** @param percentile 0 ~ 100 */
+		public double getLatencyMillis(double percentile) {
+			if (sorted.length == 0) {
+				return 0;
+			}
+			int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+			return sorted[Math.min(Math.max(index, 0), sorted.length - 1)] / 1_000_000d;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT,
+					"requests=%d, ok=%d, failed=%d, elapsed=%.2fs, throughput=%.1f req/s%n"
+					+ "latency(ms) p50=%.2f, p90=%.2f, p99=%.2f, p99.9=%.2f, max=%.2f",
+					total, sorted.length, failed, elapsedNanos / 1_000_000_000d, getThroughput(),
+					getLatencyMillis(50), getLatencyMillis(90), getLatencyMillis(99),
+					getLatencyMillis(99.9), getLatencyMillis(100));
+		}
+	}
+
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.err.println("usage: INetReplay <capture file> <host> <port> "
+					+ "[--arrival=recorded|uniform|poisson] [--speed=1.0] [--rate=100] "
+					+ "[--concurrency=16] [--limit=0] [--seed=0] [--timeout=30000]");
+			System.exit(1);
+		}
+
+		Path path = Paths.get(args[0]);
+		List<INetCaptureFile.Record> records = INetCaptureFile.read(path, true);
+
+		Arrival arrival	= Arrival.RECORDED;
+		double speed	= 1.0;
+		double rate		= 100.0;
+		int concurrency	= 16;
+		int limit		= 0;
+		long seed		= 0L;
+		int timeout		= 30_000;
+		for (int i = 3; i < args.length; i++) {
+			String[] option = args[i].split("=", 2);
+			String value = option.length > 1 ? option[1].trim() : "";
+			switch (option[0]) {
+			case "--arrival"	-> arrival = Arrival.valueOf(value.toUpperCase(Locale.ROOT));
+			case "--speed"		-> speed = Double.parseDouble(value);
+			case "--rate"		-> rate = Double.parseDouble(value);
+			case "--concurrency"-> concurrency = Integer.parseInt(value);
+			case "--limit"		-> limit = Integer.parseInt(value);
+			case "--seed"		-> seed = Long.parseLong(value);
+			case "--timeout"	-> timeout = Integer.parseInt(value);
+			default				-> throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+		if (limit > 0 && limit < records.size()) {
+			records = records.subList(0, limit);
+		}
+
+		INetReplay replay = new INetReplay(records, args[1], Integer.parseInt(args[2]))
+				.arrival(arrival)
+				.speed(speed)
+				.rate(rate)
+				.concurrency(concurrency)
+				.seed(seed)
+				.timeout(timeout);
+
+		System.out.println("INet replay: file=" + path.toAbsolutePath() + ", requests=" + replay.records.size()
+				+ ", target=" + args[1] + ":" + args[2] + ", arrival=" + replay.arrival
+				+ ", concurrency=" + replay.concurrency);
+		System.out.println(replay.run());
+		System.exit(0);
+	}
+}
@@ -11,6 +11,8 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.AttributeKey;
+import kr.tx24.inet.capture.INetCapture;
 import kr.tx24.lib.inter.INet;
 import kr.tx24.lib.lang.CommonUtils;
 import kr.tx24.lib.lang.SystemUtils;
@@ -30,11 +32,15 @@ import kr.tx24.lib.lang.SystemUtils;
  * - 스레드 안전 (각 연결마다 별도 인스턴스)
  * - 메모리 효율적 (대부분 작은 패킷 처리)
  * - 대용량 패킷도 안정적 처리
+ * - head-first 프레임은 head 만 해석하고 data 는 업무 스레드에서 지연 해석
  */
 public class INetDecoder extends ByteToMessageDecoder {
 
 	private static final Logger logger = LoggerFactory.getLogger(INetDecoder.class);
 
+	/** 상대측이 head-first 프레임을 사용하는 채널 표시, {@link INetEncoder} 가 동일 형식으로 응답한다. */
+	public static final AttributeKey<Boolean> HEAD_FIRST = AttributeKey.valueOf("inetHeadFirst");
+
 	private static final int LENGTH_INDICATOR	= 4;					// 패킷 길이 필드 크기 (int = 4bytes)
 	private static final int MIN_VALID_PACKET	= 8;					// 최소 유효 패킷 (Health Check 제외)
 	private static final int MAX_PACKET_SIZE	= 50 * 1024 * 1024;		// 최대 50MB
@@ -97,9 +103,17 @@ public class INetDecoder extends ByteToMessageDecoder {
 			// 로깅
 			logReceivedPacket(data, packetLength);
 			
-			// INet 역직렬화
+			// 트래픽 캡처 (비활성 시 volatile 읽기만 수행)
+			if (INetCapture.isEnabled()) {
+				INetCapture.record(INetCapture.INBOUND, data);
+			}
+			
+			// INet 역직렬화 (head-first 프레임은 head 영역만 해석)
 			try {
 				INet inet = new INet(data);
+				if (inet.isHeadFirst()) {
+					ctx.channel().attr(HEAD_FIRST).set(Boolean.TRUE);
+				}
 				out.add(inet);
 				
 			} catch (Exception e) {
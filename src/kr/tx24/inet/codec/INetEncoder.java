@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
+import kr.tx24.inet.capture.INetCapture;
 import kr.tx24.lib.inter.INet;
 import kr.tx24.lib.lang.SystemUtils;
 
@@ -18,12 +19,19 @@ public class INetEncoder extends MessageToByteEncoder<INet> {
 	protected void encode(ChannelHandlerContext ctx, INet inet, ByteBuf out) throws Exception {
 		
 		try {
-			byte[] data 	= inet.serialize();
+			// 요청이 head-first 프레임이었으면 동일 형식으로 응답
+			boolean headFirst = inet.isHeadFirst() 
+					|| Boolean.TRUE.equals(ctx.channel().attr(INetDecoder.HEAD_FIRST).get());
+			byte[] data 	= inet.serialize(headFirst);
 			
 			// 프로토콜 포맷: [4 bytes: 길이] + [N bytes: 데이터]
 			out.writeInt(data.length);
 			out.writeBytes(data);
 			
+			if (INetCapture.isEnabled()) {
+				INetCapture.record(INetCapture.OUTBOUND, data);
+			}
+			
 			if(SystemUtils.deepview()) {
 				logger.info("inet response length={}", data.length);
 			}
@@ -0,0 +1,81 @@
+package kr.tx24.inet.codec;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.TooLongFrameException;
+import kr.tx24.lib.lang.SystemUtils;
+
+
+/**
+ * INet 원본 프레임 디코더 (프록시용)
+ *
+ * [특징]
+ * - INet 역직렬화 없이 [4 bytes: 길이] + [N bytes: 데이터] 프레임을 그대로 전달
+ * - 누적 버퍼의 retained slice 를 전달하므로 복사 없음 (수신 핸들러가 release 책임)
+ * - Health Check 패킷 처리는 {@link INetDecoder} 와 동일
+ */
+public class INetFrameDecoder extends ByteToMessageDecoder {
+
+	private static final Logger logger = LoggerFactory.getLogger(INetFrameDecoder.class);
+
+	private static final int LENGTH_INDICATOR	= 4;					// 패킷 길이 필드 크기 (int = 4bytes)
+	private static final int MIN_VALID_PACKET	= 8;					// 최소 유효 패킷 (Health Check 제외)
+	private static final int MAX_PACKET_SIZE	= 50 * 1024 * 1024;		// 최대 50MB
+
+	@Override
+	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+
+		while (in.readableBytes() >= LENGTH_INDICATOR) {
+
+			int frameStart		= in.readerIndex();
+			int packetLength	= in.getInt(frameStart);
+
+			// L4/Nginx Health Check 처리
+			if (packetLength < MIN_VALID_PACKET) {
+				if (packetLength <= 0) {
+					in.skipBytes(LENGTH_INDICATOR);
+					continue;
+				}
+				if (in.readableBytes() < LENGTH_INDICATOR + packetLength) {
+					return;
+				}
+				in.skipBytes(LENGTH_INDICATOR + packetLength);
+				if (SystemUtils.deepview()) {
+					logger.info("Health check packet skipped, length={}", packetLength);
+				}
+				continue;
+			}
+
+			if (packetLength > MAX_PACKET_SIZE) {
+				logger.error("Packet too large: {} bytes (max: {}), closing channel", packetLength, MAX_PACKET_SIZE);
+				throw new TooLongFrameException("Packet size " + packetLength + " exceeds maximum of " + MAX_PACKET_SIZE);
+			}
+
+			// 전체 패킷이 도착하지 않음 - 대기
+			if (in.readableBytes() < LENGTH_INDICATOR + packetLength) {
+				return;
+			}
+
+			// 길이 필드를 포함한 원본 프레임 (복사 없이 참조 카운트만 증가)
+			out.add(in.readRetainedSlice(LENGTH_INDICATOR + packetLength));
+		}
+	}
+
+	@Override
+	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+
+		if (cause instanceof TooLongFrameException) {
+			logger.warn("Frame too long - closing channel", cause);
+		} else {
+			logger.warn("Frame decoder exception", cause);
+		}
+
+		super.exceptionCaught(ctx, cause);
+	}
+}
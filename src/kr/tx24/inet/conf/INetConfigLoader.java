@@ -75,6 +75,56 @@ public class INetConfigLoader {
 	
 	
 	
+	/**
+	 * 프록시 설정 (inet.json 의 "proxy")
+	 * <pre>
+	 * "proxy" : {
+	 *   "enabled" : true,
+	 *   "default" : "MIK_CORE",                 // routes 에 없는 target 의 LoadBalancer 이름
+	 *   "routes"  : { "target" : "LB 이름" },
+	 *   "maxConnections" : 64,                  // 백엔드 endpoint 별 최대 연결 수
+	 *   "timeout" : 30000,                      // 백엔드 응답 대기 및 연결 획득 대기 시간(ms)
+	 *   "keepAlive" : false                     // 응답 후 연결을 유지하는 백엔드이면 true, 연결을 재사용한다
+	 * }
+	 * </pre>
+	 * @return 설정이 없으면 빈 map
+	 */
+	public static SharedMap<String,Object> getProxyConfig() {
+		SharedMap<String,Object> proxy = getConfigMap().getMap("proxy", TypeRegistry.MAP_SHAREDMAP_OBJECT);
+		return proxy == null ? new SharedMap<>() : proxy;
+	}
+	
+	
+	public static boolean isProxyMode() {
+		return getProxyConfig().getBoolean("enabled");
+	}
+	
+	
+	/**
+	 * 트래픽 캡처 설정 (inet.json 의 "capture")
+	 * <pre>
+	 * "capture" : {
+	 *   "enabled"   : true,
+	 *   "file"      : "./capture/inet.cap",     // memory-mapped 캡처 파일, 시작 시 새로 생성
+	 *   "maxSize"   : 1024,                     // 최대 파일 크기(MB)
+	 *   "queueSize" : 10000,                    // 기록 대기 큐, 가득 차면 버린다
+	 *   "outbound"  : false                     // 응답 프레임도 기록
+	 * }
+	 * </pre>
+	 * @return 설정이 없으면 빈 map
+	 */
+	public static SharedMap<String,Object> getCaptureConfig() {
+		SharedMap<String,Object> capture = getConfigMap().getMap("capture", TypeRegistry.MAP_SHAREDMAP_OBJECT);
+		return capture == null ? new SharedMap<>() : capture;
+	}
+	
+	
+	public static boolean isCaptureEnabled() {
+		return getCaptureConfig().getBoolean("enabled");
+	}
+	
+	
+	
 	public static LinkedHashMap<String,Object> getMap(String key){
 		return getConfigMap().getMap(key, TypeRegistry.MAP_LINKEDHASHMAP_OBJECT);
 	}
@@ -373,11 +373,7 @@ public class INetHandlerV2 extends SimpleChannelInboundHandler<INet> {
             String extTrxId,
             long requestStartNanos) {
 
-        INetRespUtils.error(ctx, "서버 내부 오류가 발생했습니다.")
-                .data("errorCode", "INTERNAL_SERVER_ERROR")
-                .data(INetUtils.EXT_TRX_ID, extTrxId)
-                .delayBeforeClose(100L)
-                .send()
+        INetRespUtils.sendInternalError(ctx, extTrxId)
                 .addListener(future -> logger.info(
                         "Error response sent (Internal Error) - "
                                 + "elapsed: {} ms",
@@ -409,12 +405,7 @@ public class INetHandlerV2 extends SimpleChannelInboundHandler<INet> {
                 rejected
         );
 
-        INetRespUtils.error(ctx, "Server is busy. Please retry later.")
-                .data("errorCode", "SERVER_BUSY")
-                .data(INetUtils.EXT_TRX_ID, extTrxId)
-                .data("retryable", true)
-                .delayBeforeClose(0L)
-                .send()
+        INetRespUtils.sendServerBusy(ctx, extTrxId)
                 .addListener(future -> {
                     if (future.isSuccess()) {
                         logger.info(
@@ -0,0 +1,168 @@
+package kr.tx24.inet.proxy;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.AbstractChannelPoolMap;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.Future;
+import kr.tx24.inet.codec.INetFrameDecoder;
+import kr.tx24.lib.lang.CommonUtils;
+import kr.tx24.lib.map.SharedMap;
+import kr.tx24.lib.map.TypeRegistry;
+
+/**
+ * 프록시 백엔드 연결 풀.
+ *
+ * <p>백엔드 endpoint(host:port) 별로 {@link FixedChannelPool} 을 유지하며,
+ * 요청의 {@code head.target} 을 설정된 LoadBalancer 이름으로 변환한다.
+ * 설정 형식은 {@link kr.tx24.inet.conf.INetConfigLoader#getProxyConfig()} 참고.</p>
+ *
+ * <p>INet 서버는 응답 후 연결을 종료하므로 기본({@code keepAlive=false})으로는 백엔드 채널을 재사용하지 않는다.
+ * 이때 풀은 endpoint 별 동시 연결 수({@code maxConnections})와 대기 요청({@code MAX_PENDING_ACQUIRES})만 제한하는
+ * 연결 수 제한기로 동작하며, 반환 시 채널을 닫은 뒤 풀의 자리를 해제한다.</p>
+ *
+ * <p>응답 후에도 연결을 유지하는 백엔드는 {@code keepAlive=true} 로 설정하면 반환된 채널을 닫지 않고 다음 요청에 재사용한다.
+ * 유휴 상태에서 백엔드가 닫은 채널은 획득 시 health check 에서 제외된다.</p>
+ */
+public class INetBackendPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(INetBackendPool.class);
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 64;
+    private static final long DEFAULT_TIMEOUT_MILLIS = 30_000L;
+    private static final int CONNECT_TIMEOUT_MILLIS = 2_000;
+    private static final int MAX_PENDING_ACQUIRES = 1024;
+
+    private final Map<String, String> routes = new ConcurrentHashMap<>();
+    private final String defaultServer;
+    private final int maxConnections;
+    private final long timeoutMillis;
+    private final boolean keepAlive;
+    private final AbstractChannelPoolMap<InetSocketAddress, FixedChannelPool> pools;
+
+    public INetBackendPool(EventLoopGroup group, SharedMap<String, Object> config) {
+        Map<String, String> routeMap = config.getMap("routes", TypeRegistry.MAP_STRING);
+        if (routeMap != null) {
+            routes.putAll(routeMap);
+        }
+        this.defaultServer = config.getString("default", "");
+        this.maxConnections = config.getInt("maxConnections", DEFAULT_MAX_CONNECTIONS);
+        this.timeoutMillis = config.getLong("timeout", DEFAULT_TIMEOUT_MILLIS);
+        this.keepAlive = config.getBoolean("keepAlive");
+
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT_MILLIS)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+
+        this.pools = new AbstractChannelPoolMap<>() {
+            @Override
+            protected FixedChannelPool newPool(InetSocketAddress address) {
+                return new FixedChannelPool(
+                        bootstrap.clone().remoteAddress(address),
+                        new AbstractChannelPoolHandler() {
+                            @Override
+                            public void channelCreated(Channel ch) {
+                                ch.pipeline()
+                                        .addLast("inetFrameDecoder", new INetFrameDecoder())
+                                        .addLast("proxyBackend", new INetProxyBackendHandler());
+                            }
+                        },
+                        ChannelHealthChecker.ACTIVE,
+                        FixedChannelPool.AcquireTimeoutAction.FAIL,
+                        timeoutMillis,
+                        maxConnections,
+                        MAX_PENDING_ACQUIRES
+                );
+            }
+        };
+
+        logger.info(
+                "INet proxy backend pool: routes={}, default={}, maxConnections={}, timeout={}ms, keepAlive={}",
+                routes,
+                defaultServer,
+                maxConnections,
+                timeoutMillis,
+                keepAlive
+        );
+    }
+
+    /**
+     * target 에 해당하는 LoadBalancer 이름을 반환한다.
+     *
+     * @return routes 에 없으면 default, default 도 없으면 빈 문자열
+     */
+    public String resolveServer(String target) {
+        String server = routes.get(target);
+        return CommonUtils.isBlank(server) ? defaultServer : server;
+    }
+
+    /**
+     * endpoint 의 풀에서 백엔드 채널을 획득한다.
+     * 획득한 채널은 응답 중계 또는 실패 처리 시 {@link INetProxyBackendHandler} 가 반환한다.
+     */
+    public Future<Channel> acquire(InetSocketAddress address) {
+        FixedChannelPool pool = pools.get(address);
+        return pool.acquire().addListener(future -> {
+            if (future.isSuccess()) {
+                Channel channel = (Channel) future.getNow();
+                channel.attr(INetProxyBackendHandler.POOL).set(pool);
+                channel.attr(INetProxyBackendHandler.KEEP_ALIVE).set(keepAlive);
+            }
+        });
+    }
+
+    /**
+     * 백엔드 채널을 풀에 반환한다.
+     * keepAlive 이고 채널이 열려 있으면 그대로 반환하여 재사용하고,
+     * 아니면 채널을 닫은 뒤 풀의 자리를 해제한다. 닫힌 채널은 풀의 health check 에서 제외된다.
+     */
+    static void release(Channel backend) {
+        ChannelPool pool = backend.attr(INetProxyBackendHandler.POOL).getAndSet(null);
+        if (pool == null) {
+            backend.close();
+        } else if (Boolean.TRUE.equals(backend.attr(INetProxyBackendHandler.KEEP_ALIVE).get()) && backend.isActive()) {
+            pool.release(backend);
+        } else {
+            backend.close().addListener(future -> pool.release(backend));
+        }
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    @Override
+    public void close() {
+        try {
+            pools.close();
+        } catch (Exception e) {
+            logger.warn("INet proxy backend pool close failed", e);
+        }
+    }
+}
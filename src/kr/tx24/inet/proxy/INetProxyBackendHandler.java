@@ -0,0 +1,139 @@
+package kr.tx24.inet.proxy;
+
+import java.util.concurrent.ScheduledFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import kr.tx24.inet.util.INetRespUtils;
+import kr.tx24.lib.lang.SystemUtils;
+
+/**
+ * 백엔드 채널의 응답 프레임을 역직렬화 없이 요청 채널로 중계한다.
+ *
+ * <p>백엔드 채널은 요청 1건 동안 {@link #FRONTEND} 로 요청 채널과 연결되며,
+ * 응답 중계 또는 실패 처리 중 먼저 수행된 쪽이 연결을 해제하고 채널을 풀에 반환한다. ({@link INetBackendPool#release(Channel)})
+ * 응답 후 백엔드가 연결을 닫아도 요청 채널과의 연결이 이미 해제되어 있으므로 오류로 처리하지 않는다.</p>
+ */
+class INetProxyBackendHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger logger = LoggerFactory.getLogger(INetProxyBackendHandler.class);
+
+    static final AttributeKey<ChannelHandlerContext> FRONTEND =
+            AttributeKey.valueOf("inetProxyFrontend");
+    static final AttributeKey<ChannelPool> POOL =
+            AttributeKey.valueOf("inetProxyPool");
+    static final AttributeKey<ScheduledFuture<?>> TIMEOUT =
+            AttributeKey.valueOf("inetProxyTimeout");
+    static final AttributeKey<Boolean> KEEP_ALIVE =
+            AttributeKey.valueOf("inetProxyKeepAlive");
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        ChannelHandlerContext frontend = ctx.channel().attr(FRONTEND).getAndSet(null);
+        if (frontend == null) {
+            logger.warn(
+                    "Unsolicited backend frame discarded: {}",
+                    ctx.channel().remoteAddress()
+            );
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+
+        cancelTimeout(ctx.channel());
+
+        if (!(msg instanceof ByteBuf frame)) {
+            ReferenceCountUtil.release(msg);
+            sendError(frontend, "Invalid backend response", "BACKEND_ERROR");
+            INetBackendPool.release(ctx.channel());
+            return;
+        }
+
+        if (SystemUtils.deepview()) {
+            logger.info(
+                    "proxy response relayed: {} -> {}, length={}",
+                    ctx.channel().remoteAddress(),
+                    frontend.channel().remoteAddress(),
+                    frame.readableBytes()
+            );
+        }
+
+        INetBackendPool.release(ctx.channel());
+
+        // 응답 전송이 소켓까지 완료된 뒤에 다음 요청을 읽는다 (AUTO_READ 백프레셔)
+        frontend.writeAndFlush(frame).addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                future.channel().config().setAutoRead(true);
+            } else {
+                logger.warn("Failed to relay proxy response", future.cause());
+                future.channel().close();
+            }
+        });
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        fail(ctx.channel(), "Backend connection closed");
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        logger.warn("Proxy backend exception: {}", ctx.channel().remoteAddress(), cause);
+        ctx.close();
+    }
+
+    /**
+     * 요청 1건의 백엔드 처리를 실패로 종료한다.
+     * 이미 응답이 중계되었거나 다른 경로에서 실패 처리된 경우에는 아무것도 하지 않는다.
+     */
+    static void fail(Channel backend, String message) {
+        ChannelHandlerContext frontend = backend.attr(FRONTEND).getAndSet(null);
+        if (frontend == null) {
+            return;
+        }
+
+        cancelTimeout(backend);
+        INetBackendPool.release(backend);
+        sendError(frontend, message, "BACKEND_ERROR");
+    }
+
+    /**
+     * 백엔드 endpoint 의 동시 연결 수 초과, 재시도 가능한 SERVER_BUSY 로 응답한다.
+     */
+    static void sendBusy(ChannelHandlerContext frontend) {
+        if (!frontend.channel().isActive()) {
+            return;
+        }
+        INetRespUtils.error(frontend, "Server is busy. Please retry later.")
+                .data("errorType", "SERVER_BUSY")
+                .data("retryable", true)
+                .delayBeforeClose(0L)
+                .send();
+    }
+
+    static void sendError(ChannelHandlerContext frontend, String message, String errorType) {
+        if (!frontend.channel().isActive()) {
+            return;
+        }
+        INetRespUtils.error(frontend, message)
+                .data("errorType", errorType)
+                .delayBeforeClose(0L)
+                .send();
+    }
+
+    private static void cancelTimeout(Channel backend) {
+        ScheduledFuture<?> timeout = backend.attr(TIMEOUT).getAndSet(null);
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package kr.tx24.inet.proxy;
+
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.concurrent.Future;
+import kr.tx24.lib.inter.INet;
+import kr.tx24.lib.lang.CommonUtils;
+import kr.tx24.lib.lang.SystemUtils;
+import kr.tx24.lib.lb.LoadBalancer;
+
+/**
+ * INet 프록시 요청 handler.
+ *
+ * <p>{@link kr.tx24.inet.codec.INetFrameDecoder} 가 전달한 원본 프레임에서 {@code head.target}
+ * 만 확인하고, LoadBalancer 로 선택한 백엔드 채널로 프레임을 그대로 전달한다.
+ * 역직렬화 없이 중계하는 것은 head-first 프레임에 한한다. head-first 프레임은 head 영역만 읽고 data 영역은 읽지 않지만,
+ * 기존(ObjectOutputStream) 프레임은 {@link INet#peekHead} 가 프레임을 복사하여 전체를 역직렬화한 뒤 head 를 읽는다.</p>
+ *
+ * <p>요청 채널은 요청 1건을 처리하는 동안 AUTO_READ 를 해제하고, 응답 전송이 완료되면 다시 읽는다.</p>
+ *
+ * <p>백엔드 연결 실패(connect 거부, timeout, 주소 오류)만 LoadBalancer 에 장애로 등록한다.
+ * endpoint 의 동시 연결 수가 가득 차 획득 대기 시간이 지났거나 대기 요청이 너무 많은 경우는
+ * 백엔드를 장애로 처리하지 않고 SERVER_BUSY 로 응답한다.</p>
+ */
+public class INetProxyHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger logger = LoggerFactory.getLogger(INetProxyHandler.class);
+    private static final int LENGTH_INDICATOR = 4;
+
+    private static final AtomicLong forwardedCount = new AtomicLong();
+    private static final AtomicLong failedCount = new AtomicLong();
+
+    private final INetBackendPool backendPool;
+
+    public INetProxyHandler(INetBackendPool backendPool) {
+        if (backendPool == null) {
+            throw new IllegalArgumentException("backendPool must not be null");
+        }
+        this.backendPool = backendPool;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof ByteBuf frame)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        String target;
+        try {
+            target = INet.peekHead(
+                    frame.slice(
+                            frame.readerIndex() + LENGTH_INDICATOR,
+                            frame.readableBytes() - LENGTH_INDICATOR
+                    )
+            ).getString("target");
+        } catch (Exception e) {
+            frame.release();
+            logger.warn("Failed to read INet head for proxy routing", e);
+            reject(ctx, "Invalid INet frame", "INVALID_FRAME");
+            return;
+        }
+
+        String server = backendPool.resolveServer(target);
+        if (CommonUtils.isBlank(server)) {
+            frame.release();
+            logger.warn("Proxy route not found: {}", target);
+            reject(ctx, "Target not found: " + target, "ROUTE_NOT_FOUND");
+            return;
+        }
+
+        String endPoint = LoadBalancer.isEnabled()
+                ? LoadBalancer.getExcludeBrokenServer(server)
+                : null;
+        InetSocketAddress address = toAddress(endPoint);
+        if (address == null) {
+            frame.release();
+            logger.warn("Proxy backend not available: target={}, server={}, endPoint={}", target, server, endPoint);
+            reject(ctx, "loadbalance address is null, " + server, "BACKEND_UNAVAILABLE");
+            return;
+        }
+
+        // 응답을 중계할 때까지 요청 채널의 다음 요청을 읽지 않는다.
+        ctx.channel().config().setAutoRead(false);
+
+        backendPool.acquire(address).addListener(future ->
+                forward(ctx, frame, target, server, endPoint, future)
+        );
+    }
+
+    private void forward(
+            ChannelHandlerContext ctx,
+            ByteBuf frame,
+            String target,
+            String server,
+            String endPoint,
+            Future<?> acquireFuture) {
+
+        if (!acquireFuture.isSuccess()) {
+            frame.release();
+            failedCount.incrementAndGet();
+            if (isConnectFailure(acquireFuture.cause())) {
+                LoadBalancer.setBrokenServer(server, endPoint);
+                logger.warn(
+                        "Proxy backend connect failed: target={}, endPoint={}",
+                        target,
+                        endPoint,
+                        acquireFuture.cause()
+                );
+                INetProxyBackendHandler.sendError(ctx, "connect failed", "BACKEND_UNAVAILABLE");
+            } else {
+                // 풀이 가득 찼거나 대기 요청이 많은 경우, 백엔드는 정상이므로 LoadBalancer 에서 제외하지 않는다.
+                logger.warn(
+                        "Proxy backend busy: target={}, endPoint={}, cause={}",
+                        target,
+                        endPoint,
+                        CommonUtils.getExceptionMessage(acquireFuture.cause())
+                );
+                INetProxyBackendHandler.sendBusy(ctx);
+            }
+            return;
+        }
+
+        Channel backend = (Channel) acquireFuture.getNow();
+        if (!ctx.channel().isActive()) {
+            frame.release();
+            INetBackendPool.release(backend);
+            return;
+        }
+
+        backend.attr(INetProxyBackendHandler.FRONTEND).set(ctx);
+        backend.attr(INetProxyBackendHandler.TIMEOUT).set(
+                backend.eventLoop().schedule(() -> {
+                    if (backend.attr(INetProxyBackendHandler.FRONTEND).get() == ctx) {
+                        logger.warn("Proxy backend read timeout: target={}, endPoint={}", target, endPoint);
+                        INetProxyBackendHandler.fail(backend, "read timeout");
+                    }
+                }, backendPool.getTimeoutMillis(), TimeUnit.MILLISECONDS)
+        );
+
+        if (SystemUtils.deepview()) {
+            logger.info(
+                    "proxy forward: target={}, endPoint={}, length={}",
+                    target,
+                    endPoint,
+                    frame.readableBytes()
+            );
+        }
+
+        backend.writeAndFlush(frame).addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                forwardedCount.incrementAndGet();
+            } else {
+                failedCount.incrementAndGet();
+                logger.warn("Proxy forward failed: target={}, endPoint={}", target, endPoint, future.cause());
+                INetProxyBackendHandler.fail(backend, "write timeout");
+            }
+        });
+    }
+
+    private static void reject(ChannelHandlerContext ctx, String message, String errorType) {
+        failedCount.incrementAndGet();
+        INetProxyBackendHandler.sendError(ctx, message, errorType);
+    }
+
+    /**
+     * 백엔드에 연결하지 못한 경우 true, 풀의 획득 대기 timeout 이나 대기 요청 초과는 false
+     */
+    static boolean isConnectFailure(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof ConnectException           // io.netty.channel.ConnectTimeoutException 포함
+                    || t instanceof NoRouteToHostException
+                    || t instanceof UnknownHostException
+                    || t instanceof UnresolvedAddressException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static InetSocketAddress toAddress(String endPoint) {
+        if (CommonUtils.isBlank(endPoint)) {
+            return null;
+        }
+        String[] endPoints = endPoint.split(":");
+        if (endPoints.length < 2) {
+            return null;
+        }
+        try {
+            return InetSocketAddress.createUnresolved(endPoints[0], Integer.parseInt(endPoints[1].trim()));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid proxy endpoint: {}", endPoint);
+            return null;
+        }
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object event) throws Exception {
+        if (event instanceof IdleStateEvent) {
+            ctx.close();
+            return;
+        }
+        super.userEventTriggered(ctx, event);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        logger.error("Exception caught in proxy channel", cause);
+        ctx.close();
+    }
+
+    public static long getForwardedCount() {
+        return forwardedCount.get();
+    }
+
+    public static long getFailedCount() {
+        return failedCount.get();
+    }
+}
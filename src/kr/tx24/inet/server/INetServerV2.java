@@ -25,13 +25,18 @@ import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioIoHandler;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.timeout.IdleStateHandler;
+import kr.tx24.inet.capture.INetCapture;
 import kr.tx24.inet.codec.INetDecoder;
 import kr.tx24.inet.codec.INetEncoder;
+import kr.tx24.inet.codec.INetFrameDecoder;
 import kr.tx24.inet.conf.INetConfigLoader;
 import kr.tx24.inet.handler.INetHandlerV2;
+import kr.tx24.inet.proxy.INetBackendPool;
+import kr.tx24.inet.proxy.INetProxyHandler;
 import kr.tx24.inet.route.Router;
 import kr.tx24.lib.lang.MsgUtils;
 import kr.tx24.lib.lang.NetUtils;
@@ -40,6 +45,13 @@ import kr.tx24.lib.lang.NetUtils;
  * Bounded business executor와 overload backpressure를 적용한 INet server.
  *
  * <p>기존 {@link INetServer}와 독립적으로 사용할 수 있으며 기존 구현은 변경하지 않는다.</p>
+ *
+ * <p>inet.json 의 {@code proxy.enabled} 가 true 이면 프록시 모드로 동작한다. 요청 프레임의
+ * {@code head.target} 으로 선택한 백엔드에 프레임을 그대로 전달하며 응답도 그대로 중계한다.
+ * head-first 프레임은 head 영역만 읽고, 기존 프레임은 head 를 읽기 위해 전체를 역직렬화한다. ({@link INetProxyHandler})</p>
+ *
+ * <p>inet.json 의 {@code capture.enabled} 가 true 이면 수신 프레임을 마스킹하여 캡처 파일에 기록한다.
+ * ({@link INetCapture}, 재현은 {@link kr.tx24.inet.capture.INetReplay})</p>
  */
 public class INetServerV2 {
 
@@ -49,6 +61,7 @@ public class INetServerV2 {
     private static final int HIGH_WATER_MARK = 4 * 1024 * 1024;
     private static final int TCP_RCV_BUFFER_SIZE = 512 * 1024;
     private static final int TCP_SND_BUFFER_SIZE = 64 * 1024;
+    private static final int EXPLICIT_FLUSH_AFTER_FLUSHES = 256;
 
     private static final int BUSINESS_THREADS = 24;
     private static final int BUSINESS_QUEUE_CAPACITY = 200;
@@ -61,13 +74,16 @@ public class INetServerV2 {
     private static volatile EventLoopGroup workerGroup;
     private static volatile ThreadPoolExecutor businessExecutor;
     private static volatile ScheduledFuture<?> businessMonitorFuture;
+    private static volatile INetBackendPool backendPool;
 
     private static final AtomicBoolean isShutdown = new AtomicBoolean(false);
     private static final AtomicBoolean isInitialized = new AtomicBoolean(false);
 
     public INetServerV2() {
         INetConfigLoader.start();
-        Router.start(INetConfigLoader.getBasePackage());
+        if (!INetConfigLoader.isProxyMode()) {
+            Router.start(INetConfigLoader.getBasePackage());
+        }
     }
 
     public void start() {
@@ -103,6 +119,15 @@ public class INetServerV2 {
         );
         businessExecutor = createBusinessExecutor();
         startBusinessMonitoring();
+        if (INetConfigLoader.isProxyMode()) {
+            backendPool = new INetBackendPool(
+                    workerGroup,
+                    INetConfigLoader.getProxyConfig()
+            );
+        }
+        if (INetConfigLoader.isCaptureEnabled()) {
+            INetCapture.start(INetConfigLoader.getCaptureConfig());
+        }
 
         try {
             ServerBootstrap bootstrap = new ServerBootstrap();
@@ -149,6 +174,17 @@ public class INetServerV2 {
                         @SuppressWarnings("deprecation")
                         protected void initChannel(SocketChannel sc) {
                             ChannelPipeline pipeline = sc.pipeline();
+                            /*
+                             * 같은 채널의 연속된 flush를 묶어 한 번의 write(writev)로 전송한다.
+                             * 읽기 중이 아닐 때(업무 스레드 응답)도 다음 EventLoop 실행 시점까지 모아서 flush 한다.
+                             */
+                            pipeline.addLast(
+                                    "flushConsolidation",
+                                    new FlushConsolidationHandler(
+                                            EXPLICIT_FLUSH_AFTER_FLUSHES,
+                                            true
+                                    )
+                            );
                             if (INetConfigLoader.enableLoggingHandler()) {
                                 pipeline.addLast(
                                         new LoggingHandler(LogLevel.INFO)
@@ -158,6 +194,25 @@ public class INetServerV2 {
                                     "idleStateHandler",
                                     new IdleStateHandler(0, 0, 300)
                             );
+                            if (backendPool != null) {
+                                /*
+                                 * 프록시 모드: 원본 프레임을 그대로 백엔드로 전달한다.
+                                 * inetEncoder는 프록시 자체 오류 응답에만 사용된다.
+                                 */
+                                pipeline.addLast(
+                                        "inetFrameDecoder",
+                                        new INetFrameDecoder()
+                                );
+                                pipeline.addLast(
+                                        "inetEncoder",
+                                        new INetEncoder()
+                                );
+                                pipeline.addLast(
+                                        "proxyHandler",
+                                        new INetProxyHandler(backendPool)
+                                );
+                                return;
+                            }
                             pipeline.addLast(
                                     "inetDecoder",
                                     new INetDecoder()
@@ -305,6 +360,8 @@ public class INetServerV2 {
         cancelBusinessMonitoring();
         interrupted |= shutdownEventLoopGroup(bossGroup, 3L, "bossGroup");
         interrupted |= shutdownBusinessExecutor();
+        closeBackendPool();
+        INetCapture.stop();
         interrupted |= shutdownEventLoopGroup(workerGroup, 3L, "workerGroup");
 
         bossGroup = null;
@@ -319,6 +376,14 @@ public class INetServerV2 {
         logger.info("INetServerV2 stopped successfully");
     }
 
+    private static void closeBackendPool() {
+        INetBackendPool pool = backendPool;
+        backendPool = null;
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
     private static void cancelBusinessMonitoring() {
         ScheduledFuture<?> monitorFuture = businessMonitorFuture;
         if (monitorFuture != null) {
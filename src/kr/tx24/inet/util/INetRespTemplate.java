@@ -0,0 +1,137 @@
+package kr.tx24.inet.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import kr.tx24.lib.inter.INet;
+
+/**
+ * 미리 직렬화한 고정 응답 프레임.
+ *
+ * <p>응답 {@link INet} 을 placeholder 값으로 기존 프레임과 head-first 프레임 두 가지로 한 번만 직렬화해 두고,
+ * 전송 시에는 채널의 형식에 맞는 프레임의 고정 구간을 retained slice 로 공유하면서 placeholder 위치에
+ * 요청별 값만 채운 {@link CompositeByteBuf} 를 만든다.
+ * placeholder 와 실제 값은 길이가 같은 ASCII 문자열이어야 하며, 그렇지 않으면 {@link #render} 는
+ * null 을 반환하므로 호출측은 일반 직렬화 경로를 사용한다.</p>
+ */
+final class INetRespTemplate {
+
+    private final Frame legacy;
+    private final Frame headFirst;
+
+    INetRespTemplate(INet response, String... placeholders) {
+        try {
+            this.legacy = new Frame(response.serialize(false), placeholders);
+            this.headFirst = new Frame(response.serialize(true), placeholders);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize response template", e);
+        }
+    }
+
+    /**
+     * placeholder 를 values 로 치환한 응답 프레임을 만든다.
+     *
+     * @param headFirst true 이면 head-first 프레임, {@link kr.tx24.inet.codec.INetEncoder} 와 같은 기준으로 결정한다.
+     * @param values placeholder 순서와 같은 순서의 치환 값
+     * @return 길이가 다르거나 ASCII 가 아닌 값이 있으면 null
+     */
+    ByteBuf render(ByteBufAllocator alloc, boolean headFirst, String... values) {
+        return (headFirst ? this.headFirst : legacy).render(alloc, values);
+    }
+
+
+    private static final class Frame {
+
+        private final ByteBuf frame;            // [4 bytes: 길이] + [직렬화 데이터], 해제되지 않는 공유 버퍼
+        private final int[] offsets;            // placeholder 의 frame 내 위치 (오름차순)
+        private final int[] lengths;
+        private final int[] order;              // offsets 순서 -> 인자 순서
+
+        Frame(byte[] data, String[] placeholders) {
+            byte[] framed = new byte[4 + data.length];
+            framed[0] = (byte) (data.length >>> 24);
+            framed[1] = (byte) (data.length >>> 16);
+            framed[2] = (byte) (data.length >>> 8);
+            framed[3] = (byte) data.length;
+            System.arraycopy(data, 0, framed, 4, data.length);
+
+            int count = placeholders.length;
+            long[] sorted = new long[count];
+            for (int i = 0; i < count; i++) {
+                byte[] pattern = placeholders[i].getBytes(StandardCharsets.US_ASCII);
+                int offset = indexOf(framed, pattern, 0);
+                if (offset < 0 || indexOf(framed, pattern, offset + 1) >= 0) {
+                    throw new IllegalStateException("Placeholder must appear exactly once: " + placeholders[i]);
+                }
+                sorted[i] = ((long) offset << 32) | i;
+            }
+            Arrays.sort(sorted);
+
+            this.offsets = new int[count];
+            this.lengths = new int[count];
+            this.order = new int[count];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = (int) (sorted[i] >>> 32);
+                order[i] = (int) sorted[i];
+                lengths[i] = placeholders[order[i]].length();
+            }
+
+            this.frame = Unpooled.unreleasableBuffer(
+                    Unpooled.directBuffer(framed.length).writeBytes(framed).asReadOnly()
+            );
+        }
+
+        ByteBuf render(ByteBufAllocator alloc, String[] values) {
+            for (int i = 0; i < order.length; i++) {
+                String value = values[order[i]];
+                if (value == null || value.length() != lengths[i] || !isAscii(value)) {
+                    return null;
+                }
+            }
+
+            CompositeByteBuf composite = alloc.compositeBuffer(order.length * 2 + 1);
+            int position = 0;
+            for (int i = 0; i < order.length; i++) {
+                if (offsets[i] > position) {
+                    composite.addComponent(true, frame.retainedSlice(position, offsets[i] - position));
+                }
+                ByteBuf value = alloc.buffer(lengths[i]);
+                ByteBufUtil.writeAscii(value, values[order[i]]);
+                composite.addComponent(true, value);
+                position = offsets[i] + lengths[i];
+            }
+            if (position < frame.readableBytes()) {
+                composite.addComponent(true, frame.retainedSlice(position, frame.readableBytes() - position));
+            }
+            return composite;
+        }
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7F || value.charAt(i) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] source, byte[] pattern, int from) {
+        outer:
+        for (int i = from; i <= source.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (source[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
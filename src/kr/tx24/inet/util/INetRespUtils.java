@@ -3,13 +3,18 @@ package kr.tx24.inet.util;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import kr.tx24.inet.capture.INetCapture;
+import kr.tx24.inet.codec.INetDecoder;
 import kr.tx24.lib.inter.INet;
 import kr.tx24.lib.lang.SystemUtils;
 import kr.tx24.lib.mapper.JacksonUtils;
@@ -18,6 +23,34 @@ public class INetRespUtils {
 
 	private static final Logger logger = LoggerFactory.getLogger(INetRespUtils.class);
 	private static final JacksonUtils jsonUtils = new JacksonUtils();
+	
+	/*
+	 * 과부하 시 반복 전송되는 고정 응답은 미리 직렬화해 두고 채널 id 와 extTrxId 만 치환한다.
+	 * placeholder 길이는 채널 short id(8)와 extTrxId(밀리초 13 + 채널 short id 8)의 길이와 같다.
+	 */
+	private static final String ID_PLACEHOLDER			= "@@ID@@@@";
+	private static final String EXT_TRX_ID_PLACEHOLDER	= "@@EXT_TRX_ID@@@@@@@@@";
+	private static final String SERVER_BUSY_MESSAGE		= "Server is busy. Please retry later.";
+	private static final String INTERNAL_ERROR_MESSAGE	= "서버 내부 오류가 발생했습니다.";
+	
+	private static final INetRespTemplate SERVER_BUSY_TEMPLATE = new INetRespTemplate(
+			new INet()
+				.head("id", ID_PLACEHOLDER)
+				.head("result", false)
+				.head("message", SERVER_BUSY_MESSAGE)
+				.data("errorCode", "SERVER_BUSY")
+				.data(INetUtils.EXT_TRX_ID, EXT_TRX_ID_PLACEHOLDER)
+				.data("retryable", true),
+			ID_PLACEHOLDER, EXT_TRX_ID_PLACEHOLDER);
+	
+	private static final INetRespTemplate INTERNAL_ERROR_TEMPLATE = new INetRespTemplate(
+			new INet()
+				.head("id", ID_PLACEHOLDER)
+				.head("result", false)
+				.head("message", INTERNAL_ERROR_MESSAGE)
+				.data("errorCode", "INTERNAL_SERVER_ERROR")
+				.data(INetUtils.EXT_TRX_ID, EXT_TRX_ID_PLACEHOLDER),
+			ID_PLACEHOLDER, EXT_TRX_ID_PLACEHOLDER);
     
     private final ChannelHandlerContext ctx;
     private final INet resInet;
@@ -138,7 +171,7 @@ public class INetRespUtils {
                     logger.error("Failed to send response", f.cause());
                 }
 
-                closeAfterWrite(f);
+                closeAfterWrite(f, delayBeforeClose);
             });
         }
         
@@ -163,7 +196,7 @@ public class INetRespUtils {
             }
             
             if (autoClose) {
-                closeAfterWrite(f);
+                closeAfterWrite(f, delayBeforeClose);
             }
         });
         
@@ -174,7 +207,7 @@ public class INetRespUtils {
      * writeAndFlush 완료 후 EventLoop를 차단하지 않고 연결 종료를 예약한다.
      * 전송 실패 시에는 지연하지 않고 채널을 종료한다.
      */
-    private void closeAfterWrite(ChannelFuture future) {
+    private static void closeAfterWrite(ChannelFuture future, long delayBeforeClose) {
         if (!future.isSuccess() || delayBeforeClose <= 0) {
             future.channel().close();
             return;
@@ -239,6 +272,65 @@ public class INetRespUtils {
 	}
     
     
+    /**
+     * SERVER_BUSY 응답을 미리 직렬화된 프레임으로 전송하고 즉시 연결을 종료한다.
+     */
+    public static ChannelFuture sendServerBusy(ChannelHandlerContext ctx, String extTrxId) {
+    	return sendTemplate(ctx, SERVER_BUSY_TEMPLATE, extTrxId, 0L, () ->
+    			error(ctx, SERVER_BUSY_MESSAGE)
+    				.data("errorCode", "SERVER_BUSY")
+    				.data(INetUtils.EXT_TRX_ID, extTrxId)
+    				.data("retryable", true)
+    				.delayBeforeClose(0L));
+    }
+    
+    /**
+     * INTERNAL_SERVER_ERROR 응답을 미리 직렬화된 프레임으로 전송하고 100ms 후 연결을 종료한다.
+     */
+    public static ChannelFuture sendInternalError(ChannelHandlerContext ctx, String extTrxId) {
+    	return sendTemplate(ctx, INTERNAL_ERROR_TEMPLATE, extTrxId, 100L, () ->
+    			error(ctx, INTERNAL_ERROR_MESSAGE)
+    				.data("errorCode", "INTERNAL_SERVER_ERROR")
+    				.data(INetUtils.EXT_TRX_ID, extTrxId)
+    				.delayBeforeClose(100L));
+    }
+    
+    /**
+     * 치환할 값의 길이가 template 과 다르면 일반 직렬화 경로(fallback)로 전송한다.
+     * {@link kr.tx24.inet.codec.INetEncoder} 를 거치지 않으므로 프레임 형식 결정과 {@link INetCapture} 기록을 여기서 한다.
+     */
+    private static ChannelFuture sendTemplate(
+    		ChannelHandlerContext ctx,
+    		INetRespTemplate template,
+    		String extTrxId,
+    		long delayBeforeClose,
+    		Supplier<INetRespUtils> fallback) {
+    	
+    	boolean headFirst = Boolean.TRUE.equals(ctx.channel().attr(INetDecoder.HEAD_FIRST).get());
+    	ByteBuf frame = template.render(ctx.alloc(), headFirst, ctx.channel().id().asShortText(), extTrxId);
+    	if (frame == null) {
+    		return fallback.get().send();
+    	}
+    	
+    	if (SystemUtils.deepview()) {
+    		logger.info("pre-encoded response, extTrxId={}, length={}", extTrxId, frame.readableBytes());
+    	}
+    	
+    	if (INetCapture.isEnabled()) {
+    		INetCapture.record(INetCapture.OUTBOUND, ByteBufUtil.getBytes(frame, frame.readerIndex() + 4, frame.readableBytes() - 4));
+    	}
+    	
+    	ChannelFuture future = ctx.writeAndFlush(frame);
+    	future.addListener((ChannelFutureListener) f -> {
+    		if (!f.isSuccess()) {
+    			logger.error("Failed to send response", f.cause());
+    		}
+    		closeAfterWrite(f, delayBeforeClose);
+    	});
+    	return future;
+    }
+    
+    
     
 	
 }
@@ -0,0 +1,39 @@
+package kr.tx24.lib.db;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * where() 조건 값이 포함된 바인딩 값 목록
+ *
+ * <p>조건 값은 저장된 값과 그대로 비교해야 하므로 {@link DBManager#injectionFilter} 를 적용하지 않는다.
+ * 앞의 filtered 개수의 값(UPDATE 의 SET 값 등)에만 적용하며, {@link DBUtils#setValues(java.sql.PreparedStatement, Collection)}
+ * 에 그대로 전달하면 된다.</p>
+ */
+final class BindValues extends ArrayList<Object> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int filtered;
+
+	BindValues() {
+		this.filtered = 0;
+	}
+
+	/**
+	 * @param filtered injectionFilter 를 적용할 앞쪽 값의 개수
+	 */
+	BindValues(int filtered, int capacity) {
+		super(capacity);
+		this.filtered = filtered;
+	}
+
+	BindValues(Collection<?> values) {
+		super(values);
+		this.filtered = 0;
+	}
+
+	int filtered() {
+		return filtered;
+	}
+}
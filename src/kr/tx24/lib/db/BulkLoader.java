@@ -0,0 +1,664 @@
+package kr.tx24.lib.db;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+import kr.tx24.lib.lang.CommonUtils;
+import kr.tx24.lib.lang.SecurityUtils;
+import kr.tx24.lib.lang.SystemUtils;
+import kr.tx24.lib.map.LinkedMap;
+import kr.tx24.lib.mapper.JacksonCsvUtils;
+
+/**
+ * LOAD DATA LOCAL INFILE 을 이용한 대량 입력
+ *
+ * <p>POJO / Map record 는 한 row 씩 tab 구분 형식으로 변환하여 InputStream 으로 전달하고,
+ * CSV 파일은 변환 없이 그대로 전달한다. 전체를 메모리에 적재하지 않는다.
+ * 값 변환은 {@link DBUtils#setValues} 와 동일한 규칙을 따른다. (Boolean → 1/0, Date → Timestamp, injectionFilter 등)</p>
+ *
+ * <pre>{@code
+ * try (MappingIterator<Settle> it = JacksonCsvUtils.get().iterator(path, Settle.class)) {
+ *     long rows = new BulkLoader("SETTLE")
+ *         .column("trxId").column("amount", "amt").column("regDate")
+ *         .progress(100000, n -> logger.info("loaded {}", n))
+ *         .load(it);
+ * }
+ * }</pre>
+ *
+ * <p>서버의 local_infile 이 ON 이어야 하며 MariaDB/MySQL 드라이버가 아니면
+ * 동일한 결과를 addBatch/executeBatch INSERT 로 입력한다.
+ * 실패 시 전체 rollback 되며 {@link DBException} 이 발생한다.</p>
+ */
+public class BulkLoader {
+	private static Logger logger 	= LoggerFactory.getLogger(BulkLoader.class);
+
+	public static final int DEFAULT_PROGRESS_INTERVAL	= 100000;
+	private static final int BATCH_SIZE					= 1000;
+	private static final int BUFFER_SIZE				= 64 * 1024;
+	private static final byte[] NULL					= {'\\', 'N'};
+	private static final String DUMMY					= "@dummy";
+
+	private static final ObjectMapper MAPPER			= new ObjectMapper();
+	private static final Map<Class<?>, Map<String, AnnotatedMember>> PROPERTIES = new ConcurrentHashMap<>();
+
+	private final String table;
+	private final LinkedMap<String, String> columns	= new LinkedMap<String, String>();	// 컬럼 → record key
+	private String mode				= "";
+	private String charset			= "utf8mb4";
+	private int progressInterval	= DEFAULT_PROGRESS_INTERVAL;
+	private LongConsumer progress	= null;
+	private boolean deepview		= false;
+	private String datasource		= null;
+
+
+	/**
+	 * TABLE 명 지정
+	 * @param table
+	 */
+	public BulkLoader(String table) {
+		this.table		= table;
+		this.deepview	= SystemUtils.deepview();
+	}
+
+	/**
+	 * TABLE 명 지정 및 LOG 출력 여부
+	 * @param table
+	 * @param debug
+	 */
+	public BulkLoader(String table, boolean debug) {
+		this.table		= table;
+		this.deepview	= debug;
+	}
+
+
+	/**
+	 * record key 와 이름이 같은 컬럼을 추가한다.
+	 * 컬럼을 지정하지 않으면 첫 번째 record 의 key (CSV 는 헤더) 를 사용한다.
+	 * @param column
+	 * @return
+	 */
+	public BulkLoader column(String column) {
+		columns.put(column, column);
+		return this;
+	}
+
+	/**
+	 * 컬럼과 값을 가져올 record key (POJO 는 property, CSV 는 헤더명) 를 추가한다.
+	 * @param column
+	 * @param source
+	 * @return
+	 */
+	public BulkLoader column(String column, String source) {
+		columns.put(column, source);
+		return this;
+	}
+
+	public BulkLoader columns(String... columns) {
+		for (String column : columns) {
+			column(column);
+		}
+		return this;
+	}
+
+	/**
+	 * db.json 의 datasources 에 지정된 datasource 를 사용한다. 지정하지 않으면 기본 datasource 를 사용한다.
+	 * @param name
+	 * @return
+	 */
+	public BulkLoader datasource(String name) {
+		this.datasource = name;
+		return this;
+	}
+
+	/**
+	 * 중복 키는 기존 row 를 대체한다. (LOAD DATA ... REPLACE)
+	 * @return
+	 */
+	public BulkLoader replace() {
+		this.mode = "REPLACE ";
+		return this;
+	}
+
+	/**
+	 * 중복 키는 무시한다. (LOAD DATA ... IGNORE)
+	 * @return
+	 */
+	public BulkLoader ignore() {
+		this.mode = "IGNORE ";
+		return this;
+	}
+
+	/**
+	 * 입력 데이터의 문자셋, 기본 utf8mb4
+	 * @param charset
+	 * @return
+	 */
+	public BulkLoader charset(String charset) {
+		this.charset = charset;
+		return this;
+	}
+
+	/**
+	 * interval row 마다 전송한 누적 row 수를 전달한다.
+	 * @param interval
+	 * @param callback
+	 * @return
+	 */
+	public BulkLoader progress(int interval, LongConsumer callback) {
+		this.progressInterval	= interval > 0 ? interval : DEFAULT_PROGRESS_INTERVAL;
+		this.progress			= callback;
+		return this;
+	}
+
+	public BulkLoader debug() {
+		deepview = true;
+		return this;
+	}
+
+
+	/**
+	 * POJO 또는 Map record 를 입력한다.
+	 * @param records
+	 * @return 입력된 row 수
+	 */
+	public long load(Iterable<?> records) throws DBException {
+		return load(records.iterator());
+	}
+
+
+	/**
+	 * POJO 또는 Map record 를 입력한다. {@link JacksonCsvUtils#iterator(Path, Class)} 와 함께 사용한다.
+	 * records 는 호출한 쪽에서 close 해야 한다.
+	 * @param records
+	 * @return 입력된 row 수
+	 */
+	public long load(Iterator<?> records) throws DBException {
+		if (!records.hasNext()) {
+			return 0;
+		}
+		Object first = records.next();
+		if (columns.isEmpty()) {
+			for (String key : keys(first)) {
+				column(key);
+			}
+		}
+		Iterator<?> all = prepend(first, records);
+
+		String query = buildQuery("(" + String.join(DBUtils.COMMA, columns.keySet()) + ")", "\\t", "", "", "\\n", 0);
+		String[] sources = columns.values().toArray(new String[0]);
+
+		return execute(query, () -> new RecordStream(all, sources), () -> all);
+	}
+
+
+	/**
+	 * 헤더가 있는 comma 구분 CSV 파일을 입력한다.
+	 * @param csv
+	 * @return 입력된 row 수
+	 */
+	public long load(Path csv) throws DBException {
+		return load(csv, ',', true);
+	}
+
+
+	/**
+	 * CSV 파일을 변환 없이 서버로 전송하여 입력한다.
+	 * 헤더가 있으면 헤더명으로 컬럼을 매핑하며 매핑되지 않은 CSV 컬럼은 건너뛴다.
+	 * 헤더가 없으면 CSV 컬럼 순서대로 지정한 컬럼에 입력한다.
+	 * @param csv
+	 * @param separator
+	 * @param header
+	 * @return 입력된 row 수
+	 */
+	public long load(Path csv, char separator, boolean header) throws DBException {
+		String lineEnd = "\\n";
+		List<String> targets = new ArrayList<>();
+		try {
+			if (header) {
+				String line = firstLine(csv);
+				if (line.endsWith("\r")) {
+					lineEnd	= "\\r\\n";
+					line	= line.substring(0, line.length() - 1);
+				}
+				List<String> names = split(line, separator);
+				if (columns.isEmpty()) {
+					for (String name : names) {
+						column(name);
+					}
+				}
+				for (String name : names) {
+					targets.add(columnOf(name));
+				}
+			} else {
+				if (columns.isEmpty()) {
+					throw new DBException("columns are required for CSV without header", table, (SQLException) null);
+				}
+				targets.addAll(columns.keySet());
+			}
+		} catch (IOException e) {
+			throw new DBException("Failed to read CSV header", csv.toString(), new SQLException(e));
+		}
+
+		String fields = separator == '\t' ? "\\t" : String.valueOf(separator);
+		String query = buildQuery("(" + String.join(DBUtils.COMMA, targets) + ")", fields, "\"", "", lineEnd, header ? 1 : 0);
+
+		// MariaDB/MySQL 이 아니면 헤더가 있는 CSV 만 파싱하여 batch INSERT 한다.
+		return execute(query, () -> new LineCounter(Files.newInputStream(csv)),
+				header ? () -> JacksonCsvUtils.get().withSeparator(separator).iteratorMap(csv) : null);
+	}
+
+
+	@FunctionalInterface
+	private interface StreamSupplier {
+		InputStream open() throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface RecordSupplier {
+		Iterator<?> open() throws IOException;
+	}
+
+
+	private long execute(String query, StreamSupplier supplier, RecordSupplier fallback) throws DBException {
+		DBManager db			= DBFactory.get(datasource);
+		Connection conn			= null;
+		Statement stmt			= null;
+		long result				= 0;
+
+		long startTime = System.nanoTime();
+		try {
+			conn	= db.getConnection();
+			conn.setAutoCommit(false);
+			stmt	= conn.createStatement();
+
+			if (stmt.isWrapperFor(org.mariadb.jdbc.Statement.class)) {
+				try (InputStream in = supplier.open()) {
+					stmt.unwrap(org.mariadb.jdbc.Statement.class).setLocalInfileInputStream(in);
+					result = stmt.executeLargeUpdate(query);
+				}
+			} else if (fallback != null) {
+				Iterator<?> records = fallback.open();
+				try {
+					result = insertBatch(conn, records);
+				} finally {
+					if (records instanceof AutoCloseable closeable) {
+						db.close(closeable);
+					}
+				}
+			} else {
+				throw new SQLException("LOAD DATA LOCAL INFILE is not supported by " + conn.getMetaData().getDriverName());
+			}
+			conn.commit();
+			if (result > 0) ResultCache.invalidate(table);
+		} catch (SQLException | IOException | RuntimeException e) {
+			try { if (conn != null) conn.rollback(); } catch (SQLException s) {}
+			SqlMetrics.error(query);
+			logger.warn("sql error : {}", CommonUtils.getExceptionMessage(e));
+			throw new DBException("Failed to bulk load " + table, query,
+					e instanceof SQLException s ? s : new SQLException(e));
+		} finally {
+			db.close(stmt);
+			db.close(conn);
+
+			SqlMetrics.record(query, startTime, result, null);
+			if (deepview) {
+				logger.info("query : {} = [{}]", query, result);
+				logger.info(SystemUtils.getElapsedTime(System.nanoTime() - startTime));
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * LOAD DATA 를 지원하지 않는 드라이버에서 batch INSERT 로 입력한다.
+	 */
+	private long insertBatch(Connection conn, Iterator<?> records) throws SQLException {
+		String[] targets	= columns.keySet().toArray(new String[0]);
+		String[] sources	= columns.values().toArray(new String[0]);
+		String query		= (mode.isEmpty() ? "INSERT " : mode.startsWith("REPLACE") ? "REPLACE " : "INSERT IGNORE ")
+				+ "INTO " + table + " (" + String.join(DBUtils.COMMA, targets) + ") VALUES ("
+				+ String.join(DBUtils.COMMA, Collections.nCopies(targets.length, DBUtils.QUESTION_MARK)) + ")";
+
+		long result = 0;
+		long rows	= 0;
+		try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+			List<Map<String, Object>> chunk = new ArrayList<>(BATCH_SIZE);
+			while (records.hasNext()) {
+				Object record = records.next();
+				Map<String, Object> row = new LinkedHashMap<>();
+				for (int i = 0; i < targets.length; i++) {
+					row.put(targets[i], valueOf(record, sources[i]));
+				}
+				chunk.add(row);
+				if (chunk.size() == BATCH_SIZE || !records.hasNext()) {
+					result += DBUtils.executeBatch(pstmt, chunk, targets);
+					chunk.clear();
+				}
+				if (++rows % progressInterval == 0 && progress != null) {
+					progress.accept(rows);
+				}
+			}
+		}
+		return result;
+	}
+
+
+	private String buildQuery(String columnList, String fields, String enclosed, String escaped, String lines, int skip) {
+		StringBuilder sql = new StringBuilder()
+			.append("LOAD DATA LOCAL INFILE 'stream' ")
+			.append(mode)
+			.append("INTO TABLE ").append(table)
+			.append(" CHARACTER SET ").append(charset)
+			.append(" FIELDS TERMINATED BY '").append(fields).append("'");
+		if (!enclosed.isEmpty()) {
+			sql.append(" OPTIONALLY ENCLOSED BY '").append(enclosed).append("'");
+			sql.append(" ESCAPED BY '").append(escaped).append("'");
+		} else {
+			sql.append(" ESCAPED BY '\\\\'");
+		}
+		sql.append(" LINES TERMINATED BY '").append(lines).append("'");
+		if (skip > 0) {
+			sql.append(" IGNORE ").append(skip).append(" LINES");
+		}
+		return sql.append(DBUtils.SPACE).append(columnList).toString();
+	}
+
+
+	/**
+	 * CSV 헤더명에 매핑된 컬럼, 없으면 건너뛴다.
+	 */
+	private String columnOf(String header) {
+		for (Map.Entry<String, String> entry : columns.entrySet()) {
+			if (entry.getValue().equals(header)) {
+				return entry.getKey();
+			}
+		}
+		return DUMMY;
+	}
+
+
+	private static String firstLine(Path csv) throws IOException {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(csv))) {
+			java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+			int b;
+			while ((b = in.read()) != -1 && b != '\n') {
+				out.write(b);
+			}
+			String line = out.toString(StandardCharsets.UTF_8);
+			return line.startsWith("\uFEFF") ? line.substring(1) : line;
+		}
+	}
+
+
+	private static List<String> split(String line, char separator) {
+		List<String> names = new ArrayList<>();
+		for (String name : line.split(java.util.regex.Pattern.quote(String.valueOf(separator)), -1)) {
+			name = name.trim();
+			if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\"")) {
+				name = name.substring(1, name.length() - 1);
+			}
+			names.add(name);
+		}
+		return names;
+	}
+
+
+	private static Iterator<Object> prepend(Object first, Iterator<?> rest) {
+		return new Iterator<Object>() {
+			private boolean head = true;
+
+			@Override
+			public boolean hasNext() {
+				return head || rest.hasNext();
+			}
+
+			@Override
+			public Object next() {
+				if (head) {
+					head = false;
+					return first;
+				}
+				return rest.next();
+			}
+		};
+	}
+
+
+	/* ================== record 값 읽기 ================== */
+
+	private static Iterable<String> keys(Object record) {
+		if (record instanceof Map<?, ?> map) {
+			List<String> keys = new ArrayList<>();
+			for (Object key : map.keySet()) {
+				keys.add(String.valueOf(key));
+			}
+			return keys;
+		}
+		return properties(record.getClass()).keySet();
+	}
+
+
+	private static Object valueOf(Object record, String key) {
+		if (record instanceof Map<?, ?> map) {
+			return map.get(key);
+		}
+		AnnotatedMember member = properties(record.getClass()).get(key);
+		return member == null ? null : member.getValue(record);
+	}
+
+
+	/**
+	 * POJO property (getter 또는 field), 원래 타입 그대로 읽기 위하여 Jackson 직렬화 없이 접근한다.
+	 */
+	private static Map<String, AnnotatedMember> properties(Class<?> type) {
+		return PROPERTIES.computeIfAbsent(type, t -> {
+			Map<String, AnnotatedMember> map = new LinkedHashMap<>();
+			for (BeanPropertyDefinition def : MAPPER.getSerializationConfig()
+					.introspect(MAPPER.constructType(t)).findProperties()) {
+				AnnotatedMember member = def.getGetter() != null ? def.getGetter() : def.getField();
+				if (member != null) {
+					member.fixAccess(true);
+					map.put(def.getName(), member);
+				}
+			}
+			return map;
+		});
+	}
+
+
+	/* ================== LOAD DATA 형식 변환 ================== */
+
+	/**
+	 * record 를 한 줄씩 tab 구분 형식으로 변환하여 전달하는 InputStream
+	 */
+	private final class RecordStream extends InputStream {
+		private final Iterator<?> records;
+		private final String[] sources;
+		private byte[] buf	= new byte[BUFFER_SIZE];
+		private int pos		= 0;
+		private int limit	= 0;
+		private long rows	= 0;
+
+		RecordStream(Iterator<?> records, String[] sources) {
+			this.records	= records;
+			this.sources	= sources;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (pos == limit && !fill()) {
+				return -1;
+			}
+			return buf[pos++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (pos == limit && !fill()) {
+				return -1;
+			}
+			int n = Math.min(len, limit - pos);
+			System.arraycopy(buf, pos, b, off, n);
+			pos += n;
+			return n;
+		}
+
+		private boolean fill() {
+			pos		= 0;
+			limit	= 0;
+			while (limit < BUFFER_SIZE / 2 && records.hasNext()) {
+				Object record = records.next();
+				for (int i = 0; i < sources.length; i++) {
+					if (i > 0) {
+						put((byte) '\t');
+					}
+					encode(valueOf(record, sources[i]));
+				}
+				put((byte) '\n');
+				if (++rows % progressInterval == 0 && progress != null) {
+					progress.accept(rows);
+				}
+			}
+			return limit > 0;
+		}
+
+		/**
+		 * DBUtils.bindValue 와 동일한 타입 규칙으로 변환한다.
+		 */
+		private void encode(Object arg) {
+			if (arg == null) {
+				put(NULL, false);
+			} else if (arg instanceof String s) {
+				putText(DBManager.injectionFilter ? SecurityUtils.escapeHtml(s) : s);
+			} else if (arg instanceof Boolean bool) {
+				put((byte) (bool ? '1' : '0'));
+			} else if (arg instanceof BigInteger bi) {
+				putText(SecurityUtils.toBigDecimal(bi).toPlainString());
+			} else if (arg instanceof BigDecimal bd) {
+				putText(bd.toPlainString());
+			} else if (arg instanceof Timestamp ts) {
+				putText(ts.toString());
+			} else if (arg instanceof java.sql.Date sqlDate) {
+				putText(sqlDate.toString());
+			} else if (arg instanceof Time t) {
+				putText(t.toString());
+			} else if (arg instanceof java.util.Date utilDate) {
+				putText(new Timestamp(utilDate.getTime()).toString());
+			} else if (arg instanceof byte[] bytes) {
+				put(bytes, true);
+			} else {
+				putText(String.valueOf(arg));
+			}
+		}
+
+		private void putText(String text) {
+			put(text.getBytes(StandardCharsets.UTF_8), true);
+		}
+
+		private void put(byte[] bytes, boolean escape) {
+			ensure(bytes.length * 2);
+			for (byte b : bytes) {
+				if (escape) {
+					switch (b) {
+						case '\\' -> { buf[limit++] = '\\'; b = '\\'; }
+						case '\t' -> { buf[limit++] = '\\'; b = 't'; }
+						case '\n' -> { buf[limit++] = '\\'; b = 'n'; }
+						case '\r' -> { buf[limit++] = '\\'; b = 'r'; }
+						case 0    -> { buf[limit++] = '\\'; b = '0'; }
+						default   -> { }
+					}
+				}
+				buf[limit++] = b;
+			}
+		}
+
+		private void put(byte b) {
+			ensure(1);
+			buf[limit++] = b;
+		}
+
+		private void ensure(int size) {
+			if (limit + size > buf.length) {
+				byte[] grown = new byte[Math.max(buf.length * 2, limit + size)];
+				System.arraycopy(buf, 0, grown, 0, limit);
+				buf = grown;
+			}
+		}
+	}
+
+
+	/**
+	 * CSV 파일을 그대로 전달하며 줄 수로 진행 상황을 알린다.
+	 */
+	private final class LineCounter extends FilterInputStream {
+		private long lines = 0;
+
+		LineCounter(InputStream in) {
+			super(new BufferedInputStream(in, BUFFER_SIZE));
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b == '\n') {
+				count(1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (progress != null) {
+				int newline = 0;
+				for (int i = off; i < off + n; i++) {
+					if (b[i] == '\n') {
+						newline++;
+					}
+				}
+				count(newline);
+			}
+			return n;
+		}
+
+		private void count(int newline) {
+			if (progress == null || newline == 0) {
+				return;
+			}
+			long before = lines;
+			lines += newline;
+			if (before / progressInterval != lines / progressInterval) {
+				progress.accept(lines);
+			}
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package kr.tx24.lib.db;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 조회 결과의 컬럼 이름 → 위치 index.
+ * RecordSet 의 모든 row 가 하나의 인스턴스를 공유하며 생성 후 변경되지 않는다.
+ */
+final class ColumnIndex {
+
+	private final String[] columns;
+	private final Map<String, Integer> positions;
+
+	ColumnIndex(String[] columns) {
+		this.columns	= columns;
+		this.positions	= new HashMap<>(columns.length * 2);
+		for (int i = 0; i < columns.length; i++) {
+			// 같은 label 이 여러 번 나오면 SharedMap 과 동일하게 마지막 컬럼이 사용된다.
+			positions.put(columns[i], i);
+		}
+	}
+
+	/**
+	 * @return 없으면 -1
+	 */
+	int indexOf(Object column) {
+		Integer position = positions.get(column);
+		return position == null ? -1 : position;
+	}
+
+	String name(int index) {
+		return columns[index];
+	}
+
+	String[] names() {
+		return columns;
+	}
+
+	int size() {
+		return columns.length;
+	}
+
+	/**
+	 * 중복을 제외한 컬럼 수 (Map view 의 size)
+	 */
+	int uniqueSize() {
+		return positions.size();
+	}
+
+	boolean isUnique(int index) {
+		return positions.get(columns[index]) == index;
+	}
+}
@@ -0,0 +1,94 @@
+package kr.tx24.lib.db;
+
+import java.sql.Blob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * 컬럼 값을 읽는 함수.
+ * java.sql.Types 별 분기는 결과 metadata 로 컬럼마다 한 번만 수행하고 row 마다 재사용한다.
+ */
+@FunctionalInterface
+interface ColumnReader {
+
+	int MAX_BLOB_SIZE = 20 * 1024 * 1024;
+
+	/**
+	 * @param index 1 부터 시작
+	 */
+	Object read(ResultSet rs, int index) throws SQLException;
+
+
+	static ColumnReader of(int type) {
+		return switch (type) {
+			// 문자열 계열
+			case Types.CHAR,
+				 Types.VARCHAR,
+				 Types.LONGVARCHAR,
+				 Types.NCHAR,
+				 Types.NVARCHAR,
+				 Types.LONGNVARCHAR,
+				 Types.CLOB,
+				 Types.NCLOB -> ResultSet::getString;
+
+			// 바이너리 계열
+			case Types.BINARY,
+				 Types.VARBINARY,
+				 Types.LONGVARBINARY,
+				 Types.BLOB -> ColumnReader::readBinary;
+
+			// 숫자 계열
+			case Types.TINYINT,
+				 Types.SMALLINT,
+				 Types.INTEGER -> ResultSet::getInt;
+
+			case Types.BIGINT -> ResultSet::getLong;
+
+			case Types.FLOAT,
+				 Types.REAL -> ResultSet::getFloat;
+
+			case Types.DOUBLE -> ResultSet::getDouble;
+
+			case Types.DECIMAL,
+				 Types.NUMERIC -> ResultSet::getBigDecimal;
+
+			// 논리 계열
+			case Types.BIT,
+				 Types.BOOLEAN -> ResultSet::getBoolean;
+
+			// 날짜/시간 계열
+			case Types.DATE,
+				 Types.TIME,
+				 Types.TIMESTAMP,
+				 Types.TIMESTAMP_WITH_TIMEZONE -> ResultSet::getTimestamp;
+
+			default -> ResultSet::getObject;
+		};
+	}
+
+
+	/**
+	 * BLOB 을 최대 {@link #MAX_BLOB_SIZE} 까지 읽는다.
+	 */
+	private static Object readBinary(ResultSet rs, int index) throws SQLException {
+		try {
+			Blob blob = rs.getBlob(index);
+			if (blob == null) {
+				return null;
+			}
+			long length = blob.length();
+			int readSize = (int) Math.min(length, MAX_BLOB_SIZE);
+			byte[] value = blob.getBytes(1, readSize);
+			blob.free();
+			return value;
+		} catch (SQLException | AbstractMethodError e) {
+			byte[] bytes = rs.getBytes(index);
+			if (bytes != null && bytes.length > MAX_BLOB_SIZE) {
+				return Arrays.copyOf(bytes, MAX_BLOB_SIZE);
+			}
+			return bytes;
+		}
+	}
+}
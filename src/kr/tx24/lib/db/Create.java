@@ -5,6 +5,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -28,6 +29,8 @@ public class Create {
 	private static final String INSERT_IGNORE_INTO	= "INSERT IGNORE INTO ";
 	private static final String VALUES				= ") VALUES (";
 	private static final String QUESTION_MARK		= "?";
+	
+	public static final int DEFAULT_BATCH_SIZE		= 1000;
 			
 	
 	private String INSERT			= INSERT_INTO;
@@ -35,6 +38,9 @@ public class Create {
 	private LinkedMap<String,Object> record = new LinkedMap<String,Object>();
 	private boolean deepview		= false;
 	private String table			= "";	
+	private String datasource		= null;
+	private int batchSize			= DEFAULT_BATCH_SIZE;
+	private boolean commitPerChunk	= false;
 	
 	
 	
@@ -72,6 +78,17 @@ public class Create {
 		return this;
 	}
 	
+	/**
+	 * db.json 의 datasources 에 지정된 datasource 를 사용한다. 지정하지 않으면 기본 datasource 를 사용한다.
+	 * init() 으로 초기화되지 않는다.
+	 * @param name
+	 * @return
+	 */
+	public Create datasource(String name) {
+		this.datasource = name;
+		return this;
+	}
+	
 	/**
 	 * REPLACE INTO 
 	 * @return
@@ -100,6 +117,33 @@ public class Create {
 		return this;
 	}
 	
+	/**
+	 * IGNORE, REPLACE, trailer 가 없는 INSERT 인지 여부, 성공하면 처리 건수는 항상 1 이다.
+	 */
+	boolean isPlainInsert() {
+		return INSERT_INTO.equals(INSERT) && CommonUtils.isBlank(TRAILER);
+	}
+	
+	/**
+	 * insertBatch 시 한 번에 executeBatch 할 row 수, 기본 1000
+	 * @param batchSize
+	 * @return
+	 */
+	public Create batchSize(int batchSize) {
+		this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+		return this;
+	}
+	
+	/**
+	 * insertBatch 시 chunk 마다 commit 한다.
+	 * 지정하지 않으면 전체 batch 를 하나의 트랜잭션으로 commit 하며 실패 시 전체 rollback 된다.
+	 * @return
+	 */
+	public Create commitPerChunk() {
+		this.commitPerChunk = true;
+		return this;
+	}
+	
 	
 	/*
 	 * 테이블 명, 디버그, 레코드등을 초기화한다.
@@ -108,6 +152,8 @@ public class Create {
 		table 	= "";
 		deepview= SystemUtils.deepview();
 		record.clear();
+		batchSize		= DEFAULT_BATCH_SIZE;
+		commitPerChunk	= false;
 		return this;
 	}
 	
@@ -194,9 +240,25 @@ public class Create {
 	
 	/**
 	 * Prepared Query string builder
+	 * 같은 INSERT 유형, 테이블, 컬럼 순서, trailer 의 쿼리는 {@link QueryCache} 에서 반환된다.
 	 * @return
 	 */
 	public String buildPreparedQuery() {
+		if(!QueryCache.isEnabled()) {
+			return assemblePreparedQuery();
+		}
+		Object[] shape = new Object[3 + record.size()];
+		shape[0] = INSERT;
+		shape[1] = table;
+		shape[2] = TRAILER;
+		int i = 3;
+		for(String key : record.keySet()) {
+			shape[i++] = key;
+		}
+		return QueryCache.get(new QueryCache.Shape(shape), this::assemblePreparedQuery);
+	}
+	
+	private String assemblePreparedQuery() {
 		StringBuilder sql 	= new StringBuilder();
 		StringBuilder val 	= new StringBuilder();
 		sql.append(INSERT).append(table).append(DBUtils.SPACE).append(DBUtils.LEFT_PARENTHESIS);
@@ -239,7 +301,7 @@ public class Create {
 		
 		long startTime = System.nanoTime();
 		try {
-			db			= DBFactory.get();
+			db			= DBFactory.get(datasource);
 			conn		= db.getConnection();
 			pstmt		= conn.prepareStatement(query);
 			
@@ -249,13 +311,16 @@ public class Create {
 			result  	= pstmt.executeUpdate();
 			
 			conn.commit();
+			if(result > 0) ResultCache.invalidate(table);
 		}catch(Exception t){
 			try { 	conn.rollback(); }catch(SQLException s) {}
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			db.close(pstmt);
 			db.close(conn);
 			
+			SqlMetrics.record(query, startTime, result, record);
 			if(deepview) {
 				logger.info("query : {} = [{}]",result,build());
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -268,6 +333,82 @@ public class Create {
 	}
 	
 	
+	/**
+	 * 설정된 값을 datasource, 테이블의 {@link WriteBehind} 버퍼에 넣고 INIT 이 호출된다.
+	 * INSERT 는 background thread 에서 batch 로 실행되며 결과를 기다리지 않는다.
+	 * @return 버퍼가 가득 차서 버려지면 false
+	 */
+	public boolean insertBehind(){
+		boolean result = WriteBehind.get(datasource, table).offer(record);
+		init();
+		return result;
+	}
+	
+	
+	/**
+	 * 여러 row 를 PREPARED 형태로 batchSize 단위 executeBatch 하여 INSERT 한 후 INIT 이 호출된다.
+	 * 컬럼은 첫 번째 record 의 key 순서를 사용하며, 이후 record 에 없는 컬럼은 NULL 로 입력된다.
+	 * rewriteBatch(db.json) 가 활성화되어 있으면 드라이버가 multi-row INSERT 로 재작성하여 전송한다.
+	 * @param records
+	 * @return 입력된 row 수, 실패 시 commit 된 row 수 (commitPerChunk 가 아니면 0)
+	 */
+	public int insertBatch(List<? extends Map<String, ?>> records){
+		if(records == null || records.isEmpty()) {
+			init();
+			return 0;
+		}
+		
+		String[] columns		= records.get(0).keySet().toArray(new String[0]);
+		record.clear();
+		for(String column : columns) {
+			record.put(column, null);
+		}
+		
+		DBManager db 			= null;
+		PreparedStatement pstmt = null;
+		Connection 	conn		= null;
+		String query			= buildPreparedQuery();
+		int result 		= 0;
+		int committed	= 0;
+		
+		long startTime = System.nanoTime();
+		try {
+			db			= DBFactory.get(datasource);
+			conn		= db.getConnection();
+			conn.setAutoCommit(false);
+			pstmt		= conn.prepareStatement(query);
+			
+			for(int from = 0; from < records.size(); from += batchSize) {
+				result += DBUtils.executeBatch(pstmt, records.subList(from, Math.min(from + batchSize, records.size())), columns);
+				if(commitPerChunk) {
+					conn.commit();
+					committed = result;
+				}
+			}
+			
+			conn.commit();
+			committed = result;
+		}catch(Exception t){
+			try { 	conn.rollback(); }catch(Exception s) {}
+			SqlMetrics.error(query);
+			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+		}finally {
+			db.close(pstmt);
+			db.close(conn);
+			if(committed > 0) ResultCache.invalidate(table);
+			
+			SqlMetrics.record(query, startTime, result, null);
+			if(deepview) {
+				logger.info("query : {} = [{}/{}], batchSize {}",query,committed,records.size(),batchSize);
+				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
+			}
+			
+			init();
+		}
+		return committed;
+	}
+	
+	
 	/**
 	 * 쿼리를 직접 실행하여 데이터는 INSERT 한다. INIT 은 호출되지 않는다.
 	 * @param query
@@ -283,17 +424,19 @@ public class Create {
 		
 		long startTime = System.nanoTime();
 		try {
-			db			= DBFactory.get();
+			db			= DBFactory.get(datasource);
 			conn		= db.getConnection();
 			pstmt		= conn.prepareStatement(query);	
 			result  	= pstmt.executeUpdate();
 			conn.commit();
 		}catch(Exception t){
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			db.close(pstmt);
 			db.close(conn);
 			
+			SqlMetrics.record(query, startTime, result, null);
 			if(deepview) {
 				logger.info("query : {} = [{}]",result,query);
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -320,7 +463,7 @@ public class Create {
 		
 		long startTime = System.nanoTime();
 		try {
-			db			= DBFactory.get();
+			db			= DBFactory.get(datasource);
 			conn		= db.getConnection();
 			pstmt		= conn.prepareStatement(query,Statement.RETURN_GENERATED_KEYS);
 			
@@ -334,12 +477,15 @@ public class Create {
 				result = rset.getLong(1);
 			}
 			conn.commit();
+			ResultCache.invalidate(table);
 		}catch(Exception t){
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			db.close(pstmt);
 			db.close(conn);
 			
+			SqlMetrics.record(query, startTime, result > 0 ? 1 : 0, record);
 			if(deepview) {
 				logger.info("query : {} = [{}]",result,build());
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -356,6 +502,14 @@ public class Create {
 		return record;
 	}
 	
+	public String getTable(){
+		return table;
+	}
+	
+	public String getDatasource(){
+		return datasource;
+	}
+	
 	
 	public int insertSelect(Retrieve retrieve) {
 		return insertSelect("",retrieve);
@@ -374,7 +528,7 @@ public class Create {
 					.append(DBUtils.SPACE);
 			}
 				
-				sql.append(retrieve.build());
+				sql.append(retrieve.buildBindQuery());
 		
 		DBManager db 			= null;
 		PreparedStatement pstmt = null;
@@ -383,17 +537,21 @@ public class Create {
 		
 		long startTime = System.nanoTime();
 		try {
-			db			= DBFactory.get();
+			db			= DBFactory.get(datasource);
 			conn		= db.getConnection();
 			pstmt		= conn.prepareStatement(sql.toString());	
+			DBUtils.setValues(pstmt, retrieve.getBindValues());
 			result  	= pstmt.executeUpdate();
 			conn.commit();
+			if(result > 0) ResultCache.invalidate(table);
 		}catch(Exception t){
+			SqlMetrics.error(sql.toString());
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			db.close(pstmt);
 			db.close(conn);
 			
+			SqlMetrics.record(sql.toString(), startTime, result, retrieve::getBindValues);
 			if(deepview) {
 				logger.info("query : {} = [{}]",result,sql.toString());
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -413,6 +571,8 @@ public class Create {
         // 스레드 안전성을 위해 현재 레코드의 불변 복사본 생성
         final LinkedMap<String, Object> snapshot = new LinkedMap<>(record);
         final String query = buildPreparedQuery();
+        final String target = table;
+        final String source = datasource;
         final boolean enableLog = deepview;
         
         // CompletableFuture로 비동기 실행
@@ -424,7 +584,7 @@ public class Create {
             long startTime = System.nanoTime();
 
             try {
-                db = DBFactory.get();
+                db = DBFactory.get(source);
                 conn = db.getConnection();
                 conn.setAutoCommit(false);
                 
@@ -433,6 +593,7 @@ public class Create {
                 result = pstmt.executeUpdate();
                 
                 conn.commit();
+                if (result > 0) ResultCache.invalidate(target);
                 
                 if (enableLog) {
                     logger.info("Async insert completed: {} row(s) affected", result);
@@ -447,6 +608,7 @@ public class Create {
                         logger.error("Rollback failed", rollbackEx);
                     }
                 }
+                SqlMetrics.error(query);
                 logger.error("Async insert failed: {}", CommonUtils.getExceptionMessage(e));
                 throw new RuntimeException("Async insert failed", e);
                 
@@ -457,6 +619,7 @@ public class Create {
                     db.close(conn);
                 }
                 
+                SqlMetrics.record(query, startTime, result, snapshot);
                 if (enableLog) {
                     logger.info("Async insert query: [{}]", query);
                     logger.info(SystemUtils.getElapsedTime(System.nanoTime() - startTime));
@@ -0,0 +1,342 @@
+package kr.tx24.lib.db;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import kr.tx24.lib.lang.CommonUtils;
+import kr.tx24.lib.map.LinkedMap;
+
+/**
+ * Retrieve/Create/Update/Delete 및 DBTrx 의 비동기 실행
+ *
+ * <p>datasource 별로 Hikari 최대 커넥션 수(db.json max)만큼의 작업 스레드를 가진 전용 executor(lane)에서 실행한다.
+ * 동시에 실행되는 작업이 pool 크기를 넘지 않으므로 독립된 조회를 겹쳐 실행해도 커넥션 대기(connectionTimeout)가 생기지 않고,
+ * 초과 작업은 lane 의 queue 에서 기다린다. queue 가 가득 차면 호출 스레드에서 실행한다.</p>
+ *
+ * <pre>
+ * CompletableFuture&lt;RecordSet&gt; user	= DBAsync.select(new Retrieve("user").where("id", id));
+ * CompletableFuture&lt;RecordSet&gt; order	= DBAsync.select(new Retrieve("orders").where("user_id", id));
+ * List&lt;RecordSet&gt; list = DBAsync.join(DBAsync.all(user, order), 3000);
+ *
+ * DBAsync.transaction(null, trx -&gt; {
+ *     trx.update(update);
+ *     return trx.insert(create);
+ * });
+ * </pre>
+ *
+ * <p>builder 는 작업 스레드에서 실행되므로 결과가 완료될 때까지 호출 측에서 변경하지 않는다.
+ * 결과는 동기 메소드와 같다. (오류 시 select 는 null, insert/update/delete 는 0)
+ * lane 작업 안에서 같은 datasource 로 다시 호출하면 lane 스레드를 기다리며 멈추지 않도록 호출 스레드에서 바로 실행한다.</p>
+ */
+public final class DBAsync {
+	private static final Logger logger = LoggerFactory.getLogger(DBAsync.class);
+
+	private static final String DEFAULT			= "default";
+	private static final int QUEUE_CAPACITY		= 1000;
+
+	private static final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+	private static final ThreadLocal<Lane> current = new ThreadLocal<>();
+
+	private DBAsync() {
+	}
+
+
+	/**
+	 * DBTrx 안에서 실행할 작업, 예외가 발생하면 rollback 된다.
+	 */
+	@FunctionalInterface
+	public interface TrxWork<T> {
+		T apply(DBTrx trx) throws Exception;
+	}
+
+
+	public static CompletableFuture<RecordSet> select(Retrieve retrieve) {
+		return supply(retrieve.getDatasource(), retrieve::select);
+	}
+
+	public static CompletableFuture<RecordSet> selectWithCount(Retrieve retrieve) {
+		return supply(retrieve.getDatasource(), retrieve::selectWithCount);
+	}
+
+	public static CompletableFuture<Long> count(Retrieve retrieve) {
+		return supply(retrieve.getDatasource(), retrieve::count);
+	}
+
+	public static CompletableFuture<Integer> insert(Create create) {
+		return supply(create.getDatasource(), create::insert);
+	}
+
+	public static CompletableFuture<Integer> update(Update update) {
+		return supply(update.getDatasource(), update::update);
+	}
+
+	public static CompletableFuture<Integer> delete(Delete delete) {
+		return supply(delete.getDatasource(), delete::delete);
+	}
+
+
+	/**
+	 * 하나의 DBTrx 로 작업 전체를 같은 lane 스레드와 커넥션에서 실행한다.
+	 * 정상 종료 시 commit, 예외 발생 시 rollback 후 future 가 예외로 완료된다.
+	 * @param datasource null 이면 기본 datasource
+	 */
+	public static <T> CompletableFuture<T> transaction(String datasource, TrxWork<T> work) {
+		return supply(datasource, () -> {
+			DBTrx trx = new DBTrx(datasource);
+			try {
+				trx.begin();
+				T result = work.apply(trx);
+				trx.commit();
+				return result;
+			} catch (Throwable t) {
+				trx.rollback();
+				throw t instanceof RuntimeException r ? r : new CompletionException(t);
+			}
+		});
+	}
+
+
+	/**
+	 * 기본 datasource 의 lane 에서 작업을 실행한다. 작업은 DBFactory.get() 의 커넥션을 하나만 사용하여야 한다.
+	 */
+	public static <T> CompletableFuture<T> supply(Supplier<T> task) {
+		return supply(null, task);
+	}
+
+	/**
+	 * datasource 의 lane 에서 작업을 실행한다. 작업은 해당 datasource 의 커넥션을 하나만 사용하여야 한다.
+	 * @param datasource null 이면 기본 datasource
+	 */
+	public static <T> CompletableFuture<T> supply(String datasource, Supplier<T> task) {
+		Lane lane;
+		try {
+			lane = lane(datasource);
+		} catch (Throwable t) {
+			return CompletableFuture.failedFuture(t);
+		}
+
+		if (current.get() == lane) {
+			lane.inline.increment();
+			try {
+				return CompletableFuture.completedFuture(task.get());
+			} catch (Throwable t) {
+				return CompletableFuture.failedFuture(t);
+			}
+		}
+
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		Runnable job = () -> {
+			Lane previous = current.get();
+			current.set(lane);
+			try {
+				future.complete(task.get());
+			} catch (Throwable t) {
+				future.completeExceptionally(t);
+			} finally {
+				current.set(previous);
+			}
+		};
+		try {
+			lane.submitted.increment();
+			lane.executor.execute(job);
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+
+	/**
+	 * 모든 결과를 순서대로 모은다. 하나라도 실패하면 나머지를 기다리지 않고 해당 예외로 완료된다.
+	 */
+	@SafeVarargs
+	public static <T> CompletableFuture<List<T>> all(CompletableFuture<? extends T>... futures) {
+		List<CompletableFuture<? extends T>> list = new ArrayList<CompletableFuture<? extends T>>(futures.length);
+		for (CompletableFuture<? extends T> f : futures) {
+			list.add(f);
+		}
+		return all(list);
+	}
+
+	/**
+	 * 모든 결과를 순서대로 모은다. 하나라도 실패하면 나머지를 기다리지 않고 해당 예외로 완료된다.
+	 */
+	public static <T> CompletableFuture<List<T>> all(Collection<? extends CompletableFuture<? extends T>> futures) {
+		List<CompletableFuture<? extends T>> list = new ArrayList<CompletableFuture<? extends T>>(futures);
+		CompletableFuture<List<T>> result = CompletableFuture.allOf(list.toArray(new CompletableFuture<?>[0]))
+				.thenApply(v -> {
+					List<T> values = new ArrayList<T>(list.size());
+					for (CompletableFuture<? extends T> f : list) {
+						values.add(f.join());
+					}
+					return values;
+				});
+		for (CompletableFuture<? extends T> f : list) {
+			f.whenComplete((v, t) -> {
+				if (t != null) {
+					result.completeExceptionally(t);
+				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * 이름별 결과를 모은다. 하나라도 실패하면 나머지를 기다리지 않고 해당 예외로 완료된다.
+	 * <pre>
+	 * LinkedMap&lt;String,RecordSet&gt; map = DBAsync.join(DBAsync.all(Map.of("user", user, "order", order)), 3000);
+	 * </pre>
+	 */
+	public static <K, T> CompletableFuture<LinkedMap<K, T>> all(Map<K, ? extends CompletableFuture<? extends T>> futures) {
+		List<K> keys = new ArrayList<K>(futures.keySet());
+		List<CompletableFuture<? extends T>> list = new ArrayList<CompletableFuture<? extends T>>();
+		for (K key : keys) {
+			list.add(futures.get(key));
+		}
+		return DBAsync.<T>all(list).thenApply(values -> {
+			LinkedMap<K, T> map = new LinkedMap<K, T>();
+			for (int i = 0; i < keys.size(); i++) {
+				map.put(keys.get(i), values.get(i));
+			}
+			return map;
+		});
+	}
+
+
+	/**
+	 * 결과를 기다린다. 작업의 예외와 timeout 은 DBException 으로 변환한다.
+	 * @param timeoutMillis 0 이하이면 제한 없음
+	 */
+	public static <T> T join(CompletableFuture<T> future, long timeoutMillis) throws DBException {
+		try {
+			return timeoutMillis > 0 ? future.get(timeoutMillis, TimeUnit.MILLISECONDS) : future.get();
+		} catch (TimeoutException e) {
+			future.cancel(false);
+			throw new DBException("async db timeout : " + timeoutMillis + "ms");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DBException("async db interrupted");
+		} catch (CancellationException e) {
+			throw new DBException("async db cancelled");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+					? e.getCause().getCause() : e.getCause();
+			if (cause instanceof DBException d) {
+				throw d;
+			}
+			throw new DBException("async db failed : " + CommonUtils.getExceptionMessage(cause),
+					cause instanceof SQLException s ? s : null);
+		}
+	}
+
+
+	private static Lane lane(String datasource) {
+		String key = datasource == null ? DEFAULT : datasource;
+		Lane lane = lanes.get(key);
+		if (lane != null) {
+			return lane;
+		}
+		DBFactory.get(datasource);		//pool 초기화
+		return lanes.computeIfAbsent(key, k -> {
+			int size;
+			try {
+				HikariDataSource ds = DBManager.getDataSource(datasource);
+				size = ds == null ? 1 : Math.max(1, ds.getMaximumPoolSize());
+			} catch (DBException e) {
+				size = 1;
+			}
+			logger.info("db async lane {} : {} threads", k, size);
+			return new Lane(k, size);
+		});
+	}
+
+
+	public static LinkedMap<String, Object> getStats() {
+		LinkedMap<String, Object> map = new LinkedMap<String, Object>();
+		lanes.forEach((name, lane) -> {
+			LinkedMap<String, Object> m = new LinkedMap<String, Object>();
+			m.put("threads"		, lane.executor.getMaximumPoolSize());
+			m.put("active"		, lane.executor.getActiveCount());
+			m.put("queued"		, lane.executor.getQueue().size());
+			m.put("submitted"	, lane.submitted.sum());
+			m.put("completed"	, lane.executor.getCompletedTaskCount());
+			m.put("inline"		, lane.inline.sum());
+			m.put("callerRuns"	, lane.callerRuns.sum());
+			map.put(name, m);
+		});
+		return map;
+	}
+
+
+	/**
+	 * 모든 lane 을 종료한다. 대기 중인 작업은 최대 30초 동안 완료를 기다린다. 이후 호출 시 lane 을 다시 생성한다.
+	 */
+	public static void shutdown() {
+		List<Lane> closing = new ArrayList<Lane>(lanes.values());
+		lanes.clear();
+		for (Lane lane : closing) {
+			lane.executor.shutdown();
+		}
+		for (Lane lane : closing) {
+			try {
+				if (!lane.executor.awaitTermination(30, TimeUnit.SECONDS)) {
+					logger.warn("db async lane {} did not terminate in 30s", lane.name);
+					lane.executor.shutdownNow();
+				}
+			} catch (InterruptedException e) {
+				lane.executor.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+
+	private static final class Lane {
+		private final String name;
+		private final ThreadPoolExecutor executor;
+		private final LongAdder submitted	= new LongAdder();
+		private final LongAdder inline		= new LongAdder();
+		private final LongAdder callerRuns	= new LongAdder();
+
+		Lane(String name, int size) {
+			this.name = name;
+			AtomicInteger number = new AtomicInteger();
+			this.executor = new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY),
+				r -> {
+					Thread thread = new Thread(r, "db-async-" + name + "-" + number.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				},
+				(r, e) -> {
+					if (e.isShutdown()) {
+						throw new RejectedExecutionException("db async lane " + name + " is shutdown");
+					}
+					callerRuns.increment();		//queue 가 가득 차면 호출 스레드에서 실행하여 제출 속도를 늦춘다.
+					r.run();
+				});
+			this.executor.allowCoreThreadTimeOut(true);
+		}
+	}
+}
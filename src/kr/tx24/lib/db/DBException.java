@@ -15,7 +15,7 @@ private static final long serialVersionUID = 1L;
 
     public DBException(String message, String query, SQLException cause) {
         super(message, cause);
-        this.code  = cause.getErrorCode();
+        this.code  = cause != null ? cause.getErrorCode() : 0;
         this.query = query;
         this.message = cause != null ? cause.getMessage() : message;
         this.operation = extractOperation(query);
@@ -24,7 +24,7 @@ private static final long serialVersionUID = 1L;
 
     public DBException(String message, String query, String operation, SQLException cause) {
         super(message, cause);
-        this.code  = cause.getErrorCode();
+        this.code  = cause != null ? cause.getErrorCode() : 0;
         this.query = query;
         this.operation = operation;
         this.message = cause != null ? cause.getMessage() : message;
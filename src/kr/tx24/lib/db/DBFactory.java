@@ -1,5 +1,8 @@
 package kr.tx24.lib.db;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -8,6 +11,7 @@ public class DBFactory {
 	private static final Logger logger = LoggerFactory.getLogger(DBFactory.class);
     private static volatile DBManager dbmanager = null;
     private static volatile boolean initialized = false;
+    private static final Map<String, DBManager> managers = new ConcurrentHashMap<>();
 	
     /**
     * Get singleton DBManager instance
@@ -31,6 +35,35 @@ public class DBFactory {
        }
        return dbmanager;
    }
+   
+   /**
+    * db.json 의 datasources 에 지정된 이름의 DBManager instance, 이름별 pool 을 사용한다.
+    * @param name datasource 이름, null 이면 {@link #get()}
+    * @return DBManager instance
+    * @throws RuntimeException if initialization fails
+    */
+   public static DBManager get(String name) {
+       if (name == null) {
+           return get();
+       }
+       DBManager manager = managers.get(name);
+       if (manager == null) {
+           synchronized (DBFactory.class) {
+               manager = managers.get(name);
+               if (manager == null) {
+                   try {
+                       manager = new DBManager(name);
+                       managers.put(name, manager);
+                       logger.debug("DBManager {} initialized successfully", name);
+                   } catch (Exception e) {
+                       logger.error("Failed to initialize DBManager {}", name, e);
+                       throw new RuntimeException("DBManager initialization failed : "+name, e);
+                   }
+               }
+           }
+       }
+       return manager;
+   }
     
 	
    /**
@@ -46,6 +79,10 @@ public class DBFactory {
     * WARNING: This will close existing connections
     */
    public static synchronized void reset() {
+       if (!managers.isEmpty()) {
+           managers.clear();
+           DBManager.shutdown();
+       }
        if (dbmanager != null) {
            try {
                DBManager.shutdown();
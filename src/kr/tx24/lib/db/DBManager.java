@@ -8,12 +8,15 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 
 import kr.tx24.lib.conf.Configure;
 import kr.tx24.lib.lang.CommonUtils;
@@ -28,16 +31,35 @@ public class DBManager {
 	private static Logger logger = LoggerFactory.getLogger(DBManager.class);
 	private static volatile boolean initialized = false;
 	private static HikariDataSource ds		= null;
+	private static final Map<String,HikariDataSource> pools = new ConcurrentHashMap<>();	//db.json datasources 이름별 pool
+	private final String name;
 	private String error					= "";
 	public static boolean injectionFilter	= false;
 	
 
 	public DBManager() throws Exception {
-		init();
-		
-		if(ds == null || !initialized) {
-            throw new Exception("Database initialization failed - DataSource is null");
-        }
+		this(null);
+	}
+	
+	/**
+	 * db.json 의 datasources 에 지정된 이름의 pool 을 사용한다. null 이면 기본 datasource 를 사용한다.
+	 * <pre>
+	 * "datasources" : { "settle" : {"jdbcurl" : "jdbc:mariadb://10.0.0.5:3306", "username" : "settle", "password" : "ENC:...", "max" : 5} }
+	 * </pre>
+	 * datasource 설정에 없는 항목(driver, max, min, lifetime ...)은 기본 설정을 사용한다.
+	 * @param name
+	 * @throws Exception
+	 */
+	public DBManager(String name) throws Exception {
+		this.name = name;
+		if(name == null) {
+			init();
+			if(ds == null || !initialized) {
+	            throw new Exception("Database initialization failed - DataSource is null");
+	        }
+		}else {
+			init(name);
+		}
 	}
 	
 
@@ -62,43 +84,26 @@ public class DBManager {
 				}
 				
 				
-				config = new HikariConfig();
-				config.setJdbcUrl(dbMap.getString("jdbcurl"));
-				config.setUsername(dbMap.getString("username"));
-				config.setPassword(dbMap.getString("password"));
-				config.setDriverClassName(dbMap.getString("driver"));
-				
-				
-				config.setAutoCommit(dbMap.isTrue("autocommit"));
-				config.setPoolName(dbMap.getString("pool","tx24-pool"));
-				//pool에 유지시킬 수 있는 최대 커넥션 수. pool의 커넥션 수가 옵션 값에 도달하게 되면 idle인 상태는 존재하지 않음.(default: 10)
-				config.setMaximumPoolSize(dbMap.getInt("max"));
-				//아무런 일을 하지않아도 적어도 이 옵션에 설정 값 size로 커넥션들을 유지해주는 설정. 최적의 성능과 응답성을 요구한다면 이 값은 설정하지 않는게 좋음. default값을 보면 이해할 수있음.
-				config.setMinimumIdle(dbMap.getInt("min"));
-				
-				//onnection 타임아웃 설정
-	            config.setKeepaliveTime(300000);     // 5분 (keep-alive)
-	            
-	            //Leak detection
-	            config.setLeakDetectionThreshold(60000);  // 1분
-				
-				//커넥션 풀에서 살아있을 수 있는 커넥션의 최대 수명시간. 사용중인 커넥션은 maxLifetime에 상관없이 제거되지않음. 사용중이지 않을 때만 제거됨. 
-				//풀 전체가아닌 커넥션 별로 적용이되는데 그 이유는 풀에서 대량으로 커넥션들이 제거되는 것을 방지하기 위함임. 
-				//강력하게 설정해야하는 설정 값으로 데이터베이스나 인프라의 적용된 connection time limit보다 작아야함. 
-				//0으로 설정하면 infinite lifetime이 적용됨(idleTimeout설정 값에 따라 적용 idleTimeout값이 설정되어 있을 경우 0으로 설정해도 무한 lifetime 적용 안됨). (default: 1800000 (30minutes))
-				config.setMaxLifetime(Math.min(dbMap.getLong("lifetime"), 30 * 60 * 1000L));
-				//pool에서 커넥션을 얻어오기전까지 기다리는 최대 시간, 허용가능한 wait time을 초과하면 SQLException을 던짐. 설정가능한 가장 작은 시간은 250ms (default: 30000 (30s))
-				config.setConnectionTimeout(Math.max(dbMap.getLong("timeout"), 30000));
-				//pool에 일을 안하는 커넥션을 유지하는 시간. 이 옵션은 minimumIdle이 maximumPoolSize보다 작게 설정되어 있을 때만 설정. pool에서 유지하는 최소 커넥션 수는 minimumIdle (A connection will never be retired as idle before this timeout.). 최솟값은 10000ms (default: 600000 (10minutes))
-				config.setIdleTimeout(Math.min(dbMap.getLong("idleTimeout"), config.getMaxLifetime()));
-				config.addDataSourceProperty("cachePrepStmts", "true");
-				config.addDataSourceProperty("prepStmtCacheSize", "250");
-				config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+				config = createConfig(dbMap);
 				//config.addHealthCheckProperty("connectivityCheckTimeoutMs", "1000");
 				
 				DBManager.injectionFilter = dbMap.isTrue("injectionFilter");
+				//SQL builder 쿼리 문자열 cache 최대 개수, 0 이면 사용하지 않는다.
+				if(dbMap.containsKey("queryCache")) {
+					QueryCache.setMaxSize(dbMap.getInt("queryCache"));
+				}
+				//Retrieve.cache() 조회 결과 cache 크기, TTL, 무효화 채널
+				if(dbMap.get("resultCache") instanceof Map<?,?> resultCache) {
+					ResultCache.configure(resultCache);
+				}
+				//SQL shape 별 지연시간, slow query, pool 대기시간 집계
+				if(dbMap.get("sqlMetrics") instanceof Map<?,?> sqlMetrics) {
+					SqlMetrics.configure(sqlMetrics);
+				}
 				
 				ds = new HikariDataSource(config);
+				//읽기 전용 replica pool, replicas 가 없으면 모든 조회는 primary 를 사용한다.
+				ReplicaRouter.init(dbMap);
 				
 				initialized = true; 
 				System.out.print("Jdbc        : Pool initialized");
@@ -114,6 +119,86 @@ public class DBManager {
 	
 
 	
+	/**
+	 * db.json 설정으로 HikariConfig 를 생성한다. replica pool 도 같은 설정을 사용한다.
+	 */
+	static HikariConfig createConfig(SharedMap<String,Object> dbMap) {
+		HikariConfig config = new HikariConfig();
+		config.setJdbcUrl(dbMap.getString("jdbcurl"));
+		config.setUsername(dbMap.getString("username"));
+		config.setPassword(dbMap.getString("password"));
+		config.setDriverClassName(dbMap.getString("driver"));
+		
+		
+		config.setAutoCommit(dbMap.isTrue("autocommit"));
+		config.setPoolName(dbMap.getString("pool","tx24-pool"));
+		//pool에 유지시킬 수 있는 최대 커넥션 수. pool의 커넥션 수가 옵션 값에 도달하게 되면 idle인 상태는 존재하지 않음.(default: 10)
+		config.setMaximumPoolSize(dbMap.getInt("max"));
+		//아무런 일을 하지않아도 적어도 이 옵션에 설정 값 size로 커넥션들을 유지해주는 설정. 최적의 성능과 응답성을 요구한다면 이 값은 설정하지 않는게 좋음. default값을 보면 이해할 수있음.
+		config.setMinimumIdle(dbMap.getInt("min"));
+		
+		//onnection 타임아웃 설정
+	            config.setKeepaliveTime(300000);     // 5분 (keep-alive)
+	            
+	            //Leak detection
+	            config.setLeakDetectionThreshold(60000);  // 1분
+		
+		//커넥션 풀에서 살아있을 수 있는 커넥션의 최대 수명시간. 사용중인 커넥션은 maxLifetime에 상관없이 제거되지않음. 사용중이지 않을 때만 제거됨. 
+		//풀 전체가아닌 커넥션 별로 적용이되는데 그 이유는 풀에서 대량으로 커넥션들이 제거되는 것을 방지하기 위함임. 
+		//강력하게 설정해야하는 설정 값으로 데이터베이스나 인프라의 적용된 connection time limit보다 작아야함. 
+		//0으로 설정하면 infinite lifetime이 적용됨(idleTimeout설정 값에 따라 적용 idleTimeout값이 설정되어 있을 경우 0으로 설정해도 무한 lifetime 적용 안됨). (default: 1800000 (30minutes))
+		config.setMaxLifetime(Math.min(dbMap.getLong("lifetime"), 30 * 60 * 1000L));
+		//pool에서 커넥션을 얻어오기전까지 기다리는 최대 시간, 허용가능한 wait time을 초과하면 SQLException을 던짐. 설정가능한 가장 작은 시간은 250ms (default: 30000 (30s))
+		config.setConnectionTimeout(Math.max(dbMap.getLong("timeout"), 30000));
+		//pool에 일을 안하는 커넥션을 유지하는 시간. 이 옵션은 minimumIdle이 maximumPoolSize보다 작게 설정되어 있을 때만 설정. pool에서 유지하는 최소 커넥션 수는 minimumIdle (A connection will never be retired as idle before this timeout.). 최솟값은 10000ms (default: 600000 (10minutes))
+		config.setIdleTimeout(Math.min(dbMap.getLong("idleTimeout"), config.getMaxLifetime()));
+		config.addDataSourceProperty("cachePrepStmts", "true");
+		config.addDataSourceProperty("prepStmtCacheSize", "250");
+		config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+		//addBatch/executeBatch 를 multi-row INSERT 로 재작성하여 전송한다. (Create.insertBatch, Update.updateBatch)
+		String driver = dbMap.getString("driver").toLowerCase();
+		if((driver.contains("mariadb") || driver.contains("mysql")) && !"false".equalsIgnoreCase(dbMap.getString("rewriteBatch","true"))) {
+			config.addDataSourceProperty("rewriteBatchedStatements", "true");
+		}
+		//커넥션 획득 대기시간, 사용시간, timeout 을 SqlMetrics 에 기록한다.
+		config.setMetricsTrackerFactory(SqlMetrics.trackerFactory());
+		return config;
+	}
+	
+	
+	
+	private static synchronized void init(String name) throws Exception{
+		HikariDataSource pool = pools.get(name);
+		if(pool != null && !pool.isClosed()) {
+			return;
+		}
+		
+		SharedMap<String,Object> dbMap = loadConfig();
+		if(!(dbMap.get("datasources") instanceof Map<?,?> datasources) || !(datasources.get(name) instanceof Map<?,?> source)) {
+			throw new Exception("Database initialization failed - datasource not found : "+name);
+		}
+		
+		SharedMap<String,Object> config = new SharedMap<String,Object>(dbMap);
+		config.remove("replicas");
+		config.remove("datasources");
+		source.forEach((k, v) -> config.put(CommonUtils.toString(k), v));
+		decryptPassword(config);
+		
+		try {
+			Class.forName(config.getString("driver"));
+		} catch(ClassNotFoundException e) {
+			throw new Exception("jdbc driver not installed "+config.getString("driver"), e);
+		}
+		
+		HikariConfig hikari = createConfig(config);
+		if(!source.containsKey("pool")) {
+			hikari.setPoolName(config.getString("pool", "POOL")+"-"+name);
+		}
+		pools.put(name, new HikariDataSource(hikari));
+		logger.info("datasource {} initialized : {}", name, hikari.getPoolName());
+	}
+	
+	
 	private static SharedMap<String,Object> loadConfig() throws Exception{
 		Path configPath = SystemUtils.getDatabaseConfigPath();
 		
@@ -123,33 +208,102 @@ public class DBManager {
 
 	    SharedMap<String, Object> map = new JacksonUtils().fromJson(configPath, TypeRegistry.MAP_SHAREDMAP_OBJECT);
 	
-	    if (map != null && map.containsKey("password")) {
-	        String password = map.getString("password");
-	        if (password != null && password.startsWith("ENC:")) {
-	            // "ENC:" 제거 후 복호화
-	            String encrypted = password.substring(4);
-	            String decrypted = new Configure().decrypt(encrypted);
-	            map.put("password", decrypted);
-	        }
+	    if (map != null) {
+	        decryptPassword(map);
 	    }
 	    
 	    return map;
 	}
 	
+	/**
+	 * password 가 "ENC:" 로 시작하면 복호화한다.
+	 */
+	static void decryptPassword(SharedMap<String,Object> map) {
+		String password = map.getString("password");
+		if (password != null && password.startsWith("ENC:")) {
+			// "ENC:" 제거 후 복호화
+			String encrypted = password.substring(4);
+			String decrypted = new Configure().decrypt(encrypted);
+			map.put("password", decrypted);
+		}
+	}
+	
+	private HikariDataSource dataSource() throws DBException{
+		HikariDataSource source = name == null ? ds : pools.get(name);
+		if (source == null) {
+			throw new DBException("DataSource not initialized"+(name == null ? "" : " : "+name));
+		}
+		return source;
+	}
+	
+	/**
+	 * datasource 이름, 기본 datasource 는 null
+	 */
+	public String getName() {
+		return name;
+	}
+	
 	
 	
 	public Connection getConnection() throws DBException{
-		if (ds == null) {
-			throw new DBException("DataSource not initialized");
-		}
+		HikariDataSource source = dataSource();
 		try {
-			return ds.getConnection();
+			Connection conn = source.getConnection();
+			if (name == null) {
+				ReplicaRouter.lease(conn);
+			}
+			return conn;
 		} catch (SQLException e) {
 			throw new DBException("Failed to get connection from pool", e);
 		}
 	} 
 	
+	/**
+	 * primary 조회용 커넥션, {@link #getConnection()} 과 달리 반환 시 replica sticky 구간을 시작하지 않는다.
+	 */
+	Connection getPrimaryConnection() throws DBException{
+		HikariDataSource source = dataSource();
+		try {
+			return source.getConnection();
+		} catch (SQLException e) {
+			throw new DBException("Failed to get connection from pool", e);
+		}
+	}
+	
+	/**
+	 * 조회용 커넥션, replica 가 지정되어 있으면 replica 커넥션을 반환한다.
+	 * 쓰기 이후 sticky 구간이거나 사용 가능한 replica 가 없으면 primary 커넥션을 반환한다.
+	 * replica 는 기본 datasource 에만 적용된다.
+	 */
+	public Connection getReadConnection() throws DBException{
+		Connection conn = name == null ? ReplicaRouter.getConnection() : null;
+		if (conn != null) {
+			return conn;
+		}
+		HikariDataSource source = dataSource();
+		try {
+			return source.getConnection();
+		} catch (SQLException e) {
+			throw new DBException("Failed to get connection from pool", e);
+		}
+	}
+	
+	/**
+	 * 질의문이 잠금 없는 SELECT 이면 {@link #getReadConnection()}, 그 외는 {@link #getConnection()}
+	 */
+	public Connection getReadConnection(String query) throws DBException{
+		return ReplicaRouter.isReadQuery(query) ? getReadConnection() : getConnection();
+	}
+	
 	public static void shutdown() {
+		ReplicaRouter.shutdown();
+		for (HikariDataSource pool : pools.values()) {
+			try {
+				pool.close();
+			} catch (Exception e) {
+			}
+		}
+		pools.clear();
 		if (ds != null) {
 	        try {
 	            // HikariCP가 이미 닫혔는지 확인
@@ -177,9 +331,42 @@ public class DBManager {
 		return ds;
 	}
 	
+	/**
+	 * 이름으로 지정된 datasource 의 pool, 초기화되지 않았으면 null
+	 */
+	public static HikariDataSource getDataSource(String name)throws DBException{
+		return name == null ? ds : pools.get(name);
+	}
+	
+	/**
+	 * datasource 별 pool 상태 (active, idle, total, waiting)
+	 */
+	public static LinkedMap<String,Object> getStats() {
+		LinkedMap<String,Object> map = new LinkedMap<String,Object>();
+		map.put("default", poolStats(ds));
+		pools.forEach((name, pool) -> map.put(name, poolStats(pool)));
+		return map;
+	}
+	
+	private static LinkedMap<String,Object> poolStats(HikariDataSource source) {
+		LinkedMap<String,Object> map = new LinkedMap<String,Object>();
+		HikariPoolMXBean pool = source == null || source.isClosed() ? null : source.getHikariPoolMXBean();
+		map.put("pool"		, source == null ? "" : source.getPoolName());
+		map.put("jdbcurl"	, source == null ? "" : source.getJdbcUrl());
+		map.put("active"	, pool == null ? 0 : pool.getActiveConnections());
+		map.put("idle"		, pool == null ? 0 : pool.getIdleConnections());
+		map.put("total"		, pool == null ? 0 : pool.getTotalConnections());
+		map.put("waiting"	, pool == null ? 0 : pool.getThreadsAwaitingConnection());
+		map.put("max"		, source == null ? 0 : source.getMaximumPoolSize());
+		return map;
+	}
+	
 	
 	public void close(Connection conn){
 		if(conn != null){
+			if (name == null) {
+				ReplicaRouter.release(conn);
+			}
 			try{
 				conn.close();
 			}catch(SQLException e){}
@@ -264,11 +451,13 @@ public class DBManager {
 		}catch(SQLException t){
 			try { conn.rollback();}catch(SQLException c) {}
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute update", query, t);
 		}finally {
 			close(pstmt);
 			close(conn);
 			
+			SqlMetrics.record(query, startTime, result, null);
 			log(query, result, startTime, null);
 			
 			
@@ -292,11 +481,13 @@ public class DBManager {
 		}catch(SQLException t){
 			try { conn.rollback();}catch(SQLException c) {}
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute update", query, t);
 		}finally {
 			close(pstmt);
 			close(conn);
 			
+			SqlMetrics.record(query, startTime, result, record);
 			log(query, result, startTime, null);
 			
 		}
@@ -309,6 +500,7 @@ public class DBManager {
 		ResultSet rset			= null;
 		ResultSet generatedKeys = null;
 		long result = 0;
+		int affectedRows = 0;
 		long startTime = System.nanoTime();
 		
 		
@@ -317,7 +509,7 @@ public class DBManager {
 			pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
 			DBUtils.setValues(pstmt, record);
 			
-			int affectedRows = pstmt.executeUpdate();
+			affectedRows = pstmt.executeUpdate();
 			if (affectedRows > 0) {
 				generatedKeys = pstmt.getGeneratedKeys();
 				if (generatedKeys.next()) {
@@ -330,11 +522,13 @@ public class DBManager {
 		}catch(SQLException t){
 			try { conn.rollback();}catch(SQLException c) {}
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute update", query, t);
 		}finally {
 			close(rset);
 			close(pstmt);
 			close(conn);
+			SqlMetrics.record(query, startTime, affectedRows, record);
 			log(query, result, startTime, null);
 		}
 		return result;
@@ -355,11 +549,13 @@ public class DBManager {
 		}catch(SQLException t){
 			try { conn.rollback();}catch(SQLException c) {}
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute update", query, t);
 		}finally {
 			close(stmt);
 			close(conn);
 			
+			SqlMetrics.record(query, startTime, result, null);
 			log(query, result, startTime, null);
 			
 		}
@@ -393,7 +589,7 @@ public class DBManager {
 		
 		try {
 			
-			conn = getConnection();
+			conn = getReadConnection(query);
 			stmt = conn.createStatement();
 			stmt.executeQuery(query);
 			rset = stmt.getResultSet();
@@ -404,10 +600,12 @@ public class DBManager {
 			
 		}catch(SQLException t) {
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute update", query, t);
 		}finally{
 			close(conn, stmt, rset);
 			
+			SqlMetrics.record(query, startTime, records == null ? 0 : records.size(), null);
 			log(query, 0, startTime, records);
 		}
 		
@@ -424,7 +622,7 @@ public class DBManager {
 		long startTime = System.nanoTime();
 		
 		try {
-			conn = getConnection();
+			conn = getReadConnection(query);
 			pstmt = conn.prepareStatement(query);
 			pstmt.executeQuery();
 			rset = pstmt.getResultSet();
@@ -435,9 +633,11 @@ public class DBManager {
 			
 		}catch(SQLException t) {
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute update", query, t);
 		}finally{
 			close(conn, pstmt, rset);
+			SqlMetrics.record(query, startTime, records == null ? 0 : records.size(), null);
 			log(query, 0, startTime, records);
 		}
 		
@@ -455,7 +655,7 @@ public class DBManager {
 		long startTime = System.nanoTime();
 		
 		try {
-			conn = getConnection();
+			conn = getReadConnection(query);
 			pstmt = conn.prepareStatement(query);
 			DBUtils.setValues(pstmt,args);
 			pstmt.executeQuery();
@@ -467,9 +667,11 @@ public class DBManager {
 			
 		}catch(SQLException t) {
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute update", query, t);
 		}finally{
 			close(conn, pstmt, rset);
+			SqlMetrics.record(query, startTime, records == null ? 0 : records.size(), args);
 			log(query, 0, startTime, records);
 		}
 		
@@ -495,10 +697,12 @@ public class DBManager {
 		}catch(SQLException t){
 			try { conn.rollback();}catch(SQLException c) {}
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute update", query, t);
 		}finally {
 			close(pstmt);
 			close(conn);
+			SqlMetrics.record(query, startTime, result, record);
 			log(query, result, startTime, null);
 		}
 		return result;
@@ -12,6 +12,7 @@ import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -40,6 +41,7 @@ import kr.tx24.lib.map.LinkedMap;
  *   <li>autoClose: 쿼리 실행 후 자동으로 connection 닫기</li>
  *   <li>autoCommit: execute 실행 후 자동으로 commit</li>
  *   <li>트랜잭션 지원 (commit, rollback)</li>
+ *   <li>pooled: 같은 dbType, host, username 의 connection 을 {@link SessionPool} 에서 재사용 (기본값)</li>
  * </ul>
  * 
  * <h2>사용 예제</h2>
@@ -176,6 +178,15 @@ public class DBSession implements AutoCloseable{
      */
     private boolean autoCommit = true;
     
+    /** 
+     * 커넥션 풀 사용 설정
+     * <ul>
+     *   <li>true (기본): 같은 dbType, host, username 의 {@link SessionPool} 에서 커넥션을 빌리고 close() 시 반납</li>
+     *   <li>false: DriverManager 로 매번 새 connection 생성</li>
+     * </ul>
+     */
+    private boolean pooled = true;
+    
     /**
      * 기본 생성자
      * 
@@ -452,6 +463,20 @@ public class DBSession implements AutoCloseable{
         return this;
     }
     
+    /**
+     * 커넥션 풀 사용 설정
+     * 
+     * <p>기본값은 true 이며 같은 접속 대상의 DBSession 들은 {@link SessionPool} 의 커넥션을 재사용합니다.
+     * 세션 변수 등 connection 상태를 변경하는 작업은 false 로 설정하여 전용 connection 을 사용합니다.</p>
+     * 
+     * @param pooled true: 풀 사용 (기본값), false: DriverManager 로 직접 연결
+     * @return this (메서드 체이닝용)
+     */
+    public DBSession pooled(boolean pooled) {
+        this.pooled = pooled;
+        return this;
+    }
+    
     /**
      * JDBC 드라이버 로드 (내부 메서드)
      * 
@@ -471,7 +496,7 @@ public class DBSession implements AutoCloseable{
      * 데이터베이스 연결 가져오기
      * 
      * <p>데이터베이스 Connection 객체를 반환합니다. 
-     * 이미 유효한 connection이 있으면 재사용하고, 없으면 새로 생성합니다.
+     * 이미 유효한 connection이 있으면 재사용하고, 없으면 {@link SessionPool} 에서 빌리거나 새로 생성합니다.
      * Connection은 기본적으로 autoCommit=false 상태입니다.</p>
      * 
      * @return Connection 객체
@@ -504,13 +529,18 @@ public class DBSession implements AutoCloseable{
         // 드라이버 로드
         loadDriver();
         
-        // 기존 Connection이 있고 유효한 경우 재사용
-        if (connection != null && !connection.isClosed() && connection.isValid(5)) {
+        // 풀에서 빌린 Connection 은 borrow 시 검증되므로 닫히지 않았으면 재사용
+        if (connection != null && !connection.isClosed() && (pooled || connection.isValid(5))) {
             return connection;
         }
         
-        // 새로운 Connection 생성
         String url = buildConnectionUrl();
+        if (pooled) {
+            connection = SessionPool.getConnection(dbType, url, username, password, options);
+            return connection;
+        }
+        
+        // 새로운 Connection 생성
         Properties props = new Properties();
         props.putAll(options);
         
@@ -553,7 +583,7 @@ public class DBSession implements AutoCloseable{
      * 현재 세션의 Connection 닫기 (AutoCloseable 인터페이스 구현)
      * 
      * <p>try-with-resources 구문에서 자동으로 호출됩니다.
-     * Connection이 null이 아니고 닫히지 않은 경우에만 닫습니다.</p>
+     * Connection이 null이 아니고 닫히지 않은 경우에만 닫습니다. 풀의 connection 은 commit 되지 않은 작업을 rollback 하고 반납됩니다.</p>
      * 
      * @throws SQLException Connection 닫기 실패 시
      * 
@@ -753,7 +783,7 @@ public class DBSession implements AutoCloseable{
      * @see Update
      */
     public int update(Update update) {
-    	return execute(update.build());
+    	return execute(update.buildBindQuery(), update.getBindValues());
     }
     
    
@@ -771,7 +801,7 @@ public class DBSession implements AutoCloseable{
      * @see RecordSet
      */
     public RecordSet select(Retrieve retrieve) {
-    	return select(retrieve.build());
+    	return select(retrieve.buildBindQuery(), retrieve.getBindValues());
     }
     
     
@@ -829,7 +859,7 @@ public class DBSession implements AutoCloseable{
 		
 		long startTime = System.nanoTime();
 		try {
-			stmt		= connection.createStatement();
+			stmt		= getConnection().createStatement();
 			stmt.executeQuery(query);
 			rset		= stmt.getResultSet();
 			if(rset != null) {
@@ -837,11 +867,66 @@ public class DBSession implements AutoCloseable{
 			}
 			
 		}catch(SQLException t){
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			close(rset);
 			close(stmt);
 			
+			SqlMetrics.record(query, startTime, records == null ? 0 : records.size(), null);
+			if(SystemUtils.deepview()) {
+				logger.info("query : {} = [{}]",query,records != null ? records.size():0);
+				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
+			}
+			
+			// autoClose가 true면 자동으로 connection 닫기
+			if(autoClose) {
+				try {
+					closeConnection();
+				} catch (SQLException e) {
+					logger.warn("Failed to close connection: {}", CommonUtils.getExceptionMessage(e));
+				}
+			}
+		}
+		return records;
+	}
+    
+    
+    
+    
+    /**
+     * PreparedStatement SELECT 쿼리 실행
+     * 
+     * <p>? 로 표시된 위치에 values 를 순서대로 바인딩하여 실행합니다.
+     * connection 처리는 {@link #select(String)} 와 동일합니다.</p>
+     * 
+     * @param query 실행할 SELECT SQL 쿼리
+     * @param values ? 순서에 맞는 바인딩 값
+     * @return 조회 결과 RecordSet (결과가 없으면 null)
+     */
+    public RecordSet select(String query, Collection<?> values){
+		
+		PreparedStatement pstmt	= null;
+		ResultSet rset			= null;
+		RecordSet records		= null;
+		
+		long startTime = System.nanoTime();
+		try {
+			pstmt		= getConnection().prepareStatement(query);
+			DBUtils.setValues(pstmt, values);
+			rset		= pstmt.executeQuery();
+			if(rset != null) {
+				records = new RecordSet(rset);
+			}
+			
+		}catch(SQLException t){
+			SqlMetrics.error(query);
+			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+		}finally {
+			close(rset);
+			close(pstmt);
+			
+			SqlMetrics.record(query, startTime, records == null ? 0 : records.size(), values);
 			if(SystemUtils.deepview()) {
 				logger.info("query : {} = [{}]",query,records != null ? records.size():0);
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -873,7 +958,7 @@ public class DBSession implements AutoCloseable{
      * @see Delete
      */
     public int delete(Delete delete) {
-    	return execute(delete.build());
+    	return execute(delete.buildBindQuery(), delete.getBindValues());
     }
     
     
@@ -945,24 +1030,45 @@ public class DBSession implements AutoCloseable{
      * }</pre>
      */
     public int execute(String query){
+    	return execute(query, null);
+    }
+    
+    
+    /**
+     * PreparedStatement CUD(INSERT/UPDATE/DELETE) 쿼리 실행
+     * 
+     * <p>? 로 표시된 위치에 values 를 순서대로 바인딩하여 실행합니다.
+     * commit 및 connection 처리는 {@link #execute(String)} 와 동일합니다.</p>
+     * 
+     * @param query 실행할 SQL 쿼리 (INSERT/UPDATE/DELETE)
+     * @param values ? 순서에 맞는 바인딩 값, 없으면 null
+     * @return 영향받은 레코드 수
+     */
+    public int execute(String query, Collection<?> values){
 		
     	int result = 0;
 		long startTime = System.nanoTime();
 		
     	PreparedStatement pstmt = null;
     	try {
-    		pstmt = connection.prepareStatement(query);
+    		pstmt = getConnection().prepareStatement(query);
+    		DBUtils.setValues(pstmt, values);
     		result  	= pstmt.executeUpdate();
     		
     		// autoCommit이 true일 때만 자동으로 commit
     		if(autoCommit) {
     			connection.commit();
     		}
+    		if(isDdl(query)) {
+    			invalidateSchema();
+    		}
     	}catch(SQLException t){
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			close(pstmt);
 			
+			SqlMetrics.record(query, startTime, result, values);
 			if(SystemUtils.deepview()) {
 				logger.info("query : {} = [{}]",result,query);
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -1037,6 +1143,7 @@ public class DBSession implements AutoCloseable{
  			logger.error("Failed to get databases: {}", CommonUtils.getExceptionMessage(e));
  		} finally {
  			close(rset);
+ 			release();
  		}
  		
  		return map;
@@ -1088,13 +1195,14 @@ public class DBSession implements AutoCloseable{
  			
  			// 각 카탈로그 상세 정보 조회
  			for (String catalog : catalogs) {
- 				map.put("DB." + catalog, getCatalog(md, catalog));
+ 				map.put("DB." + catalog, catalog(conn, md, catalog));
  			}
  			
  		} catch (Exception e) {
  			logger.error("Failed to get database info: {}", CommonUtils.getExceptionMessage(e));
  		} finally {
  			close(rset);
+ 			release();
  		}
  		
  		return map;
@@ -1131,16 +1239,68 @@ public class DBSession implements AutoCloseable{
  		try {
  			Connection conn = getConnection();
  			DatabaseMetaData md = conn.getMetaData();
- 			catalog = getCatalog(md, catalogName);
+ 			catalog = catalog(conn, md, catalogName);
  		} catch (Exception e) {
  			logger.error("Failed to get database '{}': {}", catalogName, CommonUtils.getExceptionMessage(e));
  		} finally {
  			close(rset);
+ 			release();
  		}
  		
  		return catalog;
  	}
  	
+ 	/**
+ 	 * 보관된 카탈로그 스냅샷 조회 (내부용)
+ 	 * 
+ 	 * <p>MariaDB/MySQL 은 information_schema 를 카탈로그 단위로 조회하며, 그 외는 DatabaseMetaData 를 사용합니다.
+ 	 * 결과는 {@link SchemaCache} 에 보관되며 목록은 수정할 수 없습니다.</p>
+ 	 */
+ 	private Catalog catalog(Connection conn, DatabaseMetaData md, String catalogName) throws SQLException {
+ 		boolean bulk = dbType == DBType.MARIADB || dbType == DBType.MYSQL;
+ 		return SchemaCache.get(schemaTarget(), conn, catalogName, bulk, () -> getCatalog(md, catalogName));
+ 	}
+ 	
+ 	/**
+ 	 * 스키마 cache 의 접속 대상 식별자
+ 	 */
+ 	private String schemaTarget() {
+ 		return dbType + "|" + buildConnectionUrl() + "|" + CommonUtils.nToB(username);
+ 	}
+ 	
+ 	/**
+ 	 * 보관된 카탈로그 정보를 만료 처리
+ 	 * 
+ 	 * <p>DBSession 의 execute(), executeSql() 로 실행한 DDL(CREATE, ALTER, DROP, RENAME)은 자동으로 만료 처리됩니다.
+ 	 * 다른 경로로 스키마가 변경된 경우 호출하며, 다음 조회 시 변경된 테이블만 다시 읽습니다.</p>
+ 	 */
+ 	public void invalidateSchema() {
+ 		SchemaCache.invalidate(schemaTarget());
+ 	}
+ 	
+ 	/**
+ 	 * autoClose 가 true 이면 connection 을 닫는다(풀에 반납). (내부용)
+ 	 */
+ 	private void release() {
+ 		if (autoClose) {
+ 			try {
+ 				closeConnection();
+ 			} catch (SQLException e) {
+ 				logger.warn("Failed to close connection: {}", CommonUtils.getExceptionMessage(e));
+ 			}
+ 		}
+ 	}
+ 	
+ 	private static boolean isDdl(String sql) {
+ 		String q = CommonUtils.nToB(sql).stripLeading();
+ 		for (String keyword : new String[] {"CREATE", "ALTER", "DROP", "RENAME"}) {
+ 			if (q.regionMatches(true, 0, keyword, 0, keyword.length())) {
+ 				return true;
+ 			}
+ 		}
+ 		return false;
+ 	}
+ 	
  	/**
  	 * 카탈로그(데이터베이스) 메타데이터 조회 (내부용)
  	 * 
@@ -1166,7 +1326,7 @@ public class DBSession implements AutoCloseable{
  				String type = rset.getString("TABLE_TYPE");
  				table.r = rset.getString("REMARKS");
  				
- 				if ("TABLE".equals(type)) {
+ 				if ("TABLE".equals(type) || "BASE TABLE".equals(type)) {
  					catalog.tables.add(table);
  				} else if ("VIEW".equals(type)) {
  					catalog.views.add(table);
@@ -1266,6 +1426,19 @@ public class DBSession implements AutoCloseable{
  	public List<Column> getColumns(String catalogName, String tableName) {
  		List<Column> columns = new ArrayList<Column>();
  		
+ 		// 보관된 카탈로그가 있으면 사용
+ 		Catalog cached = SchemaCache.peek(schemaTarget(), catalogName);
+ 		if (cached != null) {
+ 			for (List<Table> list : List.of(cached.tables, cached.views, cached.seqs)) {
+ 				for (Table table : list) {
+ 					if (table.n.equals(tableName)) {
+ 						columns.addAll(table.c);
+ 						return columns;
+ 					}
+ 				}
+ 			}
+ 		}
+ 		
  		try {
  			Connection conn = getConnection();
  			DatabaseMetaData md = conn.getMetaData();
@@ -1273,6 +1446,8 @@ public class DBSession implements AutoCloseable{
  		} catch (Exception e) {
  			logger.error("Failed to get columns for '{}.{}': {}", 
  				catalogName, tableName, CommonUtils.getExceptionMessage(e));
+ 		} finally {
+ 			release();
  		}
  		
  		return columns;
@@ -1314,42 +1489,7 @@ public class DBSession implements AutoCloseable{
  				boolean ai = "YES".equals(rset.getString("IS_AUTOINCREMENT"));
  				column.r = CommonUtils.nToB(rset.getString("REMARKS"));
  				
- 				// 타입 정보 포맷팅
- 				StringBuilder sb = new StringBuilder()
- 					.append(String.format("-%20s", column.n));
- 				
- 				if (typeName.indexOf("char") > -1) {
- 					sb.append(typeName).append("(").append(size).append(") ");
- 				} else if (typeName.indexOf("decimal") > -1) {
- 					sb.append(typeName).append("(").append(size).append(",").append(decimal).append(") ");
- 				} else if (typeName.indexOf("int") > -1) {
- 					if (typeName.indexOf("bigint") > -1) {
- 						dt = 18;
- 					}
- 					typeName = typeName.toLowerCase().replaceAll("unsigned", "UN");
- 					String[] ar = typeName.split(" ");
- 					if (ar.length == 1) {
- 						sb.append(ar[0]).append("(").append(dt).append(") ");
- 					} else if (ar.length == 2) {
- 						sb.append(ar[0]).append("(").append(dt).append(") ").append(ar[1]).append(" ");
- 					} else {
- 						sb.append(typeName);
- 					}
- 				} else {
- 					sb.append(typeName).append(" ");
- 				}
- 				
- 				if (nullable) {
- 					sb.append("N ");
- 				}
- 				if (ai) {
- 					sb.append("AI ");
- 				}
- 				if (pks.contains(column.n)) {
- 					sb.append("PK ");
- 				}
- 				
- 				column.t = sb.toString();
+ 				column.t = SchemaCache.describe(column.n, typeName, size, decimal, nullable, dt, ai, pks.contains(column.n));
  				list.add(column);
  			}
  			
@@ -1431,9 +1571,9 @@ public class DBSession implements AutoCloseable{
 			
 			double start = System.currentTimeMillis();
 			
-			// 데이터베이스 선택
+			// 데이터베이스 선택, 풀에 반납될 때 원래 catalog 로 복원된다.
 			if (!CommonUtils.isEmpty(database)) {
-				stmt.execute("USE " + database);
+				conn.setCatalog(database);
 			}
 			
 			boolean hasResult = stmt.execute(sql);
@@ -1480,6 +1620,9 @@ public class DBSession implements AutoCloseable{
 				if (result.ret > 0 && autoCommit) {
 					conn.commit();
 				}
+				if (isDdl(sql)) {
+					invalidateSchema();
+				}
 				result.msg = String.format("OK, %d row(s) affected", result.ret);
 			}
 			
@@ -1498,6 +1641,7 @@ public class DBSession implements AutoCloseable{
 		} finally {
 			close(rset);
 			close(stmt);
+			release();
 		}
 		
 		return result;
@@ -7,7 +7,9 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,12 +37,23 @@ public class DBTrx{
 	private static Logger logger = LoggerFactory.getLogger(DBTrx.class);
 	private boolean deepview 	= false;
 	private Connection conn		= null;
+	private Set<String> tables	= new LinkedHashSet<>();	//commit 시 ResultCache 무효화 대상
+	private String datasource	= null;
 	
 	
 	public DBTrx() {
 		this.deepview	= SystemUtils.deepview();
 	}
 	
+	/**
+	 * db.json 의 datasources 에 지정된 datasource 의 커넥션으로 트랜잭션을 처리한다.
+	 * @param datasource null 이면 기본 datasource
+	 */
+	public DBTrx(String datasource) {
+		this.deepview	= SystemUtils.deepview();
+		this.datasource	= datasource;
+	}
+	
 	/**
 	 * DBTrx 를 사용할 때 반드시 호출하여야 한다.
 	 * begin() 은 connection 을 할당하며 autocommit(false) 로 처리한다.
@@ -48,7 +61,7 @@ public class DBTrx{
 	 */
 	public void begin() throws DBException{
 		if(conn == null) {
-			conn = DBFactory.get().getConnection();
+			conn = DBFactory.get(datasource).getConnection();
 			try {
 				conn.setAutoCommit(false);
 			} catch (SQLException e) {
@@ -81,12 +94,30 @@ public class DBTrx{
 	 * @throws Exception
 	 */
 	public int delete(Delete delete) throws DBException{
+		
+		PreparedStatement pstmt = null;
+		String query			= delete.buildBindQuery();
 		int result = 0;
+		tables.add(delete.getTable());
+		
+		long startTime = System.nanoTime();
 		try {
-			result = update(delete.build());
+			pstmt		= conn.prepareStatement(query);
+			DBUtils.setValues(pstmt,delete.getBindValues());
+			result  	= pstmt.executeUpdate();
+		}catch(SQLException t){
+			SqlMetrics.error(query);
+			throw new DBException("Failed to execute delete", query, t);
+		}finally {
+			close(pstmt);
+			SqlMetrics.record(query, startTime, result, delete::getBindValues);
+			if(deepview) {
+				logger.info("query : {} = [{}]",result,delete.build());
+				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
+			}
+			
 			delete.init();
-		}catch(DBException e) {
-			throw e;
+			
 		}
 		return result;
 	}
@@ -111,18 +142,21 @@ public class DBTrx{
 	public int update(Update update)throws DBException{
 		
 		PreparedStatement pstmt = null;
-		String query			= update.buildPreparedQuery();
+		String query			= update.buildBindQuery();
 		int result = 0;
+		tables.add(update.getTable());
 		
 		long startTime = System.nanoTime();
 		try {
 			pstmt		= conn.prepareStatement(query);			
-			DBUtils.setValues(pstmt,update.getRecord());
+			DBUtils.setValues(pstmt,update.getBindValues());
 			result  	= pstmt.executeUpdate();
 		}catch(SQLException t){
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute update", query, t);
 		}finally {
 			close(pstmt);
+			SqlMetrics.record(query, startTime, result, update::getBindValues);
 			if(deepview) {
 				logger.info("query : {} = [{}]",result,update.build());
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -149,9 +183,11 @@ public class DBTrx{
 			pstmt		= conn.prepareStatement(query);	
 			result  	= pstmt.executeUpdate();
 		}catch(SQLException t){
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute update", query, t);
 		}finally {
 			close(pstmt);
+			SqlMetrics.record(query, startTime, result, null);
 			if(deepview) {
 				logger.info("query : {} = [{}]",result,query);
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -183,6 +219,7 @@ public class DBTrx{
 		PreparedStatement pstmt = null;
 		String query			= create.buildPreparedQuery();
 		int result = 0;
+		tables.add(create.getTable());
 		
 		long startTime = System.nanoTime();
 		try {
@@ -190,9 +227,11 @@ public class DBTrx{
 			DBUtils.setValues(pstmt,create.getRecord());
 			result  	= pstmt.executeUpdate();
 		}catch(SQLException t){
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute insert", query, t);
 		}finally {
 			close(pstmt);
+			SqlMetrics.record(query, startTime, result, create.getRecord());
 			if(deepview) {
 				logger.info("query : {} = [{}]",result,create.build());
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -211,6 +250,7 @@ public class DBTrx{
 		ResultSet rset 			= null;
 		String query			= create.buildPreparedQuery();
 		long result = 0;
+		tables.add(create.getTable());
 
 		long startTime = System.nanoTime();
 		try {
@@ -225,9 +265,11 @@ public class DBTrx{
 
 
 		}catch(SQLException t){
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute insert", query, t);
 		}finally {
 			close(pstmt);
+			SqlMetrics.record(query, startTime, result > 0 ? 1 : 0, create.getRecord());
 			if(deepview) {
 				logger.info("query : {} = [{}]",result,create.build());
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -278,7 +320,7 @@ public class DBTrx{
 	 * @throws Exception
 	 */
 	public RecordSet select(Retrieve retrieve)throws DBException{
-		RecordSet rset = select(retrieve.build());
+		RecordSet rset = select(retrieve.buildBindQuery(),retrieve.getBindValues());
 		retrieve.init();
 		return rset;
 	}
@@ -306,11 +348,13 @@ public class DBTrx{
 			}
 			
 		}catch(SQLException t){
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute select", query, t);
 		}finally {
 			close(rset);
 			close(stmt);
 			
+			SqlMetrics.record(query, startTime, records == null ? 0 : records.size(), null);
 			if(deepview) {
 				logger.info("query : {} = [{}]",query,records != null ? records.size():0);
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -345,11 +389,13 @@ public class DBTrx{
 			}
 			
 		}catch(SQLException t){
+			SqlMetrics.error(query);
 			throw new DBException("Failed to execute select", query, t);
 		}finally {
 			close(rset);
 			close(pstmt);
 			
+			SqlMetrics.record(query, startTime, records == null ? 0 : records.size(), values);
 			if(deepview) {
 				logger.info("query : {} = [{}]",query,records != null ? records.size():0);
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -370,6 +416,8 @@ public class DBTrx{
 			if(conn != null) {
 				conn.commit();
 			}
+			ResultCache.invalidate(tables);
+			tables.clear();
 			if(SystemUtils.deepview()) {
 				logger.info("commit transaction");
 			}
@@ -385,6 +433,7 @@ public class DBTrx{
 	 */
 	public void rollback(){
 		try{
+			tables.clear();
 			if(conn != null) {
 				conn.rollback();
 			}
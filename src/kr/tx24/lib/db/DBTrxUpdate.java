@@ -6,6 +6,8 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,48 +24,102 @@ import kr.tx24.lib.map.LinkedMap;
  * trx.add(Delete)
  * trx.add(Create)
  * trx.executeWithResult();
+ * 
+ * 
+ * 연속된 같은 PREPARED 쿼리는 하나의 PreparedStatement 로 addBatch/executeBatch 하여 전송한다. (batch(false) 로 해제)
+ * 결과 배열은 batch 여부와 관계없이 쿼리별 처리 건수이다.
+ * reorder(true) 이면 다른 테이블의 쿼리를 건너 뛰어 같은 쿼리를 모아 batch 를 최대화한다.
  */
 public class DBTrxUpdate{
 	private static Logger logger = LoggerFactory.getLogger(DBTrxUpdate.class);
 	
 	
 	private List<DBSet> list = null;
+	private List<String> tables = new ArrayList<String>();	//commit 후 ResultCache 무효화 대상
 	private Connection conn		= null;
+	private String datasource	= null;
+	private boolean batch		= true;
+	private boolean reorder		= false;
+	
+	public static final int BATCH_SIZE	= 1000;
+	
+	private static final int NO_BATCH		= -1;	//batch 로 실행하지 않는다. (add(String), INSERT IGNORE, REPLACE, trailer)
+	private static final int DRIVER_COUNT	= 0;	//드라이버가 반환한 쿼리별 건수를 사용한다. (UPDATE, DELETE)
+	private static final Set<String> inexact = ConcurrentHashMap.newKeySet();	//UPDATE, DELETE 의 batch 건수를 반환하지 않는 datasource
 	
 	public DBTrxUpdate() {
 		list = new ArrayList<DBSet>();
 	}
 	
+	/**
+	 * db.json 의 datasources 에 지정된 datasource 의 커넥션으로 실행한다.
+	 * @param datasource null 이면 기본 datasource
+	 */
+	public DBTrxUpdate(String datasource) {
+		this();
+		this.datasource = datasource;
+	}
+	
 	
 
 	
+	/**
+	 * 연속된 같은 PREPARED 쿼리를 JDBC batch 로 실행한다. 기본 true
+	 * 쿼리별 처리 건수를 유지할 수 있는 경우에만 batch 로 실행한다.
+	 * UPDATE, DELETE 는 드라이버가 statement 별 건수를 반환하며 (rewriteBatchedStatements 는 INSERT 만 재작성한다)
+	 * IGNORE, REPLACE, trailer 가 없는 INSERT 는 multi-row 로 재작성되어도 row 별 건수가 1 이다.
+	 * INSERT IGNORE, REPLACE, trailer 가 있는 INSERT 와 add(String) 은 쿼리별로 실행한다.
+	 * UPDATE, DELETE 의 batch 결과가 Statement.SUCCESS_NO_INFO 이면 (MariaDB useBulkStmts 등) 해당 결과는 -2 로 반환하고
+	 * 이후 같은 datasource 의 UPDATE, DELETE 는 쿼리별로 실행한다.
+	 */
+	public DBTrxUpdate batch(boolean batch) {
+		this.batch = batch;
+		return this;
+	}
+	
+	/**
+	 * batch(true) 일 때 같은 PREPARED 쿼리 사이에 다른 테이블의 쿼리만 있으면 순서를 바꾸어 하나의 batch 로 실행한다. 기본 false
+	 * 같은 테이블의 쿼리와 테이블을 알 수 없는 add(String) 쿼리의 순서는 유지된다.
+	 * 테이블 간 FK 또는 trigger 로 실행 순서에 의존하는 경우에는 사용하지 않는다. 결과 배열은 add 순서이다.
+	 */
+	public DBTrxUpdate reorder(boolean reorder) {
+		this.reorder = reorder;
+		return this;
+	}
+	
+	
 	public DBTrxUpdate add(Update update) {
-		list.add(new DBSet(update.build(),null));
+		list.add(new DBSet(update.buildBindQuery(),update.getBindValues()).table(update.getTable()).batch(DRIVER_COUNT));
+		tables.add(update.getTable());
 		return this;
 	}
 	
 	public DBTrxUpdate add(Create create) {
-		list.add(new DBSet(create.build(),null));
+		list.add(new DBSet(create.buildPreparedQuery(),new LinkedMap<String,Object>(create.getRecord())).table(create.getTable()).batch(insertRows(create)));
+		tables.add(create.getTable());
 		return this;
 	}
 	
 	public DBTrxUpdate add(Delete delete) {
-		list.add(new DBSet(delete.build(),null));
+		list.add(new DBSet(delete.buildBindQuery(),delete.getBindValues()).table(delete.getTable()).batch(DRIVER_COUNT));
+		tables.add(delete.getTable());
 		return this;
 	}
 	
 	public DBTrxUpdate add(String query) {
-		list.add(new DBSet(query,null));
+		list.add(new DBSet(query,(LinkedMap<String,Object>)null));
 		return this;
 	}
 	
 	public DBTrxUpdate add(Update update,LinkedMap<String,Object> record) {
-		list.add(new DBSet(update.buildPreparedQuery(),record));
+		list.add(new DBSet(update.buildPreparedQuery(),record).table(update.getTable()).batch(DRIVER_COUNT));
+		tables.add(update.getTable());
 		return this;
 	}
 	
 	public DBTrxUpdate add(Create create,LinkedMap<String,Object> record) {
-		list.add(new DBSet(create.buildPreparedQuery(),record));
+		list.add(new DBSet(create.buildPreparedQuery(),record).table(create.getTable()).batch(insertRows(create)));
+		tables.add(create.getTable());
 		return this;
 	}
 	
@@ -81,7 +137,7 @@ public class DBTrxUpdate{
 	public int[] executeWithResult() throws DBException{
 		
 		
-		conn = DBFactory.get().getConnection();
+		conn = DBFactory.get(datasource).getConnection();
 		try {
 			conn.setAutoCommit(false);
 		} catch (SQLException e) {
@@ -98,34 +154,70 @@ public class DBTrxUpdate{
 		
 		PreparedStatement pstmt = null;
 		Statement stmt = null;
-		int i = 0;
+		String query = "";
 		
 		try {
 			for(DBSet data : list) {
-				
 				if(data.query.toUpperCase().startsWith("SELECT ")) {
 					throw new SQLException ("SELECT 구문은 허용하지 않습니다." +data.query);
 				}
+			}
+			
+			for(List<Integer> group : groups()) {
+				DBSet first	= list.get(group.get(0));
+				query		= first.query;
+				long startTime = System.nanoTime();
+				int rows	= 0;
 				
-				if(data.hasValue()) {
-					pstmt = conn.prepareStatement(data.query);
-					DBUtils.setValues(pstmt,data.record);
-					result[i]  = pstmt.executeUpdate();
+				if(group.size() > 1) {
+					pstmt = conn.prepareStatement(first.query);
+					for(int from = 0; from < group.size(); from += BATCH_SIZE) {
+						List<Integer> chunk = group.subList(from, Math.min(from + BATCH_SIZE, group.size()));
+						for(int idx : chunk) {
+							list.get(idx).bind(pstmt);
+							pstmt.addBatch();
+						}
+						int[] counts = pstmt.executeBatch();
+						for(int k = 0; k < chunk.size(); k++) {
+							//row 별 건수를 반환하지 않는 드라이버는 하나의 값만 반환할 수 있다.
+							int count = k < counts.length ? counts[k] : Statement.SUCCESS_NO_INFO;
+							if(count == Statement.SUCCESS_NO_INFO && first.batch > DRIVER_COUNT) {
+								count = first.batch;
+							}
+							result[chunk.get(k)] = count;
+							if(count >= 0) {
+								rows += count;
+							}
+						}
+						if(first.batch == DRIVER_COUNT && !exact(counts, chunk.size()) && inexact.add(datasourceKey())) {
+							logger.warn("batch update counts are not returned per statement, datasource [{}] runs UPDATE/DELETE one by one", datasource);
+						}
+					}
+					pstmt.close();
+				}else if(first.hasValue()) {
+					pstmt = conn.prepareStatement(first.query);
+					first.bind(pstmt);
+					result[group.get(0)] = rows = pstmt.executeUpdate();
 					pstmt.close();
 				}else {
 					stmt = conn.createStatement();
-					result[i]  = stmt.executeUpdate(data.query);
+					result[group.get(0)] = rows = stmt.executeUpdate(first.query);
 					stmt.close();
 				}
+				SqlMetrics.record(first.query, startTime, rows, null);
 				
-				if(SystemUtils.deepview()) logger.info("[{}] ,[{}] ,{} ",i,result[i],data.query);	
-				
-				i++;
+				if(SystemUtils.deepview()) {
+					for(int idx : group) {
+						logger.info("[{}] ,[{}] ,{} ",idx,result[idx],first.query);
+					}
+				}
 			}
 			
 			conn.commit();
 			logger.info("commit transaction");
+			ResultCache.invalidate(tables);
 		}catch(SQLException e) {
+			SqlMetrics.error(query);
 			logger.warn("db transaction execute failed : ",CommonUtils.getExceptionMessage(e));
 			try {
                 conn.rollback();
@@ -161,29 +253,125 @@ public class DBTrxUpdate{
 	}
 	
 	
+	/**
+	 * INSERT 의 batch 방식, 성공 시 row 별 건수가 1 인 INSERT 만 batch 로 실행한다.
+	 */
+	private static int insertRows(Create create) {
+		return create.isPlainInsert() ? 1 : NO_BATCH;
+	}
+	
+	private String datasourceKey() {
+		return String.valueOf(datasource);
+	}
+	
+	/**
+	 * 쿼리별 건수를 모두 반환했는지 여부
+	 */
+	private static boolean exact(int[] counts, int size) {
+		if(counts.length != size) {
+			return false;
+		}
+		for(int count : counts) {
+			if(count == Statement.SUCCESS_NO_INFO) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private boolean batchable(DBSet data) {
+		if(!batch || !data.hasValue() || data.batch == NO_BATCH) {
+			return false;
+		}
+		return data.batch > DRIVER_COUNT || !inexact.contains(datasourceKey());
+	}
+	
+	/**
+	 * 실행 단위로 묶은 add 순서의 index 목록, 하나의 묶음은 같은 PREPARED 쿼리이며 2개 이상이면 batch 로 실행한다.
+	 * reorder 이면 뒤에서부터 같은 테이블 또는 테이블을 알 수 없는 묶음을 만나기 전까지 같은 쿼리의 묶음을 찾는다.
+	 * DB 에 접속하지 않으므로 실행 전에 batch 구성을 확인할 때 사용할 수 있다.
+	 */
+	public List<List<Integer>> groups() {
+		List<List<Integer>> groups = new ArrayList<List<Integer>>();
+		for(int i = 0; i < list.size(); i++) {
+			DBSet data = list.get(i);
+			List<Integer> target = null;
+			if(batchable(data)) {
+				for(int g = groups.size() - 1; g >= 0; g--) {
+					DBSet head = list.get(groups.get(g).get(0));
+					if(batchable(head) && head.query.equals(data.query)) {
+						target = groups.get(g);
+						break;
+					}
+					if(!reorder || head.table == null || data.table == null || head.table.equals(data.table)) {
+						break;
+					}
+				}
+			}
+			if(target == null) {
+				target = new ArrayList<Integer>();
+				groups.add(target);
+			}
+			target.add(i);
+		}
+		return groups;
+	}
 	
 	
 	public class DBSet {
 		private String query 	= "";
 		private LinkedMap<String,Object> record = null;
+		private List<Object> values = null;
+		private String table	= null;
+		private int batch		= NO_BATCH;		//성공 시 row 별 건수가 고정이면 그 값, DRIVER_COUNT 는 드라이버 반환 값
 		
 		public DBSet(String query,LinkedMap<String,Object> record) {
 			this.query = query;
 			this.record = record;
 		}
 		
+		/**
+		 * @param values query 의 ? 순서에 맞는 바인딩 값
+		 */
+		public DBSet(String query,List<Object> values) {
+			this.query = query;
+			this.values = values;
+		}
+		
+		private DBSet table(String table) {
+			this.table = table;
+			return this;
+		}
+		
+		private DBSet batch(int batch) {
+			this.batch = batch;
+			return this;
+		}
+		
+		private void bind(PreparedStatement pstmt) throws SQLException {
+			if(values != null) {
+				DBUtils.setValues(pstmt,values);
+			}else if(record != null) {
+				DBUtils.setValues(pstmt,record);
+			}
+		}
+		
 		public String query() {
 			return query;
 		}
 		
 		public boolean hasValue() {
-			return record == null ? false: true;
+			return record != null || values != null;
 		}
 		
 		public LinkedMap<String,Object> record(){
 			return record;
 		}
 		
+		public List<Object> values(){
+			return values;
+		}
+		
 	}
 
 }
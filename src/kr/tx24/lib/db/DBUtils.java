@@ -283,6 +283,140 @@ public class DBUtils {
 	
 	
 
+	/**
+	 * {@link #where(String, Object, String, String)} 과 같은 조건을 값 대신 ? 로 생성하고 값은 values 에 순서대로 추가한다.
+	 * 값이 달라도 같은 쿼리 문자열이 만들어지므로 PreparedStatement cache 가 재사용된다.
+	 * fn 으로 시작하는 operator, 문자열로 전달된 in/ni 목록 및 bt 범위는 기존과 같이 쿼리에 그대로 포함된다.
+	 * in, ni 는 Collection 을, bt 는 2개 값의 Collection 을 전달하면 각각 ? 로 바인딩된다.
+	 * @param column
+	 * @param value
+	 * @param operator
+	 * @param logicalOperator
+	 * @param values 바인딩 값이 추가될 목록
+	 */
+	public static String where(String column,Object value,String operator,String logicalOperator,List<Object> values){
+		if(CommonUtils.isNull(column)) {
+			return "";
+		}
+		if(CommonUtils.isNull(operator)) {
+			operator = eq;
+		}
+		operator = operator.toLowerCase();
+		return bound(column, operator, bind(column, value, operator, logicalOperator, values));
+	}
+	
+	
+	static final String BIND_VALUE		= "?";		//column op ?
+	static final String BIND_IN_VALUE	= "(?)";	//column IN (?)
+	static final String BIND_DATE		= "D";		//DATE_FORMAT(column) op ?
+	static final String BIND_NULL		= "N";		//column IS NULL, IS NOT NULL
+	static final String BIND_FROM		= "F";		//column >= ?
+	static final String BIND_BETWEEN	= "B";		//column BETWEEN ? AND ?
+	static final String BIND_IN			= "I";		//I 다음 개수, column IN (?,?,..)
+	static final String BIND_LITERAL	= "L";		//L 다음 조건절, 값이 쿼리에 그대로 포함된다.
+	
+	/**
+	 * {@link #where(String, Object, String, String, List)} 의 바인딩 값을 values 에 추가하고 조건의 형태를 반환한다.
+	 * 반환 값은 바인딩 값과 무관한 조건 구조이며 {@link #bound(String, String, String)} 로 조건절을 만든다.
+	 * 값이 쿼리에 그대로 포함되는 조건(fn, 문자열 in/bt 등)은 BIND_LITERAL 다음에 조건절을 포함한다.
+	 * @param operator 소문자 operator
+	 * @return 조건이 없으면 ""
+	 */
+	static String bind(String column,Object value,String operator,String logicalOperator,List<Object> values){
+		if(operator.equals(isnull) || operator.equals(isnotnull) || operator.startsWith("fn")) {
+			return literal(where(column, value, operator, logicalOperator));
+		}
+		
+		if(value instanceof java.util.Date) {
+			value = new Timestamp(((java.util.Date)value).getTime());
+		}
+		
+		boolean isIn = operator.equals(in) || operator.equals(ni);
+		
+		if(value instanceof Number || value instanceof Timestamp) {
+			if(operator.equals(lk) || operator.equals(nk) || operator.equals(bt)) {
+				logger.info("'like','not like','between' operation are not supported, {} Format : {}" , value.getClass().getSimpleName(), CommonUtils.toString(value));
+				return "";
+			}
+			if(value instanceof Timestamp) {
+				values.add(DateUtils.toString((Timestamp)value));
+				return BIND_DATE;
+			}
+			values.add(value);
+			return isIn ? BIND_IN_VALUE : BIND_VALUE;
+		}
+		
+		if(value instanceof Collection<?> collection && (isIn || operator.equals(bt))) {
+			if(operator.equals(bt)) {
+				Object[] scope = collection.toArray();
+				values.add(scope[0]);
+				if(scope.length == 1) {
+					return BIND_FROM;
+				}
+				values.add(scope[1]);
+				return BIND_BETWEEN;
+			}
+			if(collection.isEmpty()) {
+				return BIND_LITERAL + (operator.equals(in) ? "1=0" : "1=1");
+			}
+			values.addAll(collection);
+			return BIND_IN + collection.size();
+		}
+		
+		if(isIn || operator.equals(bt)) {
+			return literal(where(column, value, operator, logicalOperator));
+		}
+		
+		if(value == null) {
+			return BIND_NULL;
+		}
+		
+		if(operator.equals(lk) || operator.equals(nk)) {
+			values.add("%" + CommonUtils.toString(value) + "%");
+		}else {
+			values.add(value instanceof String ? value : CommonUtils.toString(value));
+		}
+		return BIND_VALUE;
+	}
+	
+	private static String literal(String condition) {
+		return condition.isEmpty() ? "" : BIND_LITERAL + condition;
+	}
+	
+	/**
+	 * {@link #bind(String, Object, String, String, List)} 가 반환한 형태의 조건절
+	 * @param operator 소문자 operator
+	 */
+	static String bound(String column,String operator,String shape){
+		if(shape.isEmpty()) {
+			return "";
+		}
+		StringBuilder sb = new StringBuilder();
+		switch(shape) {
+			case BIND_VALUE		-> sb.append(column).append(getOperator(operator)).append(QUESTION_MARK);
+			case BIND_IN_VALUE	-> sb.append(column).append(getOperator(operator)).append(LEFT_PARENTHESIS).append(QUESTION_MARK).append(RIGHT_PARENTHESIS);
+			case BIND_DATE		-> sb.append(DATE_FORMAT).append(column).append(DATE_FORMAT_MYSQL).append(getOperator(operator)).append(QUESTION_MARK);
+			case BIND_NULL		-> sb.append(column).append(operator.equals(eq) ? IS_NULL : IS_NOT_NULL);
+			case BIND_FROM		-> sb.append(column).append(getOperator(ge)).append(QUESTION_MARK);
+			case BIND_BETWEEN	-> sb.append(column).append(getOperator(bt)).append(QUESTION_MARK).append(AND).append(QUESTION_MARK);
+			default -> {
+				if(shape.startsWith(BIND_LITERAL)) {
+					return shape.substring(BIND_LITERAL.length());
+				}
+				int count = Integer.parseInt(shape.substring(BIND_IN.length()));
+				sb.append(column).append(getOperator(operator)).append(LEFT_PARENTHESIS);
+				for(int i = 0; i < count; i++) {
+					sb.append(QUESTION_MARK).append(COMMA);
+				}
+				sb.setLength(sb.length() - 1);
+				sb.append(RIGHT_PARENTHESIS);
+			}
+		}
+		return sb.toString();
+	}
+	
+	
+
 	/**
 	 * TABLE 이름 지정, sbsCommit 단계적 commit 10개 단위 commit 실행 여부 
 	 * @param table
@@ -606,6 +740,7 @@ public class DBUtils {
 	
     /**
      * PreparedStatement에 Collection의 값들을 순서대로 설정
+     * Retrieve, Update, Delete 의 getBindValues() 는 where() 조건 값에 injectionFilter 를 적용하지 않는다.
      * @param ps PreparedStatement
      * @param values Collection
      */
@@ -617,9 +752,11 @@ public class DBUtils {
             return;
         }
 
+        int filtered = values instanceof BindValues bind ? bind.filtered() : values.size();
         int idx = 1;
         for (Object value : values) {
-            bindValue(ps, idx++, value);
+            bindValue(ps, idx, value, idx <= filtered);
+            idx++;
         }
     }
     
@@ -630,12 +767,19 @@ public class DBUtils {
      * @param arg 바인딩할 값
      */
     private static void bindValue(PreparedStatement ps, int idx, Object arg) throws SQLException {
+        bindValue(ps, idx, arg, true);
+    }
+    
+    /**
+     * @param filter false 이면 injectionFilter 를 적용하지 않는다. (조건 값)
+     */
+    private static void bindValue(PreparedStatement ps, int idx, Object arg, boolean filter) throws SQLException {
         try {
             if (arg == null) {
                 ps.setObject(idx, null);
                 
             } else if (arg instanceof String s) {
-                if (DBManager.injectionFilter) {
+                if (filter && DBManager.injectionFilter) {
                     ps.setString(idx, SecurityUtils.escapeHtml(s));
                 } else {
                     ps.setString(idx, s);
@@ -706,6 +850,35 @@ public class DBUtils {
     
     
     
+    /**
+     * records 를 columns 순서로 바인딩하여 addBatch 후 executeBatch 한다.
+     * record 에 없는 컬럼은 null 로 바인딩된다.
+     * @return countBatchResult 로 집계한 처리 건수
+     */
+    static int executeBatch(PreparedStatement ps, List<? extends Map<String, ?>> records, String[] columns) throws SQLException {
+        return executeBatch(ps, records, columns, columns.length, List.of());
+    }
+    
+    /**
+     * @param filtered injectionFilter 를 적용할 앞쪽 컬럼 수, 나머지 컬럼과 trailing 은 조건 값으로 그대로 바인딩한다.
+     * @param trailing 모든 row 에 columns 다음 순서로 바인딩할 값 (조건절 값 등)
+     */
+    static int executeBatch(PreparedStatement ps, List<? extends Map<String, ?>> records, String[] columns, int filtered, List<Object> trailing) throws SQLException {
+        for (Map<String, ?> record : records) {
+            int idx = 1;
+            for (String column : columns) {
+                bindValue(ps, idx, record.get(column), idx <= filtered);
+                idx++;
+            }
+            for (Object value : trailing) {
+                bindValue(ps, idx++, value, false);
+            }
+            ps.addBatch();
+        }
+        return countBatchResult(ps.executeBatch());
+    }
+    
+    
     public static int countBatchResult(int[] results) {
 	    int success = 0;
 	    for (int r : results) {
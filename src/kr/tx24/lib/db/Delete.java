@@ -3,6 +3,7 @@ package kr.tx24.lib.db;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
@@ -13,15 +14,18 @@ import kr.tx24.lib.lang.CommonUtils;
 import kr.tx24.lib.lang.SystemUtils;
 
 /**
- * 
+ * DELETE 질의 builder
+ * where(column, value ...) 로 추가한 조건은 값이 ? 로 바인딩되어 PreparedStatement 로 실행된다.
  */
 public class Delete {
 	private static Logger logger 	= LoggerFactory.getLogger(Delete.class);
 	private static final String DELETE				= "DELETE FROM ";
 	
-	private StringBuilder where		= new StringBuilder();
+	private WhereClause where		= new WhereClause();
+	private List<Object> values		= new BindValues();
 	private boolean deepview		= false;
 	private String table			= "";	
+	private String datasource		= null;
 	
 	
 	public Delete() {
@@ -58,6 +62,17 @@ public class Delete {
 		return this;
 	}
 	
+	/**
+	 * db.json 의 datasources 에 지정된 datasource 를 사용한다. 지정하지 않으면 기본 datasource 를 사용한다.
+	 * init() 으로 초기화되지 않는다.
+	 * @param name
+	 * @return
+	 */
+	public Delete datasource(String name) {
+		this.datasource = name;
+		return this;
+	}
+	
 	
 	/*
 	 * 테이블 명, 디버그, 레코드, 조건절 등을 초기화한다.
@@ -65,7 +80,8 @@ public class Delete {
 	public Delete init() {
 		deepview= SystemUtils.deepview();
 		table 	= "";
-		where.setLength(0);
+		where.clear();
+		values.clear();
 		return this;
 	}
 	
@@ -88,8 +104,9 @@ public class Delete {
 	 * @return
 	 */
 	public Delete whereInit(String condition) {
-		this.where.setLength(0);
-		this.where.append(condition);
+		this.where.clear();
+		this.where.add(DBUtils.AND, condition);
+		this.values.clear();
 		return this;
 	}
 	
@@ -101,11 +118,7 @@ public class Delete {
 	 * @return
 	 */
 	public Delete where(String condition) {
-		if(this.where.length() == 0) {
-			this.where.append(condition);
-		}else {
-			this.where.append(DBUtils.AND).append(condition);
-		}
+		this.where.add(DBUtils.AND, condition);
 		return this;
 	}
 	
@@ -144,11 +157,7 @@ public class Delete {
 	 * @return
 	 */
 	public Delete whereOr(String condition) {
-		if(this.where.length() == 0) {
-			this.where.append(condition);
-		}else {
-			this.where.append(DBUtils.OR).append(condition);
-		}
+		this.where.add(DBUtils.OR, condition);
 		return this;
 	}
 	
@@ -200,13 +209,8 @@ public class Delete {
 	 */
 	
 	public Delete where(String column,Object value,String operator,String logicalOperator){
-		String q = DBUtils.where(column, value, operator, logicalOperator);
-		if(this.where.length() == 0) {
-			this.where.append(q);
-		}else {
-			this.where.append(logicalOperator).append(q);
-		}
-		
+		this.where.add(column, value, operator, logicalOperator, values);
+
 		return this;
 	}
 	
@@ -219,6 +223,39 @@ public class Delete {
 	 * @return
 	 */
 	public String build() {
+		return build(where.literal());
+	}
+	
+	/**
+	 * 설정된 값으로 DELETE FROM TABLE WHERE COLUMN= ? 의 쿼리 반환한다.
+	 * 같은 구조의 쿼리는 {@link QueryCache} 에서 반환된다.
+	 * 바인딩 값은 {@link #getBindValues()} 로 확인한다.
+	 * @return
+	 */
+	public String buildBindQuery() {
+		if(!QueryCache.isEnabled()) {
+			return build(where.bound());
+		}
+		return QueryCache.get(new QueryCache.Shape(DELETE, table, where.shape()), () -> build(where.bound()));
+	}
+	
+	/**
+	 * {@link #buildBindQuery()} 의 ? 순서에 맞는 바인딩 값
+	 * @return
+	 */
+	public List<Object> getBindValues() {
+		return new BindValues(values);
+	}
+	
+	public String getTable() {
+		return table;
+	}
+	
+	public String getDatasource() {
+		return datasource;
+	}
+	
+	private String build(String where) {
 		StringBuilder sql 	= new StringBuilder();
 		sql.append(DELETE)
 			.append(table)
@@ -249,26 +286,30 @@ public class Delete {
 		DBManager db 			= null;
 		PreparedStatement pstmt = null;
 		Connection 	conn		= null;
-		String query			= build();
+		String query			= buildBindQuery();
 		int result = 0;
 		
 		long startTime = System.nanoTime();
 		try {
-			db			= DBFactory.get();
+			db			= DBFactory.get(datasource);
 			conn		= db.getConnection();
 			conn.setAutoCommit(false);
 			pstmt		= conn.prepareStatement(query);	
+			DBUtils.setValues(pstmt, values);
 			result  	= pstmt.executeUpdate();
 			conn.commit();
+			if(result > 0) ResultCache.invalidate(table);
 		}catch(Exception t){
 			try { if (conn != null) conn.rollback(); } catch (Exception ex) {}
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			db.close(pstmt);
 			db.close(conn);
 			
+			SqlMetrics.record(query, startTime, result, this::getBindValues);
 			if(deepview) {
-				logger.info("query : {} = [{}]",result,query);
+				logger.info("query : {} = [{}]",result,build());
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
 			}
 			
@@ -293,24 +334,28 @@ public class Delete {
 		DBManager db 			= null;
 		PreparedStatement pstmt = null;
 		Connection 	conn		= null;
-		String query			= build();
+		String query			= buildBindQuery();
 		int result = 0;
 		
 		long startTime = System.nanoTime();
 		try {
-			db			= DBFactory.get();
+			db			= DBFactory.get(datasource);
 			conn		= db.getConnection();
 			conn.setAutoCommit(false);
 			pstmt		= conn.prepareStatement(query);	
+			DBUtils.setValues(pstmt, values);
 			result  	= pstmt.executeUpdate();
 			conn.commit();
+			if(result > 0) ResultCache.invalidate(table);
 		}catch(Exception t){
 			try { if (conn != null) conn.rollback(); } catch (Exception ex) {}
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			db.close(pstmt);
 			db.close(conn);
 			
+			SqlMetrics.record(query, startTime, result, this::getBindValues);
 			if(deepview) {
 				logger.info("query : {} = [{}]",result,build());
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -337,7 +382,7 @@ public class Delete {
 		
 		long startTime = System.nanoTime();
 		try {
-			db			= DBFactory.get();
+			db			= DBFactory.get(datasource);
 			conn		= db.getConnection();
 			conn.setAutoCommit(false);
 			pstmt		= conn.prepareStatement(query);	
@@ -345,11 +390,13 @@ public class Delete {
 			conn.commit();
 		}catch(Exception t){
 			try { if (conn != null) conn.rollback(); } catch (Exception ex) {}
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			db.close(pstmt);
 			db.close(conn);
 			
+			SqlMetrics.record(query, startTime, result, null);
 			if(deepview) {
 				logger.info("query : {} = [{}]",result,build());
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -371,7 +418,10 @@ public class Delete {
      * @return CompletableFuture<Integer> - 완료 시 삭제된 행 수 반환
      */
     public CompletableFuture<Integer> deleteAsync() {
-        final String query = build();
+        final String query = buildBindQuery();
+        final String target = table;
+        final String source = datasource;
+        final List<Object> snapshot = getBindValues();
         final boolean enableLog = deepview;
         
         // init()은 호출하지 않음 - 비동기 작업 완료 후에도 재사용 가능
@@ -384,14 +434,16 @@ public class Delete {
             long startTime = System.nanoTime();
 
             try {
-                db = DBFactory.get();
+                db = DBFactory.get(source);
                 conn = db.getConnection();
                 conn.setAutoCommit(false);
                 
                 pstmt = conn.prepareStatement(query);
+                DBUtils.setValues(pstmt, snapshot);
                 result = pstmt.executeUpdate();
                 
                 conn.commit();
+                if (result > 0) ResultCache.invalidate(target);
                 
                 if (enableLog) {
                     logger.info("Async delete completed: {} row(s) deleted", result);
@@ -405,6 +457,7 @@ public class Delete {
                         logger.error("Rollback failed", rollbackEx);
                     }
                 }
+                SqlMetrics.error(query);
                 logger.error("Async delete failed: {}", CommonUtils.getExceptionMessage(e));
                 throw new RuntimeException("Async delete failed", e);
                 
@@ -414,6 +467,7 @@ public class Delete {
                     db.close(conn);
                 }
                 
+                SqlMetrics.record(query, startTime, result, snapshot);
                 if (enableLog) {
                     logger.info("Async delete query: [{}]", query);
                     logger.info(SystemUtils.getElapsedTime(System.nanoTime() - startTime));
@@ -0,0 +1,196 @@
+package kr.tx24.lib.db;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * {@link Retrieve#lazy(String, String...)} 로 지정한 BLOB/CLOB 컬럼의 값 대신 RecordSet 에 담기는 handle
+ *
+ * <p>조회 시에는 컬럼 값을 전송하지 않고 테이블, 컬럼, key 값만 보관한다.
+ * {@link #getBytes()}, {@link #getString()}, {@link #getBinaryStream()}, {@link #transferTo(OutputStream)} 를
+ * 호출할 때 {@code SELECT column FROM table WHERE key = ?} 로 해당 row 의 값만 읽으며, 호출할 때마다 다시 조회한다.</p>
+ *
+ * <p>JSON 변환 및 toString() 은 값을 조회하지 않고 {@code lob:table.column[key=value]} 형식의 설명을 반환한다.</p>
+ */
+public final class LazyLob {
+	private static final int BUFFER_SIZE = 8192;
+
+	private final String datasource;
+	private final String table;
+	private final String column;
+	private final String keyColumn;
+	private final Object key;
+	private final boolean primary;
+
+	LazyLob(String datasource, String table, String column, String keyColumn, Object key, boolean primary) {
+		this.datasource	= datasource;
+		this.table		= table;
+		this.column		= column;
+		this.keyColumn	= keyColumn;
+		this.key		= key;
+		this.primary	= primary;
+	}
+
+
+	public String getTable() {
+		return table;
+	}
+
+	public String getColumn() {
+		return column;
+	}
+
+	/**
+	 * 값을 조회할 때 사용하는 key 컬럼의 값
+	 */
+	public Object getKey() {
+		return key;
+	}
+
+
+	/**
+	 * 컬럼 값을 byte[] 로 읽는다.
+	 * @return 값이 NULL 이면 null
+	 * @throws DBException row 가 없거나 조회 오류
+	 */
+	public byte[] getBytes() throws DBException {
+		try (InputStream in = getBinaryStream()) {
+			return in == null ? null : in.readAllBytes();
+		} catch (IOException e) {
+			throw new DBException(e.getMessage(), query(), null);
+		}
+	}
+
+	/**
+	 * 컬럼 값을 문자열로 읽는다. (CLOB/TEXT 컬럼)
+	 * @return 값이 NULL 이면 null
+	 * @throws DBException row 가 없거나 조회 오류
+	 */
+	public String getString() throws DBException {
+		Handle h = open();
+		try {
+			Reader reader = h.rset.getCharacterStream(1);
+			if (reader == null) {
+				return null;
+			}
+			StringWriter writer = new StringWriter();
+			reader.transferTo(writer);
+			return writer.toString();
+		} catch (SQLException e) {
+			throw new DBException(e.getMessage(), h.query, e);
+		} catch (IOException e) {
+			throw new DBException(e.getMessage(), h.query, null);
+		} finally {
+			h.close();
+		}
+	}
+
+	/**
+	 * 컬럼 값을 읽는 stream, 전체 값을 메모리에 적재하지 않는다.
+	 * stream 은 connection 을 점유하므로 반드시 close 해야 한다.
+	 * @return 값이 NULL 이면 null (connection 은 반환된다.)
+	 * @throws DBException row 가 없거나 조회 오류
+	 */
+	public InputStream getBinaryStream() throws DBException {
+		Handle h = open();
+		try {
+			InputStream in = h.rset.getBinaryStream(1);
+			if (in == null) {
+				h.close();
+				return null;
+			}
+			return new FilterInputStream(in) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						h.close();
+					}
+				}
+			};
+		} catch (SQLException e) {
+			h.close();
+			throw new DBException(e.getMessage(), h.query, e);
+		}
+	}
+
+	/**
+	 * 컬럼 값을 out 으로 복사한다. out 은 close 하지 않는다.
+	 * @return 복사한 byte 수, 값이 NULL 이면 0
+	 * @throws DBException row 가 없거나 조회 또는 쓰기 오류
+	 */
+	public long transferTo(OutputStream out) throws DBException {
+		try (InputStream in = getBinaryStream()) {
+			if (in == null) {
+				return 0;
+			}
+			long total = 0;
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+				total += read;
+			}
+			return total;
+		} catch (IOException e) {
+			throw new DBException(e.getMessage(), query(), null);
+		}
+	}
+
+
+	private String query() {
+		return "SELECT " + column + " FROM " + table + " WHERE " + keyColumn + " = ?";
+	}
+
+	private Handle open() throws DBException {
+		String query = query();
+		DBManager db 			= DBFactory.get(datasource);
+		Connection conn			= null;
+		PreparedStatement pstmt = null;
+		ResultSet rset			= null;
+		long startTime = System.nanoTime();
+		try {
+			conn	= primary ? db.getPrimaryConnection() : db.getReadConnection(query);
+			pstmt	= conn.prepareStatement(query);
+			pstmt.setObject(1, key);
+			rset	= pstmt.executeQuery();
+			SqlMetrics.record(query, startTime, 1, null);
+			if (!rset.next()) {
+				db.close(conn, pstmt, rset);
+				throw new DBException("row not found : " + keyColumn + "=" + key, query, (SQLException) null);
+			}
+			return new Handle(db, conn, pstmt, rset, query);
+		} catch (DBException e) {
+			throw e;
+		} catch (SQLException e) {
+			SqlMetrics.error(query);
+			db.close(conn, pstmt, rset);
+			throw new DBException(e.getMessage(), query, e);
+		}
+	}
+
+
+	@JsonValue
+	@Override
+	public String toString() {
+		return "lob:" + table + "." + column + "[" + keyColumn + "=" + key + "]";
+	}
+
+
+	private record Handle(DBManager db, Connection conn, PreparedStatement pstmt, ResultSet rset, String query) {
+		void close() {
+			db.close(conn, pstmt, rset);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package kr.tx24.lib.db;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import kr.tx24.lib.map.LinkedMap;
+
+/**
+ * SQL builder 의 쿼리 문자열 cache
+ *
+ * <p>Create, Update, Delete, Retrieve 의 바인딩 쿼리는 값이 ? 로 분리되어 있으므로
+ * 테이블, 컬럼, join, 조건절 operator, 정렬, LIMIT 유무 등 구조가 같으면 같은 문자열이 된다.
+ * 구조를 {@link Shape} key 로 하여 완성된 쿼리 문자열을 보관하고, 같은 구조의 요청은 문자열 조립 없이
+ * 동일한 문자열 instance 를 반환한다. (connection 의 PreparedStatement cache 도 그대로 재사용된다.)</p>
+ *
+ * <p>최대 개수를 넘으면 전체를 비우고 다시 적재한다. db.json 의 {@code "queryCache"} 로 최대 개수를 지정하며
+ * 0 이면 사용하지 않는다. 적중률은 {@link #getStats()} 로 확인한다.</p>
+ */
+public final class QueryCache {
+
+	public static final int DEFAULT_MAX_SIZE	= 2048;
+
+	private static final Map<Shape, String> cache	= new ConcurrentHashMap<>();
+	private static final LongAdder hits				= new LongAdder();
+	private static final LongAdder misses			= new LongAdder();
+	private static final LongAdder evictions		= new LongAdder();
+	private static volatile int maxSize				= DEFAULT_MAX_SIZE;
+
+	private QueryCache() {
+	}
+
+
+	/**
+	 * 최대 보관 개수, 0 이하이면 cache 를 사용하지 않는다.
+	 * @param size
+	 */
+	public static void setMaxSize(int size) {
+		maxSize = Math.max(size, 0);
+		if (maxSize == 0) {
+			cache.clear();
+		}
+	}
+
+	public static int getMaxSize() {
+		return maxSize;
+	}
+
+	public static boolean isEnabled() {
+		return maxSize > 0;
+	}
+
+
+	/**
+	 * shape 에 해당하는 쿼리를 반환하고, 없으면 builder 로 생성하여 보관한다.
+	 */
+	static String get(Shape shape, Supplier<String> builder) {
+		if (maxSize == 0) {
+			return builder.get();
+		}
+		String query = cache.get(shape);
+		if (query != null) {
+			hits.increment();
+			return query;
+		}
+		misses.increment();
+		query = builder.get();
+		if (cache.size() >= maxSize) {
+			cache.clear();
+			evictions.increment();
+		}
+		cache.put(shape, query);
+		return query;
+	}
+
+
+	/**
+	 * 보관된 쿼리를 모두 제거한다. 통계는 유지된다.
+	 */
+	public static void clear() {
+		cache.clear();
+	}
+
+	public static int size() {
+		return cache.size();
+	}
+
+	public static long getHitCount() {
+		return hits.sum();
+	}
+
+	public static long getMissCount() {
+		return misses.sum();
+	}
+
+	public static LinkedMap<String, Object> getStats() {
+		long hit	= hits.sum();
+		long miss	= misses.sum();
+		LinkedMap<String, Object> map = new LinkedMap<String, Object>();
+		map.put("enabled"	, isEnabled());
+		map.put("size"		, cache.size());
+		map.put("maxSize"	, maxSize);
+		map.put("hits"		, hit);
+		map.put("misses"	, miss);
+		map.put("evictions"	, evictions.sum());
+		map.put("hitRatio"	, hit + miss == 0 ? 0.0 : (double) hit / (hit + miss));
+		return map;
+	}
+
+
+	/**
+	 * 쿼리 구조 key, 구성 요소 배열의 내용으로 비교한다.
+	 */
+	static final class Shape {
+		private final Object[] parts;
+		private final int hash;
+
+		Shape(Object... parts) {
+			this.parts	= parts;
+			this.hash	= Arrays.hashCode(parts);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			return o instanceof Shape other && hash == other.hash && Arrays.equals(parts, other.parts);
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package kr.tx24.lib.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import kr.tx24.lib.lang.CommonUtils;
+import kr.tx24.lib.lang.SystemUtils;
+import kr.tx24.lib.map.MapFactory;
+import kr.tx24.lib.map.SharedMap;
+import kr.tx24.lib.map.TypeRegistry;
+
+/**
+ * ResultSet 을 한 row 씩 읽는 조회 결과 cursor.
+ *
+ * <p>{@link RecordSet} 과 달리 전체 row 를 메모리에 적재하지 않으며, fetchSize 단위로 서버에서 받아온다.
+ * (MariaDB Connector/J 는 fetchSize > 0 이면 결과를 streaming 으로 읽는다.)
+ * cursor 는 connection 을 점유하므로 반드시 try-with-resources 또는 {@link #close()} 로 닫아야 한다.
+ * 마지막 row 를 읽으면 자동으로 닫힌다.</p>
+ *
+ * <pre>{@code
+ * try (RecordCursor cursor = new Retrieve("TRX_LOG").where("regDay", "20250101").cursor()) {
+ *     while (cursor.hasNext()) {
+ *         SharedMap<String, Object> row = cursor.next();
+ *         ...
+ *     }
+ * }
+ * }</pre>
+ *
+ * <p>row 는 {@link RecordSet} 과 같은 규칙으로 변환된다. (null 컬럼은 빈 문자열)
+ * 읽는 도중 발생한 SQL 오류는 {@link IllegalStateException} 으로 전달되며 cursor 는 닫힌다.</p>
+ */
+public class RecordCursor implements Iterator<SharedMap<String, Object>>, AutoCloseable {
+	private static Logger logger 	= LoggerFactory.getLogger(RecordCursor.class);
+
+	public static final int DEFAULT_FETCH_SIZE	= 1000;
+
+	private final DBManager db;
+	private final Connection conn;
+	private final PreparedStatement pstmt;
+	private final ResultSet rset;
+	private final String query;
+	private final String[] columns;
+	private final ColumnReader[] readers;
+	private final boolean deepview;
+	private final long startTime;
+
+	private boolean fetched		= false;		// rset.next() 결과를 아직 소비하지 않음
+	private boolean closed		= false;
+	private long rows			= 0;
+
+
+	private RecordCursor(DBManager db, Connection conn, PreparedStatement pstmt, ResultSet rset,
+			String query, boolean deepview, long startTime) throws SQLException {
+		this.db			= db;
+		this.conn		= conn;
+		this.pstmt		= pstmt;
+		this.rset		= rset;
+		this.query		= query;
+		this.deepview	= deepview;
+		this.startTime	= startTime;
+
+		ResultSetMetaData meta = rset.getMetaData();
+		this.columns	= RecordSet.readColumns(meta);
+		this.readers	= RecordSet.readers(meta);
+	}
+
+
+	/**
+	 * 질의문을 실행하고 cursor 를 연다.
+	 * @param values prepared 쿼리의 바인딩 값, 없으면 null
+	 * @param fetchSize 한 번에 서버에서 받아올 row 수
+	 * @param primary true 이면 replica 를 사용하지 않는다.
+	 * @param datasource datasource 이름, null 이면 기본 datasource
+	 */
+	static RecordCursor open(String query, Collection<Object> values, int fetchSize, boolean deepview, boolean primary, String datasource) throws DBException {
+		DBManager db			= DBFactory.get(datasource);
+		Connection conn			= null;
+		PreparedStatement pstmt	= null;
+		ResultSet rset			= null;
+
+		long startTime = System.nanoTime();
+		try {
+			conn	= primary ? db.getPrimaryConnection() : db.getReadConnection(query);
+			pstmt	= conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			pstmt.setFetchSize(fetchSize > 0 ? fetchSize : DEFAULT_FETCH_SIZE);
+			DBUtils.setValues(pstmt, values);
+			rset	= pstmt.executeQuery();
+			return new RecordCursor(db, conn, pstmt, rset, query, deepview, startTime);
+		}catch(SQLException t) {
+			db.close(conn, pstmt, rset);
+			SqlMetrics.error(query);
+			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+			throw new DBException("Failed to open cursor", query, t);
+		}
+	}
+
+
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+		if (!fetched) {
+			try {
+				fetched = rset.next();
+			} catch (SQLException e) {
+				SqlMetrics.error(query);
+				close();
+				logger.warn("sql error : {}",CommonUtils.getExceptionMessage(e));
+				throw new IllegalStateException(new DBException("Failed to fetch row", query, e));
+			}
+			if (!fetched) {
+				close();
+			}
+		}
+		return fetched;
+	}
+
+
+	@Override
+	public SharedMap<String, Object> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		fetched = false;
+
+		SharedMap<String, Object> map = MapFactory.createObjectMap(TypeRegistry.MAP_SHAREDMAP_OBJECT);
+		for (int i = 0; i < columns.length; i++) {
+			Object value = RecordSet.read(readers[i], rset, i + 1);
+			map.put(columns[i], value != null ? value : "");
+		}
+		rows++;
+		return map;
+	}
+
+
+	/**
+	 * 다음 row 의 컬럼 값을 컬럼 순서의 배열로 반환한다. SharedMap 을 만들지 않으며 NULL 컬럼은 null 이다.
+	 */
+	Object[] nextValues() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		fetched = false;
+
+		Object[] values = new Object[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			Object value = RecordSet.read(readers[i], rset, i + 1);
+			try {
+				values[i] = rset.wasNull() ? null : value;
+			} catch (SQLException e) {
+				values[i] = value;
+			}
+		}
+		rows++;
+		return values;
+	}
+
+
+	/**
+	 * 남은 row 를 순서대로 전달하는 Stream, Stream 을 닫으면 cursor 도 닫힌다.
+	 */
+	public Stream<SharedMap<String, Object>> stream() {
+		return StreamSupport.stream(
+				Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+				false
+		).onClose(this::close);
+	}
+
+
+	public String[] getColumns() {
+		return columns;
+	}
+
+	/**
+	 * 지금까지 읽은 row 수
+	 */
+	public long getRowCount() {
+		return rows;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+
+	/**
+	 * ResultSet, Statement, Connection 을 닫는다. 여러 번 호출해도 된다.
+	 * 끝까지 읽지 않고 닫으면 MariaDB 는 남은 결과를 버린다.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		db.close(conn, pstmt, rset);
+
+		//cursor 를 연 시점부터 닫을 때까지를 실행시간으로 기록한다.
+		SqlMetrics.record(query, startTime, rows, null);
+		if(deepview) {
+			logger.info("query : {} = [{}]",query,rows);
+			logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
+		}
+	}
+}
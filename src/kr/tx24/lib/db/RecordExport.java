@@ -0,0 +1,377 @@
+package kr.tx24.lib.db;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import kr.tx24.lib.lang.SystemUtils;
+
+/**
+ * 조회 결과를 CSV, NDJSON, XLSX 로 OutputStream 에 순차 기록
+ *
+ * <p>{@link RecordCursor} 로 fetchSize 단위로 읽은 row 를 바로 기록하므로 결과 크기와 관계없이 일정한 메모리로 동작한다.
+ * CSV 는 Jackson CSV, XLSX 는 POI SXSSF(메모리에 window 만큼의 row 만 유지)를 사용한다.
+ * gzip(true) 이면 gzip 으로 압축하여 기록한다. 전달받은 OutputStream 은 닫지 않는다.</p>
+ *
+ * <pre>
+ * try (OutputStream out = response.getOutputStream()) {
+ *     long rows = new RecordExport(RecordExport.Format.CSV).gzip(true)
+ *             .title("trxId", "거래번호")
+ *             .write(new Retrieve("TRX_LOG").where("regDay", "20250101"), out);
+ * }
+ * </pre>
+ */
+public class RecordExport {
+	private static Logger logger = LoggerFactory.getLogger(RecordExport.class);
+
+	public enum Format { CSV, NDJSON, XLSX }
+
+	public static final String DEFAULT_DATE_FORMAT	= "yyyy-MM-dd HH:mm:ss";
+	public static final int DEFAULT_WINDOW			= 100;
+
+	private static final CsvMapper CSV_MAPPER		= new CsvMapper();
+	private static final JsonFactory JSON_FACTORY	= new JsonFactory();
+	private static final int BUFFER_SIZE			= 64 * 1024;
+	private static final int MAX_ROWS				= SpreadsheetVersion.EXCEL2007.getMaxRows();
+	private static final int MAX_TEXT				= SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+	private final Format format;
+	private boolean gzip					= false;
+	private boolean header					= true;
+	private char separator					= ',';
+	private String datePattern				= DEFAULT_DATE_FORMAT;
+	private DateTimeFormatter dateFormat	= DateTimeFormatter.ofPattern(DEFAULT_DATE_FORMAT);
+	private String sheet					= "data";
+	private int window						= DEFAULT_WINDOW;
+	private final Map<String, String> titles = new HashMap<String, String>();
+
+
+	public RecordExport(Format format) {
+		this.format = format;
+	}
+
+	/**
+	 * gzip 으로 압축하여 기록한다. XLSX 는 이미 zip 형식이므로 일반적으로 사용하지 않는다.
+	 */
+	public RecordExport gzip(boolean gzip) {
+		this.gzip = gzip;
+		return this;
+	}
+
+	/**
+	 * CSV, XLSX 의 첫 row 에 컬럼 제목을 기록한다. 기본 true
+	 */
+	public RecordExport header(boolean header) {
+		this.header = header;
+		return this;
+	}
+
+	/**
+	 * CSV 구분자, 기본 ','
+	 */
+	public RecordExport separator(char separator) {
+		this.separator = separator;
+		return this;
+	}
+
+	/**
+	 * 날짜 컬럼 형식, 기본 yyyy-MM-dd HH:mm:ss
+	 */
+	public RecordExport dateFormat(String pattern) {
+		this.dateFormat		= DateTimeFormatter.ofPattern(pattern);
+		this.datePattern	= pattern;
+		return this;
+	}
+
+	/**
+	 * 컬럼 label 대신 사용할 제목, CSV/XLSX 는 header, NDJSON 은 key 로 사용된다.
+	 */
+	public RecordExport title(String column, String title) {
+		titles.put(column, title);
+		return this;
+	}
+
+	public RecordExport titles(Map<String, String> titles) {
+		this.titles.putAll(titles);
+		return this;
+	}
+
+	/**
+	 * XLSX sheet 이름, 최대 row 수를 넘으면 _2, _3 ... sheet 가 추가된다.
+	 */
+	public RecordExport sheet(String sheet) {
+		this.sheet = sheet;
+		return this;
+	}
+
+	/**
+	 * XLSX 작성 시 메모리에 유지할 row 수, 기본 100
+	 */
+	public RecordExport window(int window) {
+		this.window = window > 0 ? window : DEFAULT_WINDOW;
+		return this;
+	}
+
+
+	/**
+	 * Retrieve 를 cursor 로 실행하여 기록한다. 실행 후 retrieve 의 init() 이 호출된다.
+	 * @return 기록한 row 수
+	 */
+	public long write(Retrieve retrieve, OutputStream out) throws IOException, DBException {
+		try (RecordCursor cursor = retrieve.cursor()) {
+			return write(cursor, out);
+		}
+	}
+
+	/**
+	 * 파일로 기록한다. 실패하면 작성 중인 파일을 삭제한다.
+	 * @return 기록한 row 수
+	 */
+	public long write(Retrieve retrieve, Path path) throws IOException, DBException {
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE)) {
+			return write(retrieve, out);
+		} catch (IOException | DBException | RuntimeException e) {
+			Files.deleteIfExists(path);
+			throw e;
+		}
+	}
+
+	/**
+	 * cursor 의 남은 row 를 기록한다. cursor 는 닫지 않는다.
+	 * @return 기록한 row 수
+	 */
+	public long write(RecordCursor cursor, OutputStream out) throws IOException, DBException {
+		long startTime	= System.nanoTime();
+		long start		= cursor.getRowCount();
+		OutputStream target = new Shield(out);
+		if (gzip) {
+			target = new GZIPOutputStream(target, BUFFER_SIZE);
+		}
+
+		String[] names = cursor.getColumns().clone();
+		for (int i = 0; i < names.length; i++) {
+			names[i] = titles.getOrDefault(names[i], names[i]);
+		}
+
+		try (OutputStream stream = target) {
+			switch (format) {
+				case CSV	-> csv(cursor, names, stream);
+				case NDJSON	-> ndjson(cursor, names, stream);
+				case XLSX	-> xlsx(cursor, names, stream);
+			}
+		} catch (IllegalStateException e) {
+			//RecordCursor 는 fetch 오류를 IllegalStateException 으로 전달한다.
+			if (e.getCause() instanceof DBException d) {
+				throw d;
+			}
+			throw e;
+		}
+
+		long rows = cursor.getRowCount() - start;
+		if (SystemUtils.deepview()) {
+			logger.info("export {} : {} rows{}", format, rows, gzip ? ", gzip" : "");
+			logger.info(SystemUtils.getElapsedTime(System.nanoTime() - startTime));
+		}
+		return rows;
+	}
+
+
+	private void csv(RecordCursor cursor, String[] names, OutputStream out) throws IOException {
+		CsvSchema.Builder builder = CsvSchema.builder();
+		for (String name : names) {
+			builder.addColumn(name);
+		}
+		CsvSchema schema = builder.build().withColumnSeparator(separator);
+		schema = header ? schema.withHeader() : schema.withoutHeader();
+
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+		try (SequenceWriter sequence = CSV_MAPPER.writer(schema).writeValues(writer)) {
+			String[] row = new String[names.length];
+			while (cursor.hasNext()) {
+				Object[] values = cursor.nextValues();
+				for (int i = 0; i < values.length; i++) {
+					row[i] = text(values[i]);
+				}
+				sequence.write(row);
+			}
+		}
+	}
+
+
+	private void ndjson(RecordCursor cursor, String[] names, OutputStream out) throws IOException {
+		try (JsonGenerator gen = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+			gen.setRootValueSeparator(null);
+			while (cursor.hasNext()) {
+				Object[] values = cursor.nextValues();
+				gen.writeStartObject();
+				for (int i = 0; i < values.length; i++) {
+					gen.writeFieldName(names[i]);
+					Object value = values[i];
+					if (value == null) {
+						gen.writeNull();
+					} else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+						gen.writeNumber(((Number) value).longValue());
+					} else if (value instanceof BigDecimal d) {
+						gen.writeNumber(d);
+					} else if (value instanceof Number n) {
+						gen.writeNumber(n.doubleValue());
+					} else if (value instanceof Boolean b) {
+						gen.writeBoolean(b);
+					} else if (value instanceof byte[] b) {
+						gen.writeBinary(b);
+					} else {
+						gen.writeString(text(value));
+					}
+				}
+				gen.writeEndObject();
+				gen.writeRaw('\n');
+			}
+		}
+	}
+
+
+	private void xlsx(RecordCursor cursor, String[] names, OutputStream out) throws IOException {
+		SXSSFWorkbook workbook = new SXSSFWorkbook(window);
+		workbook.setCompressTempFiles(true);
+		try {
+			CellStyle dateStyle = workbook.createCellStyle();
+			dateStyle.setDataFormat(workbook.createDataFormat().getFormat(datePattern.toLowerCase()));	//excel 형식은 소문자 (mm 은 위치로 월/분 구분)
+
+			Sheet current	= null;
+			int sheets		= 0;
+			int rowNum		= MAX_ROWS;
+			while (cursor.hasNext()) {
+				Object[] values = cursor.nextValues();
+				if (rowNum >= MAX_ROWS) {
+					sheets++;
+					current	= workbook.createSheet(sheets == 1 ? sheet : sheet + "_" + sheets);
+					rowNum	= 0;
+					if (header) {
+						Row row = current.createRow(rowNum++);
+						for (int i = 0; i < names.length; i++) {
+							row.createCell(i).setCellValue(names[i]);
+						}
+					}
+				}
+				Row row = current.createRow(rowNum++);
+				for (int i = 0; i < values.length; i++) {
+					if (values[i] != null) {
+						cell(row.createCell(i), values[i], dateStyle);
+					}
+				}
+			}
+			if (current == null) {
+				current = workbook.createSheet(sheet);
+				if (header) {
+					Row row = current.createRow(0);
+					for (int i = 0; i < names.length; i++) {
+						row.createCell(i).setCellValue(names[i]);
+					}
+				}
+			}
+			workbook.write(out);
+		} finally {
+			workbook.close();		//임시 파일도 삭제된다.
+		}
+	}
+
+	private void cell(Cell cell, Object value, CellStyle dateStyle) {
+		if (value instanceof BigDecimal d) {
+			//double 로 정확히 표현할 수 없는 값은 문자열로 기록한다.
+			if (d.precision() > 15) {
+				cell.setCellValue(d.toPlainString());
+			} else {
+				cell.setCellValue(d.doubleValue());
+			}
+		} else if (value instanceof Long l && Math.abs(l) > (1L << 53)) {
+			cell.setCellValue(String.valueOf(l));
+		} else if (value instanceof Number n) {
+			cell.setCellValue(n.doubleValue());
+		} else if (value instanceof Boolean b) {
+			cell.setCellValue(b);
+		} else if (value instanceof java.util.Date d) {
+			cell.setCellValue(d);
+			cell.setCellStyle(dateStyle);
+		} else if (value instanceof LocalDateTime t) {
+			cell.setCellValue(t);
+			cell.setCellStyle(dateStyle);
+		} else {
+			String text = text(value);
+			cell.setCellValue(text.length() > MAX_TEXT ? text.substring(0, MAX_TEXT) : text);
+		}
+	}
+
+
+	/**
+	 * CSV 및 문자열 값 변환, null 은 빈 문자열
+	 */
+	private String text(Object value) {
+		if (value == null) {
+			return "";
+		} else if (value instanceof Timestamp t) {
+			return dateFormat.format(t.toLocalDateTime());
+		} else if (value instanceof java.sql.Date || value instanceof java.sql.Time) {
+			return value.toString();
+		} else if (value instanceof java.util.Date d) {
+			return dateFormat.format(new Timestamp(d.getTime()).toLocalDateTime());
+		} else if (value instanceof LocalDateTime t) {
+			return dateFormat.format(t);
+		} else if (value instanceof BigDecimal d) {
+			return d.toPlainString();
+		} else if (value instanceof byte[] b) {
+			return Base64.getEncoder().encodeToString(b);
+		}
+		return String.valueOf(value);
+	}
+
+
+	/**
+	 * 호출 측의 OutputStream 을 닫지 않고 flush 만 한다.
+	 */
+	private static final class Shield extends FilterOutputStream {
+		Shield(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.flush();
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package kr.tx24.lib.db;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import kr.tx24.lib.lang.CommonUtils;
+import kr.tx24.lib.lang.DateUtils;
+import kr.tx24.lib.map.MapFactory;
+import kr.tx24.lib.map.SharedMap;
+import kr.tx24.lib.map.TypeRegistry;
+
+/**
+ * {@link RecordSet} row 의 읽기 전용 Map view.
+ *
+ * <p>row 값 배열과 RecordSet 이 공유하는 컬럼 index 만 참조하므로 row 마다 Map 을 만들지 않는다.
+ * getter 는 {@link SharedMap} 과 같은 규칙으로 변환하며, 값을 변경하려면 {@link #toSharedMap()} 으로 복사한다.</p>
+ */
+public final class RecordRow extends AbstractMap<String, Object> {
+
+	private final ColumnIndex index;
+	private final Object[] values;
+	private Set<Map.Entry<String, Object>> entrySet;
+
+	RecordRow(ColumnIndex index, Object[] values) {
+		this.index	= index;
+		this.values	= values;
+	}
+
+	/**
+	 * @param column 0 부터 시작하는 컬럼 위치
+	 */
+	public Object get(int column) {
+		return values[column];
+	}
+
+	@Override
+	public Object get(Object key) {
+		int i = index.indexOf(key);
+		return i < 0 ? null : values[i];
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return index.indexOf(key) >= 0;
+	}
+
+	@Override
+	public int size() {
+		return index.uniqueSize();
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<>() {
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+					return new Iterator<>() {
+						private int next = advance(0);
+
+						private int advance(int from) {
+							while (from < index.size() && !index.isUnique(from)) {
+								from++;
+							}
+							return from;
+						}
+
+						@Override
+						public boolean hasNext() {
+							return next < index.size();
+						}
+
+						@Override
+						public Map.Entry<String, Object> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							int i = next;
+							next = advance(i + 1);
+							return new AbstractMap.SimpleImmutableEntry<>(index.name(i), values[i]);
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return index.uniqueSize();
+				}
+			};
+		}
+		return entrySet;
+	}
+
+	/**
+	 * 변경 가능한 SharedMap 으로 복사한다.
+	 */
+	public SharedMap<String, Object> toSharedMap() {
+		SharedMap<String, Object> map = MapFactory.createObjectMap(TypeRegistry.MAP_SHAREDMAP_OBJECT);
+		for (int i = 0; i < values.length; i++) {
+			map.put(index.name(i), values[i] != null ? values[i] : "");
+		}
+		return map;
+	}
+
+
+	/* ================== Getter Methods (SharedMap 과 동일) ================== */
+
+	public String getString(String key, String... replace) {
+		Object val = get(key);
+		String str = CommonUtils.toString(val);
+		if (replace != null && replace.length > 0 && (val == null || str.trim().isEmpty())) {
+			return replace[0];
+		}
+		return str;
+	}
+
+	public boolean getBoolean(String key) {
+		String str = CommonUtils.toString(get(key)).toLowerCase();
+		return "true".equals(str) || "1".equals(str);
+	}
+
+	public int getInt(String key, int... replace) {
+		Object val = get(key);
+		if (val == null && replace.length > 0) return replace[0];
+		return CommonUtils.parseInt(val);
+	}
+
+	public long getLong(String key, long... replace) {
+		Object val = get(key);
+		if (val == null && replace.length > 0) return replace[0];
+		return CommonUtils.parseLong(val);
+	}
+
+	public double getDouble(String key, double... replace) {
+		Object val = get(key);
+		if (val == null && replace.length > 0) return replace[0];
+		return CommonUtils.parseDouble(val);
+	}
+
+	public BigDecimal getBigDecimal(String key) {
+		Object val = get(key);
+		if (val instanceof BigDecimal) return (BigDecimal) val;
+		if (val instanceof BigInteger) return new BigDecimal((BigInteger) val);
+		if (val instanceof Number) return new BigDecimal(val.toString());
+		if (val instanceof String) {
+			try { return new BigDecimal(((String) val).trim()); }
+			catch (Exception e) { return BigDecimal.ZERO; }
+		}
+		return BigDecimal.ZERO;
+	}
+
+	public Timestamp getTimestamp(String key) {
+		Object val = get(key);
+		if (val instanceof String) return DateUtils.toTimestampNotDefine((String) val);
+		if (val instanceof Timestamp) return (Timestamp) val;
+		return null;
+	}
+
+	public boolean isTrue(String key) {
+		return "true".equalsIgnoreCase(getString(key));
+	}
+
+	public boolean isBlank(String key) {
+		return CommonUtils.isBlank(getString(key));
+	}
+
+	public boolean isEquals(String key, Object value) {
+		return CommonUtils.equals(get(key), value);
+	}
+}
@@ -1,151 +1,188 @@
 package kr.tx24.lib.db;
 
-import java.sql.Blob;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import kr.tx24.lib.lang.CommonUtils;
-import kr.tx24.lib.map.MapFactory;
 import kr.tx24.lib.map.SharedMap;
-import kr.tx24.lib.map.TypeRegistry;
 
+/**
+ * 조회 결과
+ *
+ * <p>row 는 컬럼 순서의 {@code Object[]} 로 저장하고 컬럼 이름 index 는 모든 row 가 공유한다.
+ * 컬럼별 값 읽기 함수({@link ColumnReader})는 metadata 로 한 번만 결정한다.
+ * {@link #getRecord(int)} / {@link #getRecords()} 는 복사 없는 읽기 전용 view 를 반환하며,
+ * 기존 {@link #getRow(int)} / {@link #getRows()} / {@link #getCurrent()} 는 접근한 row 만
+ * SharedMap 으로 변환하여 {@code Object[]} 대신 보관한다. (같은 row 는 같은 SharedMap 을 반환)
+ * {@link #getRows()} 는 RecordSet 의 row 목록 자체이므로 추가, 삭제, 정렬이 다른 조회 메소드에도 반영된다.</p>
+ */
 public class RecordSet {
 	private static Logger logger 	= LoggerFactory.getLogger(RecordSet.class);
-	private static final int MAX_BLOB_SIZE = 20 * 1024 * 1024;
 	private static final int DEFAULT_CAPACITY = 50;
-	
-	private final List<SharedMap<String, Object>> rows;
-	private final String[] columns;
+	private static final Object EMPTY = "";
+
+	private final ColumnIndex index;
 	private final AtomicInteger idx = new AtomicInteger(-1);
-    private long count;		 
-    
+	private volatile List<Object> data;		//Object[] 또는 변환된 SharedMap
+	private boolean shared;					//copy() 로 다른 RecordSet 과 공유 중
+	private List<SharedMap<String, Object>> rows;
+    private long count;
+    private String continuation;
+
     public RecordSet() {
-    	this.rows = new ArrayList<>(0);
-        this.columns = new String[0];
+    	this.data = new ArrayList<>(0);
+        this.index = new ColumnIndex(new String[0]);
         this.count = 0;
     }
 
 
     public RecordSet(ResultSet rs) throws SQLException {
+        this(rs, null);
+    }
+
+
+    /**
+     * 컬럼별 읽기 함수를 지정하여 생성한다. {@link Retrieve#lazy(String, String...)} 에서 사용한다.
+     * @param readers null 이면 metadata 로 결정한다.
+     */
+    RecordSet(ResultSet rs, ColumnReader[] readers) throws SQLException {
         if (rs == null) {
-        	this.rows = new ArrayList<>(0);
-            this.columns = new String[0];
+        	this.data = new ArrayList<>(0);
+            this.index = new ColumnIndex(new String[0]);
             this.count = 0;
             return;
         }
 
-        
-        
         ResultSetMetaData meta = rs.getMetaData();
         int columnCount = meta.getColumnCount();
-        this.columns = new String[columnCount];
-
-        
-        for (int i = 0; i < columnCount; i++) {
-        	columns[i] = meta.getColumnLabel(i + 1);
+        this.index = new ColumnIndex(readColumns(meta));
+        if (readers == null) {
+        	readers = readers(meta);
         }
-        
-        
-        this.rows = new ArrayList<>(DEFAULT_CAPACITY);
 
-        
+        this.data = new ArrayList<>(DEFAULT_CAPACITY);
+
         while (rs.next()) {
-            SharedMap<String, Object> map = MapFactory.createObjectMap(TypeRegistry.MAP_SHAREDMAP_OBJECT);
-
-            for (int i = 1; i <= columnCount; i++) {
-                Object value;
-                int type = meta.getColumnType(i);
-
-                try {
-                    switch (type) {
-                        // 문자열 계열
-                        case java.sql.Types.CHAR,
-                             java.sql.Types.VARCHAR,
-                             java.sql.Types.LONGVARCHAR,
-                             java.sql.Types.NCHAR,
-                             java.sql.Types.NVARCHAR,
-                             java.sql.Types.LONGNVARCHAR,
-                             java.sql.Types.CLOB,
-                             java.sql.Types.NCLOB -> value = rs.getString(i);
-
-                        // 바이너리 계열
-                        case java.sql.Types.BINARY,
-                             java.sql.Types.VARBINARY,
-                             java.sql.Types.LONGVARBINARY,
-                             java.sql.Types.BLOB -> {
-                            	try {
-									Blob blob = rs.getBlob(i);
-									if (blob != null) {
-									    long length = blob.length();
-									    int readSize = (int) Math.min(length, MAX_BLOB_SIZE);
-									    value = blob.getBytes(1, readSize);
-									    blob.free();
-									}else {
-										value = null;
-									}
-                        		} catch (SQLException | AbstractMethodError e) {
-                        		    byte[] bytes = rs.getBytes(i);
-                        		    if (bytes != null && bytes.length > MAX_BLOB_SIZE) {
-                        		        value = Arrays.copyOf(bytes, MAX_BLOB_SIZE);
-                        		    } else {
-                        		        value = bytes;
-                        		    }
-                        		}
-							}
-
-                        // 숫자 계열
-                        case java.sql.Types.TINYINT,
-                             java.sql.Types.SMALLINT,
-                             java.sql.Types.INTEGER -> value = rs.getInt(i);
-
-                        case java.sql.Types.BIGINT -> value = rs.getLong(i);
-
-                        case java.sql.Types.FLOAT,
-                             java.sql.Types.REAL -> value = rs.getFloat(i);
-
-                        case java.sql.Types.DOUBLE -> value = rs.getDouble(i);
-
-                        case java.sql.Types.DECIMAL,
-                             java.sql.Types.NUMERIC -> value = rs.getBigDecimal(i);
-
-                        // 논리 계열
-                        case java.sql.Types.BIT,
-                             java.sql.Types.BOOLEAN -> value = rs.getBoolean(i);
-
-                        // 날짜/시간 계열
-                        case java.sql.Types.DATE,
-                             java.sql.Types.TIME,
-                             java.sql.Types.TIMESTAMP,
-                             java.sql.Types.TIMESTAMP_WITH_TIMEZONE -> value = rs.getTimestamp(i);
-
-                        default -> value = rs.getObject(i);
-                    }
-                } catch (Exception e) {
-                	logger.warn("error : {}",CommonUtils.getExceptionMessage(e));
-                    value = null;
-                }
-
-                map.put(columns[i - 1], value != null ? value : "");
+            Object[] row = new Object[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                Object value = read(readers[i], rs, i + 1);
+                row[i] = value != null ? value : EMPTY;
             }
-            
-            rows.add(map);
+            data.add(row);
             this.count++;
         }
-        
-        
     }
-    
+
+
+    private RecordSet(List<Object> data, ColumnIndex index, long count) {
+    	this.data = data;
+    	this.index = index;
+    	this.count = count;
+    	this.shared = true;
+    }
+
+
+    /**
+     * row 데이터를 공유하고 현재 위치만 별도로 가지는 RecordSet, {@link ResultCache} 에서 사용한다.
+     * row 를 변환하거나 목록을 수정하면 그때 목록을 복사한다.
+     */
+    synchronized RecordSet copy() {
+    	shared = true;
+    	return new RecordSet(data, index, count);
+    }
+
+
+    /**
+     * 컬럼 label 목록
+     */
+    static String[] readColumns(ResultSetMetaData meta) throws SQLException {
+    	String[] columns = new String[meta.getColumnCount()];
+    	for (int i = 0; i < columns.length; i++) {
+    		columns[i] = meta.getColumnLabel(i + 1);
+    	}
+    	return columns;
+    }
+
+    /**
+     * 컬럼별 값 읽기 함수
+     */
+    static ColumnReader[] readers(ResultSetMetaData meta) throws SQLException {
+    	ColumnReader[] readers = new ColumnReader[meta.getColumnCount()];
+    	for (int i = 0; i < readers.length; i++) {
+    		readers[i] = ColumnReader.of(meta.getColumnType(i + 1));
+    	}
+    	return readers;
+    }
+
+    /**
+     * 현재 row 의 컬럼 값을 읽는다. 읽기에 실패하면 null 을 반환한다.
+     * @param index 1 부터 시작
+     */
+    static Object read(ColumnReader reader, ResultSet rs, int index) {
+        try {
+            return reader.read(rs, index);
+        } catch (Exception e) {
+        	logger.warn("error : {}",CommonUtils.getExceptionMessage(e));
+            return null;
+        }
+    }
+
+
+    /**
+     * row 를 SharedMap 으로 변환하여 {@code Object[]} 대신 보관한다.
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized SharedMap<String, Object> materialize(int row) {
+    	Object value = data.get(row);
+    	if (value instanceof Object[] values) {
+    		SharedMap<String, Object> map = new RecordRow(index, values).toSharedMap();
+    		writable().set(row, map);
+    		return map;
+    	}
+    	return (SharedMap<String, Object>) value;
+    }
+
+    /**
+     * 수정할 row 목록, 다른 RecordSet 과 공유 중이면 복사한다.
+     */
+    private List<Object> writable() {
+    	if (shared) {
+    		data = new ArrayList<>(data);
+    		shared = false;
+    	}
+    	return data;
+    }
+
+    /**
+     * row 의 컬럼 값 배열, 변환된 row 는 SharedMap 에서 컬럼 순서대로 읽는다.
+     */
+    private Object[] values(Object row) {
+    	if (row instanceof Object[] values) {
+    		return values;
+    	}
+    	Map<?, ?> map = (Map<?, ?>) row;
+    	Object[] values = new Object[index.size()];
+    	for (int i = 0; i < values.length; i++) {
+    		values[i] = map.get(index.name(i));
+    	}
+    	return values;
+    }
+
+
     public boolean next() {
         int current = idx.get();
-        if (current + 1 < rows.size()) {
+        if (current + 1 < data.size()) {
             return idx.compareAndSet(current, current + 1);
         }
         return false;
@@ -161,8 +198,8 @@ public class RecordSet {
 
     public SharedMap<String, Object> getCurrent() {
         int current = idx.get();
-        if (current >= 0 && current < rows.size()) {
-            return rows.get(current);
+        if (current >= 0 && current < data.size()) {
+            return materialize(current);
         }
         return new SharedMap<>();
     }
@@ -174,54 +211,166 @@ public class RecordSet {
     public int getCurrentIndex() {
         return idx.get();
     }
-    
+
     public int size() {
-        return rows.size();
+        return data.size();
     }
 
     public boolean isEmpty() {
-        return rows.isEmpty();
+        return data.isEmpty();
     }
-    
-    public List<SharedMap<String, Object>> getRows() {
-        return rows;
+
+    /**
+     * SharedMap row 목록, 접근한 row 만 변환한다.
+     * 목록의 수정(추가, 삭제, 정렬)은 RecordSet 에 그대로 반영되어 {@link #getRow(int)}, {@link #next()} 등에서도 보인다.
+     */
+    public synchronized List<SharedMap<String, Object>> getRows() {
+    	if (rows == null) {
+    		rows = new AbstractList<>() {
+    			@Override
+    			public SharedMap<String, Object> get(int i) {
+    				return materialize(i);
+    			}
+
+    			@Override
+    			public SharedMap<String, Object> set(int i, SharedMap<String, Object> map) {
+    				synchronized (RecordSet.this) {
+    					SharedMap<String, Object> old = materialize(i);
+    					writable().set(i, map);
+    					return old;
+    				}
+    			}
+
+    			@Override
+    			public void add(int i, SharedMap<String, Object> map) {
+    				synchronized (RecordSet.this) {
+    					writable().add(i, map);
+    					modCount++;
+    				}
+    			}
+
+    			@Override
+    			public SharedMap<String, Object> remove(int i) {
+    				synchronized (RecordSet.this) {
+    					SharedMap<String, Object> old = materialize(i);
+    					writable().remove(i);
+    					modCount++;
+    					return old;
+    				}
+    			}
+
+    			@Override
+    			public int size() {
+    				return data.size();
+    			}
+    		};
+    	}
+    	return rows;
     }
-    
-    
+
+    /**
+     * SharedMap row 의 읽기 전용 목록, 접근한 row 만 변환한다.
+     */
+    public List<SharedMap<String, Object>> rowsView() {
+        return Collections.unmodifiableList(getRows());
+    }
+
+
     public SharedMap<String, Object> getRow(int index) {
-        if (index >= 0 && index < rows.size()) {
-            return rows.get(index);
+        if (index >= 0 && index < data.size()) {
+            return materialize(index);
         }
         return null;
     }
-    
+
     public SharedMap<String, Object> getRowFirst() {
-        return rows.isEmpty() ? new SharedMap<>() : rows.get(0);
+        return data.isEmpty() ? new SharedMap<>() : materialize(0);
     }
-    
-    
+
+
     public SharedMap<String, Object> getRowLast() {
-        return rows.isEmpty() ? new SharedMap<>() : rows.get(rows.size() - 1);
+        return data.isEmpty() ? new SharedMap<>() : materialize(data.size() - 1);
     }
-    
-    
+
+
+    /**
+     * 읽기 전용 row view
+     * @return 범위를 벗어나면 null
+     */
+    public RecordRow getRecord(int row) {
+        if (row >= 0 && row < data.size()) {
+        	Object value = data.get(row);
+            return value == null ? null : new RecordRow(index, values(value));
+        }
+        return null;
+    }
+
+    /**
+     * 읽기 전용 row view 목록
+     */
+    public List<RecordRow> getRecords() {
+        return new AbstractList<>() {
+        	@Override
+        	public RecordRow get(int i) {
+        		Object value = data.get(i);
+        		return value == null ? null : new RecordRow(index, values(value));
+        	}
+
+        	@Override
+        	public int size() {
+        		return data.size();
+        	}
+        };
+    }
+
+    /**
+     * @param row 0 부터 시작
+     * @param column 0 부터 시작하는 컬럼 위치
+     */
+    public Object getValue(int row, int column) {
+    	Object value = data.get(row);
+    	return value instanceof Object[] values ? values[column] : ((Map<?, ?>) value).get(index.name(column));
+    }
+
+    /**
+     * @return 없으면 -1
+     */
+    public int getColumnIndex(String column) {
+    	return index.indexOf(column);
+    }
+
+
     public String[] getColumns() {
-    	return columns;
+    	return index.names();
     }
-    
+
     public List<String> getColumnList() {
-    	return Arrays.asList(columns);
+    	return Arrays.asList(index.names());
     }
-    
-    
+
+
     public void count(long count) {
     	this.count = count;
     }
-    
+
     public long count() {
     	return this.count;
     }
-    
-    
-    
+
+    /**
+     * keyset 페이징의 다음 페이지 token, {@link Retrieve#afterToken(String)} 에 전달한다.
+     */
+    public void continuation(String token) {
+    	this.continuation = token;
+    }
+
+    /**
+     * @return 마지막 페이지이거나 keyset 페이징이 아니면 null
+     */
+    public String continuation() {
+    	return this.continuation;
+    }
+
+
+
 }
@@ -0,0 +1,321 @@
+package kr.tx24.lib.db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import kr.tx24.lib.lang.CommonUtils;
+import kr.tx24.lib.map.LinkedMap;
+import kr.tx24.lib.map.SharedMap;
+
+/**
+ * 읽기 전용 replica 커넥션 풀
+ *
+ * <p>db.json 에 replicas 가 지정되면 replica 별로 Hikari pool 을 생성하고,
+ * {@link DBManager#getReadConnection()} 은 primary 대신 replica 커넥션을 반환한다.
+ * Retrieve 조회, DBManager.statementExecute / preparedStatementExecute 의 SELECT 가 replica 를 사용한다.
+ * replica 설정에 없는 항목(username, password, driver, max ...)은 primary 설정을 사용한다.</p>
+ *
+ * <pre>
+ * "replicas"            : [ {"jdbcurl" : "jdbc:mariadb://10.0.0.2:3306", "max" : 20}, {"jdbcurl" : "jdbc:mariadb://10.0.0.3:3306"} ],
+ * "replicaPolicy"       : "roundRobin",  // roundRobin, leastBusy
+ * "replicaMaxLag"       : 5,             // 초, 초과하면 해당 replica 를 사용하지 않는다. 0 이면 검사하지 않는다.
+ * "replicaCheckInterval": 5000,          // replication lag 검사 주기(ms)
+ * "replicaStickyWindow" : 1000           // primary 로 쓰기 후 같은 thread 의 조회를 primary 로 보내는 시간(ms)
+ * </pre>
+ *
+ * <p>DBTrx 내부의 조회는 트랜잭션 커넥션(primary)을 사용한다. 사용 가능한 replica 가 없으면 primary 를 사용한다.</p>
+ */
+public final class ReplicaRouter {
+	private static Logger logger 	= LoggerFactory.getLogger(ReplicaRouter.class);
+
+	public enum Policy { ROUND_ROBIN, LEAST_BUSY }
+
+	public static final long DEFAULT_CHECK_INTERVAL	= 5000L;
+	public static final long DEFAULT_STICKY_WINDOW	= 1000L;
+
+	private static final ThreadLocal<long[]> lastWrite	= ThreadLocal.withInitial(() -> new long[1]);
+	private static final Set<Connection> leased			= ConcurrentHashMap.newKeySet();	//반환되지 않은 replica 커넥션
+	private static final Set<Connection> writers		= Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));	//반환되지 않은 쓰기용 primary 커넥션, close() 로 직접 닫은 커넥션은 GC 시 제거
+	private static final AtomicInteger cursor			= new AtomicInteger();
+	private static final LongAdder replicaReads			= new LongAdder();
+	private static final LongAdder primaryReads			= new LongAdder();
+	private static final LongAdder stickyReads			= new LongAdder();
+
+	private static volatile List<Replica> replicas		= List.of();
+	private static volatile Policy policy				= Policy.ROUND_ROBIN;
+	private static volatile long maxLag					= 0L;
+	private static volatile long stickyNanos			= TimeUnit.MILLISECONDS.toNanos(DEFAULT_STICKY_WINDOW);
+	private static ScheduledExecutorService checker		= null;
+
+	private ReplicaRouter() {
+	}
+
+
+	/**
+	 * db.json 의 replica 설정으로 pool 을 생성한다. 기존 replica pool 은 닫는다.
+	 * @param dbMap primary 설정
+	 */
+	static synchronized void init(SharedMap<String,Object> dbMap) {
+		shutdown();
+		if (!(dbMap.get("replicas") instanceof List<?> list) || list.isEmpty()) {
+			return;
+		}
+
+		policy		= "leastBusy".equalsIgnoreCase(dbMap.getString("replicaPolicy", "")) ? Policy.LEAST_BUSY : Policy.ROUND_ROBIN;
+		maxLag		= dbMap.getLong("replicaMaxLag", 0L);
+		stickyNanos	= TimeUnit.MILLISECONDS.toNanos(dbMap.getLong("replicaStickyWindow", DEFAULT_STICKY_WINDOW));
+
+		List<Replica> created = new ArrayList<Replica>();
+		for (Object item : list) {
+			if (!(item instanceof Map<?,?> replica)) {
+				continue;
+			}
+			SharedMap<String,Object> config = new SharedMap<String,Object>(dbMap);
+			config.remove("datasources");
+			replica.forEach((k, v) -> config.put(CommonUtils.toString(k), v));
+			DBManager.decryptPassword(config);
+			String name = config.getString("pool", "POOL") + "-replica-" + (created.size() + 1);
+			try {
+				HikariConfig hikari = DBManager.createConfig(config);
+				hikari.setPoolName(name);
+				hikari.setReadOnly(true);
+				created.add(new Replica(name, config.getString("jdbcurl"), new HikariDataSource(hikari)));
+			} catch (Exception e) {
+				logger.warn("replica pool {} not initialized : {}", name, CommonUtils.getExceptionMessage(e));
+			}
+		}
+		replicas = List.copyOf(created);
+		if (created.isEmpty()) {
+			return;
+		}
+
+		if (maxLag > 0) {
+			long interval = Math.max(dbMap.getLong("replicaCheckInterval", DEFAULT_CHECK_INTERVAL), 1000L);
+			checker = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "replica-lag-check");
+				t.setDaemon(true);
+				return t;
+			});
+			checker.scheduleWithFixedDelay(ReplicaRouter::check, 0, interval, TimeUnit.MILLISECONDS);
+		}
+		logger.info("replica pool : {}, policy : {}, maxLag : {}", created.size(), policy, maxLag);
+	}
+
+
+	public static boolean isEnabled() {
+		return !replicas.isEmpty();
+	}
+
+
+	/**
+	 * 사용 가능한 replica 커넥션, 없거나 sticky 구간이면 null 을 반환하여 primary 를 사용하게 한다.
+	 */
+	static Connection getConnection() {
+		List<Replica> list = replicas;
+		if (list.isEmpty()) {
+			return null;
+		}
+		if (isSticky()) {
+			stickyReads.increment();
+			return null;
+		}
+
+		int size = list.size();
+		int start = Math.floorMod(cursor.getAndIncrement(), size);
+		Replica selected = null;
+		for (int i = 0; i < size; i++) {
+			Replica r = list.get((start + i) % size);
+			if (!r.healthy) {
+				continue;
+			}
+			if (policy == Policy.ROUND_ROBIN) {
+				selected = r;
+				break;
+			}
+			if (selected == null || r.active() < selected.active()) {
+				selected = r;
+			}
+		}
+
+		if (selected != null) {
+			try {
+				Connection conn = selected.ds.getConnection();
+				leased.add(conn);
+				replicaReads.increment();
+				return conn;
+			} catch (SQLException e) {
+				selected.healthy = maxLag <= 0;		// lag 검사가 없으면 복구 확인을 할 수 없으므로 유지한다.
+				logger.warn("replica {} connection failed : {}", selected.name, CommonUtils.getExceptionMessage(e));
+			}
+		}
+		primaryReads.increment();
+		return null;
+	}
+
+
+	/**
+	 * {@link DBManager#getConnection()} 으로 빌려간 쓰기용 primary 커넥션을 기록한다.
+	 */
+	static void lease(Connection conn) {
+		if (!replicas.isEmpty()) {
+			writers.add(conn);
+		}
+	}
+
+	/**
+	 * 반환되는 커넥션이 쓰기용 primary 이면 현재 thread 의 sticky 구간을 반환 시점부터 시작한다.
+	 * 조회용으로 빌려간 primary 커넥션(replica 대신 사용, {@link Retrieve#primary()})은 sticky 구간을 갱신하지 않는다.
+	 */
+	static void release(Connection conn) {
+		if (replicas.isEmpty() || leased.remove(conn)) {
+			return;
+		}
+		if (writers.remove(conn)) {
+			lastWrite.get()[0] = System.nanoTime();
+		}
+	}
+
+	static boolean isSticky() {
+		long last = lastWrite.get()[0];
+		return last != 0 && System.nanoTime() - last < stickyNanos;
+	}
+
+
+	/**
+	 * replica 로 보낼 수 있는 조회문인지 확인한다. 잠금 조회(FOR UPDATE, LOCK IN SHARE MODE)는 primary 를 사용한다.
+	 */
+	static boolean isReadQuery(String query) {
+		if (query == null) {
+			return false;
+		}
+		String q = query.stripLeading();
+		if (!q.regionMatches(true, 0, "SELECT", 0, 6) && !q.regionMatches(true, 0, "WITH", 0, 4)) {
+			return false;
+		}
+		String upper = q.toUpperCase();
+		return !upper.contains("FOR UPDATE") && !upper.contains("LOCK IN SHARE MODE") && !upper.contains("FOR SHARE");
+	}
+
+
+	/**
+	 * replica 별 replication lag 을 확인한다. 조회할 수 없는 경우(권한, 미지원)는 사용 가능으로 본다.
+	 */
+	private static void check() {
+		for (Replica r : replicas) {
+			boolean healthy;
+			try (Connection conn = r.ds.getConnection()) {
+				long lag = lag(conn);
+				r.lag	= lag;
+				healthy	= lag >= 0 && lag <= maxLag;
+			} catch (SQLException e) {
+				r.lag	= -1;
+				healthy	= false;
+			}
+			if (healthy != r.healthy) {
+				logger.warn("replica {} {}, lag : {}", r.name, healthy ? "available" : "unavailable", r.lag);
+			}
+			r.healthy = healthy;
+		}
+	}
+
+	private static long lag(Connection conn) {
+		for (String query : new String[] {"SHOW REPLICA STATUS", "SHOW SLAVE STATUS"}) {
+			try (Statement stmt = conn.createStatement(); ResultSet rset = stmt.executeQuery(query)) {
+				if (!rset.next()) {
+					return 0;		// replication 설정이 없음
+				}
+				for (String column : new String[] {"Seconds_Behind_Source", "Seconds_Behind_Master"}) {
+					try {
+						long lag = rset.getLong(column);
+						return rset.wasNull() ? -1 : lag;		// replication 중지
+					} catch (SQLException e) {
+					}
+				}
+			} catch (SQLException e) {
+			}
+		}
+		return 0;
+	}
+
+
+	static synchronized void shutdown() {
+		if (checker != null) {
+			checker.shutdownNow();
+			checker = null;
+		}
+		List<Replica> list = replicas;
+		replicas = List.of();
+		leased.clear();
+		for (Replica r : list) {
+			try {
+				r.ds.close();
+			} catch (Exception e) {
+			}
+		}
+	}
+
+
+	public static LinkedMap<String, Object> getStats() {
+		LinkedMap<String, Object> map = new LinkedMap<String, Object>();
+		map.put("enabled"		, isEnabled());
+		map.put("policy"		, policy.name());
+		map.put("maxLag"		, maxLag);
+		map.put("stickyWindow"	, TimeUnit.NANOSECONDS.toMillis(stickyNanos));
+		map.put("replicaReads"	, replicaReads.sum());
+		map.put("primaryReads"	, primaryReads.sum());
+		map.put("stickyReads"	, stickyReads.sum());
+		List<LinkedMap<String, Object>> list = new ArrayList<LinkedMap<String, Object>>();
+		for (Replica r : replicas) {
+			LinkedMap<String, Object> m = new LinkedMap<String, Object>();
+			m.put("name"	, r.name);
+			m.put("jdbcurl"	, r.url);
+			m.put("healthy"	, r.healthy);
+			m.put("lag"		, r.lag);
+			m.put("active"	, r.active());
+			list.add(m);
+		}
+		map.put("replicas"		, list);
+		return map;
+	}
+
+
+	private static final class Replica {
+		private final String name;
+		private final String url;
+		private final HikariDataSource ds;
+		private volatile boolean healthy	= true;
+		private volatile long lag			= 0;
+
+		Replica(String name, String url, HikariDataSource ds) {
+			this.name	= name;
+			this.url	= url;
+			this.ds		= ds;
+		}
+
+		int active() {
+			HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+			return pool == null ? 0 : pool.getActiveConnections();
+		}
+	}
+}
@@ -0,0 +1,352 @@
+package kr.tx24.lib.db;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import kr.tx24.lib.lang.CommonUtils;
+import kr.tx24.lib.map.LinkedMap;
+import kr.tx24.lib.redis.RedisPubSub;
+
+/**
+ * Retrieve 조회 결과의 in-process cache
+ *
+ * <p>{@link Retrieve#cache()} 를 지정한 조회만 사용하며, key 는 바인딩 쿼리와 바인딩 값이다.
+ * 결과는 조회한 테이블 이름(tag)과 함께 보관되고, Create / Update / Delete 로 테이블이 변경되면
+ * 해당 tag 의 결과는 더 이상 반환되지 않는다. tag 는 테이블 이름의 첫 단어를 소문자로 사용한다.
+ * tag 는 datasource 를 구분하지 않으므로 다른 datasource 의 같은 이름 테이블도 함께 무효화된다.</p>
+ *
+ * <pre>
+ * RecordSet rset = new Retrieve("CODE").where("grp", "BANK").cache().select();
+ * </pre>
+ *
+ * <p>무효화는 tag 별 version 을 증가시키는 방식으로 처리하므로 쓰기 비용은 일정하며,
+ * 무효화된 결과는 크기 제한 또는 TTL 에 의해 제거된다.
+ * {@link #broadcast(String)} 로 Redis 채널을 지정하면 다른 node 에도 무효화가 전달된다.
+ * 직접 쿼리(update(String) 등)로 변경한 경우는 {@link #invalidate(String...)} 를 호출해야 한다.</p>
+ *
+ * <p>db.json 설정 예.
+ * {@code "resultCache" : {"maxWeight" : 1000000, "ttl" : 60000, "channel" : "db:invalidate", "tables" : {"CODE" : 600000}}}
+ * maxWeight 는 보관할 전체 cell(row x column) 수, ttl 은 기본 유지 시간(ms)이다.</p>
+ */
+public final class ResultCache {
+	private static Logger logger 	= LoggerFactory.getLogger(ResultCache.class);
+
+	public static final long DEFAULT_MAX_WEIGHT		= 1_000_000L;
+	public static final long DEFAULT_TTL			= 60_000L;
+
+	private static final String NODE				= UUID.randomUUID().toString();
+	private static final String SEPARATOR			= "|";
+
+	private static final Map<String, AtomicLong> versions	= new ConcurrentHashMap<>();
+	private static final Map<String, Long> tableTtl			= new ConcurrentHashMap<>();
+	private static final LongAdder hits				= new LongAdder();
+	private static final LongAdder misses			= new LongAdder();
+	private static final LongAdder stale			= new LongAdder();
+	private static final LongAdder invalidations	= new LongAdder();
+
+	private static volatile Cache<Key, Entry> cache	= null;
+	private static volatile long maxWeight			= DEFAULT_MAX_WEIGHT;
+	private static volatile long defaultTtl			= DEFAULT_TTL;
+	private static volatile String channel			= null;
+	private static volatile RedisPubSub.Subscriber subscriber = null;
+
+	private ResultCache() {
+	}
+
+
+	/**
+	 * 크기 및 기본 TTL 을 지정한다. 보관된 결과는 모두 제거된다.
+	 * @param maxWeight 보관할 전체 cell(row x column) 수
+	 * @param ttlMillis 테이블별 TTL 이 없을 때 사용하는 유지 시간
+	 */
+	public static synchronized void configure(long maxWeight, long ttlMillis) {
+		ResultCache.maxWeight	= maxWeight > 0 ? maxWeight : DEFAULT_MAX_WEIGHT;
+		ResultCache.defaultTtl	= ttlMillis > 0 ? ttlMillis : DEFAULT_TTL;
+		if (cache != null) {
+			cache.invalidateAll();
+			cache = null;
+		}
+	}
+
+	/**
+	 * db.json 의 resultCache 설정을 적용한다.
+	 */
+	static void configure(Map<?, ?> config) {
+		configure(config.containsKey("maxWeight") ? CommonUtils.parseLong(config.get("maxWeight")) : DEFAULT_MAX_WEIGHT,
+				config.containsKey("ttl") ? CommonUtils.parseLong(config.get("ttl")) : DEFAULT_TTL);
+		if (config.get("tables") instanceof Map<?, ?> tables) {
+			tables.forEach((table, ttl) -> ttl(CommonUtils.toString(table), CommonUtils.parseLong(ttl)));
+		}
+		String name = CommonUtils.toString(config.get("channel"));
+		if (CommonUtils.isNotEmpty(name)) {
+			try {
+				broadcast(name);
+			} catch (Exception e) {
+				logger.warn("result cache broadcast disabled : {}", CommonUtils.getExceptionMessage(e));
+			}
+		}
+	}
+
+	/**
+	 * 테이블별 TTL, 여러 테이블을 조회한 결과는 가장 짧은 TTL 을 사용한다.
+	 * @param table
+	 * @param ttlMillis 0 이하이면 테이블별 설정을 제거한다.
+	 */
+	public static void ttl(String table, long ttlMillis) {
+		if (ttlMillis > 0) {
+			tableTtl.put(tag(table), ttlMillis);
+		} else {
+			tableTtl.remove(tag(table));
+		}
+	}
+
+
+	/**
+	 * Redis 채널로 무효화를 주고받는다. 같은 채널을 사용하는 모든 node 의 cache 가 함께 무효화된다.
+	 * @param channel
+	 */
+	public static synchronized void broadcast(String channel) {
+		if (subscriber != null) {
+			subscriber.close();
+			subscriber = null;
+		}
+		ResultCache.channel = null;
+		if (CommonUtils.isEmpty(channel)) {
+			return;
+		}
+		subscriber = RedisPubSub.subscribe(channel, ResultCache::receive);
+		ResultCache.channel = channel;
+		logger.info("result cache broadcast : {}", channel);
+	}
+
+	private static void receive(String message) {
+		int idx = message.indexOf(SEPARATOR);
+		if (idx < 0 || NODE.equals(message.substring(0, idx))) {
+			return;
+		}
+		for (String tag : message.substring(idx + 1).split(DBUtils.COMMA)) {
+			bump(tag);
+		}
+	}
+
+
+	/**
+	 * 테이블의 조회 결과를 무효화한다. broadcast 채널이 지정되어 있으면 다른 node 에도 전달한다.
+	 * @param tables
+	 */
+	public static void invalidate(String... tables) {
+		invalidate(Arrays.asList(tables));
+	}
+
+	static void invalidate(Collection<String> tables) {
+		if (tables == null || tables.isEmpty()) {
+			return;
+		}
+		StringBuilder message = new StringBuilder();
+		for (String table : tables) {
+			String tag = tag(table);
+			if (tag.isEmpty()) {
+				continue;
+			}
+			bump(tag);
+			message.append(message.length() == 0 ? "" : DBUtils.COMMA).append(tag);
+		}
+
+		String name = channel;
+		if (name != null && message.length() > 0) {
+			try {
+				RedisPubSub.async().publish(name, NODE + SEPARATOR + message);
+			} catch (Exception e) {
+				logger.warn("result cache broadcast failed : {}", CommonUtils.getExceptionMessage(e));
+			}
+		}
+	}
+
+	private static void bump(String tag) {
+		versions.computeIfAbsent(tag, k -> new AtomicLong()).incrementAndGet();
+		invalidations.increment();
+	}
+
+	/**
+	 * 보관된 결과를 모두 제거한다. (현재 node)
+	 */
+	public static void invalidateAll() {
+		Cache<Key, Entry> c = cache;
+		if (c != null) {
+			c.invalidateAll();
+		}
+	}
+
+
+	/**
+	 * 테이블 이름을 tag 로 변환한다. 별칭 및 ` 는 제거한다.
+	 */
+	static String tag(String table) {
+		if (table == null) {
+			return "";
+		}
+		String t = table.trim();
+		int idx = t.indexOf(' ');
+		if (idx > 0) {
+			t = t.substring(0, idx);
+		}
+		return t.replace("`", "").toLowerCase();
+	}
+
+	private static long version(String tag) {
+		AtomicLong v = versions.get(tag);
+		return v == null ? 0L : v.get();
+	}
+
+
+	/**
+	 * cache 된 결과를 반환하고, 없거나 무효화되었으면 loader 로 조회하여 보관한다.
+	 * @param tags 조회 대상 테이블
+	 * @param datasource datasource 이름, 기본 datasource 는 null
+	 * @param ttlMillis 0 이하이면 테이블별 TTL 또는 기본 TTL
+	 */
+	static RecordSet get(List<String> tags, String datasource, String query, List<Object> values, long ttlMillis, Supplier<RecordSet> loader) {
+		Cache<Key, Entry> c = cache();
+		Key key = new Key(datasource, query, values);
+
+		Entry entry = c.getIfPresent(key);
+		if (entry != null) {
+			if (entry.isValid()) {
+				hits.increment();
+				return entry.records.copy();
+			}
+			c.asMap().remove(key, entry);
+			stale.increment();
+		}
+		misses.increment();
+
+		String[] tagArray	= tags.toArray(new String[0]);
+		long[] snapshot		= new long[tagArray.length];
+		for (int i = 0; i < tagArray.length; i++) {
+			snapshot[i] = version(tagArray[i]);
+		}
+
+		RecordSet records = loader.get();
+		if (records != null) {
+			c.put(key, new Entry(records, tagArray, snapshot, ttl(tagArray, ttlMillis)));
+			return records.copy();
+		}
+		return null;
+	}
+
+	private static long ttl(String[] tags, long ttlMillis) {
+		long ttl = ttlMillis;
+		if (ttl <= 0) {
+			for (String tag : tags) {
+				Long t = tableTtl.get(tag);
+				if (t != null && (ttl <= 0 || t < ttl)) {
+					ttl = t;
+				}
+			}
+		}
+		return TimeUnit.MILLISECONDS.toNanos(ttl > 0 ? ttl : defaultTtl);
+	}
+
+	private static Cache<Key, Entry> cache() {
+		Cache<Key, Entry> c = cache;
+		if (c == null) {
+			synchronized (ResultCache.class) {
+				c = cache;
+				if (c == null) {
+					c = Caffeine.newBuilder()
+							.maximumWeight(maxWeight)
+							.weigher((Key k, Entry e) -> e.weight)
+							.expireAfter(new Expiry<Key, Entry>() {
+								@Override
+								public long expireAfterCreate(Key k, Entry e, long currentTime) {
+									return e.ttlNanos;
+								}
+
+								@Override
+								public long expireAfterUpdate(Key k, Entry e, long currentTime, long currentDuration) {
+									return e.ttlNanos;
+								}
+
+								@Override
+								public long expireAfterRead(Key k, Entry e, long currentTime, long currentDuration) {
+									return currentDuration;
+								}
+							})
+							.build();
+					cache = c;
+				}
+			}
+		}
+		return c;
+	}
+
+
+	public static long getHitCount() {
+		return hits.sum();
+	}
+
+	public static long getMissCount() {
+		return misses.sum();
+	}
+
+	public static LinkedMap<String, Object> getStats() {
+		Cache<Key, Entry> c = cache;
+		long hit	= hits.sum();
+		long miss	= misses.sum();
+		LinkedMap<String, Object> map = new LinkedMap<String, Object>();
+		map.put("size"			, c == null ? 0 : c.estimatedSize());
+		map.put("maxWeight"		, maxWeight);
+		map.put("ttl"			, defaultTtl);
+		map.put("hits"			, hit);
+		map.put("misses"		, miss);
+		map.put("stale"			, stale.sum());
+		map.put("invalidations"	, invalidations.sum());
+		map.put("hitRatio"		, hit + miss == 0 ? 0.0 : (double) hit / (hit + miss));
+		map.put("channel"		, channel == null ? "" : channel);
+		return map;
+	}
+
+
+	private record Key(String datasource, String query, List<Object> values) {
+	}
+
+	private static final class Entry {
+		private final RecordSet records;
+		private final String[] tags;
+		private final long[] versions;
+		private final long ttlNanos;
+		private final int weight;
+
+		Entry(RecordSet records, String[] tags, long[] versions, long ttlNanos) {
+			this.records	= records;
+			this.tags		= tags;
+			this.versions	= versions;
+			this.ttlNanos	= ttlNanos;
+			this.weight		= (int) Math.min(Integer.MAX_VALUE, Math.max(1L, (long) records.size() * Math.max(1, records.getColumns().length)));
+		}
+
+		boolean isValid() {
+			for (int i = 0; i < tags.length; i++) {
+				if (version(tags[i]) != versions[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
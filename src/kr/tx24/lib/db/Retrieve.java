@@ -3,17 +3,31 @@ package kr.tx24.lib.db;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import kr.tx24.lib.lang.CommonUtils;
 import kr.tx24.lib.lang.SystemUtils;
+import kr.tx24.lib.map.SharedMap;
 
 /**
- * 
+ * SELECT 질의 builder
+ * where(column, value ...) 로 추가한 조건은 값이 ? 로 바인딩되어 select(), count(), cursor() 등에서 PreparedStatement 로 실행된다.
+ * build() 는 기존과 같이 값이 포함된 쿼리를 반환한다. (로그 및 직접 실행 용도)
  */
 public class Retrieve {
 	private static Logger logger 	= LoggerFactory.getLogger(Retrieve.class);
@@ -31,18 +45,36 @@ public class Retrieve {
 	private static final String ASC					= " ASC";
 	private static final String DESC				= " DESC";
 	private static final String ASTERISK			= " * ";
+	private static final String NULL_AS				= "NULL AS ";
+	private static final long TABLE_COLUMNS_TTL		= 60 * 1000L;
+	private static final int MAX_TABLE_COLUMNS		= 256;
+	private static final Map<String, TableColumns> tableColumns = new ConcurrentHashMap<>();	//lazy/exclude 의 * 확장 용 datasource|table 별 컬럼 목록
 	
-	private StringBuilder where		= new StringBuilder();
+	private WhereClause where		= new WhereClause();
+	private List<Object> values		= new BindValues();
 	private boolean deepview		= false;
 	private String columns			= "";
 	private String table			= "";
-	private StringBuilder join 		= new StringBuilder();
+	private String datasource		= null;
+	private List<String> join		= new ArrayList<>();	//JOIN 절을 이루는 문자열, 이어 붙이면 JOIN 절이 된다.
 	private String orderBy			= "";
 	private String groupBy			= "";
 	private String having			= "";
 	
 	private long offset				= 0;
 	private long length				= 0;
+	private int fetchSize			= RecordCursor.DEFAULT_FETCH_SIZE;
+	private long cacheTtl			= -1;
+	private List<String> tags		= new ArrayList<>();
+	private boolean primary			= false;
+	private String[] seekKeys		= null;
+	private boolean seekDesc		= false;
+	private Object[] seekValues		= null;
+	private long countTtl			= -1;
+	private boolean countEstimate	= false;
+	private String lobKey			= null;
+	private List<String> lazyColumns	= new ArrayList<>();
+	private List<String> excludes	= new ArrayList<>();
 			
 	
 	
@@ -80,6 +112,21 @@ public class Retrieve {
 		return this;
 	}
 	
+	/**
+	 * db.json 의 datasources 에 지정된 datasource 를 사용한다. 지정하지 않으면 기본 datasource 를 사용한다.
+	 * init() 으로 초기화되지 않는다.
+	 * @param name
+	 * @return
+	 */
+	public Retrieve datasource(String name) {
+		this.datasource = name;
+		return this;
+	}
+	
+	public String getDatasource() {
+		return datasource;
+	}
+	
 	
 	/*
 	 * debug, columns, table, join, orderBy, groupBy, having, where, offset, length 등의 값이 초기화된다.
@@ -88,13 +135,26 @@ public class Retrieve {
 		deepview= SystemUtils.deepview();
 		columns = "";
 		table 	= "";
-		join.setLength(0);
+		join.clear();
 		orderBy = "";
 		groupBy = "";
 		having 	= "";
-		where.setLength(0);
+		where.clear();
+		values.clear();
 		offset	= 0;
 		length	= 0;
+		fetchSize = RecordCursor.DEFAULT_FETCH_SIZE;
+		cacheTtl = -1;
+		tags.clear();
+		primary = false;
+		seekKeys = null;
+		seekDesc = false;
+		seekValues = null;
+		countTtl = -1;
+		countEstimate = false;
+		lobKey = null;
+		lazyColumns.clear();
+		excludes.clear();
 		return this;
 	}
 	
@@ -136,6 +196,33 @@ public class Retrieve {
 	}
 	
 	
+	/**
+	 * BLOB/CLOB 등 큰 컬럼을 결과에 적재하지 않고 {@link LazyLob} handle 로 반환한다.
+	 * SELECT 문에서는 해당 컬럼을 NULL AS column 으로 바꾸어 값을 전송하지 않으며,
+	 * handle 을 사용할 때 key 컬럼 값으로 해당 row 의 값만 조회한다. (값이 NULL 인 row 도 handle 이 반환된다.)
+	 * key 컬럼이 columns 에 없으면 추가하고, columns 가 * 이거나 지정되지 않으면 테이블 컬럼 목록으로 확장한다.
+	 * 기준 테이블의 컬럼만 지정할 수 있으며 select(), selectWithCount() 에 적용된다. (cursor(), select(Class) 에서는 null)
+	 * @param key primary key 등 row 를 식별하는 컬럼
+	 * @param columns
+	 * @return
+	 */
+	public Retrieve lazy(String key, String... columns) {
+		this.lobKey = key;
+		this.lazyColumns.addAll(Arrays.asList(columns));
+		return this;
+	}
+	
+	/**
+	 * 조회 결과에서 제외할 컬럼을 지정한다. columns 가 * 이거나 지정되지 않으면 테이블 컬럼 목록으로 확장한다.
+	 * @param columns
+	 * @return
+	 */
+	public Retrieve exclude(String... columns) {
+		this.excludes.addAll(Arrays.asList(columns));
+		return this;
+	}
+	
+	
 	/**
 	 * 정렬 순서를 지정한다.
 	 * 자동으로 ORDER_BY 가 삽입되므로 컬럼 및 순서만 정의한다.
@@ -244,6 +331,71 @@ public class Retrieve {
 		return this;
 	}
 	
+	/**
+	 * cursor(), stream(), forEach() 에서 한 번에 서버에서 받아올 row 수를 지정한다.
+	 * 기본값은 {@link RecordCursor#DEFAULT_FETCH_SIZE}
+	 * @param fetchSize
+	 * @return
+	 */
+	public Retrieve fetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+		return this;
+	}
+	
+	/**
+	 * select() 결과를 {@link ResultCache} 에 보관하고 같은 조회는 보관된 결과를 반환한다.
+	 * 유지 시간은 테이블별 TTL 또는 기본 TTL 을 사용한다.
+	 * @return
+	 */
+	public Retrieve cache() {
+		this.cacheTtl = 0;
+		return this;
+	}
+	
+	/**
+	 * select() 결과를 지정된 시간 동안 {@link ResultCache} 에 보관한다.
+	 * @param ttlMillis
+	 * @return
+	 */
+	public Retrieve cache(long ttlMillis) {
+		this.cacheTtl = Math.max(ttlMillis, 0);
+		return this;
+	}
+	
+	/**
+	 * cache 무효화 대상 테이블을 추가한다.
+	 * table() 및 joinInner/joinLeftOuter/joinRightOuter 의 테이블은 자동으로 포함되며,
+	 * join(String) 또는 서브쿼리로 참조하는 테이블은 직접 지정한다.
+	 * @param tables
+	 * @return
+	 */
+	public Retrieve tag(String... tables) {
+		for(String table : tables) {
+			this.tags.add(ResultCache.tag(table));
+		}
+		return this;
+	}
+	
+	/**
+	 * replica 가 지정되어 있어도 primary 에서 조회한다.
+	 * 방금 변경한 데이터를 다른 thread 에서 읽는 경우 등 replication 지연을 허용할 수 없을 때 사용한다.
+	 * @return
+	 */
+	public Retrieve primary() {
+		this.primary = true;
+		return this;
+	}
+	
+	private Connection connection(DBManager db, String query) throws DBException {
+		return primary ? db.getPrimaryConnection() : db.getReadConnection(query);
+	}
+	
+	private List<String> cacheTags() {
+		List<String> list = new ArrayList<>(tags);
+		list.add(ResultCache.tag(table));
+		return list;
+	}
+	
 	/**
 	 * 페이징 처리를 위한 현재 페이지 및 가져올 ROW 갯수 지정.
 	 * LIMIT 를 활용한 페이징 처리시 사용한다.
@@ -258,6 +410,108 @@ public class Retrieve {
 		return this;
 	}
 	
+	/**
+	 * keyset(seek) 페이징의 정렬 key 를 지정한다. ORDER BY 는 key 컬럼 순서(ASC)로 대체된다.
+	 * key 는 NULL 이 없는 unique 컬럼 또는 컬럼 조합이어야 하며 조회 컬럼에 포함되어야 한다.
+	 * OFFSET 대신 마지막 row 의 key 다음부터 조회하므로 페이지 위치와 관계없이 같은 비용으로 조회된다.
+	 * <pre>
+	 * RecordSet page = new Retrieve("HISTORY").where("mid", mid).keyset("reg_date", "id").afterToken(token).limit(100).select();
+	 * String next = page.continuation();	// 마지막 페이지이면 null
+	 * </pre>
+	 * @param columns
+	 * @return
+	 */
+	public Retrieve keyset(String... columns) {
+		return keyset(false, columns);
+	}
+	
+	/**
+	 * keyset(seek) 페이징의 정렬 key 를 지정한다. ORDER BY 는 key 컬럼 순서(DESC)로 대체된다.
+	 * @param columns
+	 * @return
+	 */
+	public Retrieve keysetDesc(String... columns) {
+		return keyset(true, columns);
+	}
+	
+	private Retrieve keyset(boolean desc, String... columns) {
+		if(columns == null || columns.length == 0) {
+			throw new IllegalArgumentException("keyset columns required");
+		}
+		this.seekKeys	= columns.clone();
+		this.seekDesc	= desc;
+		this.seekValues	= null;
+		StringBuilder sb = new StringBuilder();
+		for(String column : columns) {
+			sb.append(sb.length() == 0 ? "" : DBUtils.COMMA).append(column).append(desc ? DESC : ASC);
+		}
+		this.orderBy = sb.toString();
+		return this;
+	}
+	
+	/**
+	 * 이전 페이지 마지막 row 의 key 값 다음부터 조회한다. keyset() 의 컬럼 순서와 같아야 한다.
+	 * 값이 없으면 첫 페이지를 조회한다.
+	 * @param lastKeyValues
+	 * @return
+	 */
+	public Retrieve after(Object... lastKeyValues) {
+		if(seekKeys == null) {
+			throw new IllegalStateException("keyset() must be specified before after()");
+		}
+		if(lastKeyValues == null || lastKeyValues.length == 0) {
+			this.seekValues = null;
+			return this;
+		}
+		if(lastKeyValues.length != seekKeys.length) {
+			throw new IllegalArgumentException("keyset has "+seekKeys.length+" columns but "+lastKeyValues.length+" values");
+		}
+		for(Object value : lastKeyValues) {
+			if(value == null) {
+				throw new IllegalArgumentException("keyset value must not be null");
+			}
+		}
+		this.seekValues = lastKeyValues.clone();
+		return this;
+	}
+	
+	/**
+	 * 이전 페이지 RecordSet.continuation() 의 token 다음부터 조회한다. token 이 비어 있으면 첫 페이지를 조회한다.
+	 * @param token
+	 * @return
+	 * @throws IllegalArgumentException 다른 keyset 의 token 이거나 형식이 잘못된 경우
+	 */
+	public Retrieve afterToken(String token) {
+		if(seekKeys == null) {
+			throw new IllegalStateException("keyset() must be specified before afterToken()");
+		}
+		this.seekValues = CommonUtils.isBlank(token) ? null : SeekToken.decode(seekKeys, seekDesc, token);
+		return this;
+	}
+	
+	/**
+	 * count() 및 selectWithCount() 의 COUNT(*) 결과를 {@link ResultCache} 에 보관한다.
+	 * 테이블이 변경되면 무효화되며, 페이지마다 전체 COUNT(*) 를 실행하지 않도록 할 때 사용한다.
+	 * @param ttlMillis 0 이면 테이블별 TTL 또는 기본 TTL
+	 * @return
+	 */
+	public Retrieve cacheCount(long ttlMillis) {
+		this.countTtl = Math.max(ttlMillis, 0);
+		return this;
+	}
+	
+	/**
+	 * count() 및 selectWithCount() 에서 COUNT(*) 대신 실행계획(EXPLAIN)의 예상 row 수를 사용한다.
+	 * 테이블 통계와 조건별 선택도(filtered)로 계산한 근사값이므로 실제 row 수와 다를 수 있으며, 페이지 수 표시 등에만 사용한다.
+	 * join 이 있으면 테이블별 예상 row 수의 곱이므로 오차가 더 커진다.
+	 * groupBy 또는 having 이 지정되었거나 추정할 수 없으면 COUNT(*) 를 실행한다.
+	 * @return
+	 */
+	public Retrieve estimateCount() {
+		this.countEstimate = true;
+		return this;
+	}
+	
 	
 	/**
 	 * INNER JOIN 을 지정한다. 
@@ -269,7 +523,8 @@ public class Retrieve {
 	 * @return
 	 */
 	public Retrieve joinInner(String tableB,String on) {
-		this.join.append(DBUtils.SPACE + INNER_JOIN + tableB + ON + on);
+		Collections.addAll(this.join, DBUtils.SPACE + INNER_JOIN, tableB, ON, on);
+		this.tags.add(ResultCache.tag(tableB));
 		return this;
 	}
 	
@@ -283,7 +538,8 @@ public class Retrieve {
 	 * @return
 	 */
 	public Retrieve joinLeftOuter(String tableB,String on) {
-		this.join.append(DBUtils.SPACE + LEFT_OUTER_JOIN + tableB + ON + on);
+		Collections.addAll(this.join, DBUtils.SPACE + LEFT_OUTER_JOIN, tableB, ON, on);
+		this.tags.add(ResultCache.tag(tableB));
 		return this;
 	}
 	
@@ -297,7 +553,8 @@ public class Retrieve {
 	 * @return
 	 */
 	public Retrieve joinRightOuter(String tableB,String on) {
-		this.join.append(DBUtils.SPACE + RIGHT_OUTER_JOIN + tableB + ON + on);
+		Collections.addAll(this.join, DBUtils.SPACE + RIGHT_OUTER_JOIN, tableB, ON, on);
+		this.tags.add(ResultCache.tag(tableB));
 		return this;
 	}
 	
@@ -309,27 +566,82 @@ public class Retrieve {
 	 * @return
 	 */
 	public Retrieve join(String join) {
-		this.join.setLength(0);
-		this.join.append(join);
+		this.join.clear();
+		this.join.add(join);
 		return this;
 	}
 	
+	private String joinClause() {
+		return String.join("", join);
+	}
+	
 	
 	/**
 	 * SELECT ~ WHERE LIMIT 의 쿼리 반환
 	 * @return
 	 */
 	public String build() {
+		return build(false);
+	}
+	
+	/**
+	 * 조건 값 및 LIMIT 값이 ? 로 바인딩된 SELECT ~ WHERE LIMIT 의 쿼리 반환
+	 * 같은 구조의 쿼리는 {@link QueryCache} 에서 반환되며 바인딩 값은 {@link #getBindValues()} 로 확인한다.
+	 * @return
+	 */
+	public String buildBindQuery() {
+		//lazy/exclude 의 컬럼 목록은 테이블 컬럼 목록(*)에 따라 달라지므로 QueryCache 를 사용하지 않는다.
+		if(!QueryCache.isEnabled() || lobs()) {
+			return build(true);
+		}
+		QueryCache.Shape shape = new QueryCache.Shape(SELECT, columns, table, new ArrayList<>(join), where.shape(),
+				groupBy, having, orderBy, offset > 0, length > 0, seekValues == null ? "" : orderBy);
+		return QueryCache.get(shape, () -> build(true));
+	}
+	
+	/**
+	 * {@link #buildBindQuery()} 의 ? 순서에 맞는 바인딩 값, 조건 값 다음에 LIMIT 값이 위치한다.
+	 * @return
+	 */
+	public List<Object> getBindValues() {
+		List<Object> list = new BindValues(0, values.size() + 2);
+		list.addAll(values);
+		if(seekValues != null) {
+			if(seekKeys.length > 1) {
+				list.add(seekValues[0]);
+			}
+			for(int i = 0; i < seekKeys.length; i++) {
+				for(int j = 0; j <= i; j++) {
+					list.add(seekValues[j]);
+				}
+			}
+		}
+		if(length > 0) {
+			if(offset > 0) {
+				list.add(offset);
+			}
+			list.add(length);
+		}
+		return list;
+	}
+	
+	private String build(boolean bind) {
 		if(CommonUtils.isBlank(columns)) {
 			columns = ASTERISK;
 		}
 		StringBuilder sql 	= new StringBuilder();
 		
 		sql.append(SELECT)
-			.append(columns).append(FROM).append(this.table).append(DBUtils.SPACE).append(this.join);
-		sql.append(buildCondition());
+			.append(selectColumns()).append(FROM).append(this.table).append(DBUtils.SPACE).append(joinClause());
+		sql.append(buildCondition(bind, true));
 		if(length > 0) {
-			if(offset > 0) {
+			if(bind) {
+				sql.append(LIMIT);
+				if(offset > 0) {
+					sql.append(DBUtils.QUESTION_MARK).append(DBUtils.COMMA);
+				}
+				sql.append(DBUtils.QUESTION_MARK);
+			}else if(offset > 0) {
 				sql.append(LIMIT).append(offset).append(DBUtils.COMMA).append(this.length);
 			}else {
 				sql.append(LIMIT).append(this.length);
@@ -341,18 +653,104 @@ public class Retrieve {
 	
 	/**
 	 * LIMIT 를 제외한 WHERE 조건절 반환
+	 * @param page false 이면 keyset 조건 및 ORDER BY 를 제외한다. (COUNT)
 	 * @return
 	 */
-	private StringBuilder buildCondition() {
+	private StringBuilder buildCondition(boolean bind, boolean page) {
+		String condition = bind ? this.where.bound() : this.where.literal();
+		String seek = page ? buildSeek(bind) : "";
 		StringBuilder sql = new StringBuilder();
-		if(this.where.length() > 0){ sql.append(DBUtils.WHERE).append(this.where);}
+		if(condition.length() > 0 && seek.length() > 0) {
+			sql.append(DBUtils.WHERE).append("(").append(condition).append(")").append(DBUtils.AND).append(seek);
+		}else if(condition.length() > 0){ sql.append(DBUtils.WHERE).append(condition);
+		}else if(seek.length() > 0){ sql.append(DBUtils.WHERE).append(seek);}
 		if(this.groupBy.length() > 0){ sql.append(GROUP_BY).append(this.groupBy);}
 		if(this.having.length() > 0){ sql.append(HAVING).append(this.having);}
-		if(this.orderBy.length() > 0){ sql.append(ORDER_BY).append(this.orderBy);}
+		if(page && this.orderBy.length() > 0){ sql.append(ORDER_BY).append(this.orderBy);}
 		
 		return sql;
 	}
 	
+	/**
+	 * keyset 조건, (a,b) > (?,?) 를 index 범위 조회가 가능하도록 a >= ? AND (a > ? OR (a = ? AND b > ?)) 로 전개한다.
+	 * 바인딩 값의 순서는 getBindValues() 와 같다.
+	 */
+	private String buildSeek(boolean bind) {
+		if(seekValues == null) {
+			return "";
+		}
+		String operator = seekDesc ? DBUtils.lt : DBUtils.gt;
+		StringBuilder sb = new StringBuilder("(");
+		if(seekKeys.length > 1) {
+			sb.append(compare(0, seekDesc ? DBUtils.le : DBUtils.ge, bind)).append(DBUtils.AND).append("(");
+		}
+		for(int i = 0; i < seekKeys.length; i++) {
+			if(i > 0) {
+				sb.append(DBUtils.OR).append("(");
+			}
+			for(int j = 0; j < i; j++) {
+				sb.append(compare(j, DBUtils.eq, bind)).append(DBUtils.AND);
+			}
+			sb.append(compare(i, operator, bind));
+			if(i > 0) {
+				sb.append(")");
+			}
+		}
+		if(seekKeys.length > 1) {
+			sb.append(")");
+		}
+		return sb.append(")").toString();
+	}
+	
+	private String compare(int i, String operator, boolean bind) {
+		if(!bind) {
+			return DBUtils.where(seekKeys[i], seekValues[i], operator, DBUtils.AND);
+		}
+		String symbol = switch(operator) {
+			case DBUtils.gt -> " > ";
+			case DBUtils.ge -> " >= ";
+			case DBUtils.lt -> " < ";
+			case DBUtils.le -> " <= ";
+			default -> " = ";
+		};
+		return seekKeys[i] + symbol + DBUtils.QUESTION_MARK;
+	}
+	
+	/**
+	 * keyset 페이징이고 LIMIT 만큼 조회되었으면 마지막 row 의 key 로 다음 페이지 token 을 지정한다.
+	 */
+	private RecordSet continuation(RecordSet rset) {
+		if(rset == null || seekKeys == null || length <= 0 || rset.size() < length) {
+			return rset;
+		}
+		int last = rset.size() - 1;
+		Object[] keys = new Object[seekKeys.length];
+		for(int i = 0; i < seekKeys.length; i++) {
+			int column = seekColumn(rset, seekKeys[i]);
+			if(column < 0) {
+				logger.warn("keyset column not selected : {}", seekKeys[i]);
+				return rset;
+			}
+			keys[i] = rset.getValue(last, column);
+		}
+		rset.continuation(SeekToken.encode(seekKeys, seekDesc, keys));
+		return rset;
+	}
+	
+	private static int seekColumn(RecordSet rset, String key) {
+		String name = key.substring(key.lastIndexOf('.') + 1).replace("`", "").trim();
+		int column = rset.getColumnIndex(name);
+		if(column < 0) {
+			String[] columns = rset.getColumns();
+			for(int i = 0; i < columns.length; i++) {
+				if(columns[i].equalsIgnoreCase(name)) {
+					return i;
+				}
+			}
+		}
+		return column;
+	}
+	
 	
 	/**
 	 * LIMIT 를 제외한 WHERE 조건절 반환
@@ -360,7 +758,7 @@ public class Retrieve {
 	 */
 	public StringBuilder buildWhere() {
 		StringBuilder sql = new StringBuilder();
-		if(this.where.length() > 0){ sql.append(this.where);}
+		if(!this.where.isEmpty()){ sql.append(this.where.literal());}
 		if(this.groupBy.length() > 0){ sql.append(GROUP_BY).append(this.groupBy);}
 		if(this.having.length() > 0){ sql.append(HAVING).append(this.having);}
 		if(this.orderBy.length() > 0){ sql.append(ORDER_BY).append(this.orderBy);}
@@ -375,16 +773,17 @@ public class Retrieve {
 	 */
 	public long count() {
 		
-		StringBuilder sql 	= new StringBuilder();
-		sql.append(SELECT).append(COUNT).append(FROM).append(this.table).append(this.join);
-		sql.append(buildCondition());
-		
-		if(this.groupBy.length() > 1) {
-			sql.insert(0, SELECT + COUNT + FROM +"(");
-			sql.append(") GROUPSUM");
+		if(countEstimate && this.groupBy.length() == 0 && this.having.length() == 0) {
+			long rows = estimate();
+			if(rows >= 0) {
+				return rows;
+			}
 		}
 		
-		RecordSet rset = select(sql.toString());
+		String sql = buildCountQuery();
+		List<Object> binds = new BindValues(values);
+		RecordSet rset = countTtl < 0 ? execute(sql, binds)
+				: ResultCache.get(cacheTags(), datasource, sql, binds, countTtl, () -> execute(sql, binds));
 		if(rset == null || !rset.next()) {
 			return 0;
 		} else {
@@ -392,6 +791,61 @@ public class Retrieve {
 		}
 	}
 	
+	private String buildCountQuery() {
+		StringBuilder sql 	= new StringBuilder();
+		sql.append(SELECT).append(COUNT).append(FROM).append(this.table).append(joinClause());
+		sql.append(buildCondition(true, false));
+		
+		if(this.groupBy.length() > 1) {
+			sql.insert(0, SELECT + COUNT + FROM +"(");
+			sql.append(") GROUPSUM");
+		}
+		return sql.toString();
+	}
+	
+	/**
+	 * EXPLAIN 의 예상 row 수, 추정할 수 없으면 -1
+	 * 최상위 SELECT(첫 번째 row 의 id)에 속한 테이블별 rows * filtered / 100 의 곱이다.
+	 * filtered 컬럼이 없는 실행계획(MariaDB 의 EXPLAIN 등)은 100 으로 계산한다.
+	 */
+	private long estimate() {
+		StringBuilder sql = new StringBuilder("EXPLAIN");
+		sql.append(SELECT).append("1").append(FROM).append(this.table).append(DBUtils.SPACE).append(joinClause());
+		if(!this.where.isEmpty()) {
+			sql.append(DBUtils.WHERE).append(this.where.bound());
+		}
+		RecordSet rset = execute(sql.toString(), values);
+		if(rset == null || rset.size() == 0) {
+			return -1;
+		}
+		int rowsColumn		= seekColumn(rset, "rows");
+		int filteredColumn	= seekColumn(rset, "filtered");
+		int idColumn		= seekColumn(rset, "id");
+		if(rowsColumn < 0) {
+			return -1;
+		}
+		Object id = idColumn < 0 ? null : rset.getValue(0, idColumn);
+		double estimate = 1;
+		for(int i = 0; i < rset.size(); i++) {
+			if(idColumn >= 0 && !CommonUtils.equals(id, rset.getValue(i, idColumn))) {
+				continue;
+			}
+			String rows = CommonUtils.toString(rset.getValue(i, rowsColumn));
+			if(CommonUtils.isBlank(rows)) {
+				return -1;
+			}
+			double filtered = 100;
+			if(filteredColumn >= 0) {
+				String value = CommonUtils.toString(rset.getValue(i, filteredColumn));
+				if(!CommonUtils.isBlank(value)) {
+					filtered = CommonUtils.parseDouble(value);
+				}
+			}
+			estimate *= CommonUtils.parseLong(rows) * filtered / 100;
+		}
+		return Math.round(estimate);
+	}
+	
 	
 	/**
 	 * 설정된 값으로 SELECT 문을 실행한다.
@@ -399,7 +853,7 @@ public class Retrieve {
 	 * @return
 	 */
 	public RecordSet select() {
-		RecordSet rset =  select(build());
+		RecordSet rset =  query();
 		init();
 		return rset;
 	}
@@ -413,18 +867,29 @@ public class Retrieve {
 	 * COUNT(*) 로 조회된 전체 ROW 수는 RecordSet 의 getCount() 로 확인할 수 있다.
 	 * 단, SELECT COLUMNS FROM 이 정상 동작하지 않는 경우 RecordSet 에서 NULL Point  오류가 발생할 수 있따.
 	 * 실행 후 최종 init() 이 호출된다.
+	 * cacheCount() 또는 estimateCount() 가 지정되면 보관된 COUNT 또는 예상 row 수를 사용한다.
 	 * @return
 	 */
 	public RecordSet selectWithCount() {
 		
+		if(countTtl >= 0 || countEstimate) {
+			long total = count();
+			RecordSet records = query();
+			if(records != null) {
+				records.count(total);
+			}
+			init();
+			return records;
+		}
+		
 		StringBuilder countBuf 	= new StringBuilder();
-		countBuf.append(SELECT).append(COUNT).append(FROM).append(this.table).append(this.join);
-		countBuf.append(buildCondition());
+		countBuf.append(SELECT).append(COUNT).append(FROM).append(this.table).append(joinClause());
+		countBuf.append(buildCondition(true, false));
 		
-		String query 			= build();
+		String query 			= buildBindQuery();
 		
 		DBManager db 			= null;
-		Statement stmt 			= null;
+		PreparedStatement pstmt = null;
 		Connection 	conn		= null;
 		ResultSet rset			= null;
 		RecordSet records		= null;
@@ -433,35 +898,39 @@ public class Retrieve {
 		
 		long startTime = System.nanoTime();
 		try {
-			db			= DBFactory.get();
-			conn		= db.getConnection();
-			stmt		= conn.createStatement();
+			db			= DBFactory.get(datasource);
+			conn		= connection(db, query);
 			//전체 Row 의 갯수를 SET 
 			if(this.groupBy.length() > 1) {
 				countBuf.insert(0, SELECT + COUNT + FROM +"(");
 				countBuf.append(") GROUPSUM");
 			}
-			stmt.executeQuery(countBuf.toString());
-			rset		= stmt.getResultSet();
+			pstmt		= conn.prepareStatement(countBuf.toString());
+			DBUtils.setValues(pstmt, values);
+			rset		= pstmt.executeQuery();
 			while(rset.next()) {
 				count = rset.getLong("CNT");
 			}
 			rset.close();
+			pstmt.close();
 			
 			//SELECT QUERY 
-			stmt.executeQuery(build());
-			rset		= stmt.getResultSet();
+			pstmt		= conn.prepareStatement(query);
+			DBUtils.setValues(pstmt, getBindValues());
+			rset		= pstmt.executeQuery();
 			if(rset != null) {
-				records = new RecordSet(rset);
+				records = continuation(new RecordSet(rset, lobReaders(rset)));
 				records.count(count);
 			}
 			
 			
 		}catch(Exception t){
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
-			db.close(conn, stmt, rset);
+			db.close(conn, pstmt, rset);
 			
+			SqlMetrics.record(query, startTime, records == null ? 0 : records.size(), this::getBindValues);
 			if(deepview) {
 				logger.info("query : {} = [{}]",count,countBuf.toString());
 				logger.info("query : {} = [{}]",result,query);
@@ -481,7 +950,7 @@ public class Retrieve {
 	 * @return
 	 */
 	public RecordSet selectNotInit() {
-		return select(build());
+		return query();
 	}
 	
 	
@@ -501,8 +970,8 @@ public class Retrieve {
 		
 		long startTime = System.nanoTime();
 		try {
-			db			= DBFactory.get();
-			conn		= db.getConnection();
+			db			= DBFactory.get(datasource);
+			conn		= connection(db, query);
 			stmt		= conn.createStatement();
 			stmt.executeQuery(query);
 			rset		= stmt.getResultSet();
@@ -511,10 +980,12 @@ public class Retrieve {
 			}
 			
 		}catch(Exception t){
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			db.close(conn, stmt, rset);
 			
+			SqlMetrics.record(query, startTime, records == null ? 0 : records.size(), null);
 			if(deepview) {
 				logger.info("query : {} = [{}]",query,records != null ? records.size():0);
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -533,8 +1004,52 @@ public class Retrieve {
 	 * @return
 	 */
 	public RecordSet select(String query,Collection<Object> values){
-		
-		
+		RecordSet records = execute(query, values);
+		init();
+		return records;
+	}
+	
+	/**
+	 * 설정된 값으로 SELECT 문을 실행하고 각 row 를 type 의 객체로 반환한다. 실행 후 init() 이 호출된다.
+	 * SharedMap 및 Jackson 변환 없이 {@link RowMapper} 로 ResultSet 의 컬럼을 필드 또는 record 생성자에 직접 읽는다.
+	 * cache() 와 keyset 의 다음 페이지 token 은 적용되지 않는다.
+	 * @param type POJO(인자 없는 생성자) 또는 record
+	 * @return 오류 시 null
+	 */
+	public <T> List<T> select(Class<T> type) {
+		List<T> list = execute(type, buildBindQuery(), getBindValues());
+		init();
+		return list;
+	}
+	
+	/**
+	 * Prepared형 쿼리를 실행하고 각 row 를 type 의 객체로 반환한다. 실행 후 init() 이 호출된다.
+	 * @return 오류 시 null
+	 */
+	public <T> List<T> select(Class<T> type,String query,Collection<Object> values) {
+		List<T> list = execute(type, query, values);
+		init();
+		return list;
+	}
+	
+	/**
+	 * 설정된 값으로 SELECT 문을 실행한다. cache() 가 지정되어 있으면 ResultCache 를 사용한다.
+	 */
+	private RecordSet query() {
+		String query		= buildBindQuery();
+		List<Object> binds	= getBindValues();
+		if(cacheTtl < 0) {
+			return continuation(execute(query, binds));
+		}
+		//lazy/exclude 는 같은 query 라도 결과 row 가 다르므로 cache key 를 구분한다.
+		String key			= lobs() ? query + " /* lob " + lobKey + lazyColumns + excludes + " */" : query;
+		return continuation(ResultCache.get(cacheTags(), datasource, key, binds, cacheTtl, () -> execute(query, binds)));
+	}
+	
+	/**
+	 * Prepared형 쿼리 실행, init() 을 호출하지 않는다.
+	 */
+	private RecordSet execute(String query,Collection<Object> values){
 		DBManager db 			= null;
 		PreparedStatement pstmt = null;
 		Connection 	conn		= null;
@@ -543,31 +1058,327 @@ public class Retrieve {
 		
 		long startTime = System.nanoTime();
 		try {
-			db			= DBFactory.get();
-			conn		= db.getConnection();
+			db			= DBFactory.get(datasource);
+			conn		= connection(db, query);
 			pstmt		= conn.prepareStatement(query);
 			DBUtils.setValues(pstmt, values);
 			rset		= pstmt.executeQuery();
 			if(rset != null) {
-				records = new RecordSet(rset);
+				records = new RecordSet(rset, lobReaders(rset));
 			}
 			
 		}catch(Exception t){
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			db.close(conn, pstmt, rset);
 			
+			SqlMetrics.record(query, startTime, records == null ? 0 : records.size(), values);
 			if(deepview) {
 				logger.info("query : {} = [{}]",query,records != null ? records.size():0);
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
 			}
 			
-			init();
-			
 		}
 		return records;
 	}
 	
+	private boolean lobs() {
+		return !lazyColumns.isEmpty() || !excludes.isEmpty();
+	}
+	
+	/**
+	 * lazy/exclude 가 지정된 경우 SELECT 컬럼 목록, 지정한 컬럼을 제외하고 lazy 컬럼은 NULL AS column 으로 바꾼다.
+	 * 컬럼 목록을 알 수 없는 경우(join 한 * 등) 그대로 반환하며 값은 읽지 않는다.
+	 */
+	private String selectColumns() {
+		if(!lobs()) {
+			return columns;
+		}
+		List<String> items = ASTERISK.trim().equals(columns.trim()) ? tableColumns() : splitColumns(columns);
+		if(items == null) {
+			return columns;
+		}
+		StringBuilder sb	= new StringBuilder();
+		boolean hasKey		= lobKey == null;
+		for(String item : items) {
+			String label = label(item);
+			if(find(excludes, label) != null) {
+				continue;
+			}
+			if(find(lazyColumns, label) != null) {
+				item = NULL_AS + label;
+			}else if(!hasKey && label.equalsIgnoreCase(label(lobKey))) {
+				hasKey = true;
+			}
+			if(sb.length() > 0) {
+				sb.append(DBUtils.COMMA);
+			}
+			sb.append(item.trim());
+		}
+		if(!hasKey) {
+			if(sb.length() > 0) {
+				sb.append(DBUtils.COMMA);
+			}
+			sb.append(lobKey);
+		}
+		return DBUtils.SPACE + sb + DBUtils.SPACE;
+	}
+	
+	/**
+	 * lazy/exclude 가 지정된 경우 컬럼별 읽기 함수, lazy 컬럼은 같은 row 의 key 값으로 {@link LazyLob} 을 만든다.
+	 */
+	private ColumnReader[] lobReaders(ResultSet rs) throws SQLException {
+		if(!lobs()) {
+			return null;
+		}
+		ResultSetMetaData meta	= rs.getMetaData();
+		String[] labels			= RecordSet.readColumns(meta);
+		ColumnReader[] readers	= RecordSet.readers(meta);
+		int keyIndex = -1;
+		if(lobKey != null) {
+			String keyLabel = label(lobKey);
+			for(int i = 0; i < labels.length; i++) {
+				if(labels[i].equalsIgnoreCase(keyLabel)) {
+					keyIndex = i + 1;
+					break;
+				}
+			}
+		}
+		String source	= datasource;
+		String from		= table;
+		String key		= lobKey;
+		boolean usePrimary = primary;
+		for(int i = 0; i < labels.length; i++) {
+			String lazy = find(lazyColumns, labels[i]);
+			if(find(excludes, labels[i]) != null) {
+				readers[i] = (r, n) -> null;
+			}else if(lazy != null && keyIndex < 0) {
+				logger.warn("lazy key column not selected : {}", lobKey);
+			}else if(lazy != null) {
+				int k = keyIndex;
+				readers[i] = (r, n) -> new LazyLob(source, from, lazy, key, r.getObject(k), usePrimary);
+			}
+		}
+		return readers;
+	}
+	
+	/**
+	 * * 를 확장할 테이블 컬럼 목록, 결과 없는 SELECT 의 metadata 로 읽어 {@link #TABLE_COLUMNS_TTL} 동안 보관한다.
+	 * join 이 지정되었거나 읽을 수 없으면 null
+	 */
+	private List<String> tableColumns() {
+		if(joinClause().length() > 0 || CommonUtils.isBlank(table)) {
+			return null;
+		}
+		String cacheKey = datasource + "|" + table.trim();
+		TableColumns cached = tableColumns.get(cacheKey);
+		long now = System.currentTimeMillis();
+		if(cached != null && now - cached.loaded() < TABLE_COLUMNS_TTL) {
+			return cached.names();
+		}
+		String query			= SELECT + ASTERISK + FROM + table + " WHERE 1 = 0";
+		DBManager db 			= null;
+		PreparedStatement pstmt = null;
+		Connection 	conn		= null;
+		ResultSet rset			= null;
+		try {
+			db			= DBFactory.get(datasource);
+			conn		= connection(db, query);
+			pstmt		= conn.prepareStatement(query);
+			rset		= pstmt.executeQuery();
+			List<String> names = List.of(RecordSet.readColumns(rset.getMetaData()));
+			if(tableColumns.size() >= MAX_TABLE_COLUMNS) {
+				tableColumns.clear();
+			}
+			tableColumns.put(cacheKey, new TableColumns(names, now));
+			return names;
+		}catch(Exception t){
+			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+			return null;
+		}finally {
+			if(db != null) {
+				db.close(conn, pstmt, rset);
+			}
+		}
+	}
+	
+	/**
+	 * 괄호 및 문자열 밖의 , 로 컬럼 목록을 나눈다.
+	 */
+	private static List<String> splitColumns(String columns) {
+		List<String> items = new ArrayList<>();
+		int depth = 0;
+		boolean quoted = false;
+		int start = 0;
+		for(int i = 0; i < columns.length(); i++) {
+			char c = columns.charAt(i);
+			if(c == '\'') {
+				quoted = !quoted;
+			}else if(!quoted && c == '(') {
+				depth++;
+			}else if(!quoted && c == ')') {
+				depth--;
+			}else if(!quoted && depth == 0 && c == ',') {
+				items.add(columns.substring(start, i));
+				start = i + 1;
+			}
+		}
+		items.add(columns.substring(start));
+		return items;
+	}
+	
+	/**
+	 * 컬럼 항목의 결과 label, alias 가 있으면 alias, 없으면 테이블 prefix 를 제외한 이름
+	 */
+	private static String label(String item) {
+		String s = item.trim();
+		int space = s.lastIndexOf(' ');
+		if(space >= 0) {
+			s = s.substring(space + 1);
+		}
+		int dot = s.lastIndexOf('.');
+		if(dot >= 0) {
+			s = s.substring(dot + 1);
+		}
+		return s.replace("`", "");
+	}
+	
+	private static String find(List<String> names, String label) {
+		for(String name : names) {
+			if(label(name).equalsIgnoreCase(label)) {
+				return name;
+			}
+		}
+		return null;
+	}
+	
+	private record TableColumns(List<String> names, long loaded) {
+	}
+	
+	/**
+	 * Prepared형 쿼리를 실행하여 RowMapper 로 변환한다. init() 을 호출하지 않는다.
+	 */
+	private <T> List<T> execute(Class<T> type,String query,Collection<Object> values){
+		DBManager db 			= null;
+		PreparedStatement pstmt = null;
+		Connection 	conn		= null;
+		ResultSet rset			= null;
+		List<T> list			= null;
+		
+		long startTime = System.nanoTime();
+		try {
+			db			= DBFactory.get(datasource);
+			conn		= connection(db, query);
+			pstmt		= conn.prepareStatement(query);
+			DBUtils.setValues(pstmt, values);
+			rset		= pstmt.executeQuery();
+			list		= RowMapper.list(rset, type);
+			
+		}catch(Exception t){
+			SqlMetrics.error(query);
+			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+		}finally {
+			db.close(conn, pstmt, rset);
+			
+			SqlMetrics.record(query, startTime, list == null ? 0 : list.size(), values);
+			if(deepview) {
+				logger.info("query : {} = [{}]",query,list != null ? list.size():0);
+				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
+			}
+		}
+		return list;
+	}
+	
+	/**
+	 * 설정된 값으로 SELECT 문을 실행하고 결과를 한 row 씩 읽는 cursor 를 반환한다.
+	 * 전체 결과를 메모리에 적재하지 않으므로 대량 조회에 사용한다.
+	 * cursor 는 connection 을 점유하므로 반드시 close 해야 한다. 실행 후 init() 이 호출된다.
+	 * @return
+	 * @throws DBException
+	 */
+	public RecordCursor cursor() throws DBException {
+		String query = buildBindQuery();
+		List<Object> bindValues = getBindValues();
+		int size = this.fetchSize;
+		boolean debug = this.deepview;
+		boolean usePrimary = this.primary;
+		String source = this.datasource;
+		init();
+		return RecordCursor.open(query, bindValues, size, debug, usePrimary, source);
+	}
+	
+	/**
+	 * query string 으로 전달된 질의문을 실행하고 cursor 를 반환한다.
+	 * @param query
+	 * @return
+	 * @throws DBException
+	 */
+	public RecordCursor cursor(String query) throws DBException {
+		return RecordCursor.open(query, null, fetchSize, deepview, primary, datasource);
+	}
+	
+	/**
+	 * Prepared형 쿼리 및 그에 매칭되는 values 를 실행하고 cursor 를 반환한다.
+	 * @param query
+	 * @param values
+	 * @return
+	 * @throws DBException
+	 */
+	public RecordCursor cursor(String query,Collection<Object> values) throws DBException {
+		return RecordCursor.open(query, values, fetchSize, deepview, primary, datasource);
+	}
+	
+	/**
+	 * 설정된 값으로 SELECT 문을 실행하고 row 를 Stream 으로 반환한다.
+	 * Stream 을 닫아야 connection 이 반환되므로 try-with-resources 로 사용한다.
+	 * <pre>
+	 * try (Stream&lt;SharedMap&lt;String,Object&gt;&gt; rows = new Retrieve("TABLE").stream()) {
+	 *     rows.filter(...).forEach(...);
+	 * }
+	 * </pre>
+	 * @return
+	 * @throws DBException
+	 */
+	public Stream<SharedMap<String,Object>> stream() throws DBException {
+		return cursor().stream();
+	}
+	
+	/**
+	 * 설정된 값으로 SELECT 문을 실행하고 모든 row 를 순서대로 action 에 전달한다.
+	 * 완료 또는 오류 시 connection 은 반환된다.
+	 * @param action
+	 * @return 처리한 row 수
+	 * @throws DBException
+	 */
+	public long forEach(Consumer<SharedMap<String,Object>> action) throws DBException {
+		try (RecordCursor cursor = cursor()) {
+			while (cursor.hasNext()) {
+				action.accept(cursor.next());
+			}
+			return cursor.getRowCount();
+		}
+	}
+	
+	/**
+	 * 설정된 값으로 SELECT 문을 실행하고 action 이 false 를 반환할 때까지 row 를 전달한다.
+	 * 중단하면 남은 결과는 읽지 않고 connection 을 반환한다.
+	 * @param action
+	 * @return 처리한 row 수
+	 * @throws DBException
+	 */
+	public long forEachWhile(Predicate<SharedMap<String,Object>> action) throws DBException {
+		try (RecordCursor cursor = cursor()) {
+			while (cursor.hasNext()) {
+				if (!action.test(cursor.next())) {
+					break;
+				}
+			}
+			return cursor.getRowCount();
+		}
+	}
+	
+	
 	/**
 	 * function 실행 및 응답값 회신
 	 * @param function
@@ -587,7 +1398,7 @@ public class Retrieve {
 		long startTime = System.nanoTime();
 		try {
 			
-			db 			= DBFactory.get();
+			db 			= DBFactory.get(datasource);
 			conn		= db.getConnection();
 			pstmt		= conn.prepareStatement(query);
 			DBUtils.setValues(pstmt, values);
@@ -597,11 +1408,13 @@ public class Retrieve {
 				ret = rset.getObject(1);
 			}
 		}catch(Exception t){
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 			ret = "";
 		}finally {
 			db.close(conn, pstmt, rset);
 			
+			SqlMetrics.record(query, startTime, 1, values);
 			if(deepview) {
 				logger.info("query : {}",query);
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -621,8 +1434,9 @@ public class Retrieve {
 	 * @return
 	 */
 	public Retrieve whereInit(String condition) {
-		this.where.setLength(0);
-		this.where.append(condition);
+		this.where.clear();
+		this.where.add(DBUtils.AND, condition);
+		this.values.clear();
 		return this;
 	}
 	
@@ -634,11 +1448,7 @@ public class Retrieve {
 	 * @return
 	 */
 	public Retrieve where(String condition) {
-		if(this.where.length() == 0) {
-			this.where.append(condition);
-		}else {
-			this.where.append(DBUtils.AND).append(condition);
-		}
+		this.where.add(DBUtils.AND, condition);
 		return this;
 	}
 	
@@ -681,11 +1491,7 @@ public class Retrieve {
 	 * @return
 	 */
 	public Retrieve whereOr(String condition) {
-		if(this.where.length() == 0) {
-			this.where.append(condition);
-		}else {
-			this.where.append(DBUtils.OR).append(condition);
-		}
+		this.where.add(DBUtils.OR, condition);
 		return this;
 	}
 	
@@ -737,13 +1543,7 @@ public class Retrieve {
 	 */
 	
 	public Retrieve where(String column,Object value,String operator,String logicalOperator){
-		String q = DBUtils.where(column, value, operator, logicalOperator);
-		if(this.where.length() == 0) {
-			this.where.append(q);
-		}else {
-			this.where.append(logicalOperator).append(q);
-		}
-		
+		this.where.add(column, value, operator, logicalOperator, values);
 		return this;
 	}
 	
@@ -0,0 +1,354 @@
+package kr.tx24.lib.db;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 조회 결과 row 를 POJO 또는 record 로 직접 읽는 mapper
+ *
+ * <p>SharedMap 과 Jackson convertValue 를 거치지 않고 ResultSet 의 컬럼을 대상 타입의 getter(getInt, getString 등)로 읽어
+ * setter, 필드 또는 record 생성자에 MethodHandle 로 전달한다.
+ * 클래스의 속성 정보는 클래스별로, 컬럼과 속성의 연결은 (클래스, 컬럼 label 및 타입 목록) 별로 한 번만 만들어 재사용한다.</p>
+ *
+ * <p>컬럼 label 은 {@link JsonProperty} 이름, 속성 이름 순으로 대소문자와 '_' 를 무시하고 비교한다. (user_id → userId)
+ * 일치하는 속성이 없는 컬럼은 무시되고, NULL 컬럼은 primitive 속성에 설정되지 않는다.
+ * record 가 아닌 클래스는 인자 없는 생성자가 필요하며 set 메소드가 있으면 사용하고 없으면 필드에 직접 설정한다.</p>
+ */
+public final class RowMapper<T> {
+
+	private static final int MAX_PLANS = 4096;
+
+	private static final ClassValue<Target> targets = new ClassValue<Target>() {
+		@Override
+		protected Target computeValue(Class<?> type) {
+			return new Target(type);
+		}
+	};
+	private static final ConcurrentHashMap<Layout, RowMapper<?>> plans = new ConcurrentHashMap<>();
+
+	private final Target target;
+	private final int[] columns;		//1 부터 시작하는 ResultSet 컬럼 index
+	private final ColumnReader[] readers;
+	private final Property[] properties;
+
+	private RowMapper(Target target, String[] labels, ResultSetMetaData meta) throws SQLException {
+		List<Integer> columnList		= new ArrayList<>();
+		List<ColumnReader> readerList	= new ArrayList<>();
+		List<Property> propertyList		= new ArrayList<>();
+		for (int i = 0; i < labels.length; i++) {
+			Property property = target.properties.get(key(labels[i]));
+			if (property != null) {
+				columnList.add(i + 1);
+				readerList.add(reader(property.type, meta.getColumnType(i + 1)));
+				propertyList.add(property);
+			}
+		}
+		this.target		= target;
+		this.columns	= columnList.stream().mapToInt(Integer::intValue).toArray();
+		this.readers	= readerList.toArray(new ColumnReader[0]);
+		this.properties	= propertyList.toArray(new Property[0]);
+	}
+
+
+	/**
+	 * 결과 컬럼 구성에 맞는 mapper, 같은 (클래스, 컬럼 label 및 타입 목록) 은 같은 인스턴스를 반환한다.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> RowMapper<T> of(Class<T> type, ResultSetMetaData meta) throws SQLException {
+		Layout layout = new Layout(type, RecordSet.readColumns(meta), types(meta));
+		RowMapper<?> mapper = plans.get(layout);
+		if (mapper == null) {
+			Target target;
+			try {
+				target = targets.get(type);
+			} catch (IllegalArgumentException e) {
+				throw new SQLException(e.getMessage(), e);
+			}
+			mapper = new RowMapper<T>(target, layout.labels, meta);
+			if (plans.size() >= MAX_PLANS) {
+				plans.clear();
+			}
+			RowMapper<?> previous = plans.putIfAbsent(layout, mapper);
+			if (previous != null) {
+				mapper = previous;
+			}
+		}
+		return (RowMapper<T>) mapper;
+	}
+
+	private static int[] types(ResultSetMetaData meta) throws SQLException {
+		int[] types = new int[meta.getColumnCount()];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = meta.getColumnType(i + 1);
+		}
+		return types;
+	}
+
+	/**
+	 * ResultSet 의 남은 row 를 모두 읽는다.
+	 */
+	public static <T> List<T> list(ResultSet rs, Class<T> type) throws SQLException {
+		RowMapper<T> mapper = of(type, rs.getMetaData());
+		List<T> list = new ArrayList<T>();
+		while (rs.next()) {
+			list.add(mapper.map(rs));
+		}
+		return list;
+	}
+
+
+	/**
+	 * ResultSet 의 현재 row 를 읽는다.
+	 */
+	@SuppressWarnings("unchecked")
+	public T map(ResultSet rs) throws SQLException {
+		try {
+			if (target.record) {
+				Object[] args = target.defaults.clone();
+				for (int i = 0; i < columns.length; i++) {
+					Object value = readers[i].read(rs, columns[i]);
+					if (value != null) {
+						args[properties[i].position] = value;
+					}
+				}
+				return (T) (Object) target.constructor.invokeExact(args);
+			}
+
+			Object row = (Object) target.constructor.invokeExact();
+			for (int i = 0; i < columns.length; i++) {
+				Object value = readers[i].read(rs, columns[i]);
+				if (value != null || !properties[i].type.isPrimitive()) {
+					properties[i].setter.invokeExact(row, value);
+				}
+			}
+			return (T) row;
+		} catch (SQLException e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new SQLException("row mapping failed : " + target.type.getName(), t);
+		}
+	}
+
+
+	/**
+	 * 대상 타입으로 값을 읽는 함수, NULL 이면 null 을 반환한다.
+	 */
+	private static ColumnReader reader(Class<?> type, int sqlType) {
+		if (type == String.class) {
+			return ResultSet::getString;
+		} else if (type == int.class || type == Integer.class) {
+			return (rs, i) -> nullable(rs, rs.getInt(i));
+		} else if (type == long.class || type == Long.class) {
+			return (rs, i) -> nullable(rs, rs.getLong(i));
+		} else if (type == double.class || type == Double.class) {
+			return (rs, i) -> nullable(rs, rs.getDouble(i));
+		} else if (type == float.class || type == Float.class) {
+			return (rs, i) -> nullable(rs, rs.getFloat(i));
+		} else if (type == short.class || type == Short.class) {
+			return (rs, i) -> nullable(rs, rs.getShort(i));
+		} else if (type == byte.class || type == Byte.class) {
+			return (rs, i) -> nullable(rs, rs.getByte(i));
+		} else if (type == boolean.class || type == Boolean.class) {
+			return (rs, i) -> nullable(rs, rs.getBoolean(i));
+		} else if (type == BigDecimal.class) {
+			return ResultSet::getBigDecimal;
+		} else if (type == BigInteger.class) {
+			return (rs, i) -> {
+				BigDecimal value = rs.getBigDecimal(i);
+				return value == null ? null : value.toBigInteger();
+			};
+		} else if (type == byte[].class) {
+			return ColumnReader.of(java.sql.Types.BLOB);
+		} else if (type == Timestamp.class || type == java.util.Date.class) {
+			return ResultSet::getTimestamp;
+		} else if (type == java.sql.Date.class) {
+			return ResultSet::getDate;
+		} else if (type == java.sql.Time.class) {
+			return ResultSet::getTime;
+		} else if (type == Instant.class) {
+			return (rs, i) -> {
+				Timestamp value = rs.getTimestamp(i);
+				return value == null ? null : value.toInstant();
+			};
+		} else if (type == LocalDateTime.class || type == LocalDate.class || type == LocalTime.class || type == OffsetDateTime.class) {
+			return (rs, i) -> rs.getObject(i, type);
+		} else if (type.isEnum()) {
+			return (rs, i) -> {
+				String value = rs.getString(i);
+				return value == null || value.isEmpty() ? null : enumValue(type, value);
+			};
+		} else if (type == Object.class) {
+			ColumnReader reader = ColumnReader.of(sqlType);
+			return (rs, i) -> nullable(rs, reader.read(rs, i));
+		}
+		return (rs, i) -> rs.getObject(i, type);
+	}
+
+	private static Object nullable(ResultSet rs, Object value) throws SQLException {
+		return rs.wasNull() ? null : value;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object enumValue(Class<?> type, String value) {
+		return Enum.valueOf((Class) type, value.trim());
+	}
+
+	/**
+	 * 컬럼 label 과 속성 이름의 비교 key
+	 */
+	private static String key(String name) {
+		return name.replace("_", "").toLowerCase(Locale.ROOT);
+	}
+
+
+	/**
+	 * 클래스의 생성자와 속성
+	 */
+	private static final class Target {
+		private final Class<?> type;
+		private final boolean record;
+		private final MethodHandle constructor;		//record : (Object[])Object, 그 외 : ()Object
+		private final Object[] defaults;				//record 생성자 인자 기본값
+		private final Map<String, Property> properties = new LinkedHashMap<>();
+
+		Target(Class<?> type) {
+			this.type	= type;
+			this.record	= type.isRecord();
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			try {
+				if (record) {
+					RecordComponent[] components = type.getRecordComponents();
+					Class<?>[] types = new Class<?>[components.length];
+					this.defaults = new Object[components.length];
+					for (int i = 0; i < components.length; i++) {
+						types[i] = components[i].getType();
+						defaults[i] = types[i].isPrimitive() ? Array.get(Array.newInstance(types[i], 1), 0) : null;	//primitive 기본값
+						Field field = type.getDeclaredField(components[i].getName());
+						add(names(field, components[i].getName()), new Property(types[i], i, null));
+					}
+					Constructor<?> ctor = type.getDeclaredConstructor(types);
+					ctor.setAccessible(true);
+					this.constructor = lookup.unreflectConstructor(ctor)
+							.asSpreader(Object[].class, components.length)
+							.asType(MethodType.methodType(Object.class, Object[].class));
+					return;
+				}
+
+				this.defaults = null;
+				Constructor<?> ctor = type.getDeclaredConstructor();
+				ctor.setAccessible(true);
+				this.constructor = lookup.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class));
+
+				MethodType setterType = MethodType.methodType(void.class, Object.class, Object.class);
+				for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+					for (Field field : c.getDeclaredFields()) {
+						int modifiers = field.getModifiers();
+						if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || field.isSynthetic()) {
+							continue;
+						}
+						String name = field.getName();
+						Method method = setter(type, name, field.getType());
+						MethodHandle handle;
+						if (method != null) {
+							handle = lookup.unreflect(method);
+						} else {
+							field.setAccessible(true);
+							handle = lookup.unreflectSetter(field);
+						}
+						add(names(field, name), new Property(field.getType(), -1, handle.asType(setterType)));
+					}
+				}
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				throw new IllegalArgumentException("unsupported row type : " + type.getName() + ", " + e.getMessage(), e);
+			}
+		}
+
+		private void add(String[] names, Property property) {
+			for (String name : names) {
+				properties.putIfAbsent(key(name), property);	//하위 클래스 필드 우선
+			}
+		}
+
+		private static String[] names(Field field, String name) {
+			JsonProperty json = field.getAnnotation(JsonProperty.class);
+			if (json != null && !json.value().isEmpty()) {
+				return new String[] { json.value(), name };
+			}
+			return new String[] { name };
+		}
+
+		private static Method setter(Class<?> type, String name, Class<?> fieldType) {
+			try {
+				Method method = type.getMethod("set" + Character.toUpperCase(name.charAt(0)) + name.substring(1), fieldType);
+				return Modifier.isStatic(method.getModifiers()) ? null : method;
+			} catch (NoSuchMethodException e) {
+				return null;
+			}
+		}
+	}
+
+
+	private static final class Property {
+		private final Class<?> type;
+		private final int position;			//record 생성자 인자 위치
+		private final MethodHandle setter;	//(Object,Object)void
+
+		Property(Class<?> type, int position, MethodHandle setter) {
+			this.type		= type;
+			this.position	= position;
+			this.setter		= setter;
+		}
+	}
+
+
+	private static final class Layout {
+		private final Class<?> type;
+		private final String[] labels;
+		private final int[] types;
+		private final int hash;
+
+		Layout(Class<?> type, String[] labels, int[] types) {
+			this.type	= type;
+			this.labels	= labels;
+			this.types	= types;
+			this.hash	= (31 * type.hashCode() + Arrays.hashCode(labels)) * 31 + Arrays.hashCode(types);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Layout l && type == l.type && Arrays.equals(labels, l.labels) && Arrays.equals(types, l.types);
+		}
+	}
+}
@@ -0,0 +1,401 @@
+package kr.tx24.lib.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import kr.tx24.lib.db.scheme.Catalog;
+import kr.tx24.lib.db.scheme.Column;
+import kr.tx24.lib.db.scheme.Table;
+import kr.tx24.lib.lang.CommonUtils;
+import kr.tx24.lib.map.LinkedMap;
+
+/**
+ * DBSession 카탈로그 메타데이터 cache
+ *
+ * <p>MariaDB/MySQL 은 information_schema 의 TABLES, COLUMNS, ROUTINES 를 카탈로그 단위로 한 번씩 조회하여
+ * 테이블 수와 관계없이 고정된 횟수의 질의로 {@link Catalog} 를 만든다.
+ * 그 외 DB 는 DatabaseMetaData 로 읽은 결과를 같은 방식으로 보관한다.</p>
+ *
+ * <p>보관된 Catalog 는 여러 호출자가 공유하므로 목록은 수정할 수 없다.
+ * TTL 이 지나거나 DDL 실행으로 {@link #invalidate(String)} 되면 다음 조회 시
+ * 테이블별 컬럼 정의 checksum 을 비교하여 변경된 테이블의 컬럼만 다시 읽는다.</p>
+ */
+public final class SchemaCache {
+
+	public static final long DEFAULT_TTL		= 10 * 60 * 1000L;
+	private static final int MAX_ENTRIES		= 256;
+
+	private static final String TABLES_QUERY	= "SELECT TABLE_NAME, TABLE_TYPE, TABLE_COMMENT FROM information_schema.TABLES WHERE TABLE_SCHEMA = ?";
+	private static final String ROUTINES_QUERY	= "SELECT ROUTINE_NAME, ROUTINE_TYPE, ROUTINE_COMMENT FROM information_schema.ROUTINES WHERE ROUTINE_SCHEMA = ?";
+	private static final String CHECKSUM_QUERY	= "SELECT TABLE_NAME, COUNT(*) CNT, SUM(CRC32(CONCAT_WS('|', ORDINAL_POSITION, COLUMN_NAME, COLUMN_TYPE, IS_NULLABLE, COLUMN_KEY, EXTRA, COLUMN_COMMENT))) CRC"
+			+ " FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = ? GROUP BY TABLE_NAME";
+	private static final String COLUMNS_QUERY	= "SELECT TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION, DATA_TYPE, COLUMN_TYPE, CHARACTER_MAXIMUM_LENGTH, NUMERIC_PRECISION, NUMERIC_SCALE,"
+			+ " IS_NULLABLE, COLUMN_KEY, EXTRA, COLUMN_COMMENT FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = ?";
+
+	private static final Comparator<Table> BY_NAME		= Comparator.comparing(t -> t.n);
+
+	private static final Map<String, Entry> entries	= new ConcurrentHashMap<>();
+	private static final LongAdder hits				= new LongAdder();
+	private static final LongAdder loads			= new LongAdder();
+	private static final LongAdder refreshes		= new LongAdder();
+	private static final LongAdder reloadedTables	= new LongAdder();
+
+	private static volatile long ttlNanos			= TimeUnit.MILLISECONDS.toNanos(DEFAULT_TTL);
+
+	private SchemaCache() {
+	}
+
+
+	/**
+	 * 보관 기간(ms), 0 이면 매 조회마다 변경 여부를 확인한다.
+	 */
+	public static void setTtl(long millis) {
+		ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+	}
+
+	/**
+	 * target(접속 대상)의 보관된 카탈로그를 만료 처리한다. 다음 조회 시 변경된 테이블만 다시 읽는다.
+	 */
+	public static void invalidate(String target) {
+		String prefix = target + "|";
+		for (Map.Entry<String, Entry> e : entries.entrySet()) {
+			if (e.getKey().startsWith(prefix)) {
+				e.getValue().loadedAt = 0;
+			}
+		}
+	}
+
+	public static void clear() {
+		entries.clear();
+	}
+
+
+	/**
+	 * 보관된 카탈로그를 반환하고, 없거나 만료되었으면 읽어서 보관한다.
+	 * @param target 접속 대상 (dbType, url, username)
+	 * @param bulk information_schema 조회 사용 여부 (MariaDB, MySQL)
+	 * @param fallback bulk 가 아닐 때 DatabaseMetaData 로 카탈로그를 읽는다.
+	 */
+	static Catalog get(String target, Connection conn, String catalogName, boolean bulk, Supplier<Catalog> fallback) throws SQLException {
+		String key = target + "|" + catalogName;
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			if (entries.size() >= MAX_ENTRIES) {
+				evictOldest();
+			}
+			entry = entries.computeIfAbsent(key, k -> new Entry());
+		}
+
+		synchronized (entry) {
+			long now = System.nanoTime();
+			if (entry.catalog != null && entry.loadedAt != 0 && now - entry.loadedAt < ttlNanos) {
+				hits.increment();
+				return entry.catalog;
+			}
+			if (bulk) {
+				entry.load(conn, catalogName);
+			} else {
+				Catalog catalog = fallback.get();
+				freeze(catalog);
+				entry.catalog = catalog;
+				loads.increment();
+			}
+			entry.loadedAt = System.nanoTime();
+			return entry.catalog;
+		}
+	}
+
+	/**
+	 * 보관된 카탈로그가 유효하면 반환한다. 없으면 null
+	 */
+	static Catalog peek(String target, String catalogName) {
+		Entry entry = entries.get(target + "|" + catalogName);
+		if (entry == null || entry.catalog == null || entry.loadedAt == 0 || System.nanoTime() - entry.loadedAt >= ttlNanos) {
+			return null;
+		}
+		hits.increment();
+		return entry.catalog;
+	}
+
+	private static void evictOldest() {
+		String oldest = null;
+		long min = Long.MAX_VALUE;
+		for (Map.Entry<String, Entry> e : entries.entrySet()) {
+			if (e.getValue().loadedAt < min) {
+				min		= e.getValue().loadedAt;
+				oldest	= e.getKey();
+			}
+		}
+		if (oldest != null) {
+			entries.remove(oldest);
+		}
+	}
+
+
+	public static LinkedMap<String, Object> getStats() {
+		LinkedMap<String, Object> map = new LinkedMap<String, Object>();
+		map.put("entries"		, entries.size());
+		map.put("ttl"			, TimeUnit.NANOSECONDS.toMillis(ttlNanos));
+		map.put("hits"			, hits.sum());
+		map.put("loads"			, loads.sum());
+		map.put("refreshes"		, refreshes.sum());
+		map.put("reloadedTables", reloadedTables.sum());
+		return map;
+	}
+
+
+	/**
+	 * 컬럼 정보 문자열, DBSession 의 DatabaseMetaData 조회와 같은 형식이다.
+	 */
+	static String describe(String name, String typeName, int size, int decimal, boolean nullable, int dataType, boolean ai, boolean pk) {
+		StringBuilder sb = new StringBuilder()
+			.append(String.format("-%20s", name));
+
+		int dt = dataType;
+		if (typeName.indexOf("char") > -1) {
+			sb.append(typeName).append("(").append(size).append(") ");
+		} else if (typeName.indexOf("decimal") > -1) {
+			sb.append(typeName).append("(").append(size).append(",").append(decimal).append(") ");
+		} else if (typeName.indexOf("int") > -1) {
+			if (typeName.indexOf("bigint") > -1) {
+				dt = 18;
+			}
+			typeName = typeName.toLowerCase().replaceAll("unsigned", "UN");
+			String[] ar = typeName.split(" ");
+			if (ar.length == 1) {
+				sb.append(ar[0]).append("(").append(dt).append(") ");
+			} else if (ar.length == 2) {
+				sb.append(ar[0]).append("(").append(dt).append(") ").append(ar[1]).append(" ");
+			} else {
+				sb.append(typeName);
+			}
+		} else {
+			sb.append(typeName).append(" ");
+		}
+
+		if (nullable) {
+			sb.append("N ");
+		}
+		if (ai) {
+			sb.append("AI ");
+		}
+		if (pk) {
+			sb.append("PK ");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 목록을 정렬하고 수정할 수 없게 한다.
+	 */
+	static void freeze(Catalog catalog) {
+		catalog.tables		= sorted(catalog.tables);
+		catalog.views		= sorted(catalog.views);
+		catalog.seqs		= sorted(catalog.seqs);
+		catalog.functions	= catalog.functions == null ? null : sorted(catalog.functions);
+		catalog.procedures	= catalog.procedures == null ? null : sorted(catalog.procedures);
+		for (List<Table> list : List.of(catalog.tables, catalog.views, catalog.seqs)) {
+			for (Table t : list) {
+				if (t.c != null) {
+					t.c = Collections.unmodifiableList(t.c);
+				}
+			}
+		}
+	}
+
+	private static List<Table> sorted(List<Table> list) {
+		if (list == null) {
+			return List.of();
+		}
+		List<Table> copy = new ArrayList<Table>(list);
+		copy.sort(BY_NAME);
+		return Collections.unmodifiableList(copy);
+	}
+
+
+	private static final class Entry {
+		private volatile long loadedAt			= 0;
+		private Catalog catalog					= null;
+		private Map<String, String> checksums	= Map.of();	//테이블별 컬럼 정의 checksum
+		private Map<String, Table> tables		= Map.of();
+
+		/**
+		 * 처음에는 전체를, 이후에는 checksum 이 바뀐 테이블의 컬럼만 읽는다.
+		 */
+		void load(Connection conn, String catalogName) throws SQLException {
+			Map<String, String> sums = checksums(conn, catalogName);
+
+			List<String> changed = new ArrayList<String>();
+			for (Map.Entry<String, String> e : sums.entrySet()) {
+				if (!e.getValue().equals(checksums.get(e.getKey())) || !tables.containsKey(e.getKey())) {
+					changed.add(e.getKey());
+				}
+			}
+			boolean full = catalog == null || changed.size() > sums.size() / 2;
+			Map<String, List<Column>> columns = columns(conn, catalogName, full ? null : changed);
+			if (full) {
+				loads.increment();
+			} else {
+				refreshes.increment();
+			}
+			reloadedTables.add(full ? sums.size() : changed.size());
+
+			Catalog next		= new Catalog();
+			next.name			= catalogName;
+			next.tables			= new ArrayList<Table>();
+			next.views			= new ArrayList<Table>();
+			next.seqs			= new ArrayList<Table>();
+			Map<String, Table> nextTables = new HashMap<String, Table>();
+
+			try (PreparedStatement pstmt = conn.prepareStatement(TABLES_QUERY)) {
+				pstmt.setString(1, catalogName);
+				try (ResultSet rset = pstmt.executeQuery()) {
+					while (rset.next()) {
+						String name		= rset.getString(1);
+						String type		= CommonUtils.nToB(rset.getString(2));
+						String remarks	= rset.getString(3);
+						Table previous	= tables.get(name);
+
+						Table table;
+						if (previous != null && !columns.containsKey(name) && sums.containsKey(name)
+								&& CommonUtils.nToB(remarks).equals(CommonUtils.nToB(previous.r))) {
+							table = previous;	//변경되지 않은 테이블은 그대로 사용한다.
+						} else {
+							table	= new Table();
+							table.n	= name;
+							table.r	= remarks;
+							List<Column> c = columns.get(name);
+							if (c == null && previous != null && sums.containsKey(name)) {
+								c = previous.c;
+							}
+							table.c = Collections.unmodifiableList(c != null ? c : new ArrayList<Column>());
+						}
+						nextTables.put(name, table);
+
+						if (type.equals("VIEW")) {
+							next.views.add(table);
+						} else if (type.equals("SEQUENCE")) {
+							next.seqs.add(table);
+						} else if (type.endsWith("TABLE") || type.equals("SYSTEM VERSIONED")) {
+							next.tables.add(table);
+						}
+					}
+				}
+			}
+
+			try (PreparedStatement pstmt = conn.prepareStatement(ROUTINES_QUERY)) {
+				pstmt.setString(1, catalogName);
+				try (ResultSet rset = pstmt.executeQuery()) {
+					while (rset.next()) {
+						Table routine	= new Table();
+						routine.n		= rset.getString(1);
+						routine.r		= rset.getString(3);
+						if ("FUNCTION".equals(rset.getString(2))) {
+							if (next.functions == null) {
+								next.functions = new ArrayList<Table>();
+							}
+							next.functions.add(routine);
+						} else {
+							if (next.procedures == null) {
+								next.procedures = new ArrayList<Table>();
+							}
+							next.procedures.add(routine);
+						}
+					}
+				}
+			}
+
+			freeze(next);
+			this.catalog	= next;
+			this.checksums	= sums;
+			this.tables		= nextTables;
+		}
+
+
+		private static Map<String, String> checksums(Connection conn, String catalogName) throws SQLException {
+			Map<String, String> map = new HashMap<String, String>();
+			try (PreparedStatement pstmt = conn.prepareStatement(CHECKSUM_QUERY)) {
+				pstmt.setString(1, catalogName);
+				try (ResultSet rset = pstmt.executeQuery()) {
+					while (rset.next()) {
+						map.put(rset.getString(1), rset.getLong(2) + ":" + rset.getString(3));
+					}
+				}
+			}
+			return map;
+		}
+
+
+		/**
+		 * 컬럼 정보를 테이블별로 읽는다.
+		 * @param names null 이면 카탈로그의 모든 테이블
+		 */
+		private static Map<String, List<Column>> columns(Connection conn, String catalogName, List<String> names) throws SQLException {
+			Map<String, List<Column>> map = new LinkedHashMap<String, List<Column>>();
+			if (names != null && names.isEmpty()) {
+				return map;
+			}
+
+			StringBuilder sql = new StringBuilder(COLUMNS_QUERY);
+			if (names != null) {
+				sql.append(" AND TABLE_NAME IN (").append(String.join(DBUtils.COMMA, Collections.nCopies(names.size(), DBUtils.QUESTION_MARK))).append(")");
+			}
+			sql.append(" ORDER BY TABLE_NAME, ORDINAL_POSITION");
+
+			try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+				pstmt.setString(1, catalogName);
+				if (names != null) {
+					for (int i = 0; i < names.size(); i++) {
+						pstmt.setString(i + 2, names.get(i));
+					}
+				}
+				try (ResultSet rset = pstmt.executeQuery()) {
+					while (rset.next()) {
+						String dataType		= CommonUtils.nToB(rset.getString("DATA_TYPE")).toLowerCase();
+						String columnType	= CommonUtils.nToB(rset.getString("COLUMN_TYPE")).toLowerCase();
+						String typeName		= columnType.contains("unsigned") ? dataType + " unsigned" : dataType;
+						int size			= typeName.contains("char") ? rset.getInt("CHARACTER_MAXIMUM_LENGTH") : rset.getInt("NUMERIC_PRECISION");
+
+						Column column	= new Column();
+						column.p		= rset.getInt("ORDINAL_POSITION");
+						column.n		= rset.getString("COLUMN_NAME");
+						column.r		= CommonUtils.nToB(rset.getString("COLUMN_COMMENT"));
+						column.t		= describe(column.n, typeName, size, rset.getInt("NUMERIC_SCALE"),
+								"YES".equals(rset.getString("IS_NULLABLE")), sqlType(dataType, columnType),
+								CommonUtils.nToB(rset.getString("EXTRA")).contains("auto_increment"),
+								"PRI".equals(rset.getString("COLUMN_KEY")));
+						map.computeIfAbsent(rset.getString("TABLE_NAME"), k -> new ArrayList<Column>()).add(column);
+					}
+				}
+			}
+			return map;
+		}
+
+		/**
+		 * 정수형 컬럼의 java.sql.Types 값, DatabaseMetaData.getColumns() 의 DATA_TYPE 과 같다.
+		 */
+		private static int sqlType(String dataType, String columnType) {
+			return switch (dataType) {
+				case "tinyint"		-> columnType.startsWith("tinyint(1)") ? Types.BIT : Types.TINYINT;
+				case "smallint"		-> Types.SMALLINT;
+				case "mediumint", "int", "integer" -> Types.INTEGER;
+				case "bigint"		-> Types.BIGINT;
+				default				-> Types.OTHER;
+			};
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package kr.tx24.lib.db;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * keyset(seek) 페이징의 다음 페이지 token
+ *
+ * <p>마지막 row 의 key 값을 타입과 함께 직렬화하여 URL 에 그대로 사용할 수 있는 문자열로 만든다.
+ * token 에는 key 컬럼 및 정렬 방향의 서명이 포함되어 다른 조회의 token 은 거부된다.
+ * 위변조 방지 용도는 아니며 값은 항상 ? 로 바인딩된다.</p>
+ */
+final class SeekToken {
+
+	private static final byte VERSION		= 1;
+
+	private static final byte NUMBER		= 'L';
+	private static final byte REAL			= 'F';
+	private static final byte DECIMAL		= 'M';
+	private static final byte BOOL			= 'Z';
+	private static final byte TIMESTAMP		= 'T';
+	private static final byte BINARY		= 'X';
+	private static final byte STRING		= 'S';
+
+	private SeekToken() {
+	}
+
+
+	static String encode(String[] keys, boolean desc, Object[] values) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeByte(VERSION);
+			out.writeInt(signature(keys, desc));
+			out.writeByte(values.length);
+			for (Object value : values) {
+				if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+					out.writeByte(NUMBER);
+					out.writeLong(((Number) value).longValue());
+				} else if (value instanceof Double || value instanceof Float) {
+					out.writeByte(REAL);
+					out.writeDouble(((Number) value).doubleValue());
+				} else if (value instanceof BigDecimal d) {
+					out.writeByte(DECIMAL);
+					out.writeUTF(d.toPlainString());
+				} else if (value instanceof Boolean b) {
+					out.writeByte(BOOL);
+					out.writeBoolean(b);
+				} else if (value instanceof Timestamp t) {
+					out.writeByte(TIMESTAMP);
+					out.writeLong(t.getTime());
+					out.writeInt(t.getNanos());
+				} else if (value instanceof java.util.Date d) {
+					out.writeByte(TIMESTAMP);
+					out.writeLong(d.getTime());
+					out.writeInt((int) Math.floorMod(d.getTime(), 1000L) * 1_000_000);
+				} else if (value instanceof byte[] b) {
+					out.writeByte(BINARY);
+					out.writeInt(b.length);
+					out.write(b);
+				} else {
+					out.writeByte(STRING);
+					out.writeUTF(String.valueOf(value));
+				}
+			}
+			out.flush();
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+
+	/**
+	 * @throws IllegalArgumentException 형식이 잘못되었거나 key 컬럼이 다른 조회의 token
+	 */
+	static Object[] decode(String[] keys, boolean desc, String token) {
+		byte[] bytes;
+		try {
+			bytes = Base64.getUrlDecoder().decode(token);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("invalid seek token", e);
+		}
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			if (in.readByte() != VERSION || in.readInt() != signature(keys, desc)) {
+				throw new IllegalArgumentException("seek token does not match keyset");
+			}
+			int size = in.readUnsignedByte();
+			if (size != keys.length) {
+				throw new IllegalArgumentException("seek token does not match keyset");
+			}
+			Object[] values = new Object[size];
+			for (int i = 0; i < size; i++) {
+				byte type = in.readByte();
+				values[i] = switch (type) {
+					case NUMBER		-> in.readLong();
+					case REAL		-> in.readDouble();
+					case DECIMAL	-> new BigDecimal(in.readUTF());
+					case BOOL		-> in.readBoolean();
+					case TIMESTAMP	-> {
+						Timestamp t = new Timestamp(in.readLong());
+						t.setNanos(in.readInt());
+						yield t;
+					}
+					case BINARY		-> {
+						byte[] b = new byte[in.readInt()];
+						in.readFully(b);
+						yield b;
+					}
+					case STRING		-> in.readUTF();
+					default			-> throw new IllegalArgumentException("invalid seek token");
+				};
+			}
+			return values;
+		} catch (IOException | NegativeArraySizeException e) {
+			throw new IllegalArgumentException("invalid seek token", e);
+		}
+	}
+
+
+	private static int signature(String[] keys, boolean desc) {
+		return (String.join(DBUtils.COMMA, keys) + (desc ? "|D" : "|A")).hashCode();
+	}
+}
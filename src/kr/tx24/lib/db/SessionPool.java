@@ -0,0 +1,280 @@
+package kr.tx24.lib.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.pool.HikariPool.PoolInitializationException;
+
+import kr.tx24.lib.map.LinkedMap;
+
+/**
+ * DBSession 용 접속 대상별 커넥션 풀
+ *
+ * <p>dbType, JDBC URL, 사용자(및 비밀번호, 옵션) 단위로 작은 Hikari pool 을 처음 사용할 때 생성한다.
+ * 같은 대상으로 여러 DBSession 을 열어도 TCP/인증 handshake 는 pool 의 커넥션 생성 시에만 발생하며,
+ * 반납 후 aliveBypassWindow(500ms) 이내에 다시 빌려가는 커넥션은 검증 질의를 생략한다.</p>
+ *
+ * <p>pool 수가 {@link #setMaxPools(int)} 를 넘거나 {@link #setIdleTimeout(long)} 동안 사용되지 않은 pool 은
+ * 사용 중인 커넥션이 없을 때 가장 오래 사용하지 않은 순서로 닫는다.</p>
+ */
+public final class SessionPool {
+	private static final Logger logger = LoggerFactory.getLogger(SessionPool.class);
+
+	public static final int DEFAULT_MAX_POOLS		= 16;
+	public static final int DEFAULT_POOL_SIZE		= 4;
+	public static final long DEFAULT_IDLE_TIMEOUT	= 10 * 60 * 1000L;
+
+	private static final LinkedHashMap<Key, Pool> pools = new LinkedHashMap<>(16, 0.75f, true);	//access order, 앞쪽이 LRU
+	private static final AtomicInteger sequence		= new AtomicInteger();
+	private static final LongAdder created			= new LongAdder();
+	private static final LongAdder evicted			= new LongAdder();
+
+	private static volatile int maxPools			= DEFAULT_MAX_POOLS;
+	private static volatile int poolSize			= DEFAULT_POOL_SIZE;
+	private static volatile long idleTimeout		= DEFAULT_IDLE_TIMEOUT;
+
+	private SessionPool() {
+	}
+
+
+	/**
+	 * 동시에 유지할 최대 pool 수
+	 */
+	public static void setMaxPools(int max) {
+		maxPools = Math.max(1, max);
+	}
+
+	/**
+	 * 새로 생성되는 pool 의 최대 커넥션 수
+	 */
+	public static void setPoolSize(int size) {
+		poolSize = Math.max(1, size);
+	}
+
+	/**
+	 * 사용되지 않은 pool 을 닫기까지의 시간(ms)
+	 */
+	public static void setIdleTimeout(long millis) {
+		idleTimeout = Math.max(1000L, millis);
+	}
+
+
+	/**
+	 * 접속 대상의 pool 에서 커넥션을 빌린다. 커넥션은 autoCommit=false 상태이며 close() 하면 pool 로 반납된다.
+	 */
+	static Connection getConnection(DBType dbType, String url, String username, String password, Properties options) throws SQLException {
+		return pool(new Key(dbType, url, username, password, options)).borrow();
+	}
+
+
+	/**
+	 * 접속 대상의 pool 을 찾거나 생성하여 반환한다. 반환된 pool 은 borrow() 를 마칠 때까지 evict 대상에서 제외된다.
+	 */
+	private static Pool pool(Key key) throws SQLException {
+		synchronized (pools) {
+			Pool pool = pools.get(key);
+			if (pool != null && !pool.ds.isClosed()) {
+				pool.reserve();
+				return pool;
+			}
+		}
+
+		//접속 대상이 응답하지 않아도 다른 대상의 pool 사용을 막지 않도록 lock 밖에서 생성한다.
+		Pool fresh = new Pool(key);
+		List<Pool> closing = new ArrayList<Pool>();
+		Pool pool;
+		synchronized (pools) {
+			pool = pools.get(key);
+			if (pool == null || pool.ds.isClosed()) {
+				pool = fresh;
+				pools.put(key, pool);
+				created.increment();
+			} else {
+				closing.add(fresh);
+			}
+			pool.reserve();
+			evict(closing);
+		}
+		for (Pool p : closing) {
+			p.close();
+		}
+		return pool;
+	}
+
+	/**
+	 * 오래 사용하지 않았거나 최대 수를 넘은 pool 중 사용 중이거나 빌려가는 중인 커넥션이 없는 것을 LRU 순서로 꺼낸다.
+	 */
+	private static void evict(List<Pool> closing) {
+		long now = System.nanoTime();
+		long idle = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+		int excess = pools.size() - maxPools;
+		for (Iterator<Pool> it = pools.values().iterator(); it.hasNext();) {
+			Pool p = it.next();
+			boolean expired = now - p.lastUsed > idle;
+			if ((excess > 0 || expired) && p.pending.get() == 0 && p.active() == 0) {
+				it.remove();
+				closing.add(p);
+				excess--;
+				evicted.increment();
+			}
+		}
+	}
+
+
+	public static LinkedMap<String, Object> getStats() {
+		LinkedMap<String, Object> map = new LinkedMap<String, Object>();
+		List<LinkedMap<String, Object>> list = new ArrayList<LinkedMap<String, Object>>();
+		synchronized (pools) {
+			map.put("pools"		, pools.size());
+			for (Pool p : pools.values()) {
+				HikariPoolMXBean mx = p.ds.getHikariPoolMXBean();
+				LinkedMap<String, Object> m = new LinkedMap<String, Object>();
+				m.put("name"	, p.ds.getPoolName());
+				m.put("url"		, p.key.url);
+				m.put("user"	, p.key.username);
+				m.put("active"	, mx == null ? 0 : mx.getActiveConnections());
+				m.put("idle"	, mx == null ? 0 : mx.getIdleConnections());
+				m.put("borrowed", p.borrowed.sum());
+				list.add(m);
+			}
+		}
+		map.put("maxPools"	, maxPools);
+		map.put("poolSize"	, poolSize);
+		map.put("created"	, created.sum());
+		map.put("evicted"	, evicted.sum());
+		map.put("list"		, list);
+		return map;
+	}
+
+
+	/**
+	 * 모든 pool 을 닫는다. 이후 DBSession 은 다시 pool 을 생성한다.
+	 */
+	public static void shutdown() {
+		List<Pool> closing;
+		synchronized (pools) {
+			closing = new ArrayList<Pool>(pools.values());
+			pools.clear();
+		}
+		for (Pool p : closing) {
+			p.close();
+		}
+	}
+
+
+	private static final class Key {
+		private final DBType dbType;
+		private final String url;
+		private final String username;
+		private final String password;
+		private final Properties options;
+		private final int hash;
+
+		Key(DBType dbType, String url, String username, String password, Properties options) {
+			this.dbType		= dbType;
+			this.url		= url;
+			this.username	= username == null ? "" : username;
+			this.password	= password == null ? "" : password;
+			this.options	= new Properties();
+			if (options != null) {
+				this.options.putAll(options);
+			}
+			this.hash		= Objects.hash(dbType, url, this.username, this.password, this.options);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key k && dbType == k.dbType && url.equals(k.url)
+					&& username.equals(k.username) && password.equals(k.password) && options.equals(k.options);
+		}
+	}
+
+
+	private static final class Pool {
+		private final Key key;
+		private final HikariDataSource ds;
+		private final LongAdder borrowed	= new LongAdder();
+		private final AtomicInteger pending	= new AtomicInteger();		//pool() 이후 borrow() 를 마치지 않은 수
+		private volatile long lastUsed		= System.nanoTime();
+
+		Pool(Key key) throws SQLException {
+			this.key = key;
+			HikariConfig config = new HikariConfig();
+			config.setPoolName("session-" + sequence.incrementAndGet());
+			config.setDriverClassName(key.dbType.getDriver());
+			config.setJdbcUrl(key.url);
+			if (!key.username.isEmpty()) {
+				config.setUsername(key.username);
+			}
+			if (!key.password.isEmpty()) {
+				config.setPassword(key.password);
+			}
+			config.setDataSourceProperties(key.options);
+			config.setAutoCommit(false);
+			config.setMaximumPoolSize(poolSize);
+			config.setMinimumIdle(0);								//사용하지 않는 대상은 커넥션을 유지하지 않는다.
+			config.setIdleTimeout(Math.max(idleTimeout / 2, 10000L));
+			config.setMaxLifetime(30 * 60 * 1000L);
+			config.setConnectionTimeout(30000);
+			config.setInitializationFailTimeout(1);					//생성 시 한 번 접속하여 잘못된 대상은 바로 오류를 반환한다.
+			config.setMetricsTrackerFactory(SqlMetrics.trackerFactory());
+			try {
+				this.ds = new HikariDataSource(config);
+			} catch (PoolInitializationException e) {
+				throw e.getCause() instanceof SQLException s ? s : new SQLException(e.getMessage(), e);
+			}
+			logger.info("session pool {} : {} {}", config.getPoolName(), key.url, key.username);
+		}
+
+		/**
+		 * pools lock 안에서 호출한다.
+		 */
+		void reserve() {
+			pending.incrementAndGet();
+			lastUsed = System.nanoTime();
+		}
+
+		Connection borrow() throws SQLException {
+			try {
+				Connection conn = ds.getConnection();
+				borrowed.increment();
+				lastUsed = System.nanoTime();
+				return conn;
+			} finally {
+				pending.decrementAndGet();
+			}
+		}
+
+		int active() {
+			HikariPoolMXBean mx = ds.getHikariPoolMXBean();
+			return mx == null ? 0 : mx.getActiveConnections();
+		}
+
+		void close() {
+			try {
+				ds.close();
+			} catch (Exception e) {
+			}
+		}
+	}
+}
@@ -0,0 +1,555 @@
+package kr.tx24.lib.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import kr.tx24.lib.executor.AsyncExecutor;
+import kr.tx24.lib.lang.CommonUtils;
+import kr.tx24.lib.lang.DateUtils;
+import kr.tx24.lib.lang.MaskUtils;
+import kr.tx24.lib.lang.SystemUtils;
+import kr.tx24.lib.lifecycle.SystemManager;
+import kr.tx24.lib.map.LinkedMap;
+import kr.tx24.lib.mapper.JacksonUtils;
+import kr.tx24.lib.redis.RedisUtils;
+
+/**
+ * SQL 실행 및 커넥션 풀 계측
+ *
+ * <p>DBManager, Create, Retrieve, Update, Delete, DBTrx, DBSession 의 실행 경로에서 호출되며
+ * 질의문은 값(문자열, 숫자)을 ? 로 치환하고 IN (?,?,..) 목록을 줄인 구조(shape) 별로 집계한다.
+ * shape 별 호출 수, 오류 수, 처리 row 수, 지연시간 histogram(p50/p95/p99, max)을 보관하며
+ * {@link #getSlowThreshold()} 이상 걸린 실행은 바인딩 값을 {@link MaskUtils} 로 마스킹하여 최근 순으로 보관한다.</p>
+ *
+ * <p>커넥션 풀은 Hikari metrics tracker 로 pool 별 커넥션 획득 대기시간, 사용시간, timeout 및
+ * active/idle/pending 수를 수집한다.</p>
+ *
+ * <p>db.json 설정 예.
+ * {@code "sqlMetrics" : {"enabled" : true, "slowMillis" : 1000, "slowSamples" : 100, "maxShapes" : 500, "reportMinutes" : 5}}
+ * reportMinutes 주기로 집계 구간을 마감하여 JvmStatusManager 와 같은 방식으로 내보낸다.
+ * (System property SQL_REPORT=true 이면 Redis {@link SystemUtils#REDIS_STORAGE_SQL}, 아니면 로그)</p>
+ */
+public final class SqlMetrics {
+	private static final Logger logger = LoggerFactory.getLogger(SqlMetrics.class);
+
+	public static final long DEFAULT_SLOW_MILLIS		= 1000L;
+	public static final int DEFAULT_SLOW_SAMPLES		= 100;
+	public static final int DEFAULT_MAX_SHAPES			= 500;
+	public static final long DEFAULT_REPORT_MINUTES		= 5;
+
+	private static final String SQL_REPORT_PROPERTY		= "SQL_REPORT";
+	private static final String OTHER					= "(other)";
+	private static final int MAX_SHAPE_LENGTH			= 1000;
+	private static final int MAX_SHAPE_CACHE			= 4096;
+	private static final int REPORT_TOP					= 50;
+
+	private static final Pattern LIST					= Pattern.compile("\\?(\\s*,\\s*\\?)+");
+	private static final Pattern ROWS					= Pattern.compile("\\(\\?\\)(\\s*,\\s*\\(\\?\\))+");
+
+	private static final Map<String, String> shapes		= new ConcurrentHashMap<>();	//질의문 → shape
+	private static final Map<String, PoolTracker> pools	= new ConcurrentHashMap<>();
+	private static final ConcurrentLinkedDeque<LinkedMap<String, Object>> slowQueries = new ConcurrentLinkedDeque<>();
+	private static final AtomicInteger slowCount		= new AtomicInteger();
+
+	private static volatile Map<String, Stat> stats		= new ConcurrentHashMap<>();
+	private static volatile long windowStart			= System.currentTimeMillis();
+	private static volatile boolean enabled				= true;
+	private static volatile long slowNanos				= TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_MILLIS);
+	private static volatile int slowSamples				= DEFAULT_SLOW_SAMPLES;
+	private static volatile int maxShapes				= DEFAULT_MAX_SHAPES;
+	private static volatile ScheduledFuture<?> reportingFuture = null;
+
+	private SqlMetrics() {
+	}
+
+
+	/**
+	 * db.json 의 sqlMetrics 설정을 적용하고 reportMinutes 가 0 보다 크면 주기 보고를 시작한다.
+	 */
+	static void configure(Map<?, ?> config) {
+		enabled		= !"false".equalsIgnoreCase(CommonUtils.toString(config.get("enabled")));
+		if (config.containsKey("slowMillis")) {
+			setSlowThreshold(CommonUtils.parseLong(config.get("slowMillis")));
+		}
+		if (config.containsKey("slowSamples")) {
+			slowSamples = Math.max(0, (int) CommonUtils.parseLong(config.get("slowSamples")));
+		}
+		if (config.containsKey("maxShapes")) {
+			maxShapes = Math.max(1, (int) CommonUtils.parseLong(config.get("maxShapes")));
+		}
+		long reportMinutes = config.containsKey("reportMinutes") ? CommonUtils.parseLong(config.get("reportMinutes")) : DEFAULT_REPORT_MINUTES;
+		if (enabled && reportMinutes > 0) {
+			initialize(reportMinutes);
+		}
+	}
+
+	/**
+	 * reportMinutes 주기로 집계를 내보내고 초기화한다.
+	 */
+	public static synchronized void initialize(long reportMinutes) {
+		if (reportingFuture != null) {
+			return;
+		}
+		long period = reportMinutes > 0 ? reportMinutes : DEFAULT_REPORT_MINUTES;
+		reportingFuture = AsyncExecutor.scheduleAtFixedRate(SqlMetrics::report, period, period, TimeUnit.MINUTES);
+	}
+
+	public static synchronized void shutdown() {
+		if (reportingFuture != null) {
+			reportingFuture.cancel(false);
+			reportingFuture = null;
+		}
+	}
+
+	public static void setEnabled(boolean enabled) {
+		SqlMetrics.enabled = enabled;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * slow query 로 보관할 최소 실행시간(ms)
+	 */
+	public static void setSlowThreshold(long millis) {
+		slowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+	}
+
+	public static long getSlowThreshold() {
+		return TimeUnit.NANOSECONDS.toMillis(slowNanos);
+	}
+
+
+	/**
+	 * 실행 결과를 기록한다.
+	 * @param sql 실행한 질의문
+	 * @param startNanos System.nanoTime() 실행 시작 시각
+	 * @param rows 조회 또는 변경된 row 수
+	 * @param values 바인딩 값 (Collection, Map, Object[]), slow query 에만 사용된다.
+	 */
+	public static void record(String sql, long startNanos, long rows, Object values) {
+		record(sql, startNanos, rows, values, null);
+	}
+
+	/**
+	 * 실행 결과를 기록한다. 바인딩 값은 slow query 인 경우에만 values 에서 가져온다.
+	 */
+	public static void record(String sql, long startNanos, long rows, Supplier<?> values) {
+		record(sql, startNanos, rows, null, values);
+	}
+
+	private static void record(String sql, long startNanos, long rows, Object values, Supplier<?> supplier) {
+		if (!enabled || sql == null) {
+			return;
+		}
+		long elapsed = System.nanoTime() - startNanos;
+		String shape = shape(sql);
+		Stat stat = stat(shape);
+		stat.calls.increment();
+		stat.rows.add(Math.max(rows, 0));
+		stat.latency.record(elapsed);
+
+		if (elapsed >= slowNanos && slowSamples > 0) {
+			LinkedMap<String, Object> sample = new LinkedMap<String, Object>();
+			sample.put("regDate"	, DateUtils.getCurrentTimestamp());
+			sample.put("elapsed"	, TimeUnit.NANOSECONDS.toMillis(elapsed));
+			sample.put("rows"		, rows);
+			sample.put("shape"		, shape);
+			sample.put("values"		, mask(supplier != null ? supplier.get() : values));
+			sample.put("thread"		, Thread.currentThread().getName());
+			slowQueries.addFirst(sample);
+			if (slowCount.incrementAndGet() > slowSamples && slowQueries.pollLast() != null) {
+				slowCount.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * 실행 오류를 기록한다. 지연시간은 record 로 함께 기록한다.
+	 */
+	public static void error(String sql) {
+		if (!enabled || sql == null) {
+			return;
+		}
+		stat(shape(sql)).errors.increment();
+	}
+
+	private static Stat stat(String shape) {
+		Map<String, Stat> current = stats;
+		Stat stat = current.get(shape);
+		if (stat == null) {
+			if (current.size() >= maxShapes) {
+				shape = OTHER;
+			}
+			stat = current.computeIfAbsent(shape, k -> new Stat());
+		}
+		return stat;
+	}
+
+
+	/**
+	 * 질의문의 구조, 문자열 및 숫자 값은 ? 로 치환하고 공백을 정리한다.
+	 */
+	static String shape(String sql) {
+		String shape = shapes.get(sql);
+		if (shape == null) {
+			shape = normalize(sql);
+			if (shapes.size() >= MAX_SHAPE_CACHE) {
+				shapes.clear();
+			}
+			shapes.put(sql, shape);
+		}
+		return shape;
+	}
+
+	static String normalize(String sql) {
+		int n = sql.length();
+		StringBuilder sb = new StringBuilder(Math.min(n, MAX_SHAPE_LENGTH));
+		boolean space = false;
+		for (int i = 0; i < n && sb.length() < MAX_SHAPE_LENGTH; i++) {
+			char c = sql.charAt(i);
+			if (Character.isWhitespace(c)) {
+				space = sb.length() > 0;
+				continue;
+			}
+			if (space) {
+				sb.append(' ');
+				space = false;
+			}
+			if (c == '\'' || c == '"') {
+				int j = i + 1;
+				while (j < n) {
+					char d = sql.charAt(j);
+					if (d == '\\') {
+						j += 2;
+					} else if (d == c && j + 1 < n && sql.charAt(j + 1) == c) {
+						j += 2;
+					} else if (d == c) {
+						break;
+					} else {
+						j++;
+					}
+				}
+				sb.append('?');
+				i = j;
+			} else if (Character.isLetter(c) || c == '_' || c == '`' || c == '@') {
+				int j = i;
+				while (j < n && (Character.isLetterOrDigit(sql.charAt(j)) || "_$.`@".indexOf(sql.charAt(j)) >= 0)) {
+					j++;
+				}
+				sb.append(sql, i, j);
+				i = j - 1;
+			} else if (Character.isDigit(c)) {
+				int j = i;
+				while (j < n && (Character.isLetterOrDigit(sql.charAt(j)) || sql.charAt(j) == '.')) {
+					j++;
+				}
+				sb.append('?');
+				i = j - 1;
+			} else {
+				sb.append(c);
+			}
+		}
+		String shape = LIST.matcher(sb).replaceAll("?");
+		return ROWS.matcher(shape).replaceAll("(?)");
+	}
+
+
+	/**
+	 * 바인딩 값 마스킹, 날짜 및 짧은 숫자는 그대로 두고 문자열 및 긴 숫자(카드, 계좌 등)는 앞 2자리만 남긴다.
+	 */
+	private static List<Object> mask(Object values) {
+		Iterable<?> items;
+		if (values == null) {
+			return List.of();
+		} else if (values instanceof Map<?, ?> map) {
+			items = map.values();
+		} else if (values instanceof Collection<?> c) {
+			items = c;
+		} else if (values instanceof Object[] array) {
+			items = Arrays.asList(array);
+		} else {
+			items = List.of(values);
+		}
+		List<Object> list = new ArrayList<Object>();
+		for (Object v : items) {
+			if (v == null || v instanceof java.util.Date || v instanceof Boolean) {
+				list.add(v);
+			} else if (v instanceof byte[] b) {
+				list.add("[" + b.length + " bytes]");
+			} else {
+				String s = v.toString();
+				if (v instanceof Number && s.length() < 8) {
+					list.add(v);
+				} else {
+					list.add(s.length() <= 4 ? MaskUtils.masking(s) : MaskUtils.masking(s, 2));
+				}
+			}
+		}
+		return list;
+	}
+
+
+	/**
+	 * Hikari metrics tracker, DBManager 에서 생성하는 모든 pool 에 지정된다.
+	 */
+	static MetricsTrackerFactory trackerFactory() {
+		return TRACKER_FACTORY;
+	}
+
+	private static final MetricsTrackerFactory TRACKER_FACTORY = (poolName, poolStats) -> {
+		PoolTracker tracker = new PoolTracker(poolName, poolStats);
+		pools.put(poolName, tracker);
+		return tracker;
+	};
+
+
+	/**
+	 * 현재 집계 구간의 shape 별 통계(총 실행시간 순), pool 통계 및 slow query
+	 */
+	public static LinkedMap<String, Object> getStats() {
+		return snapshot(stats, windowStart, Integer.MAX_VALUE, new ArrayList<Object>(slowQueries));
+	}
+
+	/**
+	 * 보관된 slow query, 최근 순
+	 */
+	public static List<LinkedMap<String, Object>> getSlowQueries() {
+		return new ArrayList<LinkedMap<String, Object>>(slowQueries);
+	}
+
+	/**
+	 * 집계를 초기화한다. pool 누적 통계는 유지된다.
+	 */
+	public static void reset() {
+		stats		= new ConcurrentHashMap<>();
+		windowStart	= System.currentTimeMillis();
+		slowQueries.clear();
+		slowCount.set(0);
+	}
+
+	private static LinkedMap<String, Object> snapshot(Map<String, Stat> window, long start, int top, List<Object> slow) {
+		List<Map.Entry<String, Stat>> entries = new ArrayList<>(window.entrySet());
+		entries.sort(Comparator.comparingLong((Map.Entry<String, Stat> e) -> e.getValue().latency.total()).reversed());
+
+		List<LinkedMap<String, Object>> list = new ArrayList<LinkedMap<String, Object>>();
+		for (Map.Entry<String, Stat> e : entries) {
+			if (list.size() >= top) {
+				break;
+			}
+			Stat s = e.getValue();
+			LinkedMap<String, Object> m = new LinkedMap<String, Object>();
+			m.put("shape"	, e.getKey());
+			m.put("calls"	, s.calls.sum());
+			m.put("errors"	, s.errors.sum());
+			m.put("rows"	, s.rows.sum());
+			s.latency.export(m);
+			list.add(m);
+		}
+
+		List<LinkedMap<String, Object>> poolList = new ArrayList<LinkedMap<String, Object>>();
+		for (PoolTracker p : pools.values()) {
+			poolList.add(p.export());
+		}
+
+		LinkedMap<String, Object> map = new LinkedMap<String, Object>();
+		map.put("since"		, DateUtils.toString(new java.util.Date(start)));
+		map.put("shapes"	, window.size());
+		map.put("statements", list);
+		map.put("pools"		, poolList);
+		map.put("slow"		, slow);
+		return map;
+	}
+
+	/**
+	 * 집계 구간을 마감하고 상위 shape, pool 및 slow query 를 내보낸다.
+	 */
+	private static void report() {
+		Map<String, Stat> window = stats;
+		long start = windowStart;
+		stats		= new ConcurrentHashMap<>();
+		windowStart	= System.currentTimeMillis();
+
+		List<Object> slow = new ArrayList<Object>();
+		for (Iterator<LinkedMap<String, Object>> it = slowQueries.iterator(); it.hasNext();) {
+			slow.add(it.next());
+			it.remove();
+			slowCount.decrementAndGet();
+		}
+		if (window.isEmpty() && slow.isEmpty()) {
+			return;
+		}
+
+		LinkedMap<String, Object> map = snapshot(window, start, REPORT_TOP, slow);
+		map.put("id"		, SystemManager.getProcessId());
+		map.put("regDay"	, DateUtils.getCurrentDay());
+		map.put("regDate"	, DateUtils.getCurrentTimestamp());
+		try {
+			if (Boolean.parseBoolean(System.getProperty(SQL_REPORT_PROPERTY, "false"))) {
+				RedisUtils.rpush(SystemUtils.REDIS_STORAGE_SQL, map);
+			} else {
+				logger.info("sql status : {}", new JacksonUtils().toJson(map));
+			}
+		} catch (Exception e) {
+			logger.info("RedisUtils.rpush failed for SQL monitoring data.", e);
+		}
+	}
+
+
+	private static final class Stat {
+		private final LongAdder calls		= new LongAdder();
+		private final LongAdder errors		= new LongAdder();
+		private final LongAdder rows		= new LongAdder();
+		private final Histogram latency		= new Histogram();
+	}
+
+
+	/**
+	 * 고정 구간 지연시간 histogram, 백분위 값은 해당 구간의 상한(ms)이다.
+	 */
+	static final class Histogram {
+		private static final long[] BOUNDS = {
+			100_000L, 250_000L, 500_000L,
+			1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+			100_000_000L, 250_000_000L, 500_000_000L,
+			1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L, Long.MAX_VALUE
+		};
+
+		private final LongAdder[] buckets	= new LongAdder[BOUNDS.length];
+		private final LongAdder count		= new LongAdder();
+		private final LongAdder sum			= new LongAdder();
+		private final AtomicLong max		= new AtomicLong();
+
+		Histogram() {
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] = new LongAdder();
+			}
+		}
+
+		void record(long nanos) {
+			int i = 0;
+			while (nanos > BOUNDS[i]) {
+				i++;
+			}
+			buckets[i].increment();
+			count.increment();
+			sum.add(nanos);
+			max.accumulateAndGet(nanos, Math::max);
+		}
+
+		long total() {
+			return sum.sum();
+		}
+
+		double percentile(double p) {
+			long n = count.sum();
+			if (n == 0) {
+				return 0.0;
+			}
+			long rank = (long) Math.ceil(n * p);
+			long seen = 0;
+			for (int i = 0; i < buckets.length; i++) {
+				seen += buckets[i].sum();
+				if (seen >= rank) {
+					return millis(Math.min(BOUNDS[i], max.get()));
+				}
+			}
+			return millis(max.get());
+		}
+
+		void export(LinkedMap<String, Object> map) {
+			long n = count.sum();
+			map.put("total"	, millis(sum.sum()));
+			map.put("avg"	, n == 0 ? 0.0 : millis(sum.sum() / n));
+			map.put("p50"	, percentile(0.50));
+			map.put("p95"	, percentile(0.95));
+			map.put("p99"	, percentile(0.99));
+			map.put("max"	, millis(max.get()));
+		}
+
+		private static double millis(long nanos) {
+			return Math.round(nanos / 10_000.0) / 100.0;
+		}
+	}
+
+
+	private static final class PoolTracker implements IMetricsTracker {
+		private final String name;
+		private final PoolStats poolStats;
+		private final Histogram acquire		= new Histogram();
+		private final Histogram usage		= new Histogram();
+		private final LongAdder timeouts	= new LongAdder();
+		private final LongAdder created		= new LongAdder();
+
+		PoolTracker(String name, PoolStats poolStats) {
+			this.name		= name;
+			this.poolStats	= poolStats;
+		}
+
+		@Override
+		public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+			acquire.record(elapsedAcquiredNanos);
+		}
+
+		@Override
+		public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+			usage.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+		}
+
+		@Override
+		public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+			created.increment();
+		}
+
+		@Override
+		public void recordConnectionTimeout() {
+			timeouts.increment();
+		}
+
+		@Override
+		public void close() {
+			pools.remove(name, this);
+		}
+
+		LinkedMap<String, Object> export() {
+			LinkedMap<String, Object> map = new LinkedMap<String, Object>();
+			map.put("pool"		, name);
+			map.put("active"	, poolStats.getActiveConnections());
+			map.put("idle"		, poolStats.getIdleConnections());
+			map.put("total"		, poolStats.getTotalConnections());
+			map.put("pending"	, poolStats.getPendingThreads());
+			map.put("max"		, poolStats.getMaxConnections());
+			map.put("created"	, created.sum());
+			map.put("timeouts"	, timeouts.sum());
+			LinkedMap<String, Object> wait = new LinkedMap<String, Object>();
+			acquire.export(wait);
+			map.put("acquire"	, wait);
+			LinkedMap<String, Object> use = new LinkedMap<String, Object>();
+			usage.export(use);
+			map.put("usage"		, use);
+			return map;
+		}
+	}
+}
@@ -3,6 +3,10 @@ package kr.tx24.lib.db;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -16,7 +20,8 @@ import kr.tx24.lib.map.LinkedMap;
 import kr.tx24.lib.map.ThreadSafeLinkedMap;
 
 /**
- * 
+ * UPDATE 질의 builder
+ * where(column, value ...) 로 추가한 조건은 값이 ? 로 바인딩되어 SET 값과 함께 PreparedStatement 로 실행된다.
  */
 public class Update {
 	private static Logger logger 	= LoggerFactory.getLogger(Update.class);
@@ -27,14 +32,20 @@ public class Update {
 	private static final String RIGHT_OUTER_JOIN	= " RIGHT OUTER JOIN ";
 	private static final String ON					= " ON ";
 	
+	public static final int DEFAULT_BATCH_SIZE		= 1000;
+	
 			
 	
 	
 	private LinkedMap<String,Object> record = new LinkedMap<String,Object>();
-	private StringBuilder where		= new StringBuilder();
+	private WhereClause where		= new WhereClause();
+	private List<Object> values		= new BindValues();
 	private boolean deepview		= false;
 	private String table			= "";	
-	private StringBuilder join 		= new StringBuilder();
+	private String datasource		= null;
+	private List<String> join		= new ArrayList<>();	//JOIN 절을 이루는 문자열, 이어 붙이면 JOIN 절이 된다.
+	private int batchSize			= DEFAULT_BATCH_SIZE;
+	private boolean commitPerChunk	= false;
 	
 	
 	public Update() {
@@ -71,6 +82,17 @@ public class Update {
 		return this;
 	}
 	
+	/**
+	 * db.json 의 datasources 에 지정된 datasource 를 사용한다. 지정하지 않으면 기본 datasource 를 사용한다.
+	 * init() 으로 초기화되지 않는다.
+	 * @param name
+	 * @return
+	 */
+	public Update datasource(String name) {
+		this.datasource = name;
+		return this;
+	}
+	
 	
 	/*
 	 * 테이블 명, 디버그, 레코드, 조건절 등을 초기화한다.
@@ -78,9 +100,32 @@ public class Update {
 	public Update init() {
 		deepview= SystemUtils.deepview();
 		table 	= "";
-		join.setLength(0);
+		join.clear();
 		record.clear();
-		where.setLength(0);
+		where.clear();
+		values.clear();
+		batchSize		= DEFAULT_BATCH_SIZE;
+		commitPerChunk	= false;
+		return this;
+	}
+	
+	/**
+	 * updateBatch 시 한 번에 executeBatch 할 row 수, 기본 1000
+	 * @param batchSize
+	 * @return
+	 */
+	public Update batchSize(int batchSize) {
+		this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+		return this;
+	}
+	
+	/**
+	 * updateBatch 시 chunk 마다 commit 한다.
+	 * 지정하지 않으면 전체 batch 를 하나의 트랜잭션으로 commit 하며 실패 시 전체 rollback 된다.
+	 * @return
+	 */
+	public Update commitPerChunk() {
+		this.commitPerChunk = true;
 		return this;
 	}
 	
@@ -134,7 +179,7 @@ public class Update {
 	 * @return
 	 */
 	public Update joinInner(String tableB,String on) {
-		this.join.append(DBUtils.SPACE + INNER_JOIN + tableB + ON + on);
+		Collections.addAll(this.join, DBUtils.SPACE + INNER_JOIN, tableB, ON, on);
 		return this;
 	}
 	
@@ -148,7 +193,7 @@ public class Update {
 	 * @return
 	 */
 	public Update joinLeftOuter(String tableB,String on) {
-		this.join.append(DBUtils.SPACE + LEFT_OUTER_JOIN + tableB + ON + on);
+		Collections.addAll(this.join, DBUtils.SPACE + LEFT_OUTER_JOIN, tableB, ON, on);
 		return this;
 	}
 	
@@ -162,7 +207,7 @@ public class Update {
 	 * @return
 	 */
 	public Update joinRightOuter(String tableB,String on) {
-		this.join.append(DBUtils.SPACE + RIGHT_OUTER_JOIN + tableB + ON + on);
+		Collections.addAll(this.join, DBUtils.SPACE + RIGHT_OUTER_JOIN, tableB, ON, on);
 		return this;
 	}
 	
@@ -174,11 +219,15 @@ public class Update {
 	 * @return
 	 */
 	public Update join(String join) {
-		this.join.setLength(0);
-		this.join.append(join);
+		this.join.clear();
+		this.join.add(join);
 		return this;
 	}
 	
+	private String joinClause() {
+		return String.join("", join);
+	}
+	
 	
 	
 	/**
@@ -188,8 +237,9 @@ public class Update {
 	 * @return
 	 */
 	public Update whereInit(String condition) {
-		this.where.setLength(0);
-		this.where.append(condition);
+		this.where.clear();
+		this.where.add(DBUtils.AND, condition);
+		this.values.clear();
 		return this;
 	}
 	
@@ -201,11 +251,7 @@ public class Update {
 	 * @return
 	 */
 	public Update where(String condition) {
-		if(this.where.length() == 0) {
-			this.where.append(condition);
-		}else {
-			this.where.append(DBUtils.AND).append(condition);
-		}
+		this.where.add(DBUtils.AND, condition);
 		return this;
 	}
 	
@@ -244,11 +290,7 @@ public class Update {
 	 * @return
 	 */
 	public Update whereOr(String condition) {
-		if(this.where.length() == 0) {
-			this.where.append(condition);
-		}else {
-			this.where.append(DBUtils.OR).append(condition);
-		}
+		this.where.add(DBUtils.OR, condition);
 		return this;
 	}
 	
@@ -300,13 +342,7 @@ public class Update {
 	 */
 	
 	public Update where(String column,Object value,String operator,String logicalOperator){
-		String q = DBUtils.where(column, value, operator, logicalOperator);
-		if(this.where.length() == 0) {
-			this.where.append(q);
-		}else {
-			this.where.append(logicalOperator).append(q);
-		}
-		
+		this.where.add(column, value, operator, logicalOperator, values);
 		return this;
 	}
 	
@@ -320,7 +356,7 @@ public class Update {
 	 */
 	public String build() {
 		StringBuilder sql 	= new StringBuilder();
-		sql.append(UPDATE).append(table).append(DBUtils.SPACE).append(join).append(SET);
+		sql.append(UPDATE).append(table).append(DBUtils.SPACE).append(joinClause()).append(SET);
 		
 		for(Map.Entry<String, Object> entry : record.entrySet()) {
 			sql.append(entry.getKey()).append(DBUtils.EQUAL_SIGN);
@@ -347,10 +383,10 @@ public class Update {
 		sql.deleteCharAt(sql.length() -1);
 
 		sql.append(DBUtils.WHERE);
-		if(where.length() == 0) {
+		if(where.isEmpty()) {
 			sql.append(" UPDATE WITHOUT A CONDITIONAL CLAUSE IS REJECTED!");
 		}else {
-			sql.append(where);
+			sql.append(where.literal());
 		}
 		
 		return sql.toString();
@@ -363,8 +399,45 @@ public class Update {
 	 * @return
 	 */
 	public String buildPreparedQuery() {
+		return buildPreparedQuery(where.literal());
+	}
+	
+	/**
+	 * 설정된 값으로 UPDATE TABLE SET COLUMN= ? WHERE COLUMN= ? 의 쿼리 반환한다.
+	 * 같은 구조의 쿼리는 {@link QueryCache} 에서 반환된다.
+	 * 바인딩 값은 {@link #getBindValues()} 로 확인한다.
+	 * @return
+	 */
+	public String buildBindQuery() {
+		if(!QueryCache.isEnabled()) {
+			return buildPreparedQuery(where.bound());
+		}
+		Object[] shape = new Object[4 + record.size()];
+		shape[0] = UPDATE;
+		shape[1] = table;
+		shape[2] = new ArrayList<>(join);
+		shape[3] = where.shape();
+		int i = 4;
+		for(String key : record.keySet()) {
+			shape[i++] = key;
+		}
+		return QueryCache.get(new QueryCache.Shape(shape), () -> buildPreparedQuery(where.bound()));
+	}
+	
+	/**
+	 * {@link #buildBindQuery()} 의 ? 순서에 맞는 바인딩 값, SET 값 다음에 조건 값이 위치한다.
+	 * @return
+	 */
+	public List<Object> getBindValues() {
+		List<Object> list = new BindValues(record.size(), record.size() + values.size());
+		list.addAll(record.values());
+		list.addAll(values);
+		return list;
+	}
+	
+	private String buildPreparedQuery(String where) {
 		StringBuilder sql 	= new StringBuilder();
-		sql.append(UPDATE).append(table).append(DBUtils.SPACE).append(join).append(SET);
+		sql.append(UPDATE).append(table).append(DBUtils.SPACE).append(joinClause()).append(SET);
 		
 		for(String key : record.keySet()) {
 			sql.append(key)
@@ -399,16 +472,16 @@ public class Update {
 		DBManager db 			= null;
 		PreparedStatement pstmt = null;
 		Connection 	conn		= null;
-		String query			= buildPreparedQuery();
+		String query			= buildBindQuery();
 		int result = 0;
 		
 		long startTime = System.nanoTime();
 		try {
-			db			= DBFactory.get();
+			db			= DBFactory.get(datasource);
 			conn		= db.getConnection();
 			pstmt		= conn.prepareStatement(query);
 			
-			DBUtils.setValues(pstmt,record);
+			DBUtils.setValues(pstmt,getBindValues());
 			
 			/* 아래 코드도 정상 동작할 것이다. 그러나 정확한 형변환을하기 위하여 위의 방법을 사용한다.
 			List<Object> list = new ArrayList<>(record.values());
@@ -417,12 +490,15 @@ public class Update {
 			}*/	
 			result  	= pstmt.executeUpdate();
 			conn.commit();
+			if(result > 0) ResultCache.invalidate(table);
 		}catch(Exception t){
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			db.close(pstmt);
 			db.close(conn);
 			
+			SqlMetrics.record(query, startTime, result, this::getBindValues);
 			if(deepview) {
 				logger.info("query : {} = [{}]",result,build());
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -446,16 +522,16 @@ public class Update {
 		DBManager db 			= null;
 		PreparedStatement pstmt = null;
 		Connection 	conn		= null;
-		String query			= buildPreparedQuery();
+		String query			= buildBindQuery();
 		int result = 0;
 		
 		long startTime = System.nanoTime();
 		try {
-			db			= DBFactory.get();
+			db			= DBFactory.get(datasource);
 			conn		= db.getConnection();
 			pstmt		= conn.prepareStatement(query);
 			
-			DBUtils.setValues(pstmt,record);
+			DBUtils.setValues(pstmt,getBindValues());
 			
 			/* 아래 코드도 정상 동작할 것이다. 그러나 정확한 형변환을하기 위하여 위의 방법을 사용한다.
 			List<Object> list = new ArrayList<>(record.values());
@@ -464,12 +540,15 @@ public class Update {
 			}*/	
 			result  	= pstmt.executeUpdate();
 			conn.commit();
+			if(result > 0) ResultCache.invalidate(table);
 		}catch(Exception t){
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			db.close(pstmt);
 			db.close(conn);
 			
+			SqlMetrics.record(query, startTime, result, this::getBindValues);
 			if(deepview) {
 				logger.info("query : {} = [{}]",result,build());
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -480,6 +559,93 @@ public class Update {
 	}
 	
 	
+	/**
+	 * 여러 row 를 PREPARED 형태로 batchSize 단위 executeBatch 하여 UPDATE 한 후 INIT 이 호출된다.
+	 * UPDATE TABLE SET (keyColumns 를 제외한 컬럼)=? WHERE keyColumn=? AND ... 로 실행되며
+	 * where() 로 지정한 조건이 있으면 AND 로 추가된다. 컬럼은 첫 번째 record 의 key 순서를 사용한다.
+	 * 예. updateBatch(list, "id")
+	 * @param records
+	 * @param keyColumns 각 row 를 식별하는 컬럼, record 에 포함되어 있어야 한다.
+	 * @return 수정된 row 수, 실패 시 commit 된 row 수 (commitPerChunk 가 아니면 0)
+	 */
+	public int updateBatch(List<? extends Map<String, ?>> records, String... keyColumns){
+		if(records == null || records.isEmpty()) {
+			init();
+			return 0;
+		}
+		
+		List<String> keys		= Arrays.asList(keyColumns);
+		List<String> columns	= new ArrayList<>();
+		for(String column : records.get(0).keySet()) {
+			if(!keys.contains(column)) {
+				columns.add(column);
+			}
+		}
+		
+		WhereClause condition	= new WhereClause();
+		for(String key : keys) {
+			condition.add(DBUtils.AND, key + DBUtils.EQUAL_SIGN + DBUtils.QUESTION_MARK);
+		}
+		if(!where.isEmpty()) {
+			condition.add(DBUtils.AND, where);
+		}
+		List<Object> trailing	= new ArrayList<>(values);
+		where	= condition;
+		values.clear();
+		
+		record.clear();
+		for(String column : columns) {
+			record.put(column, null);
+		}
+		int filtered			= columns.size();		//key 컬럼과 trailing 은 조건 값
+		columns.addAll(keys);
+		String[] binds			= columns.toArray(new String[0]);
+		
+		DBManager db 			= null;
+		PreparedStatement pstmt = null;
+		Connection 	conn		= null;
+		String query			= buildBindQuery();
+		int result 		= 0;
+		int committed	= 0;
+		
+		long startTime = System.nanoTime();
+		try {
+			db			= DBFactory.get(datasource);
+			conn		= db.getConnection();
+			conn.setAutoCommit(false);
+			pstmt		= conn.prepareStatement(query);
+			
+			for(int from = 0; from < records.size(); from += batchSize) {
+				result += DBUtils.executeBatch(pstmt, records.subList(from, Math.min(from + batchSize, records.size())), binds, filtered, trailing);
+				if(commitPerChunk) {
+					conn.commit();
+					committed = result;
+				}
+			}
+			
+			conn.commit();
+			committed = result;
+		}catch(Exception t){
+			try { 	conn.rollback(); }catch(Exception s) {}
+			SqlMetrics.error(query);
+			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+		}finally {
+			db.close(pstmt);
+			db.close(conn);
+			if(committed > 0) ResultCache.invalidate(table);
+			
+			SqlMetrics.record(query, startTime, result, null);
+			if(deepview) {
+				logger.info("query : {} = [{}/{}], batchSize {}",query,committed,records.size(),batchSize);
+				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
+			}
+			
+			init();
+		}
+		return committed;
+	}
+	
+	
 	/**
 	 * 지정된 쿼리를 실행한다.
 	 * @param query
@@ -495,17 +661,19 @@ public class Update {
 		
 		long startTime = System.nanoTime();
 		try {
-			db			= DBFactory.get();
+			db			= DBFactory.get(datasource);
 			conn		= db.getConnection();
 			pstmt		= conn.prepareStatement(query);	
 			result  	= pstmt.executeUpdate();
 			conn.commit();
 		}catch(Exception t){
+			SqlMetrics.error(query);
 			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
 		}finally {
 			db.close(pstmt);
 			db.close(conn);
 			
+			SqlMetrics.record(query, startTime, result, null);
 			if(deepview) {
 				logger.info("query : {} = [{}]",result,query);
 				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
@@ -521,6 +689,14 @@ public class Update {
 		return record;
 	}
 	
+	public String getTable(){
+		return table;
+	}
+	
+	public String getDatasource(){
+		return datasource;
+	}
+	
 	
 	
 	
@@ -532,8 +708,10 @@ public class Update {
      */
     public CompletableFuture<Integer> updateAsync() {
         // 스레드 안전성을 위한 불변 복사본
-        final LinkedMap<String, Object> snapshot = new LinkedMap<>(record);
-        final String query = buildPreparedQuery();
+        final List<Object> snapshot = getBindValues();
+        final String query = buildBindQuery();
+        final String target = table;
+        final String source = datasource;
         final boolean enableLog = deepview;
         
         return CompletableFuture.supplyAsync(() -> {
@@ -544,7 +722,7 @@ public class Update {
             long startTime = System.nanoTime();
 
             try {
-                db = DBFactory.get();
+                db = DBFactory.get(source);
                 conn = db.getConnection();
                 conn.setAutoCommit(false);
                 
@@ -553,6 +731,7 @@ public class Update {
                 result = pstmt.executeUpdate();
                 
                 conn.commit();
+                if (result > 0) ResultCache.invalidate(target);
                 
                 if (enableLog) {
                     logger.info("Async update completed: {} row(s) updated", result);
@@ -566,6 +745,7 @@ public class Update {
                         logger.error("Rollback failed", rollbackEx);
                     }
                 }
+                SqlMetrics.error(query);
                 logger.error("Async update failed: {}", CommonUtils.getExceptionMessage(e));
                 throw new RuntimeException("Async update failed", e);
                 
@@ -575,6 +755,7 @@ public class Update {
                     db.close(conn);
                 }
                 
+                SqlMetrics.record(query, startTime, result, snapshot);
                 if (enableLog) {
                     logger.info("Async update query: [{}]", query);
                     logger.info(SystemUtils.getElapsedTime(System.nanoTime() - startTime));
@@ -0,0 +1,469 @@
+package kr.tx24.lib.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import kr.tx24.lib.lang.CommonUtils;
+import kr.tx24.lib.lang.SystemUtils;
+import kr.tx24.lib.map.LinkedMap;
+
+/**
+ * MariaDB/MySQL multi-row INSERT ... ON DUPLICATE KEY UPDATE builder
+ *
+ * <p>여러 row 를 {@code INSERT INTO t (..) VALUES (?,..),(?,..) ON DUPLICATE KEY UPDATE ..} 한 문장으로 전송하여
+ * 조회 후 INSERT/UPDATE 하는 두 번의 왕복과 그 사이의 경합 없이 카운터, 집계 테이블을 갱신한다.
+ * 중복 key 인 row 의 컬럼별 처리는 {@link Merge} 로 지정한다.</p>
+ *
+ * <pre>
+ * new Upsert("settle_daily")
+ *     .key("day", "mid")
+ *     .increment("cnt", "amount")
+ *     .replace("updated")
+ *     .upsert(records);
+ * </pre>
+ *
+ * <p>한 문장의 크기는 row 값의 예상 크기로 서버의 max_allowed_packet 의 절반, 바인딩 변수 65535 개,
+ * {@link #batchSize(int)} row 를 넘지 않도록 나누어 실행한다.</p>
+ */
+public class Upsert {
+	private static Logger logger 	= LoggerFactory.getLogger(Upsert.class);
+
+	private static final String INSERT_INTO			= "INSERT INTO ";
+	private static final String VALUES				= ") VALUES ";
+	private static final String ON_DUPLICATE		= " ON DUPLICATE KEY UPDATE ";
+	private static final String PACKET_QUERY		= "SELECT @@max_allowed_packet";
+
+	public static final int DEFAULT_BATCH_SIZE		= 1000;
+	public static final int DEFAULT_MAX_PACKET		= 4 * 1024 * 1024;
+	private static final int MAX_PARAMETERS			= 65535;
+	private static final int ROW_OVERHEAD			= 8;
+
+	private static final Map<String, Integer> maxPackets = new ConcurrentHashMap<>();	//datasource 별 max_allowed_packet
+
+	/**
+	 * 중복 key 인 row 의 컬럼 처리 방법
+	 */
+	public enum Merge {
+		/** col = col + VALUES(col) */
+		INCREMENT,
+		/** col = VALUES(col), 지정하지 않은 컬럼의 기본값 */
+		REPLACE,
+		/** 기존 값을 유지 */
+		KEEP
+	}
+
+	private LinkedMap<String,Object> record = new LinkedMap<String,Object>();
+	private LinkedMap<String,Merge> merges	= new LinkedMap<String,Merge>();
+	private boolean deepview		= false;
+	private String table			= "";
+	private String datasource		= null;
+	private int batchSize			= DEFAULT_BATCH_SIZE;
+	private int maxPacket			= 0;
+	private boolean commitPerChunk	= false;
+
+
+
+	public Upsert() {
+		this.deepview	= SystemUtils.deepview();
+	}
+
+	/**
+	 * TABLE 명 지정
+	 * @param table
+	 */
+	public Upsert(String table) {
+		this.table 		= table;
+		this.deepview	= SystemUtils.deepview();
+	}
+
+	/**
+	 * TABLE 명 지정 및 LOG 출력 여부
+	 * @param table
+	 * @param debug
+	 */
+	public Upsert(String table,boolean debug) {
+		this.table 		= table;
+		this.deepview	= debug;
+	}
+
+	/**
+	 * TABLE 명 지정
+	 * @param table
+	 * @return
+	 */
+	public Upsert table(String table) {
+		this.table = table;
+		return this;
+	}
+
+	/**
+	 * db.json 의 datasources 에 지정된 datasource 를 사용한다. 지정하지 않으면 기본 datasource 를 사용한다.
+	 * init() 으로 초기화되지 않는다.
+	 * @param name
+	 * @return
+	 */
+	public Upsert datasource(String name) {
+		this.datasource = name;
+		return this;
+	}
+
+	/**
+	 * 중복 판단에 사용되는 key 컬럼, 중복 시 변경하지 않는다. (KEEP)
+	 * 중복 판단은 테이블의 PRIMARY/UNIQUE key 로 서버가 수행한다.
+	 * @param columns
+	 * @return
+	 */
+	public Upsert key(String... columns) {
+		return merge(Merge.KEEP, columns);
+	}
+
+	/**
+	 * 중복 시 기존 값에 입력 값을 더한다. col = col + VALUES(col)
+	 * @param columns
+	 * @return
+	 */
+	public Upsert increment(String... columns) {
+		return merge(Merge.INCREMENT, columns);
+	}
+
+	/**
+	 * 중복 시 입력 값으로 변경한다. col = VALUES(col)
+	 * @param columns
+	 * @return
+	 */
+	public Upsert replace(String... columns) {
+		return merge(Merge.REPLACE, columns);
+	}
+
+	/**
+	 * 중복 시 기존 값을 유지한다. (최초 입력 일시 등)
+	 * @param columns
+	 * @return
+	 */
+	public Upsert keep(String... columns) {
+		return merge(Merge.KEEP, columns);
+	}
+
+	/**
+	 * 컬럼별 중복 시 처리 방법을 지정한다. 지정하지 않은 컬럼은 REPLACE
+	 * @param merge
+	 * @param columns
+	 * @return
+	 */
+	public Upsert merge(Merge merge, String... columns) {
+		for(String column : columns) {
+			merges.put(column, merge);
+		}
+		return this;
+	}
+
+	/**
+	 * upsert(records) 시 한 문장에 포함할 최대 row 수, 기본 1000
+	 * @param batchSize
+	 * @return
+	 */
+	public Upsert batchSize(int batchSize) {
+		this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+		return this;
+	}
+
+	/**
+	 * 한 문장의 최대 크기(byte), 지정하지 않으면 서버의 max_allowed_packet 을 사용한다.
+	 * @param bytes
+	 * @return
+	 */
+	public Upsert maxPacket(int bytes) {
+		this.maxPacket = Math.max(0, bytes);
+		return this;
+	}
+
+	/**
+	 * upsert(records) 시 문장마다 commit 한다.
+	 * 지정하지 않으면 전체를 하나의 트랜잭션으로 commit 하며 실패 시 전체 rollback 된다.
+	 * @return
+	 */
+	public Upsert commitPerChunk() {
+		this.commitPerChunk = true;
+		return this;
+	}
+
+
+	/*
+	 * 테이블 명, 디버그, 레코드, 컬럼별 처리 방법 등을 초기화한다.
+	 */
+	public Upsert init() {
+		table 	= "";
+		deepview= SystemUtils.deepview();
+		record.clear();
+		merges.clear();
+		batchSize		= DEFAULT_BATCH_SIZE;
+		maxPacket		= 0;
+		commitPerChunk	= false;
+		return this;
+	}
+
+	/**
+	 * 디버거 활성화 , 디버그는 기본 설정된 config 값을 사용한다.
+	 * 디버그를 활성화 용도로만 사용된다.
+	 * @return
+	 */
+	public Upsert debug() {
+		deepview = true;
+		return this;
+	}
+
+
+	/**
+	 * Map 구조의 Key = Column name , Value = Column value 를 추가한다.
+	 * @param map
+	 * @return
+	 */
+	public Upsert record(Map<? extends String, ? extends Object> map) {
+		record.putAll(map);
+		return this;
+	}
+
+	/**
+	 * 컬럼 이름과 값을 추가한다.
+	 * @param column
+	 * @param value
+	 */
+	public Upsert record(String column,Object value){
+		record.put(column, value);
+		return this;
+	}
+
+
+	/**
+	 * rows 개 row 의 Prepared Query string
+	 * @param columns
+	 * @param rows
+	 * @return
+	 */
+	public String buildPreparedQuery(String[] columns, int rows) {
+		StringBuilder sql 	= new StringBuilder();
+		StringBuilder val 	= new StringBuilder();
+		sql.append(INSERT_INTO).append(table).append(DBUtils.SPACE).append(DBUtils.LEFT_PARENTHESIS);
+
+		val.append(DBUtils.LEFT_PARENTHESIS);
+		for(int i = 0; i < columns.length; i++) {
+			if(i > 0) {
+				sql.append(DBUtils.COMMA);
+				val.append(DBUtils.COMMA);
+			}
+			sql.append(columns[i]);
+			val.append(DBUtils.QUESTION_MARK);
+		}
+		val.append(DBUtils.RIGHT_PARENTHESIS);
+
+		sql.append(VALUES);
+		for(int i = 0; i < rows; i++) {
+			if(i > 0) {
+				sql.append(DBUtils.COMMA);
+			}
+			sql.append(val);
+		}
+
+		sql.append(ON_DUPLICATE).append(buildUpdate(columns));
+		return sql.toString();
+	}
+
+	/**
+	 * ON DUPLICATE KEY UPDATE 절, 모든 컬럼이 KEEP 이면 첫 번째 컬럼을 그대로 둔다. (col = col)
+	 */
+	private String buildUpdate(String[] columns) {
+		StringBuilder sb = new StringBuilder();
+		for(String column : columns) {
+			Merge merge = merges.getOrDefault(column, Merge.REPLACE);
+			if(merge == Merge.KEEP) {
+				continue;
+			}
+			if(sb.length() > 0) {
+				sb.append(DBUtils.COMMA);
+			}
+			sb.append(column).append(DBUtils.EQUAL_SIGN);
+			if(merge == Merge.INCREMENT) {
+				sb.append(column).append(" + ");
+			}
+			sb.append("VALUES(").append(column).append(DBUtils.RIGHT_PARENTHESIS);
+		}
+		if(sb.length() == 0) {
+			sb.append(columns[0]).append(DBUtils.EQUAL_SIGN).append(columns[0]);
+		}
+		return sb.toString();
+	}
+
+
+	/**
+	 * record 로 설정된 한 row 를 INSERT 하거나 중복 시 갱신한 후 INIT 이 호출된다.
+	 * @return 영향 받은 row 수 (입력 1, 갱신 2, 변경 없음 0)
+	 */
+	public int upsert() {
+		if(record.isEmpty()) {
+			init();
+			return 0;
+		}
+		return upsert(List.of(new LinkedMap<String,Object>(record)));
+	}
+
+
+	/**
+	 * 여러 row 를 multi-row INSERT ... ON DUPLICATE KEY UPDATE 로 실행한 후 INIT 이 호출된다.
+	 * 컬럼은 첫 번째 record 의 key 순서를 사용하며, 이후 record 에 없는 컬럼은 NULL 로 입력된다.
+	 * 같은 key 의 row 가 여러 개이면 순서대로 적용된다. (INCREMENT 는 합산)
+	 * @param records
+	 * @return 영향 받은 row 수 (입력 1, 갱신 2, 변경 없음 0 의 합), 실패 시 commit 된 수 (commitPerChunk 가 아니면 0)
+	 */
+	public int upsert(List<? extends Map<String, ?>> records){
+		if(records == null || records.isEmpty()) {
+			init();
+			return 0;
+		}
+
+		String[] columns		= records.get(0).keySet().toArray(new String[0]);
+		int maxRows				= Math.max(1, Math.min(batchSize, MAX_PARAMETERS / columns.length));
+
+		DBManager db 			= null;
+		PreparedStatement pstmt = null;
+		Connection 	conn		= null;
+		String query			= null;
+		int prepared			= 0;		//pstmt 의 row 수
+		int result 		= 0;
+		int committed	= 0;
+		int statements	= 0;
+
+		long startTime = System.nanoTime();
+		try {
+			db			= DBFactory.get(datasource);
+			conn		= db.getConnection();
+			conn.setAutoCommit(false);
+			long limit	= (maxPacket > 0 ? maxPacket : maxPacket(conn)) / 2;
+
+			int from = 0;
+			while(from < records.size()) {
+				int to		= from;
+				long size	= 0;
+				while(to < records.size() && to - from < maxRows) {
+					long rowSize = estimate(records.get(to), columns);
+					if(to > from && size + rowSize > limit) {
+						break;
+					}
+					size += rowSize;
+					to++;
+				}
+
+				int rows = to - from;
+				if(pstmt == null || prepared != rows) {
+					db.close(pstmt);
+					query	= buildPreparedQuery(columns, rows);
+					pstmt	= conn.prepareStatement(query);
+					prepared= rows;
+				}
+
+				long chunkStart = System.nanoTime();
+				Object[] values = new Object[rows * columns.length];
+				int idx = 0;
+				for(int i = from; i < to; i++) {
+					Map<String, ?> row = records.get(i);
+					for(String column : columns) {
+						values[idx++] = row.get(column);
+					}
+				}
+				DBUtils.setValues(pstmt, values);
+				result += pstmt.executeUpdate();
+				statements++;
+				SqlMetrics.record(query, chunkStart, rows, null);
+
+				if(commitPerChunk) {
+					conn.commit();
+					committed = result;
+				}
+				from = to;
+			}
+
+			conn.commit();
+			committed = result;
+		}catch(Exception t){
+			try { 	conn.rollback(); }catch(Exception s) {}
+			if(query != null) SqlMetrics.error(query);
+			logger.warn("sql error : {}",CommonUtils.getExceptionMessage(t));
+		}finally {
+			if(db != null) {
+				db.close(pstmt);
+				db.close(conn);
+			}
+			if(committed > 0) ResultCache.invalidate(table);
+
+			if(deepview) {
+				logger.info("query : {} = [{}/{}], statements {}",buildPreparedQuery(columns, 1),committed,records.size(),statements);
+				logger.info(SystemUtils.getElapsedTime(System.nanoTime()- startTime));
+			}
+
+			init();
+		}
+		return committed;
+	}
+
+
+	/**
+	 * 서버의 max_allowed_packet, datasource 별로 한 번 조회한다. 조회할 수 없으면 {@link #DEFAULT_MAX_PACKET}
+	 */
+	private int maxPacket(Connection conn) {
+		String key = datasource == null ? "" : datasource;
+		Integer cached = maxPackets.get(key);
+		if(cached != null) {
+			return cached;
+		}
+		int packet = DEFAULT_MAX_PACKET;
+		try(PreparedStatement ps = conn.prepareStatement(PACKET_QUERY); ResultSet rs = ps.executeQuery()) {
+			if(rs.next() && rs.getLong(1) > 0) {
+				packet = (int) Math.min(Integer.MAX_VALUE, rs.getLong(1));
+			}
+		}catch(Exception e) {
+			logger.info("max_allowed_packet : {}, use {}", CommonUtils.getExceptionMessage(e), packet);
+		}
+		maxPackets.put(key, packet);
+		return packet;
+	}
+
+	/**
+	 * row 가 문장에서 차지할 예상 크기(byte), 문자열은 문자당 UTF-8 최대 3 byte 로 계산한다.
+	 */
+	private static long estimate(Map<String, ?> row, String[] columns) {
+		long size = ROW_OVERHEAD;
+		for(String column : columns) {
+			Object value = row.get(column);
+			if(value == null) {
+				size += 4;
+			}else if(value instanceof Number || value instanceof Boolean) {
+				size += 24;
+			}else if(value instanceof byte[] b) {
+				size += b.length * 2L + 4;
+			}else {
+				size += CommonUtils.toString(value).length() * 3L + 4;
+			}
+		}
+		return size;
+	}
+
+
+	public LinkedMap<String,Object> getRecord(){
+		return record;
+	}
+
+	public String getTable(){
+		return table;
+	}
+
+	public String getDatasource(){
+		return datasource;
+	}
+}
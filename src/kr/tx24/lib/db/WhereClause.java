@@ -0,0 +1,150 @@
+package kr.tx24.lib.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import kr.tx24.lib.lang.CommonUtils;
+
+/**
+ * Retrieve, Update, Delete 의 WHERE 조건
+ *
+ * <p>where() 호출 시에는 조건의 구조(컬럼, operator, 논리 연산자, 바인딩 형태)와 값만 보관하며
+ * 바인딩 값은 호출 시점에 values 에 추가한다. 값이 포함된 조건절({@link #literal()})과
+ * ? 로 바인딩된 조건절({@link #bound()})은 쿼리를 만들 때 생성한다.</p>
+ */
+final class WhereClause {
+
+	private final List<Term> terms = new ArrayList<>();
+
+
+	/**
+	 * 완성형 조건(A=B)을 추가한다.
+	 */
+	WhereClause add(String logicalOperator, String condition) {
+		terms.add(new Term(logicalOperator, condition, null, null, condition, null));
+		return this;
+	}
+
+	/**
+	 * {@link DBUtils#where(String, Object, String, String, List)} 와 같은 조건을 추가하고 바인딩 값을 values 에 추가한다.
+	 */
+	WhereClause add(String column, Object value, String operator, String logicalOperator, List<Object> values) {
+		String shape = "";
+		if(!CommonUtils.isNull(column)) {
+			String op = CommonUtils.isNull(operator) ? DBUtils.eq : operator.toLowerCase();
+			shape = DBUtils.bind(column, value, op, logicalOperator, values);
+			operator = op;
+		}
+		terms.add(new Term(logicalOperator, column, value, operator, shape, null));
+		return this;
+	}
+
+	/**
+	 * 다른 조건 전체를 괄호로 묶어 추가한다.
+	 */
+	WhereClause add(String logicalOperator, WhereClause group) {
+		terms.add(new Term(logicalOperator, null, null, null, null, group));
+		return this;
+	}
+
+	void clear() {
+		terms.clear();
+	}
+
+	boolean isEmpty() {
+		for(Term term : terms) {
+			if(!term.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 값과 무관한 조건의 구조, 조건마다 (논리 연산자, 컬럼, operator, 바인딩 형태) 를 순서대로 담는다.
+	 * 쿼리 문자열을 만들지 않고 {@link QueryCache} 의 key 로 사용한다.
+	 */
+	List<Object> shape() {
+		List<Object> key = new ArrayList<>(terms.size() * 4);
+		shape(key);
+		return key;
+	}
+
+	private void shape(List<Object> key) {
+		for(Term term : terms) {
+			key.add(term.logicalOperator);
+			if(term.group != null) {
+				key.add(DBUtils.LEFT_PARENTHESIS);
+				term.group.shape(key);
+				key.add(DBUtils.RIGHT_PARENTHESIS);
+			}else {
+				key.add(term.column);
+				key.add(term.operator);
+				key.add(term.shape);
+			}
+		}
+	}
+
+	/**
+	 * 값이 쿼리에 포함된 조건절
+	 */
+	String literal() {
+		return render(false);
+	}
+
+	/**
+	 * 값이 ? 로 바인딩된 조건절
+	 */
+	String bound() {
+		return render(true);
+	}
+
+	private String render(boolean bind) {
+		StringBuilder sb = new StringBuilder();
+		for(Term term : terms) {
+			String condition = term.render(bind);
+			if(sb.length() == 0) {
+				sb.append(condition);
+			}else {
+				sb.append(term.logicalOperator).append(condition);
+			}
+		}
+		return sb.toString();
+	}
+
+
+	/**
+	 * 조건 하나, group 이 있으면 괄호로 묶은 조건이고 shape 가 condition 과 같으면 완성형 조건이다.
+	 */
+	private static final class Term {
+		private final String logicalOperator;
+		private final String column;
+		private final Object value;
+		private final String operator;
+		private final String shape;
+		private final WhereClause group;
+
+		Term(String logicalOperator, String column, Object value, String operator, String shape, WhereClause group) {
+			this.logicalOperator	= logicalOperator;
+			this.column				= column;
+			this.value				= value;
+			this.operator			= operator;
+			this.shape				= shape;
+			this.group				= group;
+		}
+
+		boolean isEmpty() {
+			return group != null ? group.isEmpty() : shape == null || shape.isEmpty();
+		}
+
+		String render(boolean bind) {
+			if(group != null) {
+				return DBUtils.LEFT_PARENTHESIS + group.render(bind) + DBUtils.RIGHT_PARENTHESIS;
+			}
+			if(operator == null) {
+				return shape;
+			}
+			return bind ? DBUtils.bound(column, operator, shape) : DBUtils.where(column, value, operator, logicalOperator);
+		}
+	}
+}
@@ -0,0 +1,473 @@
+package kr.tx24.lib.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import kr.tx24.lib.lang.CommonUtils;
+import kr.tx24.lib.map.LinkedMap;
+
+/**
+ * 테이블별 비동기 INSERT 버퍼 (write-behind)
+ *
+ * <p>요청 처리 thread 는 record 를 lock-free 버퍼에 넣고 바로 반환하며,
+ * (datasource, 테이블) 마다 하나의 background thread 가 batchSize 에 도달하거나 flushInterval 이 지나면
+ * addBatch/executeBatch 로 모아서 INSERT 한다. 실패한 batch 는 retry 후 {@link Builder#onFailure} 로 전달된다.
+ * 프로세스 종료 시 {@link kr.tx24.lib.lifecycle.SystemManager} 가 DBManager 종료 전에 {@link #shutdown()} 을 호출하여 남은 record 를 기록한다.</p>
+ *
+ * <pre>{@code
+ * WriteBehind.builder("TRX_LOG").capacity(100000).batchSize(500).flushInterval(200).build();
+ * ...
+ * WriteBehind.get("TRX_LOG").offer(record);
+ * // 또는 new Create("TRX_LOG").record(record).insertBehind();
+ * // datasource 지정 시 WriteBehind.builder("TRX_LOG").datasource("settle").build(), WriteBehind.get("settle", "TRX_LOG")
+ * }</pre>
+ *
+ * <p>버퍼에 있는 record 는 DB 에 기록되기 전이므로 프로세스가 비정상 종료되면 유실될 수 있다.
+ * 유실이 허용되지 않는 데이터에는 사용하지 않는다.</p>
+ */
+public class WriteBehind {
+	private static Logger logger 	= LoggerFactory.getLogger(WriteBehind.class);
+
+	public static final int DEFAULT_CAPACITY		= 50000;
+	public static final int DEFAULT_BATCH_SIZE		= 500;
+	public static final long DEFAULT_FLUSH_INTERVAL	= 200;		// ms
+	public static final int DEFAULT_RETRIES			= 3;
+	public static final long DEFAULT_RETRY_DELAY	= 500;		// ms
+	public static final long SHUTDOWN_TIMEOUT		= 10000;	// ms
+
+	private static final Map<Key, WriteBehind> INSTANCES = new ConcurrentHashMap<>();
+
+	/**
+	 * 버퍼가 가득 찼을 때의 처리
+	 */
+	public enum Overflow {
+		/** 새 record 를 버린다. */
+		DROP_NEWEST,
+		/** 가장 오래된 record 를 버리고 새 record 를 넣는다. */
+		DROP_OLDEST,
+		/** offerTimeout 동안 공간이 생기기를 기다리고, 그래도 없으면 새 record 를 버린다. */
+		BLOCK
+	}
+
+	private record Entry(long enqueued, Map<String, Object> record) {}
+
+	/** datasource 는 기본 datasource 이면 null */
+	private record Key(String datasource, String table) {}
+
+
+	private final String table;
+	private final int capacity;
+	private final int batchSize;
+	private final long flushIntervalNanos;
+	private final Overflow overflow;
+	private final long offerTimeoutNanos;
+	private final int retries;
+	private final long retryDelay;
+	private final Consumer<List<Map<String, Object>>> onFailure;
+	private final String datasource;
+
+	private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size	= new AtomicInteger();
+	private final Thread flusher;
+	private volatile boolean running	= true;
+
+	private final LongAdder enqueued	= new LongAdder();
+	private final LongAdder dropped		= new LongAdder();
+	private final LongAdder flushed		= new LongAdder();
+	private final LongAdder failed		= new LongAdder();
+	private final LongAdder batches		= new LongAdder();
+	private final LongAdder retried		= new LongAdder();
+	private volatile int lastBatchSize	= 0;
+	private volatile long lastFlushNanos= 0;
+	private volatile long lastLagNanos	= 0;
+
+
+	private WriteBehind(Builder builder) {
+		this.table				= builder.table;
+		this.capacity			= builder.capacity;
+		this.batchSize			= builder.batchSize;
+		this.flushIntervalNanos	= TimeUnit.MILLISECONDS.toNanos(builder.flushInterval);
+		this.overflow			= builder.overflow;
+		this.offerTimeoutNanos	= TimeUnit.MILLISECONDS.toNanos(builder.offerTimeout);
+		this.retries			= builder.retries;
+		this.retryDelay			= builder.retryDelay;
+		this.onFailure			= builder.onFailure;
+		this.datasource			= builder.datasource;
+
+		this.flusher = new Thread(this::run, "write-behind-" + (datasource == null ? "" : datasource + "-") + table);
+		this.flusher.setDaemon(true);
+		this.flusher.start();
+	}
+
+
+	public static Builder builder(String table) {
+		return new Builder(table);
+	}
+
+	/**
+	 * 기본 datasource 에 등록된 테이블의 버퍼, 없으면 기본 설정으로 생성한다.
+	 * @param table
+	 * @return
+	 */
+	public static WriteBehind get(String table) {
+		return get(null, table);
+	}
+
+	/**
+	 * datasource 에 등록된 테이블의 버퍼, 없으면 기본 설정으로 생성한다.
+	 * @param datasource db.json 의 datasources 이름, null 이면 기본 datasource
+	 * @param table
+	 * @return
+	 */
+	public static WriteBehind get(String datasource, String table) {
+		WriteBehind wb = INSTANCES.get(new Key(datasource, table));
+		return wb != null ? wb : builder(table).datasource(datasource).build();
+	}
+
+	/**
+	 * 모든 버퍼의 남은 record 를 기록하고 종료한다. 최대 {@link #SHUTDOWN_TIMEOUT} 동안 기다린다.
+	 */
+	public static void shutdown() {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT);
+		for (WriteBehind wb : INSTANCES.values()) {
+			wb.running = false;
+			LockSupport.unpark(wb.flusher);
+		}
+		for (WriteBehind wb : INSTANCES.values()) {
+			try {
+				wb.flusher.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (wb.size.get() > 0) {
+				logger.warn("write-behind {} : {} record(s) not flushed before shutdown", wb.table, wb.size.get());
+			}
+		}
+		INSTANCES.clear();
+	}
+
+	/**
+	 * 모든 버퍼의 통계
+	 */
+	public static List<LinkedMap<String, Object>> getStatsAll() {
+		List<LinkedMap<String, Object>> list = new ArrayList<>();
+		for (WriteBehind wb : INSTANCES.values()) {
+			list.add(wb.getStats());
+		}
+		return list;
+	}
+
+
+	/**
+	 * record 를 버퍼에 넣는다. record 는 복사되므로 호출 후 변경해도 된다.
+	 * @param record Key = Column name , Value = Column value
+	 * @return 버퍼에 들어가지 못하고 버려지면 false
+	 */
+	public boolean offer(Map<String, ?> record) {
+		if (!running) {
+			dropped.increment();
+			return false;
+		}
+
+		long deadline = 0;
+		int reserved;
+		while (true) {
+			int current = size.get();
+			if (current < capacity) {
+				if (size.compareAndSet(current, current + 1)) {
+					reserved = current + 1;
+					break;
+				}
+				continue;
+			}
+			if (overflow == Overflow.DROP_NEWEST) {
+				dropped.increment();
+				return false;
+			} else if (overflow == Overflow.DROP_OLDEST) {
+				if (queue.poll() != null) {
+					size.decrementAndGet();
+					dropped.increment();
+				}
+			} else {
+				long now = System.nanoTime();
+				if (deadline == 0) {
+					deadline = now + offerTimeoutNanos;
+				} else if (now - deadline > 0 || !running) {
+					dropped.increment();
+					return false;
+				}
+				LockSupport.unpark(flusher);
+				LockSupport.parkNanos(100_000);
+			}
+		}
+
+		queue.add(new Entry(System.nanoTime(), new LinkedHashMap<>(record)));
+		enqueued.increment();
+		if (reserved % batchSize == 0) {
+			LockSupport.unpark(flusher);
+		}
+		return true;
+	}
+
+
+	private void run() {
+		List<Map<String, Object>> batch = new ArrayList<>(batchSize);
+		while (running || size.get() > 0) {
+			if (running && size.get() < batchSize) {
+				LockSupport.parkNanos(this, flushIntervalNanos);
+			}
+
+			Entry entry;
+			while ((entry = queue.poll()) != null) {
+				if (batch.isEmpty()) {
+					lastLagNanos = System.nanoTime() - entry.enqueued();
+				}
+				batch.add(entry.record());
+				size.decrementAndGet();
+				if (batch.size() == batchSize) {
+					flush(batch);
+					batch.clear();
+					if (running && size.get() < batchSize) {
+						break;
+					}
+				}
+			}
+			if (!batch.isEmpty()) {
+				flush(batch);
+				batch.clear();
+			}
+		}
+	}
+
+
+	/**
+	 * 컬럼 구성이 같은 record 끼리 모아 INSERT 한다.
+	 */
+	private void flush(List<Map<String, Object>> batch) {
+		Map<Set<String>, List<Map<String, Object>>> groups = new LinkedHashMap<>();
+		for (Map<String, Object> record : batch) {
+			groups.computeIfAbsent(record.keySet(), k -> new ArrayList<>()).add(record);
+		}
+
+		for (List<Map<String, Object>> records : groups.values()) {
+			for (int attempt = 0; ; attempt++) {
+				try {
+					long start = System.nanoTime();
+					write(records);
+					lastFlushNanos	= System.nanoTime() - start;
+					lastBatchSize	= records.size();
+					flushed.add(records.size());
+					batches.increment();
+					break;
+				} catch (Exception e) {
+					logger.warn("write-behind {} flush failed ({}/{}) : {}", table, attempt + 1, retries + 1, CommonUtils.getExceptionMessage(e));
+					if (attempt >= retries) {
+						failed.add(records.size());
+						if (onFailure != null) {
+							try {
+								onFailure.accept(records);
+							} catch (Exception t) {
+								logger.warn("write-behind {} onFailure error : {}", table, CommonUtils.getExceptionMessage(t));
+							}
+						}
+						break;
+					}
+					retried.increment();
+					LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(retryDelay * (attempt + 1)));
+				}
+			}
+		}
+	}
+
+
+	private void write(List<Map<String, Object>> records) throws SQLException {
+		String[] columns	= records.get(0).keySet().toArray(new String[0]);
+		String query		= new Create(table, false).record(records.get(0)).buildPreparedQuery();
+
+		DBManager db			= DBFactory.get(datasource);
+		Connection conn			= null;
+		PreparedStatement pstmt	= null;
+		try {
+			conn	= db.getConnection();
+			conn.setAutoCommit(false);
+			pstmt	= conn.prepareStatement(query);
+			DBUtils.executeBatch(pstmt, records, columns);
+			conn.commit();
+			ResultCache.invalidate(table);
+		} catch (SQLException | RuntimeException e) {
+			try { if (conn != null) conn.rollback(); } catch (SQLException s) {}
+			throw e;
+		} finally {
+			db.close(pstmt);
+			db.close(conn);
+		}
+	}
+
+
+	public String getTable() {
+		return table;
+	}
+
+	public String getDatasource() {
+		return datasource;
+	}
+
+	/**
+	 * 버퍼에 남아 있는 record 수
+	 */
+	public int getPending() {
+		return size.get();
+	}
+
+	/**
+	 * 버퍼에서 가장 오래 기다린 record 의 대기 시간 (ms)
+	 */
+	public long getLagMillis() {
+		Entry head = queue.peek();
+		return head == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - head.enqueued());
+	}
+
+	public long getEnqueuedCount() {
+		return enqueued.sum();
+	}
+
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	public long getFlushedCount() {
+		return flushed.sum();
+	}
+
+	public long getFailedCount() {
+		return failed.sum();
+	}
+
+	public LinkedMap<String, Object> getStats() {
+		long batchCount = batches.sum();
+		LinkedMap<String, Object> map = new LinkedMap<String, Object>();
+		map.put("datasource"	, datasource);
+		map.put("table"			, table);
+		map.put("pending"		, size.get());
+		map.put("lagMs"			, getLagMillis());
+		map.put("enqueued"		, enqueued.sum());
+		map.put("flushed"		, flushed.sum());
+		map.put("dropped"		, dropped.sum());
+		map.put("failed"		, failed.sum());
+		map.put("retried"		, retried.sum());
+		map.put("batches"		, batchCount);
+		map.put("avgBatchSize"	, batchCount == 0 ? 0 : flushed.sum() / batchCount);
+		map.put("lastBatchSize"	, lastBatchSize);
+		map.put("lastBatchLagMs", TimeUnit.NANOSECONDS.toMillis(lastLagNanos));
+		map.put("lastFlushMs"	, TimeUnit.NANOSECONDS.toMillis(lastFlushNanos));
+		return map;
+	}
+
+
+	/**
+	 * 테이블별 버퍼 설정
+	 */
+	public static class Builder {
+		private final String table;
+		private int capacity				= DEFAULT_CAPACITY;
+		private int batchSize				= DEFAULT_BATCH_SIZE;
+		private long flushInterval			= DEFAULT_FLUSH_INTERVAL;
+		private Overflow overflow			= Overflow.DROP_NEWEST;
+		private long offerTimeout			= 100;
+		private int retries					= DEFAULT_RETRIES;
+		private long retryDelay				= DEFAULT_RETRY_DELAY;
+		private Consumer<List<Map<String, Object>>> onFailure = null;
+		private String datasource			= null;
+
+		private Builder(String table) {
+			this.table = table;
+		}
+
+		/**
+		 * 버퍼에 보관할 최대 record 수
+		 */
+		public Builder capacity(int capacity) {
+			this.capacity = Math.max(1, capacity);
+			return this;
+		}
+
+		/**
+		 * 한 번에 INSERT 할 최대 record 수, 버퍼가 이 크기에 도달하면 바로 flush 한다.
+		 */
+		public Builder batchSize(int batchSize) {
+			this.batchSize = Math.max(1, batchSize);
+			return this;
+		}
+
+		/**
+		 * batchSize 에 도달하지 않아도 flush 하는 주기 (ms)
+		 */
+		public Builder flushInterval(long millis) {
+			this.flushInterval = Math.max(1, millis);
+			return this;
+		}
+
+		/**
+		 * 버퍼가 가득 찼을 때의 처리, 기본 DROP_NEWEST
+		 * @param offerTimeout BLOCK 일 때 최대 대기 시간 (ms)
+		 */
+		public Builder overflow(Overflow overflow, long offerTimeout) {
+			this.overflow		= overflow;
+			this.offerTimeout	= offerTimeout;
+			return this;
+		}
+
+		public Builder overflow(Overflow overflow) {
+			this.overflow = overflow;
+			return this;
+		}
+
+		/**
+		 * 실패한 batch 의 재시도 횟수와 간격 (ms), 간격은 재시도마다 증가한다.
+		 */
+		public Builder retry(int retries, long delay) {
+			this.retries	= Math.max(0, retries);
+			this.retryDelay	= Math.max(0, delay);
+			return this;
+		}
+
+		/**
+		 * 재시도 후에도 실패한 record 를 전달받는다. (파일 기록 등)
+		 */
+		public Builder onFailure(Consumer<List<Map<String, Object>>> onFailure) {
+			this.onFailure = onFailure;
+			return this;
+		}
+
+		/**
+		 * db.json 의 datasources 에 지정된 datasource 에 기록한다. 버퍼는 (datasource, 테이블) 로 등록된다.
+		 */
+		public Builder datasource(String name) {
+			this.datasource = name;
+			return this;
+		}
+
+		/**
+		 * 버퍼를 생성하고 flush thread 를 시작한다. 이미 등록된 (datasource, 테이블) 이면 기존 버퍼를 반환한다.
+		 */
+		public WriteBehind build() {
+			return INSTANCES.computeIfAbsent(new Key(datasource, table), k -> new WriteBehind(this));
+		}
+	}
+}
@@ -40,6 +40,8 @@ import org.slf4j.LoggerFactory;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -130,6 +132,13 @@ import kr.tx24.lib.map.TypeRegistry;
  *   <li>Java 기본 객체 및 직렬화 가능한 객체 지원</li>
  * </ul>
  * 
+ * <p><b>Head-first 프레임</b> ({@link #headFirst()})</p>
+ * <ul>
+ *   <li>{@code [HEAD_FIRST_MAGIC][head 길이][head 영역][data 영역]} 순서로 구성</li>
+ *   <li>수신측은 head 만 즉시 해석하고 data 는 최초 {@link #data()} 접근 시 해석</li>
+ *   <li>기존 프레임과 매직 값으로 구분되므로 수신측은 두 형식을 모두 처리</li>
+ * </ul>
+ * 
  * <h3>응답 확인</h3>
  * <pre>{@code
  * if (response.head().isTrue("result")) {
@@ -168,6 +177,10 @@ public class INet implements java.io.Serializable {
 	private static final String READY					= "ready";
 	private static final String MESSAGE_SENT			= "message sent";
 
+	/** head-first 프레임 식별자 ("INHF") */
+	public static final int HEAD_FIRST_MAGIC			= 0x494E4846;
+	private static final int HEAD_FIRST_PREFIX			= 8;		// magic(4) + head 길이(4)
+
 	private static final ThreadLocal<ByteArrayOutputStream> bosPool = ThreadLocal.withInitial(() -> new ByteArrayOutputStream(4096));
 
 	private static volatile boolean isShutdown = false;
@@ -181,6 +194,10 @@ public class INet implements java.io.Serializable {
 	private final INMap headMap = new INMap();
 	private final INMap dataMap = new INMap();
 
+	private volatile byte[] lazyData		= null;		// head-first 프레임의 미해석 data 영역
+	private volatile int lazyDataOffset		= 0;
+	private boolean headFirst				= false;	// 송신 시 head-first 프레임 사용 여부
+
 
 	private static EventLoopGroup getWorkerGroup() {
 		if (workerGroup == null || workerGroup.isShutdown() || workerGroup.isTerminated()) {
@@ -229,10 +246,27 @@ public class INet implements java.io.Serializable {
 		this.headMap.put("target", target);
 	}
 	
+	/**
+	 * 수신 프레임으로부터 INet 을 생성한다.
+	 * <p>head-first 프레임이면 head 영역만 즉시 해석하고 data 영역은 최초 {@link #data()} 접근 시 해석한다.
+	 * 기존(ObjectOutputStream) 프레임이면 head, data 를 모두 즉시 해석한다.</p>
+	 * @param data 길이 필드를 제외한 프레임 바이트
+	 */
 	public INet(byte[] data) throws IOException, ClassNotFoundException {
-	    INMessage message = deserialize(data);
-	    headMap.putAll(message.head());
-	    dataMap.putAll(message.data());
+		if (isHeadFirst(data)) {
+			int headLength = ByteBuffer.wrap(data, 4, 4).getInt();
+			if (headLength < 0 || HEAD_FIRST_PREFIX + headLength > data.length) {
+				throw new InvalidObjectException("Invalid head section length: " + headLength);
+			}
+			headMap.putAll(readSection(data, HEAD_FIRST_PREFIX, headLength));
+			this.headFirst		= true;
+			this.lazyDataOffset	= HEAD_FIRST_PREFIX + headLength;
+			this.lazyData		= data;
+		} else {
+			INMessage message = deserialize(data);
+			headMap.putAll(message.head());
+			dataMap.putAll(message.data());
+		}
 	}
 	
 	/**
@@ -296,24 +330,74 @@ public class INet implements java.io.Serializable {
 
 	public <M extends Map<String, ?>> INet data(M map) {
 		if (map != null) {
-			this.dataMap.putAll(map);
+			data().putAll(map);
 		}
 		return this;
 	}
 
 	public INet data(String key, Object value) {
-		this.dataMap.put(key, value);
+		data().put(key, value);
 		return this;
 	}
 	
+	/**
+	 * 송신 시 head-first 프레임을 사용한다.
+	 * <p>수신측이 head-first 프레임을 지원하는 경우에만 사용해야 한다. 
+	 * 수신측은 라우팅에 필요한 head 만 I/O 스레드에서 해석하고 data 는 업무 스레드에서 지연 해석한다.</p>
+	 * @return INet 인스턴스 (메서드 체이닝용)
+	 */
+	public INet headFirst() {
+		return headFirst(true);
+	}
+	
+	public INet headFirst(boolean headFirst) {
+		this.headFirst = headFirst;
+		return this;
+	}
+	
+	/**
+	 * head-first 프레임으로 수신되었거나 송신하도록 설정된 경우 true
+	 */
+	public boolean isHeadFirst() {
+		return this.headFirst;
+	}
+	
 	
 	public INMap head() {
 		return this.headMap;
 	}
 
+	/**
+	 * data 영역을 반환한다. head-first 프레임으로 수신된 경우 최초 호출 시 data 영역을 해석한다.
+	 * @throws IllegalStateException data 영역 해석 실패 시
+	 */
 	public INMap data() {
+		if (this.lazyData != null) {
+			inflateData();
+		}
 		return this.dataMap;
 	}
+	
+	/**
+	 * data 영역이 아직 해석되지 않은 상태이면 true
+	 */
+	public boolean isDataPending() {
+		return this.lazyData != null;
+	}
+	
+	private synchronized void inflateData() {
+		byte[] raw = this.lazyData;
+		if (raw == null) {
+			return;
+		}
+		try {
+			this.dataMap.putAll(readSection(raw, this.lazyDataOffset, raw.length - this.lazyDataOffset));
+		} catch (IOException | ClassNotFoundException e) {
+			throw new IllegalStateException("Failed to deserialize INet data section: " + e.getMessage(), e);
+		} finally {
+			this.lazyData = null;
+		}
+	}
 
 	public <T extends Map<String, Object>> T head(Class<T> clazz) {
 		T map = MapFactory.createObjectMap(clazz);
@@ -323,7 +407,7 @@ public class INet implements java.io.Serializable {
 
 	public <T extends Map<String, Object>> T data(Class<T> clazz) {
 		T map = MapFactory.createObjectMap(clazz);
-		map.putAll(this.dataMap);
+		map.putAll(data());
 		return map;
 	}
 
@@ -335,7 +419,7 @@ public class INet implements java.io.Serializable {
 
 	public <T extends Map<String, Object>> T data(TypeRegistry typeRegistry) {
 		T map = MapFactory.createObjectMap(typeRegistry);
-		map.putAll(this.dataMap);
+		map.putAll(data());
 		return map;
 	}
 	
@@ -349,7 +433,7 @@ public class INet implements java.io.Serializable {
 		INMessage message = new INMessage();
 		
 		message.head().putAll(this.headMap);
-		message.data().putAll(this.dataMap);
+		message.data().putAll(data());
 		message.head().put("result", false);
 
 		if (host == null || host.trim().equals("")) {
@@ -375,7 +459,7 @@ public class INet implements java.io.Serializable {
 	public INMessage connectLb(String server, int timeout) {
 		INMessage send = new INMessage();
 		send.head().putAll(this.headMap);
-		send.data().putAll(this.dataMap);
+		send.data().putAll(data());
 		send.head().put("result", false);
 
 		String endPoint = "";
@@ -495,7 +579,7 @@ public class INet implements java.io.Serializable {
 		byte[] data;
 		
 		try {
-			data = serialize(send);
+			data = this.headFirst ? serializeHeadFirst(send) : serialize(send);
 		} catch (Exception e) {
 			send.message("serialize failed : "+CommonUtils.getExceptionMessage(e));
 			return send;
@@ -653,6 +737,16 @@ public class INet implements java.io.Serializable {
 		if (data.length == 0) {
 			throw new InvalidObjectException("data is empty");
 		}
+		
+		if (isHeadFirst(data)) {
+			int headLength = ByteBuffer.wrap(data, 4, 4).getInt();
+			if (headLength < 0 || HEAD_FIRST_PREFIX + headLength > data.length) {
+				throw new InvalidObjectException("Invalid head section length: " + headLength);
+			}
+			return new INMessage(
+					readSection(data, HEAD_FIRST_PREFIX, headLength),
+					readSection(data, HEAD_FIRST_PREFIX + headLength, data.length - HEAD_FIRST_PREFIX - headLength));
+		}
 
 		try (ByteArrayInputStream bis = new ByteArrayInputStream(data);
 			 ObjectInputStream in = new ObjectInputStream(bis)) {
@@ -721,11 +815,98 @@ public class INet implements java.io.Serializable {
 	}
 	
 	public byte[] serialize() throws IOException {
+	    return serialize(this.headFirst);
+	}
+	
+	/**
+	 * @param headFirst true 이면 head-first 프레임, false 이면 기존 프레임으로 직렬화
+	 */
+	public byte[] serialize(boolean headFirst) throws IOException {
 	    INMessage message = new INMessage();
 	    message.head().putAll(this.headMap);
-	    message.data().putAll(this.dataMap);
+	    message.data().putAll(data());
 	    
-	    return serialize(message);
+	    return headFirst ? serializeHeadFirst(message) : serialize(message);
+	}
+	
+	/**
+	 * head-first 프레임 직렬화
+	 * <pre>
+	 * [4 bytes: HEAD_FIRST_MAGIC] + [4 bytes: head 길이] + [head 영역] + [data 영역]
+	 * </pre>
+	 * 각 영역은 {@link INMessage} 와 동일한 방식(size + key/value)으로 기록된 독립 ObjectOutputStream 이다.
+	 */
+	public byte[] serializeHeadFirst(INMessage message) throws IOException {
+		byte[] head = writeSection(message.head());
+		byte[] data = writeSection(message.data());
+		
+		return ByteBuffer.allocate(HEAD_FIRST_PREFIX + head.length + data.length)
+				.putInt(HEAD_FIRST_MAGIC)
+				.putInt(head.length)
+				.put(head)
+				.put(data)
+				.array();
+	}
+	
+	/**
+	 * 프레임이 head-first 형식인지 확인한다.
+	 * 기존 프레임은 ObjectOutputStream 헤더(0xACED)로 시작하므로 매직 값과 충돌하지 않는다.
+	 */
+	public static boolean isHeadFirst(byte[] data) {
+		return data != null 
+				&& data.length >= HEAD_FIRST_PREFIX 
+				&& ByteBuffer.wrap(data, 0, 4).getInt() == HEAD_FIRST_MAGIC;
+	}
+	
+	/**
+	 * 프레임을 소비하지 않고 head 영역만 읽는다. (프록시 라우팅용)
+	 * <p>head-first 프레임이면 head 영역만 해석하고, 기존 프레임이면 전체를 해석한 뒤 head 를 반환한다.</p>
+	 * @param payload 길이 필드를 제외한 프레임, readerIndex 는 변경되지 않는다.
+	 */
+	public static INMap peekHead(ByteBuf payload) throws IOException, ClassNotFoundException {
+		int index		= payload.readerIndex();
+		int readable	= payload.readableBytes();
+		
+		if (readable >= HEAD_FIRST_PREFIX && payload.getInt(index) == HEAD_FIRST_MAGIC) {
+			int headLength = payload.getInt(index + 4);
+			if (headLength < 0 || HEAD_FIRST_PREFIX + headLength > readable) {
+				throw new InvalidObjectException("Invalid head section length: " + headLength);
+			}
+			if (headLength == 0) {
+				return new INMap();
+			}
+			try (ObjectInputStream in = new ObjectInputStream(
+					new ByteBufInputStream(payload.slice(index + HEAD_FIRST_PREFIX, headLength)))) {
+				return INMessage.readMap(in);
+			} catch (EOFException e) {
+				throw new InvalidObjectException("Malformed section data: " + e.getMessage());
+			}
+		}
+		
+		return new INet().deserialize(ByteBufUtil.getBytes(payload, index, readable, false)).head();
+	}
+	
+	private static byte[] writeSection(INMap map) throws IOException {
+		ByteArrayOutputStream bos = bosPool.get();
+		bos.reset();
+		
+		try (ObjectOutputStream out = new ObjectOutputStream(bos)) {
+			INMessage.writeMap(out, map);
+			out.flush();
+			return bos.toByteArray();
+		}
+	}
+	
+	private static INMap readSection(byte[] data, int offset, int length) throws IOException, ClassNotFoundException {
+		if (length == 0) {
+			return new INMap();
+		}
+		try (ByteArrayInputStream bis = new ByteArrayInputStream(data, offset, length);
+			 ObjectInputStream in = new ObjectInputStream(bis)) {
+			return INMessage.readMap(in);
+		} catch (EOFException e) {
+			throw new InvalidObjectException("Malformed section data: " + e.getMessage());
+		}
 	}
 	
 
@@ -60,6 +60,7 @@ public class SystemUtils {
     public static final String REDIS_STORAGE_LOG 	= "SYS_MSG_LOG";
     public static final String REDIS_STORAGE_TRX 	= "SYS_MSG_TRX";
     public static final String REDIS_STORAGE_JVM 	= "SYS_MSG_JVM";
+    public static final String REDIS_STORAGE_SQL 	= "SYS_MSG_SQL";
     public static final String REDIS_STORAGE_MESSAGE= "SYS_MSG_MESSAGE";
     public static final String REDIS_STORAGE_MESSAGE_QUEUE= "SYS_MSG_MESSAGE_QUEUE";
     public static final String REDIS_STORAGE_MESSAGE_RESULT = "SYS_MSG_MESSAGE_RESULT";
@@ -9,7 +9,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import kr.tx24.inet.server.INetServer;
+import kr.tx24.lib.db.DBAsync;
 import kr.tx24.lib.db.DBManager;
+import kr.tx24.lib.db.SessionPool;
+import kr.tx24.lib.db.SqlMetrics;
+import kr.tx24.lib.db.WriteBehind;
 import kr.tx24.lib.executor.AsyncExecutor;
 import kr.tx24.lib.inter.INet;
 import kr.tx24.lib.lb.LoadBalancer;
@@ -75,7 +79,10 @@ public class SystemManager extends Thread {
 	        
 	        sleep(200);
 	        
+	        shutdownSafely("DBAsync"			, () -> DBAsync.shutdown());
+	        shutdownSafely("WriteBehind"		, () -> WriteBehind.shutdown());		// DB 종료 전에 버퍼를 기록
 	        shutdownSafely("DBManager"			, () -> DBManager.shutdown());
+	        shutdownSafely("SessionPool"		, () -> SessionPool.shutdown());
 	        
 	        sleep(200);
 	        
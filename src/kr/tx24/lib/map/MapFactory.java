@@ -27,6 +27,7 @@ import java.util.concurrent.ConcurrentHashMap;
  *   <li>SharedMap (MAP_SHAREDMAP_*)</li>
  *   <li>LinkedMap (MAP_LINKEDMAP_*)</li>
  *   <li>ThreadSafeLinkedMap (MAP_THREADSAFE_LINKEDMAP_*)</li>
+ *   <li>TypedMap (MAP_TYPEDMAP_OBJECT)</li>
  * </ul>
  * 
  * @author TX24
@@ -97,6 +98,9 @@ public final class MapFactory {
             case MAP_THREADSAFE_LINKEDMAP_OBJECT, MAP_THREADSAFE_LINKEDMAP_STRING -> 
                 (Map<K, V>) new ThreadSafeLinkedMap<>(DEFAULT_INITIAL_CAPACITY,DEFAULT_LOAD_FACTOR);
             
+            case MAP_TYPEDMAP_OBJECT -> 
+                (Map<K, V>) new TypedMap(DEFAULT_INITIAL_CAPACITY);
+            
             default -> throw new IllegalArgumentException(
                 "MAP_ 으로 시작하는 것만 지원됩니다. " + typeRegistry
             );
@@ -152,6 +156,9 @@ public final class MapFactory {
             case MAP_THREADSAFE_LINKEDMAP_OBJECT, MAP_THREADSAFE_LINKEDMAP_STRING -> 
                 (Map<K, V>) new ThreadSafeLinkedMap<>(initialCapacity, DEFAULT_LOAD_FACTOR);
             
+            case MAP_TYPEDMAP_OBJECT -> 
+                (Map<K, V>) new TypedMap(initialCapacity);
+            
             default -> throw new IllegalArgumentException(
             		"MAP_ 으로 시작하는 것만 지원됩니다. " + typeRegistry
             );
@@ -288,6 +295,8 @@ public final class MapFactory {
 	            return (T) new ConcurrentHashMap<String, Object>(initialCapacity, DEFAULT_LOAD_FACTOR);
 	        case MAP_TREEMAP_OBJECT:
 	            return (T) new TreeMap<String, Object>();
+	        case MAP_TYPEDMAP_OBJECT:
+	            return (T) new TypedMap(initialCapacity);
 	        default:
 	            throw new IllegalArgumentException("Unsupported TypeRegistry: " + typeRegistry);
 	    }
@@ -376,6 +385,11 @@ public final class MapFactory {
             return (T) new ThreadSafeLinkedMap<String, Object>(initialCapacity, loadFactor);
         }
 
+        // TypedMap (loadFactor 미지원)
+        if ("TypedMap".equals(className)) {
+            return (T) new TypedMap(initialCapacity);
+        }
+
         try {
             try {
                 return clazz.getConstructor(int.class, float.class)
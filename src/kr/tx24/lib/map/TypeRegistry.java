@@ -43,6 +43,7 @@ public enum TypeRegistry {
 	MAP_THREADSAFE_LINKEDMAP_STRING(new TypeReference<ThreadSafeLinkedMap<String,String>>(){}),
 	MAP_TREEMAP_OBJECT(new TypeReference<TreeMap<String,Object>>(){}),
 	MAP_TREEMAP_STRING(new TypeReference<TreeMap<String,String>>(){}),
+	MAP_TYPEDMAP_OBJECT(new TypeReference<TypedMap>(){}),
 	
 	
 	LIST_STRING(new TypeReference<List<String>>(){}),
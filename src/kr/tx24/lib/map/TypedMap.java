@@ -0,0 +1,711 @@
+package kr.tx24.lib.map;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import kr.tx24.lib.lang.CommonUtils;
+
+/**
+ * 값을 타입별 슬롯(long / double / boolean / 참조)에 저장하는 삽입 순서 유지 Map.
+ *
+ * <p>{@code INet.INMap} 과 동일한 getter 를 제공하며 {@link Map} API 와 호환된다.
+ * INet 의 head/data 는 {@code INMap} 으로 수신되므로 TypedMap 으로 사용하려면 복사가 필요하다.
+ * 같은 필드를 여러 번 읽는 경우에만 사용하고, 한 번씩 읽는 경우에는 {@code INMap} 을 그대로 사용한다.</p>
+ *
+ * <h3>특징</h3>
+ * <ul>
+ *   <li>키는 open addressing(linear probing) 인덱스 테이블로 조회, 엔트리 노드 객체 없음</li>
+ *   <li>{@code putInt/putLong/putDouble/putBoolean} 은 박싱 없이 저장</li>
+ *   <li>숫자 슬롯의 {@code getInt/getLong/getDouble/getBoolean} 은 할당 없이 반환</li>
+ *   <li>문자열 값의 숫자 변환 결과는 슬롯에 보관되어 재호출 시 다시 파싱하지 않음</li>
+ *   <li>{@link #get(Object)} 등 Map API 로 숫자 슬롯을 읽으면 박싱된 값을 반환</li>
+ * </ul>
+ *
+ * <p>요청 1건을 처리하는 스레드에서 사용하는 것을 전제로 하며 스레드 안전하지 않다.
+ * 조회 시에도 변환 결과를 보관하므로 여러 스레드에서 동시에 읽어서는 안 된다.</p>
+ *
+ * <pre>{@code
+ * TypedMap data = inet.data(TypedMap.class);   // INMap 에서 1회 복사
+ * long amount = data.getLong("amount");        // 최초 1회만 파싱
+ * }</pre>
+ */
+public class TypedMap extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = -2817406318806045127L;
+    private static final Logger logger = LoggerFactory.getLogger(TypedMap.class);
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // 슬롯 타입 (하위 4bit)
+    private static final byte T_NULL    = 0;
+    private static final byte T_REF     = 1;
+    private static final byte T_INT     = 2;
+    private static final byte T_LONG    = 3;
+    private static final byte T_DOUBLE  = 4;
+    private static final byte T_BOOLEAN = 5;
+    private static final int TYPE_MASK  = 0x0F;
+
+    // 참조 슬롯의 변환 결과 보관 여부 (상위 bit)
+    private static final int LONG_CACHED   = 0x10;
+    private static final int DOUBLE_CACHED = 0x20;
+
+    private transient String[] keys;
+    private transient byte[] types;
+    private transient long[] longs;
+    private transient double[] doubles;
+    private transient Object[] refs;
+    private transient int[] index;          // slot + 1, 0 = 비어 있음
+    private transient int size;
+    private transient int modCount;
+
+    private transient Set<Map.Entry<String, Object>> entrySet;
+
+    public TypedMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TypedMap(int initialCapacity) {
+        init(Math.max(4, initialCapacity));
+    }
+
+    public TypedMap(int initialCapacity, float loadFactor) {
+        this(initialCapacity);
+    }
+
+    public TypedMap(Map<? extends String, ? extends Object> map) {
+        this(map == null ? DEFAULT_CAPACITY : Math.max(DEFAULT_CAPACITY, map.size()));
+        if (map != null) {
+            putAll(map);
+        }
+    }
+
+    private void init(int capacity) {
+        keys = new String[capacity];
+        types = new byte[capacity];
+        longs = new long[capacity];
+        doubles = new double[capacity];
+        refs = new Object[capacity];
+        index = new int[tableSizeFor(capacity * 2)];
+        size = 0;
+    }
+
+    /* ================== 인덱스 테이블 ================== */
+
+    private static int tableSizeFor(int n) {
+        int cap = Integer.highestOneBit(Math.max(8, n - 1)) << 1;
+        return cap < 0 ? 1 << 30 : cap;
+    }
+
+    private static int hash(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private int findSlot(Object key) {
+        int[] table = index;
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        while (true) {
+            int entry = table[i];
+            if (entry == 0) {
+                return -1;
+            }
+            int slot = entry - 1;
+            String k = keys[slot];
+            if (k == key || (k != null && k.equals(key))) {
+                return slot;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void indexSlot(int slot) {
+        int[] table = index;
+        int mask = table.length - 1;
+        int i = hash(keys[slot]) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+    }
+
+    private void rebuildIndex(int tableSize) {
+        index = new int[tableSize];
+        for (int slot = 0; slot < size; slot++) {
+            indexSlot(slot);
+        }
+    }
+
+    /**
+     * key 의 슬롯을 반환하며 없으면 새 슬롯을 만든다.
+     */
+    private int slotFor(String key) {
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            return slot;
+        }
+
+        if (size == keys.length) {
+            int capacity = keys.length + (keys.length >> 1) + 1;
+            keys = Arrays.copyOf(keys, capacity);
+            types = Arrays.copyOf(types, capacity);
+            longs = Arrays.copyOf(longs, capacity);
+            doubles = Arrays.copyOf(doubles, capacity);
+            refs = Arrays.copyOf(refs, capacity);
+        }
+
+        slot = size++;
+        keys[slot] = key;
+        types[slot] = T_NULL;
+        modCount++;
+
+        // 부하율 0.5 유지
+        if (size * 2 > index.length) {
+            rebuildIndex(index.length << 1);
+        } else {
+            indexSlot(slot);
+        }
+        return slot;
+    }
+
+    private void removeSlot(int slot) {
+        int moved = size - slot - 1;
+        if (moved > 0) {
+            System.arraycopy(keys, slot + 1, keys, slot, moved);
+            System.arraycopy(types, slot + 1, types, slot, moved);
+            System.arraycopy(longs, slot + 1, longs, slot, moved);
+            System.arraycopy(doubles, slot + 1, doubles, slot, moved);
+            System.arraycopy(refs, slot + 1, refs, slot, moved);
+        }
+        size--;
+        keys[size] = null;
+        refs[size] = null;
+        modCount++;
+        rebuildIndex(index.length);
+    }
+
+    /* ================== 슬롯 저장 / 박싱 ================== */
+
+    private void store(int slot, Object value) {
+        if (value == null) {
+            types[slot] = T_NULL;
+            refs[slot] = null;
+        } else if (value instanceof Integer v) {
+            types[slot] = T_INT;
+            longs[slot] = v;
+            refs[slot] = null;
+        } else if (value instanceof Long v) {
+            types[slot] = T_LONG;
+            longs[slot] = v;
+            refs[slot] = null;
+        } else if (value instanceof Double v) {
+            types[slot] = T_DOUBLE;
+            doubles[slot] = v;
+            refs[slot] = null;
+        } else if (value instanceof Boolean v) {
+            types[slot] = T_BOOLEAN;
+            longs[slot] = v ? 1L : 0L;
+            refs[slot] = null;
+        } else {
+            types[slot] = T_REF;
+            refs[slot] = value;
+        }
+    }
+
+    private Object box(int slot) {
+        return switch (types[slot] & TYPE_MASK) {
+            case T_INT -> (int) longs[slot];
+            case T_LONG -> longs[slot];
+            case T_DOUBLE -> doubles[slot];
+            case T_BOOLEAN -> longs[slot] != 0L;
+            case T_REF -> refs[slot];
+            default -> null;
+        };
+    }
+
+    /* ================== Map API ================== */
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return findSlot(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : box(slot);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = findSlot(key);
+        Object previous = null;
+        if (slot >= 0) {
+            previous = box(slot);
+        } else {
+            slot = slotFor(key);
+        }
+        store(slot, value);
+        return previous;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends Object> map) {
+        if (map instanceof TypedMap other) {
+            for (int s = 0; s < other.size; s++) {
+                int slot = slotFor(other.keys[s]);
+                types[slot] = other.types[s];
+                longs[slot] = other.longs[s];
+                doubles[slot] = other.doubles[s];
+                refs[slot] = other.refs[s];
+            }
+            return;
+        }
+        for (Map.Entry<? extends String, ? extends Object> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        Object previous = box(slot);
+        removeSlot(slot);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(refs, 0, size, null);
+        Arrays.fill(index, 0);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        int expected = modCount;
+        for (int slot = 0; slot < size; slot++) {
+            action.accept(keys[slot], box(slot));
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        Set<Map.Entry<String, Object>> es = entrySet;
+        if (es == null) {
+            es = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new SlotIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    TypedMap.this.clear();
+                }
+            };
+            entrySet = es;
+        }
+        return es;
+    }
+
+    private final class SlotIterator implements Iterator<Map.Entry<String, Object>> {
+        private int next = 0;
+        private int last = -1;
+        private int expected = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return new SlotEntry(keys[last]);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            removeSlot(last);
+            next = last;
+            last = -1;
+            expected = modCount;
+        }
+    }
+
+    private final class SlotEntry implements Map.Entry<String, Object> {
+        private final String key;
+
+        private SlotEntry(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return TypedMap.this.get(key);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return TypedMap.this.put(key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e
+                    && Objects.equals(key, e.getKey())
+                    && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+    /* ================== 박싱 없는 저장 ================== */
+
+    public TypedMap putInt(String key, int value) {
+        int slot = slotFor(key);
+        types[slot] = T_INT;
+        longs[slot] = value;
+        refs[slot] = null;
+        return this;
+    }
+
+    public TypedMap putLong(String key, long value) {
+        int slot = slotFor(key);
+        types[slot] = T_LONG;
+        longs[slot] = value;
+        refs[slot] = null;
+        return this;
+    }
+
+    public TypedMap putDouble(String key, double value) {
+        int slot = slotFor(key);
+        types[slot] = T_DOUBLE;
+        doubles[slot] = value;
+        refs[slot] = null;
+        return this;
+    }
+
+    public TypedMap putBoolean(String key, boolean value) {
+        int slot = slotFor(key);
+        types[slot] = T_BOOLEAN;
+        longs[slot] = value ? 1L : 0L;
+        refs[slot] = null;
+        return this;
+    }
+
+    public TypedMap putAllSafe(Map<? extends String, ? extends Object> map) {
+        if (map != null) {
+            putAll(map);
+        }
+        return this;
+    }
+
+    /* ================== Getter (INet.INMap 과 동일한 규칙) ================== */
+
+    public String getString(String key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return "";
+        }
+        return switch (types[slot] & TYPE_MASK) {
+            case T_INT, T_LONG -> Long.toString(longs[slot]);
+            case T_DOUBLE -> Double.toString(doubles[slot]);
+            case T_BOOLEAN -> longs[slot] != 0L ? "true" : "false";
+            case T_REF -> CommonUtils.toString(refs[slot]);
+            default -> "";
+        };
+    }
+
+    public String getString(String key, String replace) {
+        String val = getString(key);
+        return val.isBlank() ? replace : val;
+    }
+
+    public boolean getBoolean(String key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return false;
+        }
+        return switch (types[slot] & TYPE_MASK) {
+            case T_BOOLEAN -> longs[slot] != 0L;
+            case T_INT, T_LONG -> longs[slot] == 1L;
+            case T_REF -> {
+                String val = CommonUtils.toString(refs[slot]).toLowerCase();
+                yield val.equals("true") || val.equals("1");
+            }
+            default -> false;
+        };
+    }
+
+    /**
+     * INMap 과 같이 숫자 값은 {@link Number#intValue()}, 문자열은 int 범위를 벗어나면 0 을 반환한다.
+     */
+    public int getInt(String key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return 0;
+        }
+        return switch (types[slot] & TYPE_MASK) {
+            case T_INT, T_LONG, T_BOOLEAN -> (int) longs[slot];
+            case T_DOUBLE -> (int) doubles[slot];
+            case T_REF -> refAsInt(slot);
+            default -> 0;
+        };
+    }
+
+    public int getInt(String key, int replace) {
+        int val = getInt(key);
+        return val == 0 ? replace : val;
+    }
+
+    public long getLong(String key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return 0L;
+        }
+        return switch (types[slot] & TYPE_MASK) {
+            case T_INT, T_LONG, T_BOOLEAN -> longs[slot];
+            case T_DOUBLE -> (long) doubles[slot];
+            case T_REF -> refAsLong(slot);
+            default -> 0L;
+        };
+    }
+
+    public long getLong(String key, long replace) {
+        long val = getLong(key);
+        return val == 0L ? replace : val;
+    }
+
+    public double getDouble(String key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return 0.0;
+        }
+        return switch (types[slot] & TYPE_MASK) {
+            case T_INT, T_LONG, T_BOOLEAN -> longs[slot];
+            case T_DOUBLE -> doubles[slot];
+            case T_REF -> refAsDouble(slot);
+            default -> 0.0;
+        };
+    }
+
+    public double getDouble(String key, double replace) {
+        double val = getDouble(key);
+        return val == 0.0 ? replace : val;
+    }
+
+    /**
+     * 참조 슬롯을 int 로 변환한다. 문자열 값이 int 범위를 벗어나면 Integer.parseInt 와 같이 0 을 반환한다.
+     */
+    private int refAsInt(int slot) {
+        Object obj = refs[slot];
+        if (obj instanceof Number n) {
+            return n.intValue();
+        }
+        long value = refAsLong(slot);
+        if (value != (int) value) {
+            logger.warn("Failed to parse '{}' to int: out of range", obj);
+            return 0;
+        }
+        return (int) value;
+    }
+
+    /**
+     * 참조 슬롯을 long 으로 변환한다. 변환 결과(실패 시 0)는 슬롯에 보관한다.
+     */
+    private long refAsLong(int slot) {
+        if ((types[slot] & LONG_CACHED) != 0) {
+            return longs[slot];
+        }
+        Object obj = refs[slot];
+        long value = 0L;
+        try {
+            if (obj instanceof Number n) {
+                value = n.longValue();
+            } else if (obj instanceof String s) {
+                value = Long.parseLong(s.trim());
+            } else if (obj instanceof byte[] arr) {
+                value = Long.parseLong(new String(arr).trim());
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to parse '{}' to long: {}", obj, e.getMessage());
+        }
+        longs[slot] = value;
+        types[slot] |= LONG_CACHED;
+        return value;
+    }
+
+    /**
+     * 참조 슬롯을 double 로 변환한다. 변환 결과(실패 시 0)는 슬롯에 보관한다.
+     */
+    private double refAsDouble(int slot) {
+        if ((types[slot] & DOUBLE_CACHED) != 0) {
+            return doubles[slot];
+        }
+        Object obj = refs[slot];
+        double value = 0.0;
+        try {
+            if (obj instanceof Number n) {
+                value = n.doubleValue();
+            } else if (obj instanceof String s) {
+                value = Double.parseDouble(s.trim());
+            } else if (obj instanceof byte[] arr) {
+                value = Double.parseDouble(new String(arr).trim());
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to parse '{}' to double: {}", obj, e.getMessage());
+        }
+        doubles[slot] = value;
+        types[slot] |= DOUBLE_CACHED;
+        return value;
+    }
+
+    public BigDecimal getBigDecimal(String key) {
+        Object obj = get(key);
+        if (obj instanceof BigDecimal bd) return bd;
+        return new BigDecimal(getString(key, "0"));
+    }
+
+    public Timestamp getTimestamp(String key) {
+        Object obj = get(key);
+        if (obj instanceof Timestamp ts) return ts;
+        if (obj instanceof String s) return Timestamp.valueOf(s);
+        return null;
+    }
+
+    public boolean like(String key, String value) {
+        return getString(key).contains(value);
+    }
+
+    public boolean isTrue(String key) {
+        return getBoolean(key);
+    }
+
+    public boolean isNull(String key) {
+        int slot = findSlot(key);
+        return slot < 0 || (types[slot] & TYPE_MASK) == T_NULL;
+    }
+
+    public boolean startsWith(String key, String value) {
+        return getString(key).startsWith(value);
+    }
+
+    public boolean isEquals(String key, Object value) {
+        Object obj = get(key);
+        return obj == value || (obj != null && obj.equals(value));
+    }
+
+    public boolean isEmpty(String key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return true;
+        }
+        return switch (types[slot] & TYPE_MASK) {
+            case T_INT, T_LONG, T_BOOLEAN -> longs[slot] == 0L;
+            case T_DOUBLE -> doubles[slot] == 0.0;
+            case T_REF -> {
+                Object value = refs[slot];
+                if (value instanceof String s) yield s.trim().isEmpty();
+                if (value instanceof Collection<?> c) yield c.isEmpty();
+                if (value instanceof Map<?, ?> m) yield m.isEmpty();
+                if (value instanceof Optional<?> opt) yield opt.isEmpty();
+                if (value.getClass().isArray()) yield java.lang.reflect.Array.getLength(value) == 0;
+                if (value instanceof Number n) yield n.doubleValue() == 0;
+                yield false;
+            }
+            default -> true;
+        };
+    }
+
+    /* ================== 직렬화 ================== */
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (int slot = 0; slot < size; slot++) {
+            out.writeObject(keys[slot]);
+            out.writeObject(box(slot));
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int count = in.readInt();
+        if (count < 0) {
+            throw new java.io.InvalidObjectException("Negative map size: " + count);
+        }
+        init(Math.max(4, count));
+        for (int i = 0; i < count; i++) {
+            put((String) in.readObject(), in.readObject());
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
@@ -893,6 +894,60 @@ public class JacksonCsvUtils {
    }
    
    
+   // ==================== Path (파일) CSV → Iterator (streaming) ====================
+   
+   /**
+    * 파일에서 CSV 를 한 row 씩 읽는 Iterator 반환 (Class 타입)
+    * 
+    * <p>전체를 List 로 적재하지 않으므로 대용량 파일에 사용한다. 사용 후 반드시 close 해야 한다.</p>
+    * <pre>
+    * try (MappingIterator&lt;Settle&gt; it = csv.iterator(csvFile, Settle.class)) {
+    *     new BulkLoader("SETTLE").load(it);
+    * }
+    * </pre>
+    * 
+    * @param <T> 반환 타입
+    * @param path 파일 경로
+    * @param type 대상 클래스
+    * @return MappingIterator, 실패 시 빈 Iterator
+    */
+   public <T> MappingIterator<T> iterator(Path path, Class<T> type) {
+       if (path == null) return MappingIterator.emptyIterator();
+       try {
+           CsvSchema schema = createSchema(type);
+           return mapper.readerFor(type)
+                        .with(schema)
+                        .readValues(path.toFile());
+       } catch (Exception e) {
+           logger.warn("CSV 역직렬화 실패 : {}", CommonUtils.getExceptionMessage(e));
+           return MappingIterator.emptyIterator();
+       }
+   }
+   
+   
+   /**
+    * 헤더가 있는 CSV 파일을 한 row 씩 헤더명 → 값 Map 으로 읽는 Iterator 반환
+    * 사용 후 반드시 close 해야 한다.
+    * 
+    * @param path 파일 경로
+    * @return MappingIterator, 실패 시 빈 Iterator
+    */
+   public MappingIterator<Map<String, String>> iteratorMap(Path path) {
+       if (path == null) return MappingIterator.emptyIterator();
+       try {
+           CsvSchema schema = CsvSchema.emptySchema()
+                                       .withHeader()
+                                       .withColumnSeparator(separator);
+           return mapper.readerFor(new TypeReference<Map<String, String>>() {})
+                        .with(schema)
+                        .readValues(path.toFile());
+       } catch (Exception e) {
+           logger.warn("CSV 역직렬화 실패 : {}", CommonUtils.getExceptionMessage(e));
+           return MappingIterator.emptyIterator();
+       }
+   }
+   
+   
    // ==================== Object Copy (from JacksonAbstract) ====================
    
    /**
@@ -0,0 +1,72 @@
+package kr.tx24.lib.db;
+
+import static kr.tx24.test.Assert.check;
+import static kr.tx24.test.Assert.exit;
+import static kr.tx24.test.Assert.fails;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * SeekToken 의 encode/decode 가 값과 타입을 그대로 복원하고 다른 keyset 의 token 을 거부하는지 확인한다.
+ * SeekToken 이 package-private 이므로 같은 package 에 둔다.
+ */
+public class SeekTokenTest {
+
+	private static final String[] KEYS = { "reg_date", "id" };
+
+	public static void main(String[] args) {
+		roundTrip();
+		reject();
+		retrieve();
+
+		exit("SeekTokenTest");
+	}
+
+
+	private static void roundTrip() {
+		Timestamp nanos = Timestamp.valueOf("2026-01-02 03:04:05.123456789");
+		roundTrip("long"		, 1760000000000L, 1760000000000L);
+		roundTrip("int"			, 7, 7L);
+		roundTrip("double"		, 1.25, 1.25);
+		roundTrip("decimal"		, new BigDecimal("12345678901234567890.1230"), new BigDecimal("12345678901234567890.1230"));
+		roundTrip("boolean"		, true, true);
+		roundTrip("timestamp"	, nanos, nanos);
+		roundTrip("date"		, new java.util.Date(1760000000123L), new Timestamp(1760000000123L));
+		roundTrip("binary"		, new byte[] { 0, 1, -1, 127 }, new byte[] { 0, 1, -1, 127 });
+		roundTrip("string"		, "홍길동 A&B", "홍길동 A&B");
+
+		String token = SeekToken.encode(KEYS, false, new Object[] { "20260102", 1L });
+		check("url safe", token.matches("[A-Za-z0-9_-]+"), true);
+	}
+
+	private static void roundTrip(String name, Object value, Object expected) {
+		Object[] values = { value, 99L };
+		Object[] decoded = SeekToken.decode(KEYS, true, SeekToken.encode(KEYS, true, values));
+		check(name, decoded, new Object[] { expected, 99L });
+		check(name + " type", decoded[0].getClass(), expected.getClass());
+	}
+
+
+	private static void reject() {
+		String token = SeekToken.encode(KEYS, false, new Object[] { "20260102", 1L });
+		fails("other keys"		, IllegalArgumentException.class, () -> SeekToken.decode(new String[] { "id", "reg_date" }, false, token));
+		fails("other direction"	, IllegalArgumentException.class, () -> SeekToken.decode(KEYS, true, token));
+		fails("not base64"		, IllegalArgumentException.class, () -> SeekToken.decode(KEYS, false, "!!"));
+		fails("truncated"		, IllegalArgumentException.class, () -> SeekToken.decode(KEYS, false, token.substring(0, token.length() - 4)));
+	}
+
+
+	/**
+	 * afterToken 으로 복원한 값이 keyset 조건의 ? 순서대로 바인딩된다.
+	 */
+	private static void retrieve() {
+		String token = SeekToken.encode(KEYS, false, new Object[] { "20260102", 1L });
+		Retrieve retrieve = new Retrieve("HISTORY").where("mid", "M1").keyset(KEYS).afterToken(token).limit(100);
+		check("retrieve sql", retrieve.buildBindQuery(),
+				" SELECT  *  FROM HISTORY  WHERE (mid = ?) AND (reg_date >= ? AND (reg_date > ? OR (reg_date = ? AND id > ?))) ORDER BY reg_date ASC,id ASC LIMIT ?");
+		check("retrieve values", retrieve.getBindValues(), List.of("M1", "20260102", "20260102", "20260102", 1L, 100L));
+		check("retrieve blank", new Retrieve("HISTORY").keyset(KEYS).afterToken("").limit(100).getBindValues(), List.of(100L));
+	}
+}
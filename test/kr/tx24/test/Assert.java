@@ -0,0 +1,88 @@
+package kr.tx24.test;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * main() 으로 실행하는 테스트의 공통 검증, 실패 시 내용을 출력하고 {@link #exit(String)} 에서 결과를 출력한다.
+ * <pre>
+ * import static kr.tx24.test.Assert.*;
+ *
+ * check("name", actual, expected);
+ * exit("XxxTest");
+ * </pre>
+ */
+public final class Assert {
+
+	private static int failed = 0;
+
+	private Assert() {
+	}
+
+
+	/**
+	 * actual 과 expected 가 같은지 확인한다. 배열은 내용을 비교한다.
+	 */
+	public static void check(String name, Object actual, Object expected) {
+		if (!Objects.deepEquals(actual, expected)) {
+			fail(name, text(actual) + " != " + text(expected));
+		}
+	}
+
+	/**
+	 * 같은 instance 인지 확인한다.
+	 */
+	public static void same(String name, Object a, Object b) {
+		if (a != b) {
+			fail(name, "not the same instance " + a + " / " + b);
+		}
+	}
+
+	/**
+	 * 값이 다른지 확인한다.
+	 */
+	public static void differ(String name, Object a, Object b) {
+		if (Objects.deepEquals(a, b)) {
+			fail(name, text(a) + " == " + text(b));
+		}
+	}
+
+	/**
+	 * task 가 type 의 예외를 발생시키는지 확인한다.
+	 */
+	public static void fails(String name, Class<? extends Throwable> type, Runnable task) {
+		try {
+			task.run();
+			fail(name, "no exception");
+		} catch (Throwable e) {
+			if (!type.isInstance(e)) {
+				fail(name, e.getClass().getName() + " is not " + type.getName());
+			}
+		}
+	}
+
+	public static void fail(String name, String message) {
+		failed++;
+		System.out.println("FAIL " + name + " : " + message);
+	}
+
+	public static int failed() {
+		return failed;
+	}
+
+	/**
+	 * "test OK" 또는 "test FAILED : 실패 수" 를 출력하고 실패가 있으면 1 로 종료한다.
+	 */
+	public static void exit(String test) {
+		System.out.println(failed == 0 ? test + " OK" : test + " FAILED : " + failed);
+		System.exit(failed == 0 ? 0 : 1);
+	}
+
+	private static String text(Object value) {
+		if (value == null || !value.getClass().isArray()) {
+			return String.valueOf(value);
+		}
+		String text = Arrays.deepToString(new Object[] { value });
+		return text.substring(1, text.length() - 1);
+	}
+}
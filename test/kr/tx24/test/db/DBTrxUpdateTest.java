@@ -0,0 +1,110 @@
+package kr.tx24.test.db;
+
+import static kr.tx24.test.Assert.check;
+import static kr.tx24.test.Assert.exit;
+
+import java.util.List;
+
+import kr.tx24.lib.db.Create;
+import kr.tx24.lib.db.DBTrxUpdate;
+import kr.tx24.lib.db.Delete;
+import kr.tx24.lib.db.Update;
+
+/**
+ * DBTrxUpdate 가 batch 로 실행할 쿼리를 묶는 규칙(groups)을 확인한다. DB 접속 없이 쿼리만 생성한다.
+ */
+public class DBTrxUpdateTest {
+
+	public static void main(String[] args) {
+		consecutive();
+		reorder();
+		insert();
+		disabled();
+
+		exit("DBTrxUpdateTest");
+	}
+
+
+	/**
+	 * 기본값으로 연속된 같은 쿼리는 하나로 묶인다.
+	 */
+	private static void consecutive() {
+		DBTrxUpdate trx = new DBTrxUpdate()
+				.add(update("T_A", 1))
+				.add(update("T_A", 2))
+				.add(update("T_A", 3))
+				.add(new Update("T_A").record("amount", 1).where("no", 4))
+				.add(new Delete("T_A").where("id", 5))
+				.add(new Delete("T_A").where("id", 6));
+		check("consecutive", trx.groups(), List.of(List.of(0, 1, 2), List.of(3), List.of(4, 5)));
+	}
+
+
+	/**
+	 * reorder 는 다른 테이블의 쿼리만 건너 뛰며, 같은 테이블 또는 테이블을 알 수 없는 쿼리를 만나면 멈춘다.
+	 */
+	private static void reorder() {
+		check("interleaved", new DBTrxUpdate()
+				.add(update("T_A", 1))
+				.add(update("T_B", 2))
+				.add(update("T_A", 3))
+				.groups(), List.of(List.of(0), List.of(1), List.of(2)));
+
+		check("reorder other table", new DBTrxUpdate().reorder(true)
+				.add(update("T_A", 1))
+				.add(update("T_B", 2))
+				.add(update("T_A", 3))
+				.add(update("T_B", 4))
+				.groups(), List.of(List.of(0, 2), List.of(1, 3)));
+
+		check("reorder same table", new DBTrxUpdate().reorder(true)
+				.add(update("T_A", 1))
+				.add(new Delete("T_A").where("id", 2))
+				.add(update("T_A", 3))
+				.groups(), List.of(List.of(0), List.of(1), List.of(2)));
+
+		check("reorder raw query", new DBTrxUpdate().reorder(true)
+				.add(update("T_A", 1))
+				.add("UPDATE T_B SET amount = 0")
+				.add(update("T_A", 3))
+				.groups(), List.of(List.of(0), List.of(1), List.of(2)));
+	}
+
+
+	/**
+	 * 처리 건수가 항상 1 인 INSERT 만 batch 로 묶는다.
+	 */
+	private static void insert() {
+		check("insert", new DBTrxUpdate()
+				.add(create("T_A", 1))
+				.add(create("T_A", 2))
+				.groups(), List.of(List.of(0, 1)));
+
+		check("insert ignore", new DBTrxUpdate()
+				.add(create("T_A", 1).ignore())
+				.add(create("T_A", 2).ignore())
+				.groups(), List.of(List.of(0), List.of(1)));
+
+		check("insert trailer", new DBTrxUpdate()
+				.add(create("T_A", 1).trailer(" ON DUPLICATE KEY UPDATE amount = 0"))
+				.add(create("T_A", 2).trailer(" ON DUPLICATE KEY UPDATE amount = 0"))
+				.groups(), List.of(List.of(0), List.of(1)));
+	}
+
+
+	private static void disabled() {
+		check("batch false", new DBTrxUpdate().batch(false)
+				.add(update("T_A", 1))
+				.add(update("T_A", 2))
+				.groups(), List.of(List.of(0), List.of(1)));
+	}
+
+
+	private static Update update(String table, int id) {
+		return new Update(table).record("amount", id * 100).where("id", id);
+	}
+
+	private static Create create(String table, int id) {
+		return new Create(table).record("id", id).record("amount", id * 100);
+	}
+}
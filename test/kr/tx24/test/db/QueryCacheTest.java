@@ -0,0 +1,139 @@
+package kr.tx24.test.db;
+
+import static kr.tx24.test.Assert.check;
+import static kr.tx24.test.Assert.differ;
+import static kr.tx24.test.Assert.exit;
+import static kr.tx24.test.Assert.same;
+
+import java.util.List;
+
+import kr.tx24.lib.db.Create;
+import kr.tx24.lib.db.DBUtils;
+import kr.tx24.lib.db.Delete;
+import kr.tx24.lib.db.QueryCache;
+import kr.tx24.lib.db.Retrieve;
+import kr.tx24.lib.db.Update;
+
+/**
+ * 구조가 같은 바인딩 쿼리는 QueryCache 의 같은 문자열을, 구조가 다르면 다른 문자열을 반환하는지 확인한다.
+ * DB 접속 없이 쿼리 문자열만 생성한다.
+ */
+public class QueryCacheTest {
+
+	public static void main(String[] args) {
+		QueryCache.setMaxSize(QueryCache.DEFAULT_MAX_SIZE);
+		QueryCache.clear();
+
+		retrieve();
+		create();
+		update();
+		delete();
+		disabled();
+		overflow();
+
+		System.out.println(QueryCache.getStats());
+		exit("QueryCacheTest");
+	}
+
+
+	private static void retrieve() {
+		Retrieve a = new Retrieve("T_ORDER").where("id", 1).where("amount", 100, DBUtils.gt).orderBy("id").limit(10);
+		Retrieve b = new Retrieve("T_ORDER").where("id", 2).where("amount", 500, DBUtils.gt).orderBy("id").limit(20);
+
+		long hits = QueryCache.getHitCount();
+		String qa = a.buildBindQuery();
+		String qb = b.buildBindQuery();
+		same("retrieve same shape", qa, qb);
+		check("retrieve hit", QueryCache.getHitCount() - hits, 1L);
+		check("retrieve bind a", a.getBindValues(), List.of(1, 100, 10L));
+		check("retrieve bind b", b.getBindValues(), List.of(2, 500, 20L));
+
+		differ("retrieve operator"	, qa, new Retrieve("T_ORDER").where("id", 1).where("amount", 100, DBUtils.lt).orderBy("id").limit(10).buildBindQuery());
+		differ("retrieve column"	, qa, new Retrieve("T_ORDER").where("no", 1).where("amount", 100, DBUtils.gt).orderBy("id").limit(10).buildBindQuery());
+		differ("retrieve table"		, qa, new Retrieve("T_REFUND").where("id", 1).where("amount", 100, DBUtils.gt).orderBy("id").limit(10).buildBindQuery());
+		differ("retrieve order"		, qa, new Retrieve("T_ORDER").where("id", 1).where("amount", 100, DBUtils.gt).orderBy("amount").limit(10).buildBindQuery());
+		differ("retrieve no limit"	, qa, new Retrieve("T_ORDER").where("id", 1).where("amount", 100, DBUtils.gt).orderBy("id").buildBindQuery());
+		differ("retrieve offset"	, qa, new Retrieve("T_ORDER").where("id", 1).where("amount", 100, DBUtils.gt).orderBy("id").limit(5, 10).buildBindQuery());
+		differ("retrieve columns"	, qa, new Retrieve("T_ORDER").columns("id,amount").where("id", 1).where("amount", 100, DBUtils.gt).orderBy("id").limit(10).buildBindQuery());
+		differ("retrieve null"		, qa, new Retrieve("T_ORDER").where("id", null).where("amount", 100, DBUtils.gt).orderBy("id").limit(10).buildBindQuery());
+		differ("retrieve join"		, qa, new Retrieve("T_ORDER").joinInner("T_USER", "T_ORDER.uid = T_USER.id").where("id", 1).where("amount", 100, DBUtils.gt).orderBy("id").limit(10).buildBindQuery());
+		differ("retrieve logical"	, qa, new Retrieve("T_ORDER").where("id", 1).whereOr("amount", 100, DBUtils.gt).orderBy("id").limit(10).buildBindQuery());
+
+		//IN 목록은 개수가 같으면 같은 쿼리이다.
+		String in2 = new Retrieve("T_ORDER").where("id", List.of(1, 2), DBUtils.in).buildBindQuery();
+		same("retrieve in same size"	, in2, new Retrieve("T_ORDER").where("id", List.of(3, 4), DBUtils.in).buildBindQuery());
+		differ("retrieve in size"		, in2, new Retrieve("T_ORDER").where("id", List.of(1, 2, 3), DBUtils.in).buildBindQuery());
+
+		//fn 등 값이 쿼리에 포함되는 조건은 값이 다르면 다른 쿼리이다.
+		String fn = new Retrieve("T_ORDER").where("reg_date", "NOW()", DBUtils.fnlt).buildBindQuery();
+		check("retrieve fn"		, fn.endsWith(" WHERE reg_date < NOW()"), true);
+		differ("retrieve fn value"	, fn, new Retrieve("T_ORDER").where("reg_date", "CURDATE()", DBUtils.fnlt).buildBindQuery());
+
+		String join = new Retrieve("T_ORDER").joinInner("T_USER", "T_ORDER.uid = T_USER.id").where("id", 1).buildBindQuery();
+		same("retrieve join same"	, join, new Retrieve("T_ORDER").joinInner("T_USER", "T_ORDER.uid = T_USER.id").where("id", 2).buildBindQuery());
+		differ("retrieve join on"	, join, new Retrieve("T_ORDER").joinInner("T_USER", "T_ORDER.sid = T_USER.id").where("id", 1).buildBindQuery());
+		differ("retrieve join type"	, join, new Retrieve("T_ORDER").joinLeftOuter("T_USER", "T_ORDER.uid = T_USER.id").where("id", 1).buildBindQuery());
+	}
+
+
+	private static void create() {
+		String qa = new Create("T_ORDER").record("id", 1).record("amount", 100).buildPreparedQuery();
+		String qb = new Create("T_ORDER").record("id", 2).record("amount", 500).buildPreparedQuery();
+		same("create same shape", qa, qb);
+		differ("create column order", qa, new Create("T_ORDER").record("amount", 100).record("id", 1).buildPreparedQuery());
+		differ("create column count", qa, new Create("T_ORDER").record("id", 1).buildPreparedQuery());
+		differ("create table"		, qa, new Create("T_REFUND").record("id", 1).record("amount", 100).buildPreparedQuery());
+	}
+
+
+	private static void update() {
+		Update a = new Update("T_ORDER").record("amount", 100).where("id", 1);
+		Update b = new Update("T_ORDER").record("amount", 500).where("id", 2);
+		String qa = a.buildBindQuery();
+		same("update same shape", qa, b.buildBindQuery());
+		check("update bind a", a.getBindValues(), List.of(100, 1));
+		differ("update column"	, qa, new Update("T_ORDER").record("status", 100).where("id", 1).buildBindQuery());
+		differ("update where"	, qa, new Update("T_ORDER").record("amount", 100).where("no", 1).buildBindQuery());
+	}
+
+
+	private static void delete() {
+		Delete a = new Delete("T_ORDER").where("id", 1);
+		String qa = a.buildBindQuery();
+		same("delete same shape", qa, new Delete("T_ORDER").where("id", 2).buildBindQuery());
+		check("delete bind a", a.getBindValues(), List.of(1));
+		differ("delete where", qa, new Delete("T_ORDER").where("no", 1).buildBindQuery());
+		differ("delete table", qa, new Delete("T_REFUND").where("id", 1).buildBindQuery());
+	}
+
+
+	/**
+	 * cache 를 사용하지 않아도 같은 쿼리가 생성된다.
+	 */
+	private static void disabled() {
+		String cached	= new Retrieve("T_ORDER").where("id", 1).orderBy("id").limit(10).buildBindQuery();
+		String update	= new Update("T_ORDER").record("amount", 100).where("id", 1).buildBindQuery();
+		QueryCache.setMaxSize(0);
+		check("disabled size"		, QueryCache.size(), 0);
+		check("disabled retrieve"	, new Retrieve("T_ORDER").where("id", 2).orderBy("id").limit(20).buildBindQuery(), cached);
+		check("disabled update"		, new Update("T_ORDER").record("amount", 500).where("id", 2).buildBindQuery(), update);
+		check("disabled size after"	, QueryCache.size(), 0);
+		QueryCache.setMaxSize(QueryCache.DEFAULT_MAX_SIZE);
+	}
+
+
+	/**
+	 * 최대 개수를 넘으면 전체를 비우고 다시 적재한다.
+	 */
+	private static void overflow() {
+		QueryCache.clear();
+		QueryCache.setMaxSize(3);
+		for (int i = 0; i < 3; i++) {
+			new Delete("T_" + i).where("id", i).buildBindQuery();
+		}
+		check("overflow full", QueryCache.size(), 3);
+		new Delete("T_3").where("id", 3).buildBindQuery();
+		check("overflow reset", QueryCache.size(), 1);
+		QueryCache.setMaxSize(QueryCache.DEFAULT_MAX_SIZE);
+	}
+}
@@ -0,0 +1,102 @@
+package kr.tx24.test.db;
+
+import static kr.tx24.test.Assert.check;
+import static kr.tx24.test.Assert.exit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import kr.tx24.lib.db.SqlMetrics;
+import kr.tx24.lib.map.LinkedMap;
+
+/**
+ * SqlMetrics 가 질의문을 값과 무관한 구조(shape)로 집계하는지 확인한다.
+ */
+public class SqlMetricsTest {
+
+	public static void main(String[] args) {
+		SqlMetrics.setSlowThreshold(60 * 1000L);
+
+		shape("SELECT * FROM t WHERE id = 123 AND name = 'abc'"			, "SELECT * FROM t WHERE id = ? AND name = ?");
+		shape("  SELECT  a,\n\tb FROM   t  "								, "SELECT a, b FROM t");
+		shape("SELECT col1 FROM tbl2 WHERE amount > 10.5"				, "SELECT col1 FROM tbl2 WHERE amount > ?");
+		shape("SELECT * FROM t WHERE id IN (1, 2, 3)"					, "SELECT * FROM t WHERE id IN (?)");
+		shape("SELECT * FROM t WHERE id IN (?,?,?,?)"					, "SELECT * FROM t WHERE id IN (?)");
+		shape("INSERT INTO t (a, b) VALUES (?, ?), (?, ?), (?, ?)"		, "INSERT INTO t (a, b) VALUES (?)");
+		shape("INSERT INTO t (a) VALUES (1),(2),(3)"					, "INSERT INTO t (a) VALUES (?)");
+		shape("SELECT * FROM t WHERE name = 'O''Reilly'"				, "SELECT * FROM t WHERE name = ?");
+		shape("SELECT * FROM t WHERE name = 'a\\'b' AND c = \"x\""		, "SELECT * FROM t WHERE name = ? AND c = ?");
+		shape("SELECT `order`, @rn := @rn + 1 FROM t_1"					, "SELECT `order`, @rn := @rn + ? FROM t_1");
+
+		sameShape();
+		slowSample();
+
+		exit("SqlMetricsTest");
+	}
+
+
+	private static void shape(String sql, String expected) {
+		SqlMetrics.reset();
+		SqlMetrics.record(sql, System.nanoTime(), 1, (Object) null);
+		List<String> shapes = shapes();
+		check(sql, shapes, List.of(expected));
+	}
+
+
+	/**
+	 * 값만 다른 질의문은 하나의 shape 로 집계된다.
+	 */
+	private static void sameShape() {
+		SqlMetrics.reset();
+		SqlMetrics.record("SELECT * FROM t WHERE id = 1", System.nanoTime(), 1, (Object) null);
+		SqlMetrics.record("SELECT * FROM t WHERE id = 22", System.nanoTime(), 1, (Object) null);
+		SqlMetrics.record("SELECT  *  FROM t WHERE id = '333'", System.nanoTime(), 0, (Object) null);
+		SqlMetrics.error("SELECT * FROM t WHERE id = 4");
+
+		List<LinkedMap<String, Object>> list = statements();
+		check("same shape count", list.size(), 1);
+		if (!list.isEmpty()) {
+			check("same shape calls"	, list.get(0).get("calls"), 3L);
+			check("same shape rows"		, list.get(0).get("rows"), 2L);
+			check("same shape errors"	, list.get(0).get("errors"), 1L);
+		}
+	}
+
+
+	/**
+	 * slow query 는 바인딩 값을 마스킹하여 보관하며 null 값도 허용한다.
+	 */
+	private static void slowSample() {
+		SqlMetrics.reset();
+		SqlMetrics.setSlowThreshold(0);
+		SqlMetrics.record("UPDATE card SET no = ? WHERE id = ? AND memo = ?", System.nanoTime(), 1,
+				new Object[] {"9410123456789012", 7, null});
+		SqlMetrics.setSlowThreshold(60 * 1000L);
+
+		List<LinkedMap<String, Object>> slow = SqlMetrics.getSlowQueries();
+		check("slow count", slow.size(), 1);
+		if (!slow.isEmpty()) {
+			check("slow shape", slow.get(0).get("shape"), "UPDATE card SET no = ? WHERE id = ? AND memo = ?");
+			List<?> values = (List<?>) slow.get(0).get("values");
+			check("slow values size", values.size(), 3);
+			check("slow card masked", !"9410123456789012".equals(values.get(0)), true);
+			check("slow null kept", values.get(2), null);
+		}
+	}
+
+
+	@SuppressWarnings("unchecked")
+	private static List<LinkedMap<String, Object>> statements() {
+		Map<String, Object> stats = SqlMetrics.getStats();
+		return (List<LinkedMap<String, Object>>) stats.get("statements");
+	}
+
+	private static List<String> shapes() {
+		List<String> list = new ArrayList<String>();
+		for (LinkedMap<String, Object> m : statements()) {
+			list.add((String) m.get("shape"));
+		}
+		return list;
+	}
+}
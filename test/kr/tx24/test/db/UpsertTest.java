@@ -0,0 +1,37 @@
+package kr.tx24.test.db;
+
+import static kr.tx24.test.Assert.check;
+import static kr.tx24.test.Assert.exit;
+
+import kr.tx24.lib.db.Upsert;
+
+/**
+ * Upsert.buildPreparedQuery 의 VALUES row 수와 컬럼별 ON DUPLICATE KEY UPDATE 절을 확인한다.
+ */
+public class UpsertTest {
+
+	private static final String[] COLUMNS = { "id", "amount", "count", "reg_date" };
+
+	public static void main(String[] args) {
+		check("replace", new Upsert("T_SUM").buildPreparedQuery(COLUMNS, 1),
+				"INSERT INTO T_SUM (id,amount,count,reg_date) VALUES (?,?,?,?)"
+				+ " ON DUPLICATE KEY UPDATE id=VALUES(id),amount=VALUES(amount),count=VALUES(count),reg_date=VALUES(reg_date)");
+
+		check("rows", new Upsert("T_SUM").key("id").buildPreparedQuery(COLUMNS, 3),
+				"INSERT INTO T_SUM (id,amount,count,reg_date) VALUES (?,?,?,?),(?,?,?,?),(?,?,?,?)"
+				+ " ON DUPLICATE KEY UPDATE amount=VALUES(amount),count=VALUES(count),reg_date=VALUES(reg_date)");
+
+		check("merge", new Upsert("T_SUM").key("id").increment("amount", "count").keep("reg_date").buildPreparedQuery(COLUMNS, 1),
+				"INSERT INTO T_SUM (id,amount,count,reg_date) VALUES (?,?,?,?)"
+				+ " ON DUPLICATE KEY UPDATE amount=amount + VALUES(amount),count=count + VALUES(count)");
+
+		check("all keep", new Upsert("T_SUM").keep(COLUMNS).buildPreparedQuery(COLUMNS, 2),
+				"INSERT INTO T_SUM (id,amount,count,reg_date) VALUES (?,?,?,?),(?,?,?,?)"
+				+ " ON DUPLICATE KEY UPDATE id=id");
+
+		check("init", new Upsert("T_SUM").key("id").init().table("T_SUM").buildPreparedQuery(COLUMNS, 1),
+				new Upsert("T_SUM").buildPreparedQuery(COLUMNS, 1));
+
+		exit("UpsertTest");
+	}
+}
@@ -0,0 +1,78 @@
+package kr.tx24.test.db;
+
+import static kr.tx24.test.Assert.check;
+import static kr.tx24.test.Assert.exit;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import kr.tx24.lib.db.DBUtils;
+
+/**
+ * DBUtils.where(..., values) 가 operator 별로 만드는 바인딩 조건절과 values 에 추가되는 값을 확인한다.
+ */
+public class WhereBindTest {
+
+	public static void main(String[] args) {
+		value();
+		collection();
+		nulls();
+		literal();
+
+		exit("WhereBindTest");
+	}
+
+
+	private static void value() {
+		where("eq"			, "id", 1, DBUtils.eq, "id = ?", List.of(1));
+		where("default eq"	, "id", 1, null, "id = ?", List.of(1));
+		where("upper case"	, "id", 5, "GT", "id > ?", List.of(5));
+		where("quote"		, "name", "O'Neil", "ne", "name != ?", List.of("O'Neil"));
+		where("like"		, "name", "kim", DBUtils.lk, "name LIKE ?", List.of("%kim%"));
+		where("in single"	, "id", 5, DBUtils.in, "id IN (?)", List.of(5));
+		where("timestamp"	, "reg_date", Timestamp.valueOf("2026-01-02 03:04:05"), "ge",
+				"DATE_FORMAT(reg_date,'%Y%m%d%H%i%s') >= ?", List.of("20260102030405"));
+		where("like number"	, "id", 5, DBUtils.lk, "", List.of());
+	}
+
+
+	private static void collection() {
+		where("in"			, "id", List.of(1, 2, 3), DBUtils.in, "id IN (?,?,?)", List.of(1, 2, 3));
+		where("in empty"	, "id", List.of(), DBUtils.in, "1=0", List.of());
+		where("ni empty"	, "id", List.of(), "ni", "1=1", List.of());
+		where("between"		, "amount", List.of(10, 20), DBUtils.bt, "amount BETWEEN ? AND ?", List.of(10, 20));
+		where("between from", "amount", List.of(10), DBUtils.bt, "amount >= ?", List.of(10));
+	}
+
+
+	private static void nulls() {
+		where("eq null"		, "memo", null, DBUtils.eq, "memo IS NULL", List.of());
+		where("ne null"		, "memo", null, "ne", "memo IS NOT NULL", List.of());
+		where("isnull"		, "memo", "x", DBUtils.isnull, "memo IS NULL", List.of());
+		where("no column"	, null, 1, DBUtils.eq, "", List.of());
+	}
+
+
+	/**
+	 * fn 및 문자열 in 은 값이 조건절에 그대로 포함되며 values 에 추가되지 않는다.
+	 */
+	private static void literal() {
+		where("fn"			, "reg_date", "NOW()", "fnlt", "reg_date < NOW()", List.of());
+		where("in string"	, "id", "1,2", DBUtils.in, "id IN (1,2)", List.of());
+
+		List<Object> values = new ArrayList<Object>();
+		String sql = DBUtils.where("id", 1, DBUtils.eq, DBUtils.AND, values)
+				+ DBUtils.AND + DBUtils.where("name", "kim", DBUtils.lk, DBUtils.AND, values)
+				+ DBUtils.AND + DBUtils.where("reg_date", "NOW()", "fnlt", DBUtils.AND, values);
+		check("order sql"	, sql, "id = ? AND name LIKE ? AND reg_date < NOW()");
+		check("order values", values, List.of(1, "%kim%"));
+	}
+
+
+	private static void where(String name, String column, Object value, String operator, String sql, List<Object> expected) {
+		List<Object> values = new ArrayList<Object>();
+		check(name + " sql"		, DBUtils.where(column, value, operator, DBUtils.AND, values), sql);
+		check(name + " values"	, values, expected);
+	}
+}
@@ -0,0 +1,174 @@
+package kr.tx24.test.inet;
+
+import static kr.tx24.test.Assert.check;
+import static kr.tx24.test.Assert.exit;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import kr.tx24.inet.capture.INetCapture;
+import kr.tx24.inet.capture.INetCaptureFile;
+import kr.tx24.inet.codec.INetDecoder;
+import kr.tx24.inet.codec.INetEncoder;
+import kr.tx24.inet.util.INetRespUtils;
+import kr.tx24.lib.inter.INet;
+import kr.tx24.lib.map.SharedMap;
+
+/**
+ * head-first INet 프레임을 INetEncoder → INetDecoder 로 전달하여 head/data 가 그대로 복원되는지 확인한다.
+ */
+public class HeadFirstTest {
+
+	public static void main(String[] args) throws Exception {
+		headFirst();
+		legacy();
+		fragmented();
+		template(true);
+		template(false);
+
+		exit("HeadFirstTest");
+	}
+
+
+	private static void headFirst() throws Exception {
+		ByteBuf frame = encode(request().headFirst());
+		check("magic", INet.isHeadFirst(payload(frame)), true);
+
+		EmbeddedChannel server = new EmbeddedChannel(new INetDecoder(), new INetEncoder());
+		server.writeInbound(frame);
+		INet inet = server.readInbound();
+
+		check("isHeadFirst"			, inet.isHeadFirst(), true);
+		check("data pending"		, inet.isDataPending(), true);
+		check("head target"			, inet.head().getString("target"), "/inet/hello");
+		check("head id"				, inet.head().getLong("id"), 7L);
+		check("data pending after head", inet.isDataPending(), true);
+		check("data name"			, inet.data().getString("name"), "홍길동");
+		check("data amount"			, inet.data().getLong("amount"), 15000L);
+		check("data pending after data", inet.isDataPending(), false);
+		check("channel attr"		, server.attr(INetDecoder.HEAD_FIRST).get(), Boolean.TRUE);
+
+		//head-first 로 수신한 채널은 응답도 head-first 로 보낸다.
+		server.writeOutbound(new INet().head("result", true).data("echo", "ok"));
+		ByteBuf response = server.readOutbound();
+		check("response magic", INet.isHeadFirst(payload(response)), true);
+
+		EmbeddedChannel client = new EmbeddedChannel(new INetDecoder());
+		client.writeInbound(response);
+		INet reply = client.readInbound();
+		check("response head"	, reply.head().getBoolean("result"), true);
+		check("response data"	, reply.data().getString("echo"), "ok");
+		server.finishAndReleaseAll();
+		client.finishAndReleaseAll();
+	}
+
+
+	private static void legacy() throws Exception {
+		ByteBuf frame = encode(request());
+		check("legacy magic", INet.isHeadFirst(payload(frame)), false);
+
+		EmbeddedChannel server = new EmbeddedChannel(new INetDecoder(), new INetEncoder());
+		server.writeInbound(frame);
+		INet inet = server.readInbound();
+		check("legacy isHeadFirst"	, inet.isHeadFirst(), false);
+		check("legacy data pending"	, inet.isDataPending(), false);
+		check("legacy head target"	, inet.head().getString("target"), "/inet/hello");
+		check("legacy data name"	, inet.data().getString("name"), "홍길동");
+		check("legacy channel attr"	, server.attr(INetDecoder.HEAD_FIRST).get(), null);
+
+		server.writeOutbound(new INet().head("result", true));
+		ByteBuf response = server.readOutbound();
+		check("legacy response magic", INet.isHeadFirst(payload(response)), false);
+		response.release();
+		server.finishAndReleaseAll();
+	}
+
+
+	/**
+	 * 프레임이 나누어 도착해도 하나의 INet 으로 복원된다.
+	 */
+	private static void fragmented() throws Exception {
+		ByteBuf frame = encode(request().headFirst());
+		EmbeddedChannel server = new EmbeddedChannel(new INetDecoder());
+		while (frame.isReadable()) {
+			server.writeInbound(frame.readRetainedSlice(Math.min(7, frame.readableBytes())));
+		}
+		frame.release();
+		INet inet = server.readInbound();
+		check("fragmented head", inet.head().getString("target"), "/inet/hello");
+		check("fragmented data", inet.data().getLong("amount"), 15000L);
+		check("fragmented single", server.readInbound(), null);
+		server.finishAndReleaseAll();
+	}
+
+
+	/**
+	 * 미리 직렬화된 SERVER_BUSY 응답도 채널 형식을 따르고 캡처에 기록된다.
+	 */
+	private static void template(boolean headFirst) throws Exception {
+		String name = headFirst ? "template head-first" : "template legacy";
+		Path file = Files.createTempFile("inet", ".cap");
+		SharedMap<String, Object> config = new SharedMap<>();
+		config.put("file", file.toString());
+		config.put("outbound", true);
+		INetCapture.start(config);
+
+		EmbeddedChannel server = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+		if (headFirst) {
+			server.attr(INetDecoder.HEAD_FIRST).set(Boolean.TRUE);
+		}
+		String extTrxId = "1760000000000" + server.id().asShortText();
+		INetRespUtils.sendServerBusy(server.pipeline().firstContext(), extTrxId);
+		server.runPendingTasks();
+		ByteBuf response = server.readOutbound();
+		byte[] payload = payload(response);
+		check(name + " magic", INet.isHeadFirst(payload), headFirst);
+
+		EmbeddedChannel client = new EmbeddedChannel(new INetDecoder());
+		client.writeInbound(response);
+		INet reply = client.readInbound();
+		check(name + " result"		, reply.head().getBoolean("result"), false);
+		check(name + " errorCode"	, reply.data().getString("errorCode"), "SERVER_BUSY");
+		check(name + " extTrxId"	, reply.data().getString("extTrxId"), extTrxId);
+		client.finishAndReleaseAll();
+		server.finishAndReleaseAll();
+
+		INetCapture.stop();
+		//client 의 INetDecoder 가 기록한 INBOUND 는 제외한다.
+		List<INetCaptureFile.Record> records = INetCaptureFile.read(file, false);
+		records.removeIf(INetCaptureFile.Record::isInbound);
+		check(name + " captured", records.size(), 1);
+		if (records.size() == 1) {
+			check(name + " captured magic", INet.isHeadFirst(records.get(0).frame()), headFirst);
+		}
+		Files.deleteIfExists(file);
+	}
+
+
+	private static INet request() {
+		return new INet("test", "/inet/hello")
+				.head("id", 7L)
+				.data("name", "홍길동")
+				.data("amount", 15000L);
+	}
+
+	private static ByteBuf encode(INet inet) {
+		EmbeddedChannel channel = new EmbeddedChannel(new INetEncoder());
+		channel.writeOutbound(inet);
+		ByteBuf frame = channel.readOutbound();
+		channel.finish();
+		return frame;
+	}
+
+	/**
+	 * 길이 필드를 제외한 프레임, readerIndex 는 변경하지 않는다.
+	 */
+	private static byte[] payload(ByteBuf frame) {
+		return ByteBufUtil.getBytes(frame, frame.readerIndex() + 4, frame.readableBytes() - 4);
+	}
+}
@@ -0,0 +1,176 @@
+package kr.tx24.test.map;
+
+import static kr.tx24.test.Assert.check;
+import static kr.tx24.test.Assert.exit;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import kr.tx24.lib.inter.INet.INMap;
+import kr.tx24.lib.map.TypedMap;
+
+/**
+ * TypedMap 을 LinkedHashMap 과 같은 순서로 조작하여 결과가 같은지 확인한다.
+ */
+public class TypedMapTest {
+
+	public static void main(String[] args) {
+		basic();
+		random(20260101L, 20000);
+		iteratorRemove();
+		sameAsINMap();
+
+		exit("TypedMapTest");
+	}
+
+
+	private static void basic() {
+		TypedMap map = new TypedMap();
+		map.putInt("int", 10);
+		map.putLong("long", 20L);
+		map.putDouble("double", 1.5);
+		map.putBoolean("bool", true);
+		map.put("str", "300");
+		map.put("null", null);
+
+		check("get int"			, map.get("int"), 10);
+		check("get long"		, map.get("long"), 20L);
+		check("get double"		, map.get("double"), 1.5);
+		check("get bool"		, map.get("bool"), true);
+		check("getLong str"		, map.getLong("str"), 300L);
+		check("getLong str again", map.getLong("str"), 300L);
+		check("get str"			, map.get("str"), "300");
+		check("containsKey null", map.containsKey("null"), true);
+		check("size"			, map.size(), 6);
+
+		map.put("str", "400");
+		check("getLong replaced", map.getLong("str"), 400L);
+
+		map.putInt("int", 11);
+		check("order after replace", new ArrayList<String>(map.keySet()),
+				List.of("int", "long", "double", "bool", "str", "null"));
+
+		LinkedHashMap<String, Object> expected = new LinkedHashMap<String, Object>();
+		expected.put("int", 11);
+		expected.put("long", 20L);
+		expected.put("double", 1.5);
+		expected.put("bool", true);
+		expected.put("str", "400");
+		expected.put("null", null);
+		compare("basic", map, expected);
+	}
+
+
+	private static void random(long seed, int ops) {
+		Random random = new Random(seed);
+		TypedMap map = new TypedMap(4);
+		LinkedHashMap<String, Object> expected = new LinkedHashMap<String, Object>();
+
+		for (int i = 0; i < ops; i++) {
+			String key = "k" + random.nextInt(200);
+			switch (random.nextInt(8)) {
+				case 0 -> {
+					int v = random.nextInt();
+					map.putInt(key, v);
+					expected.put(key, v);
+				}
+				case 1 -> {
+					long v = random.nextLong();
+					map.putLong(key, v);
+					expected.put(key, v);
+				}
+				case 2 -> {
+					double v = random.nextDouble();
+					map.putDouble(key, v);
+					expected.put(key, v);
+				}
+				case 3 -> {
+					String v = String.valueOf(random.nextInt(1000));
+					map.put(key, v);
+					expected.put(key, v);
+					map.getLong(key);		//변환 결과를 보관한 뒤에도 값이 같아야 한다.
+				}
+				case 4, 5 -> {
+					check("remove " + key, map.remove(key), expected.remove(key));
+				}
+				case 6 -> {
+					map.put(key, null);
+					expected.put(key, null);
+				}
+				default -> {
+					if (random.nextInt(50) == 0) {
+						map.clear();
+						expected.clear();
+					}
+				}
+			}
+			if (i % 1000 == 0) {
+				compare("random " + i, map, expected);
+			}
+		}
+		compare("random", map, expected);
+
+		TypedMap copy = new TypedMap(expected);
+		compare("copy", copy, expected);
+	}
+
+
+	private static void iteratorRemove() {
+		TypedMap map = new TypedMap();
+		LinkedHashMap<String, Object> expected = new LinkedHashMap<String, Object>();
+		for (int i = 0; i < 50; i++) {
+			map.putInt("k" + i, i);
+			expected.put("k" + i, i);
+		}
+		for (Iterator<Map.Entry<String, Object>> it = map.entrySet().iterator(); it.hasNext();) {
+			if (((Integer) it.next().getValue()) % 3 == 0) {
+				it.remove();
+			}
+		}
+		expected.values().removeIf(v -> ((Integer) v) % 3 == 0);
+		compare("iterator remove", map, expected);
+	}
+
+
+	/**
+	 * 같은 값에 대해 INMap 과 getter 결과가 같아야 한다.
+	 */
+	private static void sameAsINMap() {
+		Object[] values = {
+				7, -7, 1, 0, 2, 1L, 2L, Long.MAX_VALUE, 4_294_967_297L, 1.0, 2.5, -2.5, 1e20, true, false,
+				"12", " 34 ", "2147483647", "2147483648", "-2147483649", "99999999999999999999",
+				"TRUE", "True", "true", "1", "yes", "abc", "", "3.5", new java.math.BigDecimal("12.75"), null };
+		INMap in = new INMap();
+		TypedMap typed = new TypedMap();
+		for (int i = 0; i < values.length; i++) {
+			in.put("k" + i, values[i]);
+			typed.put("k" + i, values[i]);
+		}
+		for (int i = 0; i < values.length; i++) {
+			String key = "k" + i;
+			String name = "INMap " + values[i];
+			check(name + " getInt"		, typed.getInt(key), in.getInt(key));
+			check(name + " getInt again", typed.getInt(key), in.getInt(key));
+			check(name + " getLong"		, typed.getLong(key), in.getLong(key));
+			check(name + " getDouble"	, typed.getDouble(key), in.getDouble(key));
+			check(name + " getBoolean"	, typed.getBoolean(key), in.getBoolean(key));
+			check(name + " getString"	, typed.getString(key), in.getString(key));
+		}
+		check("INMap missing getInt"		, typed.getInt("none"), in.getInt("none"));
+		check("INMap missing getBoolean"	, typed.getBoolean("none"), in.getBoolean("none"));
+	}
+
+
+	private static void compare(String name, TypedMap map, LinkedHashMap<String, Object> expected) {
+		check(name + " size"		, map.size(), expected.size());
+		check(name + " keys"		, new ArrayList<String>(map.keySet()), new ArrayList<String>(expected.keySet()));
+		check(name + " values"		, new ArrayList<Object>(map.values()), new ArrayList<Object>(expected.values()));
+		check(name + " equals"		, map.equals(expected), true);
+		check(name + " equals rev"	, expected.equals(map), true);
+		check(name + " hashCode"	, map.hashCode(), expected.hashCode());
+	}
+}